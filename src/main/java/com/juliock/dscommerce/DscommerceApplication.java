@@ -2,8 +2,10 @@ package com.juliock.dscommerce;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling   //  habilita os metodos @Scheduled (ex: reconstrução periódica do ProductIdFilter no ProductService)
 public class DscommerceApplication {
 
 	public static void main(String[] args) {
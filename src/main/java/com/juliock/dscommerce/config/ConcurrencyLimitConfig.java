@@ -0,0 +1,35 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.limits.ConcurrencyLimits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+*   Registra o ConcurrencyLimitInterceptor em todos os endpoints, menos:
+*       - /metrics/**: o scrape e a consulta dos limites precisam responder justamente quando a aplicação está sobrecarregada;
+*       - /products/import e /products/export: transferências longas, que ja limitam o proprio paralelismo e ocupariam
+*           uma vaga por muito tempo, distorcendo a latência usada no calculo do limite.
+*   Com dscommerce.concurrency-limit.enabled = false nada é registrado.
+* */
+
+@Configuration
+public class ConcurrencyLimitConfig implements WebMvcConfigurer {
+
+    private final ConcurrencyLimits limits;
+
+    @Autowired
+    public ConcurrencyLimitConfig(ConcurrencyLimits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!limits.isEnabled())
+            return;
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(limits))
+                .addPathPatterns("/**")
+                .excludePathPatterns("/metrics/**", "/metrics", "/products/import", "/products/export");
+    }
+}
@@ -0,0 +1,57 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.exceptions.ServiceOverloadedException;
+import com.juliock.dscommerce.services.limits.AdaptiveConcurrencyLimiter;
+import com.juliock.dscommerce.services.limits.ConcurrencyLimits;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/*
+*   Controle de admissão na frente dos Controllers: cada request precisa de uma vaga no limite do seu grupo (ConcurrencyLimits).
+*
+*   Sem vaga, a ServiceOverloadedException é lançada ANTES do Controller ser chamado; o DispatcherServlet passa essa exception
+*       para o ControllerExceptionHandler, entao a resposta 503 (com Retry-After) tem o mesmo formato CustomError dos outros erros.
+*
+*   A vaga fica num atributo da request e é devolvida no afterCompletion, com a latência do atendimento.
+*       Uma request assincrona (ex: StreamingResponseBody) volta a passar pelo DispatcherServlet no fim (dispatch ASYNC):
+*       a vaga só é pedida no primeiro dispatch e só é devolvida quando o atendimento termina de verdade.
+* */
+
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final ConcurrencyLimits limits;
+
+    public ConcurrencyLimitInterceptor(ConcurrencyLimits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST || request.getAttribute(PERMIT_ATTRIBUTE) != null)
+            return true;
+
+        AdaptiveConcurrencyLimiter limiter = limits.forMethod(request.getMethod());
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        if (permit == null)
+            throw new ServiceOverloadedException(limiter.getName(), limits.getRetryAfterSeconds());
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        return true;
+    }
+
+    //  Chamado no lugar do afterCompletion quando a request passa a ser assincrona: a vaga continua ocupada
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof AdaptiveConcurrencyLimiter.Permit permit) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permit.release();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.DscommerceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/*
+*   Gera o snapshot do banco usado pelo profile "fast-start" (ver DatabaseSnapshotEnvironmentPostProcessor).
+*
+*   Sobe a aplicação uma vez, sem servidor web, com um banco H2 em ARQUIVO e ddl-auto = create: o Hibernate cria o schema e executa
+*       o import.sql como numa inicialização normal, mas o banco nao é apagado no fim (create-drop apagaria).
+*   No fim, SHUTDOWN COMPACT grava tudo e compacta o arquivo. O resultado é <destino>.mv.db.
+*
+*   Executado pelo profile Maven "fast-start" (mvn -P fast-start package), ou direto:
+*       java -cp <classpath> com.juliock.dscommerce.config.DatabaseSnapshotBuilder target/fast-start/dscommerce
+* */
+
+public class DatabaseSnapshotBuilder {
+
+    public static void main(String[] args) throws IOException {
+        Path database = Path.of(args.length > 0 ? args[0] : "target/fast-start/dscommerce").toAbsolutePath();
+        Files.deleteIfExists(Path.of(database + DatabaseSnapshotEnvironmentPostProcessor.H2_FILE_SUFFIX));
+        Files.createDirectories(database.getParent());
+
+        SpringApplication application = new SpringApplication(DscommerceApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        try (ConfigurableApplicationContext context = application.run(
+                "--spring.profiles.active=test",
+                "--spring.datasource.url=jdbc:h2:file:" + database,
+                "--spring.jpa.hibernate.ddl-auto=create",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN")) {
+            context.getBean(JdbcTemplate.class).execute("SHUTDOWN COMPACT");
+        }
+        System.out.println("Database snapshot written to " + database + DatabaseSnapshotEnvironmentPostProcessor.H2_FILE_SUFFIX);
+    }
+}
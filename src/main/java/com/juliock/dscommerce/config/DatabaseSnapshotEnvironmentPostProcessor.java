@@ -0,0 +1,65 @@
+package com.juliock.dscommerce.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+
+/*
+*   Profile "fast-start": em vez de criar o schema e executar o import.sql a cada inicialização, a aplicação abre uma COPIA
+*       de um banco H2 em arquivo ja pronto (o snapshot, gerado no build por DatabaseSnapshotBuilder).
+*
+*   Copiar um arquivo é muito mais rapido do que recriar as tabelas e executar os INSERTs, e o snapshot em si nunca é alterado:
+*       cada processo trabalha na sua propria copia (dscommerce.fast-start.work-dir/dscommerce-<pid>), apagada quando o processo termina.
+*   A copia é feita aqui, antes de qualquer bean ser criado, e o spring.datasource.url passa a apontar para ela.
+*
+*   Sem dscommerce.fast-start.snapshot (fora do profile), nada muda. Registrado em META-INF/spring.factories.
+* */
+
+public class DatabaseSnapshotEnvironmentPostProcessor implements EnvironmentPostProcessor, Ordered {
+
+    public static final String SNAPSHOT_PROPERTY = "dscommerce.fast-start.snapshot";
+    public static final String WORK_DIR_PROPERTY = "dscommerce.fast-start.work-dir";
+
+    //  Extensão do arquivo de dados do H2 (MVStore): a URL JDBC usa o caminho sem ela
+    static final String H2_FILE_SUFFIX = ".mv.db";
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String snapshotProperty = environment.getProperty(SNAPSHOT_PROPERTY);
+        if (snapshotProperty == null || snapshotProperty.isBlank())
+            return;
+
+        Path snapshot = Path.of(snapshotProperty).toAbsolutePath();
+        if (!Files.isRegularFile(snapshot))
+            throw new IllegalStateException("Database snapshot not found: " + snapshot + " (build it with: mvn -P fast-start package)");
+
+        Path workDir = Path.of(environment.getProperty(WORK_DIR_PROPERTY, "target/fast-start/work")).toAbsolutePath();
+        Path database = workDir.resolve("dscommerce-" + ProcessHandle.current().pid());
+        Path file = Path.of(database + H2_FILE_SUFFIX);
+        try {
+            Files.createDirectories(workDir);
+            Files.copy(snapshot, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not copy database snapshot " + snapshot, e);
+        }
+        file.toFile().deleteOnExit();
+
+        environment.getPropertySources().addFirst(new MapPropertySource("databaseSnapshot",
+                Map.of("spring.datasource.url", "jdbc:h2:file:" + database)));
+    }
+
+    //  Depois do carregamento do application-*.properties, para enxergar as propriedades do profile
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
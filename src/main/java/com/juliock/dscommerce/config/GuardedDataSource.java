@@ -0,0 +1,134 @@
+package com.juliock.dscommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+*   DataSource que limita quantas threads podem usar uma conexão ao mesmo tempo, e quantas podem ficar esperando por uma.
+*
+*   Com virtual threads, o Tomcat deixa de ter um limite natural de threads (antes eram 200 threads de plataforma):
+*       milhares de requests podem chegar ao mesmo tempo na camada de dados e ficar presas na fila do pool de conexões.
+*       Aqui, as threads esperam numa fila justa (FIFO) de um Semaphore com tantas permissões quanto o tamanho do pool;
+*       passando de maxWaiting threads na fila, a conexão é negada na hora (falha rápida em vez de fila infinita).
+*
+*   A permissão é devolvida quando a conexão é fechada (devolvida ao pool).
+*
+*   Deve embrulhar o pool de conexões em si (forPool), um GuardedDataSource por pool: embrulhar um DataSource que distribui entre
+*       varios pools (ex: o ReadWriteRoutingDataSource) empilharia semaforos com tamanhos que nao correspondem a nenhum pool.
+* */
+
+public class GuardedDataSource extends DelegatingDataSource implements Closeable {
+
+    private final Semaphore permits;
+    private final int maxWaiting;
+    private final long timeoutMillis;
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    public GuardedDataSource(DataSource target, int maxConcurrent, int maxWaiting, long timeoutMillis) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.maxWaiting = maxWaiting;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    //  Permissões = tamanho do pool, espera maxima = connection-timeout do proprio pool
+    public static GuardedDataSource forPool(HikariDataSource pool, int maxWaiting) {
+        return new GuardedDataSource(pool, pool.getMaximumPoolSize(), maxWaiting, pool.getConnectionTimeout());
+    }
+
+    //  O bean passa a ser este objeto, entao é ele que o Spring fecha no shutdown: repassa para o pool
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable closeable)
+            closeable.close();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return guard(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    private void acquire() throws SQLException {
+        if (permits.tryAcquire())
+            return;
+
+        if (waiting.incrementAndGet() > maxWaiting) {
+            waiting.decrementAndGet();
+            throw new SQLTransientConnectionException("Too many threads waiting for a database connection");
+        }
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS))
+                throw new SQLTransientConnectionException("Timed out waiting for a database connection");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a database connection", e);
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+
+    //  Proxy da conexão que devolve a permissão no primeiro close()
+    private Connection guard(Connection connection) {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        if (closed.compareAndSet(false, true)) {
+                            try {
+                                connection.close();
+                            } finally {
+                                permits.release();
+                            }
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy))
+                        return proxy;
+                    if (method.getName().equals("isWrapperFor") && ((Class<?>) args[0]).isInstance(proxy))
+                        return true;
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
@@ -0,0 +1,101 @@
+package com.juliock.dscommerce.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/*
+*   "Replicação" para rodar localmente com varias instancias do H2 em memória (profile "replicas", ver application-replicas.properties).
+*
+*   Um H2 em memória nao replica para outro, entao a cada dscommerce.datasource.replicas.local-sync-interval-ms o principal é
+*       exportado (SCRIPT, o dump do H2) para um arquivo temporário e carregado em cada réplica (RUNSCRIPT), uma réplica por vez:
+*       enquanto uma está sendo recarregada ela fica fora de rotação e as leituras vao para as outras (ou para o principal).
+*   Entre duas copias as réplicas ficam ATRASADAS, como uma réplica real com atraso de replicação: é o que permite ver
+*       localmente o efeito do read-your-writes (ReadYourWritesFilter).
+*
+*   A copia é inteira a cada vez: serve para desenvolvimento e testes com poucos dados, nao para produção
+*       (lá as réplicas sao do proprio banco, e este componente fica desligado).
+* */
+
+public class H2ReplicaSynchronizer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(H2ReplicaSynchronizer.class);
+
+    private static final long DRAIN_TIMEOUT_MILLIS = 5_000;
+
+    private final ReplicaPoolDataSource replicaPool;
+
+    public H2ReplicaSynchronizer(ReplicaPoolDataSource replicaPool) {
+        this.replicaPool = replicaPool;
+    }
+
+    @Scheduled(fixedDelayString = "${dscommerce.datasource.replicas.local-sync-interval-ms:1000}")
+    public synchronized void synchronize() {
+        Path script = null;
+        try {
+            script = Files.createTempFile("dscommerce-replica-", ".sql");
+            try (Connection connection = replicaPool.getPrimary().getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("SCRIPT NOPASSWORDS NOSETTINGS TO " + literal(script));
+            }
+            for (int i = 0; i < replicaPool.size(); i++)
+                copyTo(i, script);
+        } catch (IOException | SQLException e) {
+            LOG.warn("Replica synchronization failed: {}", e.getMessage());
+        } finally {
+            if (script != null) {
+                try {
+                    Files.deleteIfExists(script);
+                } catch (IOException e) {
+                    LOG.debug("Could not delete {}", script, e);
+                }
+            }
+        }
+    }
+
+    /*  Se a copia falhar, a réplica continua fora de rotação até a proxima copia bem sucedida.
+    *   Se uma leitura longa (ex: uma exportação) nao terminar a tempo, a réplica volta como estava e fica para a proxima rodada. */
+    private void copyTo(int index, Path script) throws SQLException {
+        boolean wasAvailable = replicaPool.isAvailable(index);
+        replicaPool.setAvailable(index, false);
+        if (!awaitIdle(index)) {
+            replicaPool.setAvailable(index, wasAvailable);
+            return;
+        }
+
+        try (Connection connection = replicaPool.getReplica(index).getConnection();
+             Statement statement = connection.createStatement()) {
+            connection.setReadOnly(false);
+            statement.execute("DROP ALL OBJECTS");
+            statement.execute("RUNSCRIPT FROM " + literal(script));
+        }
+        replicaPool.setAvailable(index, true);
+    }
+
+    //  Espera as leituras que ja estavam na réplica terminarem (nenhuma nova entra, pois ela ja saiu de rotação)
+    private boolean awaitIdle(int index) {
+        long deadline = System.nanoTime() + DRAIN_TIMEOUT_MILLIS * 1_000_000;
+        while (replicaPool.getActive(index) > 0) {
+            if (System.nanoTime() > deadline)
+                return false;
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String literal(Path path) {
+        return "'" + path.toAbsolutePath().toString().replace("'", "''") + "'";
+    }
+}
@@ -0,0 +1,37 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.metrics.MethodMetrics;
+import com.juliock.dscommerce.services.metrics.MethodMetricsRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/*
+*   Interceptor (AOP) que mede cada chamada aos metodos publicos dos @RestController e @Service (ver MetricsConfig):
+*       conta a chamada como "em andamento", mede a duração com System.nanoTime() e, se terminar com exception, conta o tipo dela.
+*
+*   É um MethodInterceptor e nao um @Aspect com @Around para nao criar um ProceedingJoinPoint a cada chamada.
+* */
+
+public class MethodMetricsInterceptor implements MethodInterceptor {
+
+    private final MethodMetricsRegistry registry;
+
+    public MethodMetricsInterceptor(MethodMetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        MethodMetrics metrics = registry.metricsFor(invocation.getMethod());
+        metrics.enter();
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            metrics.recordError(e.getClass());
+            throw e;
+        } finally {
+            metrics.exit(System.nanoTime() - start);
+        }
+    }
+}
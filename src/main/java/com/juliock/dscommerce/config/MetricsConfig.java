@@ -0,0 +1,45 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.metrics.MethodMetricsRegistry;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.StaticMethodMatcherPointcut;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/*
+*   Instrumentação dos Controllers e Services (latência, chamadas em andamento e erros), exportada em GET /metrics (MetricsController).
+*
+*   O Advisor abaixo é aplicado pelo mesmo mecanismo de proxies que o Spring usa no @Transactional:
+*       todo metodo publico de uma classe @RestController ou @Service passa pelo MethodMetricsInterceptor.
+*   A ordem HIGHEST_PRECEDENCE coloca a medição POR FORA da transação, entao o tempo do commit também é contado.
+* */
+
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public Advisor methodMetricsAdvisor(MethodMetricsRegistry registry) {
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(new InstrumentedMethodPointcut(), new MethodMetricsInterceptor(registry));
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return advisor;
+    }
+
+    private static final class InstrumentedMethodPointcut extends StaticMethodMatcherPointcut {
+
+        @Override
+        public boolean matches(Method method, Class<?> targetClass) {
+            if (!Modifier.isPublic(method.getModifiers()) || method.getDeclaringClass() == Object.class)
+                return false;
+            return AnnotatedElementUtils.hasAnnotation(targetClass, RestController.class)
+                    || AnnotatedElementUtils.hasAnnotation(targetClass, Service.class);
+        }
+    }
+}
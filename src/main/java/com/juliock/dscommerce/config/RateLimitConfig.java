@@ -0,0 +1,35 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.limits.RateLimits;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/*
+*   Registra o RateLimitInterceptor em todos os endpoints menos /metrics/**, ANTES do ConcurrencyLimitInterceptor:
+*       a request de um cliente que passou do limite é recusada sem ocupar uma vaga do limite de concorrência.
+*   Com dscommerce.rate-limit.enabled = false nada é registrado.
+* */
+
+@Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+
+    private final RateLimits limits;
+
+    @Autowired
+    public RateLimitConfig(RateLimits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (!limits.isEnabled())
+            return;
+        registry.addInterceptor(new RateLimitInterceptor(limits))
+                .addPathPatterns("/**")
+                .excludePathPatterns("/metrics/**", "/metrics")
+                .order(Ordered.HIGHEST_PRECEDENCE);
+    }
+}
@@ -0,0 +1,59 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.exceptions.RateLimitExceededException;
+import com.juliock.dscommerce.services.limits.RateLimits;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Aplica o limite por cliente (RateLimits) antes do Controller. Passando do limite, a RateLimitExceededException vira um 429
+*       no formato CustomError, com Retry-After (ver ControllerExceptionHandler).
+*
+*   O limite vale sempre para o endereço de origem da request; o header X-API-Key só acrescenta o balde da chave quando ela está
+*       cadastrada (ver RateLimits.tryAcquire).
+*
+*   A rota sai do mapeamento ja resolvido pelo Spring: um GET com variavel no caminho ({id}) é uma leitura de um recurso;
+*       sem variavel, é uma listagem/busca.
+* */
+
+public class RateLimitInterceptor implements HandlerInterceptor {
+
+    public static final String API_KEY_HEADER = "X-API-Key";
+
+    private final RateLimits limits;
+
+    public RateLimitInterceptor(RateLimits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST)
+            return true;
+
+        RateLimits.RouteLimit route = route(request);
+        long waitNanos = limits.tryAcquire(route, request.getRemoteAddr(), request.getHeader(API_KEY_HEADER));
+        if (waitNanos > 0)
+            throw new RateLimitExceededException(route.getName(), Math.max(1, ceilSeconds(waitNanos)));
+        return true;
+    }
+
+    private RateLimits.RouteLimit route(HttpServletRequest request) {
+        String method = request.getMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method))
+            return limits.writes();
+
+        Object variables = request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+        return (variables instanceof Map<?, ?> map && !map.isEmpty()) ? limits.reads() : limits.searches();
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
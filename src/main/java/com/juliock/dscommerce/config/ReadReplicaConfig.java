@@ -0,0 +1,91 @@
+package com.juliock.dscommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/*
+*   RÉPLICAS DE LEITURA: as transações readOnly (ex: ProductService.findProductById, findAllProducts, searchProductByName)
+*       passam a ler de um conjunto de réplicas, e as escritas continuam no banco principal.
+*
+*   Ativado por dscommerce.datasource.replicas.enabled=true (ex: profile "replicas", ver application-replicas.properties).
+*       O DataSource da aplicação passa a ser um ReadWriteRoutingDataSource:
+*       - o principal é o spring.datasource.* de sempre (pool spring.datasource.hikari.*);
+*       - cada URL de dscommerce.datasource.replicas.urls ganha o seu pool, com dscommerce.datasource.replicas.pool-size conexões;
+*       - a réplica de cada transação é escolhida por round-robin ou least-connections (dscommerce.datasource.replicas.balancing).
+*
+*   As réplicas ficam atrasadas em relação ao principal. Por isso:
+*       - o ReadYourWritesFilter manda para o principal as leituras de um cliente logo depois de uma escrita dele;
+*       - quem precisa do ultimo commit (ex: recarga dos indices em memória) marca a thread com ReadReplicaRouting.primary();
+*       - o ProductCache e o ProductPageCache invalidam as entradas de novo depois de dscommerce.datasource.replicas.max-lag-ms,
+*           pois uma leitura numa réplica ainda atrasada poderia colocar o valor antigo de volta no cache.
+*
+*   Com virtual threads (spring.threads.virtual.enabled=true), o principal e cada réplica ganham o seu GuardedDataSource,
+*       com tantas permissões quanto o tamanho do respectivo pool.
+*
+*   Para rodar localmente, as réplicas sao outros H2 em memória, copiados do principal pelo H2ReplicaSynchronizer
+*       (dscommerce.datasource.replicas.local-sync=true). Até a primeira copia, as réplicas ficam fora de rotação.
+* */
+
+@Configuration
+@ConditionalOnProperty(name = "dscommerce.datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, Environment environment,
+            @Value("${dscommerce.datasource.replicas.urls}") List<String> urls,
+            @Value("${dscommerce.datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${dscommerce.datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${dscommerce.datasource.replicas.pool-size:10}") int poolSize,
+            @Value("${dscommerce.datasource.replicas.balancing:round-robin}") String balancing,
+            @Value("${dscommerce.datasource.replicas.local-sync:false}") boolean localSync,
+            @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+            @Value("${dscommerce.datasource.guard.max-waiting:2000}") int maxWaiting) {
+
+        HikariDataSource primaryPool = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primaryPool));
+        DataSource primary = virtualThreads ? GuardedDataSource.forPool(primaryPool, maxWaiting) : primaryPool;
+
+        List<DataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = DataSourceBuilder.create().type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(urls.get(i).trim()).username(username).password(password)
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setMaximumPoolSize(poolSize);
+            replica.setReadOnly(true);
+            replicas.add(virtualThreads ? GuardedDataSource.forPool(replica, maxWaiting) : replica);
+        }
+
+        ReplicaPoolDataSource.Balancing mode =
+                ReplicaPoolDataSource.Balancing.valueOf(balancing.trim().replace('-', '_').toUpperCase(Locale.ROOT));
+        return new ReadWriteRoutingDataSource(primary, new ReplicaPoolDataSource(primary, replicas, mode, !localSync));
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(
+            @Value("${dscommerce.datasource.replicas.read-your-writes-ms:2000}") long windowMillis,
+            @Value("${dscommerce.datasource.replicas.read-your-writes-max-clients:100000}") long maxClients) {
+        return new ReadYourWritesFilter(windowMillis, maxClients);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "dscommerce.datasource.replicas.local-sync", havingValue = "true")
+    public H2ReplicaSynchronizer h2ReplicaSynchronizer(DataSource dataSource) throws SQLException {
+        return new H2ReplicaSynchronizer(dataSource.unwrap(ReadWriteRoutingDataSource.class).getReplicaPool());
+    }
+}
@@ -0,0 +1,48 @@
+package com.juliock.dscommerce.config;
+
+/*
+*   Marca a thread atual para ler do banco PRINCIPAL, mesmo em transações readOnly (ver ReadReplicaConfig).
+*
+*   Sem marca, uma transação readOnly usa uma réplica. A marca é usada:
+*       - pelo ReadYourWritesFilter, nas requests de escrita e nas leituras de um cliente logo depois de uma escrita dele;
+*       - por quem precisa enxergar o ultimo commit (ex: a recarga dos indices em memória e a reconciliação dos resumos),
+*           pois a réplica pode estar atrasada.
+*
+*   A decisão é tomada quando a transação executa o primeiro comando (a conexão é obtida só nesse momento),
+*       entao o Scope deve ser aberto antes disso. Scopes podem ser aninhados:
+*
+*       try (ReadReplicaRouting.Scope scope = ReadReplicaRouting.primary()) {
+*           ...
+*       }
+*
+*   Sem réplicas configuradas (dscommerce.datasource.replicas.enabled=false) a marca nao tem efeito.
+* */
+
+public final class ReadReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private ReadReplicaRouting() {
+    }
+
+    public static Scope primary() {
+        Boolean previous = PRIMARY.get();
+        PRIMARY.set(Boolean.TRUE);
+        return () -> {
+            if (previous == null)
+                PRIMARY.remove();
+            else
+                PRIMARY.set(previous);
+        };
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return PRIMARY.get() != null;
+    }
+
+    public interface Scope extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
@@ -0,0 +1,40 @@
+package com.juliock.dscommerce.config;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+
+/*
+*   DataSource da aplicação com réplicas de leitura (ver ReadReplicaConfig).
+*
+*   O LazyConnectionDataSourceProxy do Spring só obtém a conexão física no primeiro comando. Até lá ele apenas registra o que a
+*       transação pediu: numa transação readOnly, o JpaTransactionManager chama setReadOnly(true) logo no inicio, e o proxy entao
+*       busca a conexão no readOnlyDataSource (o ReplicaPoolDataSource). As demais transações, e o acesso sem transação,
+*       usam o principal.
+* */
+
+public class ReadWriteRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final DataSource primary;
+    private final ReplicaPoolDataSource replicaPool;
+
+    public ReadWriteRoutingDataSource(DataSource primary, ReplicaPoolDataSource replicaPool) {
+        super(primary);
+        setReadOnlyDataSource(replicaPool);
+        this.primary = primary;
+        this.replicaPool = replicaPool;
+    }
+
+    public ReplicaPoolDataSource getReplicaPool() {
+        return replicaPool;
+    }
+
+    @Override
+    public void close() throws IOException {
+        replicaPool.close();
+        if (primary instanceof Closeable closeable)
+            closeable.close();
+    }
+}
@@ -0,0 +1,67 @@
+package com.juliock.dscommerce.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/*
+*   "Ler o que acabou de escrever" (read-your-writes) com réplicas atrasadas em relação ao principal (ver ReadReplicaConfig).
+*
+*   - Uma request de escrita (POST, PUT, PATCH, DELETE) lê tudo do principal: ex: o checkout relê o pedido que acabou de gravar;
+*   - Depois dela, por dscommerce.datasource.replicas.read-your-writes-ms, as leituras do MESMO cliente também vao ao principal,
+*       entao o cliente nunca recebe uma resposta sem a escrita que ele mesmo acabou de fazer. Os outros clientes continuam nas réplicas.
+*
+*   O cliente é identificado pelo header X-Client-Id (ou, sem ele, pelo endereço de origem da request).
+*       Os clientes com escrita recente ficam num cache LIMITADO (dscommerce.datasource.replicas.read-your-writes-max-clients),
+*       e cada um expira sozinho no fim da janela.
+* */
+
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String CLIENT_HEADER = "X-Client-Id";
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS", "TRACE");
+
+    private final Cache<String, Boolean> recentWriters;     //  null = janela desligada
+
+    public ReadYourWritesFilter(long windowMillis, long maxClients) {
+        this.recentWriters = (windowMillis <= 0) ? null : Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterWrite(Duration.ofMillis(windowMillis))
+                .build();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        boolean write = !READ_METHODS.contains(request.getMethod());
+        String client = clientKey(request);
+
+        if (!write && (recentWriters == null || recentWriters.getIfPresent(client) == null)) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        try (ReadReplicaRouting.Scope scope = ReadReplicaRouting.primary()) {
+            chain.doFilter(request, response);
+        } finally {
+            //  Mesmo com erro: uma escrita em lote pode ter gravado parte dos itens antes de falhar
+            if (write && recentWriters != null)
+                recentWriters.put(client, Boolean.TRUE);
+        }
+    }
+
+    private static String clientKey(HttpServletRequest request) {
+        String client = request.getHeader(CLIENT_HEADER);
+        return (client == null || client.isBlank()) ? "addr:" + request.getRemoteAddr() : "id:" + client;
+    }
+}
@@ -0,0 +1,195 @@
+package com.juliock.dscommerce.config;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+*   DataSource das transações readOnly: cada conexão vem de uma das réplicas (cada réplica com o seu pool).
+*
+*   Balanceamento:
+*       - ROUND_ROBIN: uma réplica de cada vez, em ordem;
+*       - LEAST_CONNECTIONS: a réplica com menos conexões emprestadas no momento (melhor quando as consultas têm duração
+*           muito diferente, ex: uma exportação longa numa réplica enquanto as outras atendem buscas curtas).
+*
+*   Cada réplica pode ser tirada de rotação (setAvailable(i, false)), ex: durante a copia do H2ReplicaSynchronizer.
+*       Sem nenhuma réplica disponivel, ou com a thread marcada em ReadReplicaRouting, a conexão vem do principal.
+*
+*   As conexões emprestadas por réplica sao contadas com um proxy da conexão que desconta no primeiro close().
+* */
+
+public class ReplicaPoolDataSource extends AbstractDataSource implements Closeable {
+
+    public enum Balancing {
+        ROUND_ROBIN, LEAST_CONNECTIONS
+    }
+
+    private final DataSource primary;
+    private final List<DataSource> replicas;
+    private final Balancing balancing;
+
+    private final AtomicIntegerArray active;
+    private final AtomicIntegerArray available;     //  1 = em rotação
+    private final AtomicLongArray served;
+    private final AtomicLong servedByPrimary = new AtomicLong();
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaPoolDataSource(DataSource primary, List<DataSource> replicas, Balancing balancing, boolean available) {
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+        this.active = new AtomicIntegerArray(replicas.size());
+        this.available = new AtomicIntegerArray(replicas.size());
+        this.served = new AtomicLongArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++)
+            this.available.set(i, available ? 1 : 0);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route(null, null);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route(username, password);
+    }
+
+    public int size() {
+        return replicas.size();
+    }
+
+    public DataSource getPrimary() {
+        return primary;
+    }
+
+    public DataSource getReplica(int index) {
+        return replicas.get(index);
+    }
+
+    public void setAvailable(int index, boolean value) {
+        available.set(index, value ? 1 : 0);
+    }
+
+    public boolean isAvailable(int index) {
+        return available.get(index) == 1;
+    }
+
+    public int getActive(int index) {
+        return active.get(index);
+    }
+
+    public long getServed(int index) {
+        return served.get(index);
+    }
+
+    public long getServedByPrimary() {
+        return servedByPrimary.get();
+    }
+
+    //  Fecha os pools das réplicas (o principal pertence a quem o criou)
+    @Override
+    public void close() throws IOException {
+        for (DataSource replica : replicas)
+            if (replica instanceof Closeable closeable)
+                closeable.close();
+    }
+
+    private Connection route(String username, String password) throws SQLException {
+        int index = ReadReplicaRouting.isPinnedToPrimary() ? -1 : reserve();
+        if (index < 0) {
+            servedByPrimary.incrementAndGet();
+            return connect(primary, username, password);
+        }
+
+        try {
+            Connection connection = connect(replicas.get(index), username, password);
+            served.incrementAndGet(index);
+            return track(connection, index);
+        } catch (SQLException | RuntimeException e) {
+            active.decrementAndGet(index);
+            throw e;
+        }
+    }
+
+    /*
+    *   Escolhe uma réplica e ja conta a conexão nela (active) ANTES de conferir de novo se ela continua em rotação.
+    *       O H2ReplicaSynchronizer faz o inverso (tira de rotação e depois espera active chegar a zero), entao ou ele enxerga
+    *       esta conexão e espera, ou ela enxerga a réplica fora de rotação, desconta e tenta outra. Sem réplica, retorna -1 (principal).
+    * */
+    private int reserve() {
+        for (int attempt = 0; attempt <= replicas.size(); attempt++) {
+            int index = choose();
+            if (index < 0)
+                return -1;
+            active.incrementAndGet(index);
+            if (available.get(index) == 1)
+                return index;
+            active.decrementAndGet(index);
+        }
+        return -1;
+    }
+
+    //  Indice da réplica escolhida, ou -1 se nenhuma estiver disponivel. A busca começa num ponto que gira, para espalhar os empates
+    int choose() {
+        int n = replicas.size();
+        if (n == 0)
+            return -1;
+        int start = Math.floorMod(next.getAndIncrement(), n);
+
+        int best = -1;
+        for (int k = 0; k < n; k++) {
+            int i = (start + k) % n;
+            if (available.get(i) == 0)
+                continue;
+            if (balancing == Balancing.ROUND_ROBIN)
+                return i;
+            if (best < 0 || active.get(i) < active.get(best))
+                best = i;
+        }
+        return best;
+    }
+
+    private static Connection connect(DataSource dataSource, String username, String password) throws SQLException {
+        return (username == null) ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    //  Proxy da conexão que desconta a conexão emprestada da réplica no primeiro close()
+    private Connection track(Connection connection, int index) {
+        AtomicBoolean closed = new AtomicBoolean(false);
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("close")) {
+                        if (closed.compareAndSet(false, true)) {
+                            try {
+                                connection.close();
+                            } finally {
+                                active.decrementAndGet(index);
+                            }
+                        }
+                        return null;
+                    }
+                    if (method.getName().equals("unwrap") && ((Class<?>) args[0]).isInstance(proxy))
+                        return proxy;
+                    if (method.getName().equals("isWrapperFor") && ((Class<?>) args[0]).isInstance(proxy))
+                        return true;
+                    try {
+                        return method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+                });
+    }
+}
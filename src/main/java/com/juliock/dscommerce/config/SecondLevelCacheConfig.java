@@ -0,0 +1,108 @@
+package com.juliock.dscommerce.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Cache de SEGUNDO NIVEL do Hibernate (compartilhado entre as Sessions), em memória, com o Caffeine via JCache (JSR-107).
+*
+*   O cache de primeiro nivel (o contexto de persistência) só vale dentro de uma transação: na proxima request, o mesmo Product
+*       e as mesmas Category sao lidos do banco de novo. Com o segundo nivel, uma entidade carregada fica guardada por id,
+*       e o Hibernate só vai ao banco em caso de falha (miss).
+*
+*   Regiões (todas limitadas por quantidade de entradas e por tempo desde a gravação):
+*       - "category": entidade Category (dado de referência, quase nunca muda);
+*       - "product": entidade Product;
+*       - "product-categories": a coleção Product.categories (só os ids das categorias; as entidades vêm da região "category");
+*       - "product-search": resultados da consulta ProductRepository.searchByName (query cache: guarda só os ids do resultado);
+*       - as duas regiões padrão do query cache do Hibernate. A de timestamps (ultima escrita em cada tabela) NÃO pode perder
+*           entradas antes do tempo, senão um resultado antigo poderia ser usado: ela tem uma entrada por tabela e fica sem limite.
+*
+*   Invalidação: as regiões sao READ_WRITE, entao toda escrita feita pelo JPA (as do ProductService) atualiza/invalida a entrada
+*       no commit, e qualquer escrita numa tabela invalida os resultados do query cache que leram aquela tabela.
+*       Escritas por fora do Hibernate (JDBC) nao sao vistas: é o caso só do Product.stock (StockService), que nunca é lido da entidade.
+*
+*   missing_cache_strategy = fail: uma região que nao esteja configurada aqui derruba a inicialização, em vez de ser criada
+*       sem limite nenhum.
+* */
+
+@Configuration
+public class SecondLevelCacheConfig {
+
+    public static final String CATEGORY_REGION = "category";
+    public static final String PRODUCT_REGION = "product";
+    public static final String PRODUCT_CATEGORIES_REGION = "product-categories";
+    public static final String PRODUCT_SEARCH_REGION = "product-search";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager secondLevelCacheManager(
+            @Value("${dscommerce.l2-cache.category.max-entries:1000}") long categoryMaxEntries,
+            @Value("${dscommerce.l2-cache.category.ttl-seconds:3600}") long categoryTtl,
+            @Value("${dscommerce.l2-cache.product.max-entries:10000}") long productMaxEntries,
+            @Value("${dscommerce.l2-cache.product.ttl-seconds:600}") long productTtl,
+            @Value("${dscommerce.l2-cache.query.max-entries:1000}") long queryMaxEntries,
+            @Value("${dscommerce.l2-cache.query.ttl-seconds:60}") long queryTtl) {
+
+        //  Um CacheManager proprio (URI unica) por contexto do Spring: o padrão do provider é compartilhado pela JVM inteira,
+        //      e dois contextos no mesmo processo (ex: testes) tentariam criar as mesmas regiões duas vezes
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        URI uri = URI.create("dscommerce-l2-cache-" + UUID.randomUUID());
+        CacheManager cacheManager = provider.getCacheManager(uri, getClass().getClassLoader());
+
+        cacheManager.createCache(CATEGORY_REGION, bounded(categoryMaxEntries, categoryTtl));
+        cacheManager.createCache(PRODUCT_REGION, bounded(productMaxEntries, productTtl));
+        cacheManager.createCache(PRODUCT_CATEGORIES_REGION, bounded(productMaxEntries, productTtl));
+        cacheManager.createCache(PRODUCT_SEARCH_REGION, bounded(queryMaxEntries, queryTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME, bounded(queryMaxEntries, queryTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME, unbounded());
+        return cacheManager;
+    }
+
+    /*
+    *   O use_second_level_cache pode ser desligado por propriedade (ex: no benchmark, para comparar) e aí as regiões nao sao usadas.
+    *       generate_statistics liga os contadores de acerto/falha por região (ver SecondLevelCacheStatistics);
+    *       o session.events.log = false evita que o Hibernate escreva as métricas de cada Session no log.
+    * */
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer(CacheManager secondLevelCacheManager,
+            @Value("${dscommerce.l2-cache.enabled:true}") boolean enabled) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, enabled);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put("hibernate.javax.cache.cache_manager", secondLevelCacheManager);
+            properties.put("hibernate.javax.cache.missing_cache_strategy", "fail");
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            properties.put(AvailableSettings.LOG_SESSION_METRICS, false);
+        };
+    }
+
+    //  store-by-value = false: o Hibernate ja guarda uma copia "desmontada" da entidade, nao há por que serializar de novo
+    private static CaffeineConfiguration<Object, Object> bounded(long maxEntries, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = unbounded();
+        configuration.setMaximumSize(OptionalLong.of(maxEntries));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return configuration;
+    }
+
+    private static CaffeineConfiguration<Object, Object> unbounded() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
@@ -0,0 +1,86 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.metrics.SqlStatementCounter;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.jpa.boot.spi.JpaSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+/*
+*   Liga o SqlStatementCounter ao Hibernate, com três ganchos:
+*       - StatementInspector: recebe o SQL de cada comando preparado (para achar SQLs repetidos, o sintoma de N+1);
+*       - SessionEventListener: avisado no inicio e no fim de cada execução no JDBC (quantidade de comandos e tempo gasto);
+*       - PostLoadEventListener: avisado a cada entidade carregada.
+*
+*   Os três só repassam para o SqlStatementCounter, que nao faz nada se a thread nao tiver um Scope aberto
+*       (ex: as threads da importação em massa).
+* */
+
+@Configuration
+public class SqlStatementCountingConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCountingCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                SqlStatementCounter.recordSql(sql);
+                return sql;
+            });
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, JdbcTimingListener.class.getName());
+            properties.put(JpaSettings.INTEGRATOR_PROVIDER, (IntegratorProvider) () -> List.of(new EntityLoadIntegrator()));
+        };
+    }
+
+    //  O Hibernate cria uma instancia por Session (pelo nome da classe), entao ela precisa ser publica e ter construtor sem argumentos
+    public static class JdbcTimingListener extends BaseSessionEventListener {
+
+        private long start;
+
+        @Override
+        public void jdbcExecuteStatementStart() {
+            start = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteStatementEnd() {
+            SqlStatementCounter.recordExecution(System.nanoTime() - start);
+        }
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            start = System.nanoTime();
+        }
+
+        @Override
+        public void jdbcExecuteBatchEnd() {
+            SqlStatementCounter.recordExecution(System.nanoTime() - start);
+        }
+    }
+
+    private static final class EntityLoadIntegrator implements Integrator {
+
+        @Override
+        public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+            sessionFactory.getServiceRegistry().requireService(EventListenerRegistry.class)
+                    .appendListeners(EventType.POST_LOAD, (PostLoadEventListener) event -> SqlStatementCounter.recordEntityLoaded());
+        }
+
+        @Override
+        public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        }
+    }
+}
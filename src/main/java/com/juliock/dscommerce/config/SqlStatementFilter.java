@@ -0,0 +1,95 @@
+package com.juliock.dscommerce.config;
+
+import com.juliock.dscommerce.services.metrics.SqlStatementCounter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/*
+*   Abre um SqlStatementCounter.Scope para cada request e, no final, registra no log quantos comandos SQL foram executados,
+*       quanto tempo foi gasto no JDBC e quantas entidades foram carregadas:
+*       - em DEBUG para todas as requests;
+*       - em WARN se passar de dscommerce.sql.warn-statements comandos, ou se o mesmo SQL se repetir dscommerce.sql.repeated-threshold
+*           vezes (provavel N+1), listando os SQLs repetidos.
+*
+*   Os mesmos numeros vao nos headers X-SQL-Statements, X-SQL-Time-Ms e X-Entities-Loaded (dscommerce.sql.stats-header=false desliga).
+*       Os headers precisam ser escritos ANTES do corpo da resposta: quem faz isso é o SqlStatementHeadersAdvice, logo antes da
+*       serialização. Com open-in-view=false nenhum SQL acontece depois desse ponto. Respostas sem corpo recebem os headers aqui.
+* */
+
+@Component
+public class SqlStatementFilter extends OncePerRequestFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SqlStatementFilter.class);
+    private static final String SCOPE_ATTRIBUTE = SqlStatementFilter.class.getName() + ".scope";
+
+    private final boolean headerEnabled;
+    private final int warnStatements;
+    private final int repeatedThreshold;
+
+    public SqlStatementFilter(@Value("${dscommerce.sql.stats-header:true}") boolean headerEnabled,
+                              @Value("${dscommerce.sql.warn-statements:20}") int warnStatements,
+                              @Value("${dscommerce.sql.repeated-threshold:5}") int repeatedThreshold) {
+        this.headerEnabled = headerEnabled;
+        this.warnStatements = warnStatements;
+        this.repeatedThreshold = repeatedThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            request.setAttribute(SCOPE_ATTRIBUTE, scope);
+            chain.doFilter(request, response);
+
+            if (headerEnabled && !response.isCommitted())
+                writeHeaders(scope, response::setHeader);
+            log(request, response, scope);
+        }
+    }
+
+    //  Chamado pelo SqlStatementHeadersAdvice antes de o corpo da resposta ser escrito
+    public void writeHeaders(HttpServletRequest request, HttpHeaders headers) {
+        if (headerEnabled && request.getAttribute(SCOPE_ATTRIBUTE) instanceof SqlStatementCounter.Scope scope)
+            writeHeaders(scope, headers::set);
+    }
+
+    private static void writeHeaders(SqlStatementCounter.Scope scope, HeaderWriter writer) {
+        writer.set("X-SQL-Statements", Integer.toString(scope.getStatements()));
+        writer.set("X-SQL-Time-Ms", String.format(Locale.ROOT, "%.3f", scope.getJdbcNanos() / 1e6));
+        writer.set("X-Entities-Loaded", Integer.toString(scope.getEntitiesLoaded()));
+    }
+
+    private void log(HttpServletRequest request, HttpServletResponse response, SqlStatementCounter.Scope scope) {
+        List<String> repeated = scope.findRepeated(repeatedThreshold);
+        boolean suspicious = scope.getStatements() > warnStatements || !repeated.isEmpty();
+        if (!suspicious && !LOG.isDebugEnabled())
+            return;
+
+        String line = String.format(Locale.ROOT, "%s %s -> %d: %d SQL statements, %.3f ms in JDBC, %d entities loaded",
+                request.getMethod(), request.getRequestURI(), response.getStatus(),
+                scope.getStatements(), scope.getJdbcNanos() / 1e6, scope.getEntitiesLoaded());
+
+        if (suspicious)
+            LOG.warn("{}{}", line, repeated.isEmpty() ? "" : " (possible N+1, repeated statements: " + repeated + ")");
+        else
+            LOG.debug(line);
+    }
+
+    @FunctionalInterface
+    private interface HeaderWriter {
+        void set(String name, String value);
+    }
+}
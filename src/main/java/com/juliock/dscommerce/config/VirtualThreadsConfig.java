@@ -0,0 +1,40 @@
+package com.juliock.dscommerce.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/*
+*   Modo de execução com VIRTUAL THREADS (Java 21).
+*
+*   Ativado pelo profile "virtual" (application-virtual.properties), que liga spring.threads.virtual.enabled=true.
+*       Com essa propriedade o próprio Spring Boot passa a atender cada request do Tomcat numa virtual thread, e as transações do
+*       ProductService rodam nessa mesma thread: enquanto o JPA espera o JDBC, a thread de plataforma (carrier) fica livre para outra request.
+*
+*   O que este Configuration acrescenta é a proteção do pool de conexões: cada pool HikariCP registrado como bean é embrulhado
+*       num GuardedDataSource (ver a classe), limitando o uso simultâneo ao tamanho DAQUELE pool e o numero de threads esperando.
+*       Com réplicas de leitura o bean DataSource é um ReadWriteRoutingDataSource, que nao é embrulhado aqui: o ReadReplicaConfig
+*       protege o principal e cada réplica separadamente.
+* */
+
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public static BeanPostProcessor guardedDataSourcePostProcessor(
+            @Value("${dscommerce.datasource.guard.max-waiting:2000}") int maxWaiting) {
+
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource pool)
+                    return GuardedDataSource.forPool(pool, maxWaiting);
+                return bean;
+            }
+        };
+    }
+}
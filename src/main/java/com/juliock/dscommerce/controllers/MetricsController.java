@@ -0,0 +1,66 @@
+package com.juliock.dscommerce.controllers;
+
+import com.juliock.dscommerce.dto.CacheRegionStatsDTO;
+import com.juliock.dscommerce.dto.ConcurrencyLimitStatsDTO;
+import com.juliock.dscommerce.dto.RateLimitStatsDTO;
+import com.juliock.dscommerce.services.limits.ConcurrencyLimits;
+import com.juliock.dscommerce.services.limits.RateLimits;
+import com.juliock.dscommerce.services.metrics.MethodMetricsRegistry;
+import com.juliock.dscommerce.services.metrics.SecondLevelCacheStatistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping(value = "/metrics")
+public class MetricsController {
+
+    //  Formato texto de exposição do Prometheus (versão 0.0.4)
+    private static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain; version=0.0.4; charset=utf-8");
+
+    private final MethodMetricsRegistry methodMetricsRegistry;
+    private final SecondLevelCacheStatistics secondLevelCacheStatistics;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final RateLimits rateLimits;
+
+    @Autowired
+    public MetricsController(MethodMetricsRegistry methodMetricsRegistry, SecondLevelCacheStatistics secondLevelCacheStatistics,
+                             ConcurrencyLimits concurrencyLimits, RateLimits rateLimits) {
+        this.methodMetricsRegistry = methodMetricsRegistry;
+        this.secondLevelCacheStatistics = secondLevelCacheStatistics;
+        this.concurrencyLimits = concurrencyLimits;
+        this.rateLimits = rateLimits;
+    }
+
+    /*
+    *   Latência, chamadas em andamento e erros por tipo de exception de cada metodo dos Controllers e Services
+    *       (ver config/MetricsConfig). Pode ser configurado direto como alvo de scrape do Prometheus.
+    * */
+    @GetMapping
+    public ResponseEntity<String> scrape() {
+        return ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(methodMetricsRegistry.scrape());
+    }
+
+    //  Acertos, falhas, gravações e tamanho de cada região do cache de segundo nivel do Hibernate (Category, Product e buscas por nome)
+    @GetMapping(value = "/second-level-cache")
+    public ResponseEntity<List<CacheRegionStatsDTO>> secondLevelCache() {
+        return ResponseEntity.ok(secondLevelCacheStatistics.regions());
+    }
+
+    //  Limite atual, requests em andamento e na fila, rejeições (503) e tempo de fila de cada grupo de endpoints (leituras e escritas)
+    @GetMapping(value = "/concurrency-limits")
+    public ResponseEntity<List<ConcurrencyLimitStatsDTO>> concurrencyLimits() {
+        return ResponseEntity.ok(concurrencyLimits.stats());
+    }
+
+    //  Limite por cliente de cada rota (buscas, leituras e escritas): clientes em memória e requests recusadas com 429
+    @GetMapping(value = "/rate-limits")
+    public ResponseEntity<List<RateLimitStatsDTO>> rateLimits() {
+        return ResponseEntity.ok(rateLimits.stats());
+    }
+}
@@ -0,0 +1,95 @@
+package com.juliock.dscommerce.controllers;
+
+import com.juliock.dscommerce.dto.OrderCheckoutDTO;
+import com.juliock.dscommerce.dto.OrderDTO;
+import com.juliock.dscommerce.dto.OrderSummaryDTO;
+import com.juliock.dscommerce.dto.OrderSummaryReconciliationDTO;
+import com.juliock.dscommerce.dto.UserOrderStatsDTO;
+import com.juliock.dscommerce.services.OrderService;
+import com.juliock.dscommerce.services.OrderSummaryService;
+import com.juliock.dscommerce.services.caches.IdempotencyStore;
+import jakarta.validation.Valid;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping(value = "/orders")
+public class OrderController {
+
+    private final OrderService orderService;
+    private final OrderSummaryService orderSummaryService;
+
+    @Autowired
+    public OrderController(OrderService orderService, OrderSummaryService orderSummaryService) {
+        this.orderService = orderService;
+        this.orderSummaryService = orderSummaryService;
+    }
+
+    @GetMapping(value = "/{id}")
+    public ResponseEntity<OrderDTO> findById(@PathVariable Long id) {
+        OrderDTO dto = orderService.findOrderById(id);
+        return ResponseEntity.ok(dto);
+    }
+
+    //  Paginação como em GET /products: ?page=0&size=20&sort=moment,desc
+    @GetMapping
+    public ResponseEntity<Page<OrderDTO>> findAll(Pageable pageable) {
+        Page<OrderDTO> orders = orderService.findAllOrders(pageable);
+        return ResponseEntity.ok(orders);
+    }
+
+    /*
+    *   Checkout: cria o pedido com os itens (e o pagamento, se paid = true), reservando o estoque de todos os itens.
+    *       Com o header Idempotency-Key, repetir a request (ex: depois de um timeout) devolve o MESMO pedido, sem criar outro;
+    *       a resposta repetida vem com o header Idempotent-Replayed: true.
+    * */
+    @PostMapping
+    public ResponseEntity<OrderDTO> checkout(@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                             @Valid @RequestBody OrderCheckoutDTO dto) {
+        IdempotencyStore.Result<OrderDTO> result = orderService.checkout(dto, idempotencyKey);
+        OrderDTO order = result.getValue();
+
+        URI uri = ServletUriComponentsBuilder.fromCurrentRequest().path("/{id}").buildAndExpand(order.getId()).toUri();
+        return ResponseEntity.created(uri).header("Idempotent-Replayed", String.valueOf(result.isReplayed())).body(order);
+    }
+
+    /*
+    *   Leituras dos resumos materializados (ver OrderSummaryService): total, unidades e status sem carregar os itens.
+    *       GET /orders/{id}/summary, GET /orders/summaries?clientId=1&page=0&size=20&sort=moment,desc
+    *       e GET /orders/clients/{clientId}/stats (quantidade de pedidos e total gasto pelo cliente).
+    * */
+    @GetMapping(value = "/{id}/summary")
+    public ResponseEntity<OrderSummaryDTO> findSummaryById(@PathVariable Long id) {
+        return ResponseEntity.ok(orderSummaryService.findSummaryById(id));
+    }
+
+    @GetMapping(value = "/summaries")
+    public ResponseEntity<Page<OrderSummaryDTO>> findSummaries(@RequestParam(name = "clientId", required = false) Long clientId,
+                                                               Pageable pageable) {
+        return ResponseEntity.ok(orderSummaryService.findSummaries(clientId, pageable));
+    }
+
+    @GetMapping(value = "/clients/{clientId}/stats")
+    public ResponseEntity<UserOrderStatsDTO> findClientStats(@PathVariable Long clientId) {
+        return ResponseEntity.ok(orderSummaryService.findClientStats(clientId));
+    }
+
+    //  Executa a reconciliação na hora (a mesma que roda agendada) e devolve o relatório
+    @PostMapping(value = "/summaries/reconcile")
+    public ResponseEntity<OrderSummaryReconciliationDTO> reconcileSummaries() {
+        return ResponseEntity.ok(orderSummaryService.reconcile());
+    }
+}
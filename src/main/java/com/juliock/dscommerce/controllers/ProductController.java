@@ -1,26 +1,67 @@
 package com.juliock.dscommerce.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.juliock.dscommerce.dto.CacheStatsDTO;
+import com.juliock.dscommerce.dto.ProductBatchResultDTO;
+import com.juliock.dscommerce.dto.ProductCursorPageDTO;
 import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.dto.ProductFacetedPageDTO;
+import com.juliock.dscommerce.dto.ProductIdFilterStatsDTO;
+import com.juliock.dscommerce.dto.StockAdjustmentDTO;
+import com.juliock.dscommerce.dto.StockDTO;
 import com.juliock.dscommerce.services.ProductService;
+import com.juliock.dscommerce.services.StockService;
+import com.juliock.dscommerce.services.caches.ProductPageCache;
+import com.juliock.dscommerce.services.exceptions.BatchTooLargeException;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.server.ServletServerHttpRequest;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping(value = "/products")
 public class ProductController {
 
+    private static final int MAX_PAGE_SIZE = 2000;  //  mesmo limite que o Spring aplica no Pageable
+
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     private final ProductService productService;
+    private final ProductPageCache productPageCache;
+    private final ObjectMapper objectMapper;
+    private final StockService stockService;
+    private final int maxBatchItems;
 
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService, ProductPageCache productPageCache, ObjectMapper objectMapper,
+                             StockService stockService, @Value("${dscommerce.products.batch.max-items:5000}") int maxBatchItems) {
         this.productService = productService;
+        this.productPageCache = productPageCache;
+        this.objectMapper = objectMapper;
+        this.stockService = stockService;
+        this.maxBatchItems = maxBatchItems;
     }
 
 
@@ -43,7 +84,13 @@ public class ProductController {
 
 
     @GetMapping(value = "")
-    public ResponseEntity<Page<ProductDTO>> findAll(@RequestParam(name = "name", defaultValue = "") String name, Pageable pageable) {
+    public ResponseEntity<byte[]> findAll(@RequestParam(name = "name", defaultValue = "") String name, Pageable pageable,
+                                          @RequestParam(name = "categoryId", required = false) List<Long> categoryIds,
+                                          @RequestParam(name = "categoryMode", defaultValue = "or") String categoryMode,
+                                          @RequestParam(name = "facets", defaultValue = "false") boolean facets,
+                                          @RequestParam(name = "minPrice", required = false) Double minPrice,
+                                          @RequestParam(name = "maxPrice", required = false) Double maxPrice,
+                                          @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 
         /*  @RequestParam captura um parametro (especificado pelo atributo name) da URI e atribui à variável a seguir.
          *        Caso o parametro especificado nao esteja presente, o defaultValue é atribuído à variável.
@@ -72,8 +119,146 @@ public class ProductController {
 	*		<artifactId>spring-boot-starter-data-jpa</artifactId>
     * */
 
-        Page<ProductDTO> dtoPage = productService.searchProductByName(name, pageable);
-        return ResponseEntity.ok(dtoPage);
+    /*
+    *   A pagina ja serializada vem do ProductPageCache quando possível (ver cachedPage abaixo);
+    *       só num miss a busca é executada e o Page<ProductDTO> convertido para JSON.
+    * */
+    /*
+    *   Filtro por categorias e facets:
+    *       - categoryId (pode repetir): ex: GET /products?categoryId=1&categoryId=3;
+    *       - categoryMode=or (padrão, produto em qualquer uma das categorias) ou categoryMode=and (produto em todas);
+    *       - facets=true: a resposta passa a ser um ProductFacetedPageDTO, com a pagina e a contagem por categoria do resultado inteiro.
+    *   Filtro e ordenação por preço:
+    *       - minPrice / maxPrice (inclusive, cada um opcional): ex: GET /products?minPrice=100&maxPrice=500;
+    *       - sort=price,asc|desc é atendido pelo ProductPriceIndex, sem ORDER BY no banco.
+    *   Filtros e facets entram na "view" da chave do cache, entao cada combinação tem a sua pagina cacheada (o sort ja faz parte da chave).
+    * */
+        boolean byPrice = minPrice != null || maxPrice != null || pageable.getSort().getOrderFor("price") != null;
+        if ((categoryIds == null || categoryIds.isEmpty()) && !facets && !byPrice)
+            return cachedPage("full", name, pageable, acceptEncoding, () -> productService.searchProductByName(name, pageable));
+
+        List<Long> categories = (categoryIds == null) ? List.of() : categoryIds.stream().distinct().sorted().toList();
+        boolean matchAll = categoryMode.equalsIgnoreCase("and");
+        String view = "full;categories=" + categories + ";mode=" + (matchAll ? "and" : "or") + ";facets=" + facets +
+                ";minPrice=" + minPrice + ";maxPrice=" + maxPrice;
+
+        return cachedPage(view, name, pageable, acceptEncoding, () -> {
+            ProductFacetedPageDTO result = productService.searchProducts(name, categories, matchAll, minPrice, maxPrice, facets, pageable);
+            return facets ? result : result.getPage();
+        });
+    }
+
+    /*
+    *   Listagem resumida: GET /products?view=summary (aceita os mesmos name, page, size e sort).
+    *       Cada produto vem só com id, name, price e imgUrl (ProductMinDTO), sem a description.
+    *   O atributo params faz o Spring escolher este metodo, e nao o findAll acima, quando a URL tiver view=summary.
+    * */
+    @GetMapping(value = "", params = "view=summary")
+    public ResponseEntity<byte[]> findAllSummary(@RequestParam(name = "name", defaultValue = "") String name, Pageable pageable,
+                                                 @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        return cachedPage("summary", name, pageable, acceptEncoding, () -> productService.searchProductSummariesByName(name, pageable));
+    }
+
+    /*
+    *   Escreve a pagina direto a partir dos bytes do ProductPageCache (o Spring só copia o byte[] para a resposta).
+    *       Se o cliente aceitar gzip e houver a versão comprimida, ela é enviada com Content-Encoding: gzip.
+    * */
+    private ResponseEntity<byte[]> cachedPage(String view, String name, Pageable pageable, String acceptEncoding, Supplier<?> search) {
+        ProductPageCache.CachedPage page = productPageCache.get(view, name, pageable, () -> {
+            try {
+                return objectMapper.writeValueAsBytes(search.get());
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (page.getGzip() != null && acceptEncoding != null && acceptEncoding.contains("gzip"))
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(page.getGzip());
+        return response.body(page.getJson());
+    }
+
+    /*
+    *   Listagem paginada por CURSOR. Em vez de page=N, o cliente envia o cursor "next" recebido na resposta anterior.
+    *       A primeira chamada nao tem cursor e define a ordenação (sort=id|name|price[,asc|desc]); as seguintes herdam a ordenação do cursor.
+    *       ex: GET /products/cursor?name=gamer&sort=price,desc&size=20  ->  GET /products/cursor?name=gamer&size=20&cursor=<next>
+    * */
+    @GetMapping(value = "/cursor")
+    public ResponseEntity<ProductCursorPageDTO> findAllByCursor(@RequestParam(name = "name", defaultValue = "") String name,
+                                                                @RequestParam(name = "sort", defaultValue = "id,asc") String sort,
+                                                                @RequestParam(name = "size", defaultValue = "20") Integer size,
+                                                                @RequestParam(name = "cursor", required = false) String cursor) {
+
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ProductCursorPageDTO dto = productService.searchProductByNameWithCursor(name, sort, cursor, pageSize);
+        return ResponseEntity.ok(dto);
+    }
+
+    /*
+    *   Exportação do catalogo em NDJSON (um produto em JSON por linha), com filtro opcional por nome e por categoria.
+    *
+    *   O StreamingResponseBody escreve direto no OutputStream da resposta, fora da thread da request: cada produto lido do banco
+    *       é serializado e enviado na hora, sem montar a lista inteira na memória (o uso de heap nao depende do tamanho do catalogo).
+    * */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(name = "name", defaultValue = "") String name,
+                                                        @RequestParam(name = "categoryId", required = false) Long categoryId) {
+
+        StreamingResponseBody body = out -> {
+            //  Sem flush a cada produto (o flush é feito a cada EXPORT_FLUSH_EVERY linhas) e sem o separador padrão entre valores (" ")
+            ObjectWriter writer = objectMapper.writerFor(ProductDTO.class).without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                int[] written = {0};
+                productService.exportProducts(name, categoryId, dto -> {
+                    try {
+                        writer.writeValue(generator, dto);
+                        generator.writeRaw('\n');
+                        if (++written[0] % EXPORT_FLUSH_EVERY == 0)
+                            generator.flush();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);  //  ex: o cliente fechou a conexão; interrompe o Stream e libera a transação
+                    }
+                });
+            }
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    //  Estatisticas do cache de produtos por id (hit rate, miss rate, tempo medio de carga e descartes)
+    @GetMapping(value = "/cache/stats")
+    public ResponseEntity<CacheStatsDTO> cacheStats() {
+        return ResponseEntity.ok(productService.getProductCacheStats());
+    }
+
+    //  Estatisticas do cache de paginas serializadas de GET /products (acertos, falhas, descartes e tamanho)
+    @GetMapping(value = "/page-cache/stats")
+    public ResponseEntity<CacheStatsDTO> pageCacheStats() {
+        return ResponseEntity.ok(productPageCache.stats());
+    }
+
+    //  Estatisticas do filtro de Bloom de ids (consultas, ids rejeitados sem ir ao banco e taxa de falsos positivos)
+    @GetMapping(value = "/id-filter/stats")
+    public ResponseEntity<ProductIdFilterStatsDTO> idFilterStats() {
+        return ResponseEntity.ok(productService.getProductIdFilterStats());
+    }
+
+    /*
+    *   Estoque do produto (ver StockService): GET /products/{id}/stock
+    *       e POST /products/{id}/stock com {"delta": 10} (reposição) ou {"delta": -3} (baixa; 409 se nao houver estoque suficiente).
+    * */
+    @GetMapping(value = "/{id}/stock")
+    public ResponseEntity<StockDTO> findStock(@PathVariable Long id) {
+        return ResponseEntity.ok(stockService.findStock(id));
+    }
+
+    @PostMapping(value = "/{id}/stock")
+    public ResponseEntity<StockDTO> adjustStock(@PathVariable Long id, @Valid @RequestBody StockAdjustmentDTO dto) {
+        return ResponseEntity.ok(stockService.adjustStock(id, dto.getDelta()));
     }
 
     @PostMapping
@@ -119,6 +304,40 @@ public class ProductController {
         return ResponseEntity.ok(dto);
     }
 
+    /*
+    *   Escritas em lote: o corpo é uma lista JSON de produtos.
+    *       Cada item é validado individualmente e a resposta traz os produtos gravados e um erro para cada item que falhou
+    *       (por isso aqui nao há @Valid: um item invalido nao deve derrubar a request inteira).
+    *   A lista NÃO vem por @RequestBody: ela é lida item a item (readBatch), e a request é recusada (422) assim que passar de
+    *       dscommerce.products.batch.max-items itens, sem desserializar o resto do corpo.
+    * */
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductBatchResultDTO> insertBatch(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(productService.insertProducts(readBatch(request)));
+    }
+
+    @PutMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ProductBatchResultDTO> updateBatch(HttpServletRequest request) throws IOException {
+        return ResponseEntity.ok(productService.updateProducts(readBatch(request)));
+    }
+
+    //  JSON mal formado responde 400, como o @RequestBody responderia
+    private List<ProductDTO> readBatch(HttpServletRequest request) throws IOException {
+        List<ProductDTO> dtos = new ArrayList<>();
+        try (JsonParser parser = objectMapper.createParser(request.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY)
+                throw new HttpMessageNotReadableException("Request body must be a JSON array", new ServletServerHttpRequest(request));
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                if (dtos.size() == maxBatchItems)
+                    throw new BatchTooLargeException(maxBatchItems);
+                dtos.add(objectMapper.readValue(parser, ProductDTO.class));
+            }
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, new ServletServerHttpRequest(request));
+        }
+        return dtos;
+    }
+
     @DeleteMapping(value = "/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
     /*
@@ -0,0 +1,52 @@
+package com.juliock.dscommerce.controllers;
+
+import com.juliock.dscommerce.dto.ProductImportReportDTO;
+import com.juliock.dscommerce.services.ProductImportService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping(value = "/products/import")
+public class ProductImportController {
+
+    private final ProductImportService productImportService;
+
+    @Autowired
+    public ProductImportController(ProductImportService productImportService) {
+        this.productImportService = productImportService;
+    }
+
+    /*
+    *   Importação em massa. O corpo da request NÃO é convertido pelo Spring (nao há @RequestBody):
+    *       o InputStream da request é entregue direto ao ProductImportService, que lê o conteúdo aos poucos enquanto grava.
+    *
+    *   Content-Type: application/x-ndjson (um produto JSON por linha) ou text/csv (com cabeçalho).
+    *       Campos: name, description, price, imgUrl e categories (ids ou nomes; no CSV separados por '|').
+    *   batchSize e parallelism sao opcionais e sobrescrevem os valores de dscommerce.import.* do application.properties.
+    *
+    *   A resposta é assincrona (CompletableFuture): a thread do Tomcat é liberada e o corpo é lido pelo pool de importação,
+    *       dentro do limite de spring.mvc.async.request-timeout.
+    * */
+    @PostMapping(consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"})
+    public CompletableFuture<ResponseEntity<ProductImportReportDTO>> importProducts(HttpServletRequest request,
+                                                                                   @RequestParam(name = "batchSize", required = false) Integer batchSize,
+                                                                                   @RequestParam(name = "parallelism", required = false) Integer parallelism) throws IOException {
+
+        String format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.APPLICATION_NDJSON) ? "ndjson" : "csv";
+        return productImportService.importProducts(request.getInputStream(), format, batchSize, parallelism)
+                .thenApply(ResponseEntity::ok);
+    }
+
+    //  Progresso das importações em andamento e resultado das mais recentes
+    @GetMapping
+    public ResponseEntity<List<ProductImportReportDTO>> findRecentImports() {
+        return ResponseEntity.ok(productImportService.findRecentImports());
+    }
+}
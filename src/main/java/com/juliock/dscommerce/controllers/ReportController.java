@@ -0,0 +1,53 @@
+package com.juliock.dscommerce.controllers;
+
+import com.juliock.dscommerce.dto.CategoryRevenueDTO;
+import com.juliock.dscommerce.dto.TopProductDTO;
+import com.juliock.dscommerce.services.ReportService;
+import com.juliock.dscommerce.services.analytics.ReportWindow;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/*
+*   Relatorios de vendas (ver ReportService). Datas no formato ISO (2024-01-31), em UTC, e "to" inclusive:
+*       GET /reports/top-products?from=2024-01-01&to=2024-01-31&limit=10
+*       GET /reports/category-revenue?from=2024-01-01&to=2024-03-31&window=MONTH   (window = DAY, WEEK ou MONTH)
+* */
+
+@RestController
+@RequestMapping(value = "/reports")
+public class ReportController {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final ReportService reportService;
+
+    @Autowired
+    public ReportController(ReportService reportService) {
+        this.reportService = reportService;
+    }
+
+    @GetMapping(value = "/top-products")
+    public ResponseEntity<List<TopProductDTO>> findTopProducts(
+            @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "limit", defaultValue = "10") int limit) {
+        int clampedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok(reportService.findTopProducts(from, to, clampedLimit));
+    }
+
+    @GetMapping(value = "/category-revenue")
+    public ResponseEntity<List<CategoryRevenueDTO>> findCategoryRevenue(
+            @RequestParam(name = "from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(name = "to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(name = "window", defaultValue = "DAY") ReportWindow window) {
+        return ResponseEntity.ok(reportService.findCategoryRevenue(from, to, window));
+    }
+}
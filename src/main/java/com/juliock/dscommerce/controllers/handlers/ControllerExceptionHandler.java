@@ -3,13 +3,25 @@ package com.juliock.dscommerce.controllers.handlers;
 
 import com.juliock.dscommerce.dto.CustomError;
 import com.juliock.dscommerce.dto.InvalidFieldCustomError;
+import com.juliock.dscommerce.services.exceptions.BatchTooLargeException;
 import com.juliock.dscommerce.services.exceptions.DbIntegrityException;
+import com.juliock.dscommerce.services.exceptions.InsufficientStockException;
+import com.juliock.dscommerce.services.exceptions.IdempotencyKeyInProgressException;
+import com.juliock.dscommerce.services.exceptions.InvalidCursorException;
+import com.juliock.dscommerce.services.exceptions.InvalidOrderException;
+import com.juliock.dscommerce.services.exceptions.InvalidReportRangeException;
+import com.juliock.dscommerce.services.exceptions.RateLimitExceededException;
 import com.juliock.dscommerce.services.exceptions.ResourceNotFoundException;
+import com.juliock.dscommerce.services.exceptions.ServiceOverloadedException;
+import com.juliock.dscommerce.services.metrics.MethodMetricsRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -26,6 +38,13 @@ import java.util.List;
 @ControllerAdvice
 public class ControllerExceptionHandler {
 
+    private final MethodMetricsRegistry methodMetricsRegistry;
+
+    @Autowired
+    public ControllerExceptionHandler(MethodMetricsRegistry methodMetricsRegistry) {
+        this.methodMetricsRegistry = methodMetricsRegistry;
+    }
+
     // Caso o recurso do id fornecido nao tenha sido encontrado
     @ExceptionHandler(ResourceNotFoundException.class)
     public ResponseEntity<CustomError> resourceNotFound(ResourceNotFoundException e, HttpServletRequest request) {
@@ -60,9 +79,96 @@ public class ControllerExceptionHandler {
         return ResponseEntity.status(statusCode).body(customError);
     }
 
+    // Caso nao haja estoque suficiente de um produto para a reserva (checkout ou ajuste de estoque)
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<CustomError> insufficientStock(InsufficientStockException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.CONFLICT;
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).body(customError);
+    }
+
+    // Caso o pedido nao possa ser processado (produto sem preço, ou Idempotency-Key ja usada com outro pedido)
+    @ExceptionHandler(InvalidOrderException.class)
+    public ResponseEntity<CustomError> invalidOrder(InvalidOrderException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.UNPROCESSABLE_ENTITY;
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).body(customError);
+    }
+
+    // Caso a mesma Idempotency-Key ainda esteja sendo processada por outra request (ver IdempotencyStore)
+    @ExceptionHandler(IdempotencyKeyInProgressException.class)
+    public ResponseEntity<CustomError> idempotencyKeyInProgress(IdempotencyKeyInProgressException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.CONFLICT; // 409: a primeira tentativa ainda nao terminou, a repetição pode ser feita em seguida
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).header("Retry-After", "1").body(customError);
+    }
+
+    // Caso uma escrita em lote (/products/batch) tenha mais itens do que o permitido
+    @ExceptionHandler(BatchTooLargeException.class)
+    public ResponseEntity<CustomError> batchTooLarge(BatchTooLargeException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.UNPROCESSABLE_ENTITY;
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).body(customError);
+    }
+
+    // Caso o cursor da paginação por cursor seja invalido (mal formado, adulterado ou com ordenação nao suportada)
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<CustomError> invalidCursor(InvalidCursorException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.BAD_REQUEST;
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).body(customError);
+    }
+
+    // Caso o intervalo de datas de um relatorio seja invalido (from depois de to, ou janelas demais)
+    @ExceptionHandler(InvalidReportRangeException.class)
+    public ResponseEntity<CustomError> invalidReportRange(InvalidReportRangeException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.BAD_REQUEST;
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).body(customError);
+    }
+
+    // Caso nao seja possivel obter uma conexão com o banco (pool esgotado / muitas threads esperando, ver GuardedDataSource)
+    @ExceptionHandler(CannotCreateTransactionException.class)
+    public ResponseEntity<CustomError> cannotCreateTransaction(CannotCreateTransactionException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.SERVICE_UNAVAILABLE; // 503: o servidor está sobrecarregado, o cliente pode tentar de novo em seguida
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), "Database Connection Unavailable", request.getRequestURI());
+        return ResponseEntity.status(statusCode).header("Retry-After", "1").body(customError);
+    }
+
+    // Caso o limite de requests simultâneas do grupo tenha sido atingido (ver config/ConcurrencyLimitInterceptor)
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<CustomError> serviceOverloaded(ServiceOverloadedException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.SERVICE_UNAVAILABLE;
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).header("Retry-After", String.valueOf(e.getRetryAfterSeconds())).body(customError);
+    }
+
+    // Caso o cliente tenha passado do limite de requests da rota (ver config/RateLimitInterceptor)
+    @ExceptionHandler(RateLimitExceededException.class)
+    public ResponseEntity<CustomError> rateLimitExceeded(RateLimitExceededException e, HttpServletRequest request) {
+
+        HttpStatus statusCode = HttpStatus.TOO_MANY_REQUESTS; // 429: o Retry-After diz em quantos segundos o cliente terá uma ficha de novo
+        CustomError customError = new CustomError(Instant.now(), statusCode.value(), e.getMessage(), request.getRequestURI());
+        return ResponseEntity.status(statusCode).header("Retry-After", String.valueOf(e.getRetryAfterSeconds())).body(customError);
+    }
+
     // Caso o request para inserir ou atualizar um registro contenha dados que violam constraints dos campos
     @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<CustomError> MethodArgumentNotValidException(MethodArgumentNotValidException e, HttpServletRequest request) {
+    public ResponseEntity<CustomError> MethodArgumentNotValidException(MethodArgumentNotValidException e, HttpServletRequest request, HandlerMethod handlerMethod) {
+
+        /*  A validação (@Valid) acontece ANTES do metodo do Controller ser chamado, entao o MethodMetricsInterceptor nao vê essa exception.
+        *       O erro é contado aqui, nas métricas do metodo que receberia a request (o Spring informa qual é pelo HandlerMethod).
+        * */
+        if (handlerMethod != null)
+            methodMetricsRegistry.metricsFor(handlerMethod.getMethod()).recordError(e.getClass());
 
         HttpStatus statusCode = HttpStatus.UNPROCESSABLE_ENTITY;
         InvalidFieldCustomError validationErrors = new InvalidFieldCustomError(Instant.now(), statusCode.value(), "Invalid Field Data", request.getRequestURI());
@@ -0,0 +1,43 @@
+package com.juliock.dscommerce.controllers.handlers;
+
+import com.juliock.dscommerce.config.SqlStatementFilter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/*
+*   Um ResponseBodyAdvice é chamado pelo Spring depois que o metodo do Controller (ou do ControllerExceptionHandler) retornou
+*       e antes de o corpo ser convertido para JSON, ou seja, quando ainda é possível acrescentar headers na resposta.
+*       Aqui ele só acrescenta os headers de contagem de SQL do SqlStatementFilter.
+* */
+
+@ControllerAdvice
+public class SqlStatementHeadersAdvice implements ResponseBodyAdvice<Object> {
+
+    private final SqlStatementFilter sqlStatementFilter;
+
+    @Autowired
+    public SqlStatementHeadersAdvice(SqlStatementFilter sqlStatementFilter) {
+        this.sqlStatementFilter = sqlStatementFilter;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        if (request instanceof ServletServerHttpRequest servletRequest)
+            sqlStatementFilter.writeHeaders(servletRequest.getServletRequest(), response.getHeaders());
+        return body;
+    }
+}
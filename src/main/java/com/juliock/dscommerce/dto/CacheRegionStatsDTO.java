@@ -0,0 +1,49 @@
+package com.juliock.dscommerce.dto;
+
+/*
+*   Estatisticas de uma região do cache de segundo nivel do Hibernate (ver config/SecondLevelCacheConfig).
+*       missCount conta as leituras que foram ao banco; putCount, as entradas gravadas na região (cargas e atualizações).
+* */
+
+public class CacheRegionStatsDTO {
+
+    private final String region;
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final long putCount;
+    private final double hitRate;
+
+    public CacheRegionStatsDTO(String region, long size, long hitCount, long missCount, long putCount) {
+        this.region = region;
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.putCount = putCount;
+        this.hitRate = (hitCount + missCount == 0) ? 0.0 : (double) hitCount / (hitCount + missCount);
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public long getPutCount() {
+        return putCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+}
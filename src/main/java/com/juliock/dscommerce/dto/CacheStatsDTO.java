@@ -0,0 +1,68 @@
+package com.juliock.dscommerce.dto;
+
+/*
+*   Estatisticas de um cache em memória (ex: ProductCache).
+*       averageLoadPenaltyNanos é o tempo medio, em nanossegundos, que uma carga (ida ao banco) levou.
+* */
+
+public class CacheStatsDTO {
+
+    private final String name;
+    private final long size;
+    private final long hitCount;
+    private final long missCount;
+    private final double hitRate;
+    private final double missRate;
+    private final long loadCount;
+    private final double averageLoadPenaltyNanos;
+    private final long evictionCount;
+
+    public CacheStatsDTO(String name, long size, long hitCount, long missCount, double hitRate, double missRate,
+                         long loadCount, double averageLoadPenaltyNanos, long evictionCount) {
+        this.name = name;
+        this.size = size;
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.hitRate = hitRate;
+        this.missRate = missRate;
+        this.loadCount = loadCount;
+        this.averageLoadPenaltyNanos = averageLoadPenaltyNanos;
+        this.evictionCount = evictionCount;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    public double getHitRate() {
+        return hitRate;
+    }
+
+    public double getMissRate() {
+        return missRate;
+    }
+
+    public long getLoadCount() {
+        return loadCount;
+    }
+
+    public double getAverageLoadPenaltyNanos() {
+        return averageLoadPenaltyNanos;
+    }
+
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+}
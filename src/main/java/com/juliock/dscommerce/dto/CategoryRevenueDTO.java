@@ -0,0 +1,45 @@
+package com.juliock.dscommerce.dto;
+
+import java.time.LocalDate;
+
+/*
+*   Receita de uma categoria numa janela de tempo (dia, semana ou mes, em UTC) que começa em windowStart.
+*       Um item de um produto com varias categorias conta para cada uma delas.
+* */
+
+public class CategoryRevenueDTO {
+
+    private LocalDate windowStart;
+    private Long categoryId;
+    private String categoryName;
+    private Long quantity;
+    private Double revenue;
+
+    public CategoryRevenueDTO(LocalDate windowStart, Long categoryId, String categoryName, Long quantity, Double revenue) {
+        this.windowStart = windowStart;
+        this.categoryId = categoryId;
+        this.categoryName = categoryName;
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+
+    public LocalDate getWindowStart() {
+        return windowStart;
+    }
+
+    public Long getCategoryId() {
+        return categoryId;
+    }
+
+    public String getCategoryName() {
+        return categoryName;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public Double getRevenue() {
+        return revenue;
+    }
+}
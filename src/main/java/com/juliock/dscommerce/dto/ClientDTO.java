@@ -0,0 +1,28 @@
+package com.juliock.dscommerce.dto;
+
+import com.juliock.dscommerce.entities.User;
+
+//  Dados do cliente exibidos no pedido (sem email, telefone e senha)
+public class ClientDTO {
+
+    private Long id;
+    private String name;
+
+    public ClientDTO(Long id, String name) {
+        this.id = id;
+        this.name = name;
+    }
+
+    public ClientDTO(User user) {
+        id = user.getId();
+        name = user.getName();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
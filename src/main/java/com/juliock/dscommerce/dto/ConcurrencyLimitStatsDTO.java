@@ -0,0 +1,76 @@
+package com.juliock.dscommerce.dto;
+
+/*
+*   Estado de um limite adaptativo de requests simultâneas (ver services/limits/ConcurrencyLimits).
+*       rejected conta as requests recusadas com 503; os tempos de fila incluem as requests que entraram sem esperar (0 ms).
+*       baselineLatencyMillis é a latência media longa, usada como referência da latência "sem fila".
+* */
+
+public class ConcurrencyLimitStatsDTO {
+
+    private final String group;
+    private final int limit;
+    private final int inFlight;
+    private final int queued;
+    private final long accepted;
+    private final long rejected;
+    private final double queueTimeP50Millis;
+    private final double queueTimeP99Millis;
+    private final double queueTimeMaxMillis;
+    private final double baselineLatencyMillis;
+
+    public ConcurrencyLimitStatsDTO(String group, int limit, int inFlight, int queued, long accepted, long rejected,
+                                    double queueTimeP50Millis, double queueTimeP99Millis, double queueTimeMaxMillis,
+                                    double baselineLatencyMillis) {
+        this.group = group;
+        this.limit = limit;
+        this.inFlight = inFlight;
+        this.queued = queued;
+        this.accepted = accepted;
+        this.rejected = rejected;
+        this.queueTimeP50Millis = queueTimeP50Millis;
+        this.queueTimeP99Millis = queueTimeP99Millis;
+        this.queueTimeMaxMillis = queueTimeMaxMillis;
+        this.baselineLatencyMillis = baselineLatencyMillis;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight;
+    }
+
+    public int getQueued() {
+        return queued;
+    }
+
+    public long getAccepted() {
+        return accepted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public double getQueueTimeP50Millis() {
+        return queueTimeP50Millis;
+    }
+
+    public double getQueueTimeP99Millis() {
+        return queueTimeP99Millis;
+    }
+
+    public double getQueueTimeMaxMillis() {
+        return queueTimeMaxMillis;
+    }
+
+    public double getBaselineLatencyMillis() {
+        return baselineLatencyMillis;
+    }
+}
@@ -0,0 +1,47 @@
+package com.juliock.dscommerce.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+*   Corpo do POST /orders (checkout): o cliente, os itens e se o pedido ja foi pago.
+*       paid = true cria o Payment junto e o pedido nasce PAID; senao nasce WAITING_PAYMENT.
+*       O mesmo produto repetido na lista vira um item só, com as quantidades somadas.
+* */
+
+public class OrderCheckoutDTO {
+
+    @NotNull(message = "Client id must not be null.")
+    private Long clientId;
+
+    @NotEmpty(message = "Order must have at least one item.")
+    @Valid  //  valida também cada item da lista
+    private List<OrderCheckoutItemDTO> items = new ArrayList<>();
+
+    private boolean paid;
+
+    public OrderCheckoutDTO() {
+    }
+
+    public OrderCheckoutDTO(Long clientId, List<OrderCheckoutItemDTO> items, boolean paid) {
+        this.clientId = clientId;
+        this.items = items;
+        this.paid = paid;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public List<OrderCheckoutItemDTO> getItems() {
+        return items;
+    }
+
+    public boolean isPaid() {
+        return paid;
+    }
+}
@@ -0,0 +1,31 @@
+package com.juliock.dscommerce.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+//  Item do checkout: só o produto e a quantidade. O preço é o do produto no momento da compra (nao vem do cliente)
+public class OrderCheckoutItemDTO {
+
+    @NotNull(message = "Product id must not be null.")
+    private Long productId;
+
+    @NotNull(message = "Quantity must not be null.")
+    @Positive(message = "Quantity must be a positive value.")
+    private Integer quantity;
+
+    public OrderCheckoutItemDTO() {
+    }
+
+    public OrderCheckoutItemDTO(Long productId, Integer quantity) {
+        this.productId = productId;
+        this.quantity = quantity;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+}
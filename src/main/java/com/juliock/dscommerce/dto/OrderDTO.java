@@ -0,0 +1,66 @@
+package com.juliock.dscommerce.dto;
+
+import com.juliock.dscommerce.entities.Order;
+import com.juliock.dscommerce.entities.OrderStatus;
+
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+*   Pedido completo: cliente, pagamento (null se ainda nao foi pago), itens e o total.
+*       O total é a soma de price * quantity dos itens, calculada aqui a partir dos dados ja carregados.
+* */
+
+public class OrderDTO {
+
+    private Long id;
+    private Instant moment;
+    private OrderStatus status;
+    private ClientDTO client;
+    private PaymentDTO payment;
+    private List<OrderItemDTO> items;
+
+    public OrderDTO(Order order) {
+        id = order.getId();
+        moment = order.getMoment();
+        status = order.getStatus();
+        client = new ClientDTO(order.getClient());
+        payment = (order.getPayment() == null) ? null : new PaymentDTO(order.getPayment());
+        items = order.getItems().stream()
+                .map(OrderItemDTO::new)
+                .sorted(Comparator.comparing(OrderItemDTO::getProductId))
+                .toList();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Instant getMoment() {
+        return moment;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public ClientDTO getClient() {
+        return client;
+    }
+
+    public PaymentDTO getPayment() {
+        return payment;
+    }
+
+    public List<OrderItemDTO> getItems() {
+        return items;
+    }
+
+    public Double getTotal() {
+        double total = 0.0;
+        for (OrderItemDTO item : items)
+            total += item.getSubTotal();
+        return total;
+    }
+}
@@ -0,0 +1,56 @@
+package com.juliock.dscommerce.dto;
+
+import com.juliock.dscommerce.entities.OrderItem;
+
+/*
+*   Item do pedido. O price é o preço do produto NO MOMENTO do pedido (gravado em OrderItem), e nao o preço atual do produto.
+* */
+
+public class OrderItemDTO {
+
+    private Long productId;
+    private String name;
+    private Double price;
+    private Integer quantity;
+    private String imgUrl;
+
+    public OrderItemDTO(Long productId, String name, Double price, Integer quantity, String imgUrl) {
+        this.productId = productId;
+        this.name = name;
+        this.price = price;
+        this.quantity = quantity;
+        this.imgUrl = imgUrl;
+    }
+
+    public OrderItemDTO(OrderItem item) {
+        productId = item.getProduct().getId();
+        name = item.getProduct().getName();
+        price = item.getPrice();
+        quantity = item.getQuantity();
+        imgUrl = item.getProduct().getImgUrl();
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public String getImgUrl() {
+        return imgUrl;
+    }
+
+    public Double getSubTotal() {
+        return (price == null || quantity == null) ? 0.0 : price * quantity;
+    }
+}
@@ -0,0 +1,50 @@
+package com.juliock.dscommerce.dto;
+
+import com.juliock.dscommerce.entities.OrderStatus;
+import com.juliock.dscommerce.entities.OrderSummary;
+
+import java.time.Instant;
+
+//  Resumo de um pedido lido da tb_order_summary: total e quantidade de unidades ja calculados, sem carregar os itens
+public class OrderSummaryDTO {
+
+    private Long id;
+    private Long clientId;
+    private Instant moment;
+    private OrderStatus status;
+    private Double total;
+    private Integer itemCount;
+
+    public OrderSummaryDTO(OrderSummary summary) {
+        id = summary.getOrderId();
+        clientId = summary.getClientId();
+        moment = summary.getMoment();
+        status = summary.getStatus();
+        total = summary.getTotal();
+        itemCount = summary.getItemCount();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public Instant getMoment() {
+        return moment;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public Double getTotal() {
+        return total;
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+}
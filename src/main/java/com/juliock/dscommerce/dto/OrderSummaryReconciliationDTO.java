@@ -0,0 +1,74 @@
+package com.juliock.dscommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+*   Resultado de uma reconciliação dos resumos materializados com a tb_order_item (OrderSummaryService.reconcile).
+*       As listas de ids trazem só os primeiros SAMPLE_SIZE divergentes, para a resposta nao crescer com o tamanho do problema.
+* */
+
+public class OrderSummaryReconciliationDTO {
+
+    private static final int SAMPLE_SIZE = 100;
+
+    private boolean repaired;
+    private long checkedOrders;
+    private long mismatchedOrders;
+    private long checkedClients;
+    private long mismatchedClients;
+    private List<Long> mismatchedOrderIds = new ArrayList<>();
+    private List<Long> mismatchedClientIds = new ArrayList<>();
+
+    public OrderSummaryReconciliationDTO(boolean repaired) {
+        this.repaired = repaired;
+    }
+
+    public boolean isRepaired() {
+        return repaired;
+    }
+
+    public long getCheckedOrders() {
+        return checkedOrders;
+    }
+
+    public long getMismatchedOrders() {
+        return mismatchedOrders;
+    }
+
+    public long getCheckedClients() {
+        return checkedClients;
+    }
+
+    public long getMismatchedClients() {
+        return mismatchedClients;
+    }
+
+    public List<Long> getMismatchedOrderIds() {
+        return mismatchedOrderIds;
+    }
+
+    public List<Long> getMismatchedClientIds() {
+        return mismatchedClientIds;
+    }
+
+    public void addCheckedOrders(long count) {
+        checkedOrders += count;
+    }
+
+    public void addCheckedClients(long count) {
+        checkedClients += count;
+    }
+
+    public void addMismatchedOrder(Long orderId) {
+        mismatchedOrders++;
+        if (mismatchedOrderIds.size() < SAMPLE_SIZE)
+            mismatchedOrderIds.add(orderId);
+    }
+
+    public void addMismatchedClient(Long clientId) {
+        mismatchedClients++;
+        if (mismatchedClientIds.size() < SAMPLE_SIZE)
+            mismatchedClientIds.add(clientId);
+    }
+}
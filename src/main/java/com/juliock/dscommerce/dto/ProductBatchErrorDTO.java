@@ -0,0 +1,43 @@
+package com.juliock.dscommerce.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+*   Erro de UM item de uma escrita em lote (POST/PUT /products/batch).
+*       index é a posição do item na lista enviada na request; errorList contem os campos invalidos, quando o erro for de validação.
+* */
+
+public class ProductBatchErrorDTO {
+
+    private final Integer index;
+    private final Long id;
+    private final String error;
+    private final List<InvalidFieldErrorMessage> errorList = new ArrayList<>();
+
+    public ProductBatchErrorDTO(Integer index, Long id, String error) {
+        this.index = index;
+        this.id = id;
+        this.error = error;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public List<InvalidFieldErrorMessage> getErrorList() {
+        return errorList;
+    }
+
+    public void addError(String fieldName, String errorMessage) {
+        errorList.add(new InvalidFieldErrorMessage(fieldName, errorMessage));
+    }
+}
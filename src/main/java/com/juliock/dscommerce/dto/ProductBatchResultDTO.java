@@ -0,0 +1,51 @@
+package com.juliock.dscommerce.dto;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+*   Resultado de uma escrita em lote (POST/PUT /products/batch): os produtos gravados e um erro para cada item que falhou.
+*       Um item com erro nao impede a gravação dos demais.
+*
+*   Os metodos add* sao synchronized pois os itens sao adicionados conforme cada bloco (chunk) é confirmado no banco.
+* */
+
+public class ProductBatchResultDTO {
+
+    private final int received;
+    private final List<ProductDTO> items = new ArrayList<>();
+    private final List<ProductBatchErrorDTO> errors = new ArrayList<>();
+
+    public ProductBatchResultDTO(int received) {
+        this.received = received;
+    }
+
+    public int getReceived() {
+        return received;
+    }
+
+    public synchronized int getSucceeded() {
+        return items.size();
+    }
+
+    public synchronized int getFailed() {
+        return errors.size();
+    }
+
+    public synchronized List<ProductDTO> getItems() {
+        return Collections.unmodifiableList(items);
+    }
+
+    public synchronized List<ProductBatchErrorDTO> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    public synchronized void addItem(ProductDTO dto) {
+        items.add(dto);
+    }
+
+    public synchronized void addError(ProductBatchErrorDTO error) {
+        errors.add(error);
+    }
+}
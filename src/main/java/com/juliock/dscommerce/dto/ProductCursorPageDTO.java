@@ -0,0 +1,40 @@
+package com.juliock.dscommerce.dto;
+
+import java.util.List;
+
+/*
+*   Resposta da listagem paginada por cursor (GET /products/cursor).
+*       Diferente do Page, nao existe total de elementos nem numero de pagina: apenas o conteúdo, se há uma proxima pagina
+*       e o cursor "next" que deve ser enviado para buscá-la.
+* */
+
+public class ProductCursorPageDTO {
+
+    private final List<ProductDTO> content;
+    private final int size;
+    private final boolean hasNext;
+    private final String next;
+
+    public ProductCursorPageDTO(List<ProductDTO> content, int size, boolean hasNext, String next) {
+        this.content = content;
+        this.size = size;
+        this.hasNext = hasNext;
+        this.next = next;
+    }
+
+    public List<ProductDTO> getContent() {
+        return content;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isHasNext() {
+        return hasNext;
+    }
+
+    public String getNext() {
+        return next;
+    }
+}
@@ -38,6 +38,14 @@ public class ProductDTO implements Serializable {
     public ProductDTO() {
     }
 
+    public ProductDTO(Long id, String name, String description, Double price, String imgUrl) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.price = price;
+        this.imgUrl = imgUrl;
+    }
+
     public ProductDTO(Product p) {
         id = p.getId();
         name = p.getName();
@@ -0,0 +1,29 @@
+package com.juliock.dscommerce.dto;
+
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+/*
+*   Resposta de GET /products?facets=true: a pagina de sempre mais as contagens por categoria do resultado INTEIRO da busca
+*       (todas as paginas), para a tela exibir os filtros de categoria com a quantidade de produtos de cada um.
+* */
+
+public class ProductFacetedPageDTO {
+
+    private Page<ProductDTO> page;
+    private List<CategoryFacetDTO> facets;
+
+    public ProductFacetedPageDTO(Page<ProductDTO> page, List<CategoryFacetDTO> facets) {
+        this.page = page;
+        this.facets = facets;
+    }
+
+    public Page<ProductDTO> getPage() {
+        return page;
+    }
+
+    public List<CategoryFacetDTO> getFacets() {
+        return facets;
+    }
+}
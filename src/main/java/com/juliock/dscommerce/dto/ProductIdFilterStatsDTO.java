@@ -0,0 +1,69 @@
+package com.juliock.dscommerce.dto;
+
+/*
+*   Estatisticas do filtro de Bloom de ids de produtos (ProductIdFilter), desde a ultima reconstrução.
+*       observedFalsePositiveRate: falsos positivos / consultas em que o filtro respondeu "talvez".
+*       expectedFalsePositiveRate: estimativa teórica a partir da ocupação dos bits.
+* */
+
+public class ProductIdFilterStatsDTO {
+
+    private final boolean ready;
+    private final long bitSize;
+    private final int hashFunctions;
+    private final long lookups;
+    private final long rejected;
+    private final long falsePositives;
+    private final double observedFalsePositiveRate;
+    private final double expectedFalsePositiveRate;
+    private final long lastRebuildMillis;
+
+    public ProductIdFilterStatsDTO(boolean ready, long bitSize, int hashFunctions, long lookups, long rejected, long falsePositives,
+                                   double observedFalsePositiveRate, double expectedFalsePositiveRate, long lastRebuildMillis) {
+        this.ready = ready;
+        this.bitSize = bitSize;
+        this.hashFunctions = hashFunctions;
+        this.lookups = lookups;
+        this.rejected = rejected;
+        this.falsePositives = falsePositives;
+        this.observedFalsePositiveRate = observedFalsePositiveRate;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+        this.lastRebuildMillis = lastRebuildMillis;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public long getBitSize() {
+        return bitSize;
+    }
+
+    public int getHashFunctions() {
+        return hashFunctions;
+    }
+
+    public long getLookups() {
+        return lookups;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public long getFalsePositives() {
+        return falsePositives;
+    }
+
+    public double getObservedFalsePositiveRate() {
+        return observedFalsePositiveRate;
+    }
+
+    public double getExpectedFalsePositiveRate() {
+        return expectedFalsePositiveRate;
+    }
+
+    public long getLastRebuildMillis() {
+        return lastRebuildMillis;
+    }
+}
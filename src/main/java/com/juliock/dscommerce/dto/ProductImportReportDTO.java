@@ -0,0 +1,93 @@
+package com.juliock.dscommerce.dto;
+
+import com.juliock.dscommerce.services.imports.ImportProgress;
+
+import java.time.Instant;
+import java.util.List;
+
+/*
+*   Progresso e resultado de uma importação em massa (POST /products/import).
+*
+*   É uma foto imutavel do ImportProgress no momento da chamada: as threads do pipeline continuam atualizando o ImportProgress,
+*       e cada GET /products/import monta uma foto nova.
+* */
+
+public class ProductImportReportDTO {
+
+    private final String id;
+    private final String format;
+    private final int batchSize;
+    private final int parallelism;
+    private final String status;
+    private final Instant startedAt;
+    private final Instant finishedAt;
+    private final long rowsRead;
+    private final long rowsImported;
+    private final long rowsFailed;
+    private final double rowsPerSecond;
+    private final List<ProductBatchErrorDTO> errors;
+
+    public ProductImportReportDTO(ImportProgress progress) {
+        //  status e finishedAt primeiro: se a importação terminou, os contadores lidos depois já sao os finais
+        status = progress.getStatus();
+        finishedAt = progress.getFinishedAt();
+        id = progress.getId();
+        format = progress.getFormat();
+        batchSize = progress.getBatchSize();
+        parallelism = progress.getParallelism();
+        startedAt = progress.getStartedAt();
+        rowsRead = progress.getRowsRead();
+        rowsImported = progress.getRowsImported();
+        rowsFailed = progress.getRowsFailed();
+        rowsPerSecond = progress.getRowsPerSecond();
+        errors = progress.getErrors();
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public List<ProductBatchErrorDTO> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,39 @@
+package com.juliock.dscommerce.dto;
+
+/*
+*   Versão resumida do produto para LISTAGENS (GET /products?view=summary): sem a description, que é um TEXT grande e a tela de listagem nao exibe.
+*
+*   É montado direto pela consulta (SELECT new ...ProductMinDTO(...), ver ProductRepository.searchSummaryByName):
+*       o banco só lê as 4 colunas e o Hibernate nao cria nenhuma entidade Product nem a guarda no contexto de persistência.
+* */
+
+public class ProductMinDTO {
+
+    private Long id;
+    private String name;
+    private Double price;
+    private String imgUrl;
+
+    public ProductMinDTO(Long id, String name, Double price, String imgUrl) {
+        this.id = id;
+        this.name = name;
+        this.price = price;
+        this.imgUrl = imgUrl;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Double getPrice() {
+        return price;
+    }
+
+    public String getImgUrl() {
+        return imgUrl;
+    }
+}
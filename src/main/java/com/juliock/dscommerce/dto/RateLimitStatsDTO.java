@@ -0,0 +1,43 @@
+package com.juliock.dscommerce.dto;
+
+/*
+*   Limite por cliente de uma rota (ver services/limits/RateLimits).
+*       clients é a quantidade aproximada de clientes com balde em memória; throttled conta as requests recusadas com 429.
+* */
+
+public class RateLimitStatsDTO {
+
+    private final String route;
+    private final double requestsPerSecond;
+    private final long burst;
+    private final long clients;
+    private final long throttled;
+
+    public RateLimitStatsDTO(String route, double requestsPerSecond, long burst, long clients, long throttled) {
+        this.route = route;
+        this.requestsPerSecond = requestsPerSecond;
+        this.burst = burst;
+        this.clients = clients;
+        this.throttled = throttled;
+    }
+
+    public String getRoute() {
+        return route;
+    }
+
+    public double getRequestsPerSecond() {
+        return requestsPerSecond;
+    }
+
+    public long getBurst() {
+        return burst;
+    }
+
+    public long getClients() {
+        return clients;
+    }
+
+    public long getThrottled() {
+        return throttled;
+    }
+}
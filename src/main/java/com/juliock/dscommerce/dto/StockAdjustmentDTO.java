@@ -0,0 +1,17 @@
+package com.juliock.dscommerce.dto;
+
+import jakarta.validation.constraints.NotNull;
+
+//  Ajuste de estoque: delta positivo = reposição, negativo = baixa (falha se nao houver estoque suficiente)
+public class StockAdjustmentDTO {
+
+    @NotNull(message = "Delta must not be null.")
+    private Long delta;
+
+    public StockAdjustmentDTO() {
+    }
+
+    public Long getDelta() {
+        return delta;
+    }
+}
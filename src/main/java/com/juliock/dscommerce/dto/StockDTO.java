@@ -0,0 +1,27 @@
+package com.juliock.dscommerce.dto;
+
+//  Estoque disponivel de um produto (em memória) e as unidades reservadas que ainda nao foram gravadas na tb_product
+public class StockDTO {
+
+    private Long productId;
+    private Long available;
+    private Long pendingFlush;
+
+    public StockDTO(Long productId, Long available, Long pendingFlush) {
+        this.productId = productId;
+        this.available = available;
+        this.pendingFlush = pendingFlush;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public Long getAvailable() {
+        return available;
+    }
+
+    public Long getPendingFlush() {
+        return pendingFlush;
+    }
+}
@@ -0,0 +1,33 @@
+package com.juliock.dscommerce.dto;
+
+//  Produto mais vendido no periodo: unidades vendidas e receita (soma de price * quantity dos itens, pedidos cancelados fora)
+public class TopProductDTO {
+
+    private Long productId;
+    private String name;
+    private Long quantity;
+    private Double revenue;
+
+    public TopProductDTO(Long productId, String name, Long quantity, Double revenue) {
+        this.productId = productId;
+        this.name = name;
+        this.quantity = quantity;
+        this.revenue = revenue;
+    }
+
+    public Long getProductId() {
+        return productId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Long getQuantity() {
+        return quantity;
+    }
+
+    public Double getRevenue() {
+        return revenue;
+    }
+}
@@ -0,0 +1,27 @@
+package com.juliock.dscommerce.dto;
+
+//  Agregados de pedidos de um cliente (tb_user_order_stats): quantidade de pedidos e total gasto, sem contar os cancelados
+public class UserOrderStatsDTO {
+
+    private Long clientId;
+    private Long orderCount;
+    private Double lifetimeSpend;
+
+    public UserOrderStatsDTO(Long clientId, Long orderCount, Double lifetimeSpend) {
+        this.clientId = clientId;
+        this.orderCount = orderCount;
+        this.lifetimeSpend = lifetimeSpend;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public Double getLifetimeSpend() {
+        return lifetimeSpend;
+    }
+}
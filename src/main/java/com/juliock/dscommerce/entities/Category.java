@@ -1,13 +1,20 @@
 package com.juliock.dscommerce.entities;
 
+import com.juliock.dscommerce.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Objects;
 import java.util.Set;
 
+/*  Entidade no cache de segundo nivel (ver config/SecondLevelCacheConfig): as categorias sao lidas em quase toda leitura de produto
+*       e quase nunca mudam. READ_WRITE: uma alteração feita pelo JPA atualiza a entrada no commit. */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CATEGORY_REGION)
 @Table(name = "tb_category")
 public class Category implements Serializable {
 
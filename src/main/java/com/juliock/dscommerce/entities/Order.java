@@ -7,7 +7,9 @@ import java.time.Instant;
 import java.util.*;
 
 @Entity
-@Table(name = "tb_order")
+@Table(name = "tb_order", indexes = {
+        @Index(name = "idx_order_moment", columnList = "moment")   //  intervalo de ids dos pedidos de um periodo (ReportService)
+})
 public class Order implements Serializable {
 
     @Id
@@ -19,7 +21,10 @@ public class Order implements Serializable {
 
     private OrderStatus status;
 
-    @ManyToOne
+    /*  LAZY: o padrão do @ManyToOne é EAGER, o que faria toda consulta de Order buscar também o User, um por um (N+1).
+    *       Quem precisa do client busca junto explicitamente (JOIN FETCH), ver OrderRepository.
+    * */
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id")
     private User client;
 
@@ -85,6 +90,10 @@ public class Order implements Serializable {
         return new HashSet<>(this.items);
     }
 
+    public void addItem(OrderItem item) {
+        this.items.add(item);
+    }
+
     public List<Product> getProducts() {
         return items.stream().map(OrderItem::getProduct).toList();
     }
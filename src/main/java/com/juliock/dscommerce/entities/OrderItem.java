@@ -27,12 +27,12 @@ public class OrderItem implements Serializable {
     @EmbeddedId
     private OrderItemPK id = new OrderItemPK();
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)   //  LAZY pelo mesmo motivo de Order.client: o padrão EAGER gera uma consulta por item
     @JoinColumn(name = "order_id")
     @MapsId("orderId")               //O JPA busca na instancia de Order o campo marcado com @Id e atribui o valor dele ao campo "orderId" da classe marcada como @Embeddable (OrderItemPK no caso)
     private Order order;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "product_id")
     @MapsId("productId")
     private Product product;
@@ -44,6 +44,8 @@ public class OrderItem implements Serializable {
     }
 
     public OrderItem(Order order, Product product, Integer quantity, Double price) {
+        //  A PK ja sai preenchida quando o pedido e o produto tem id: o item pode entrar num Set (equals/hashCode pela PK) antes do flush
+        this.id = new OrderItemPK((order == null) ? null : order.getId(), (product == null) ? null : product.getId());
         this.order = order;
         this.product = product;
         this.quantity = quantity;
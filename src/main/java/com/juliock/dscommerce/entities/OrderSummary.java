@@ -0,0 +1,100 @@
+package com.juliock.dscommerce.entities;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.Objects;
+
+/*
+*   Resumo MATERIALIZADO de um pedido: total (soma de price * quantity dos itens), quantidade de unidades e status.
+*
+*   Sem ele, qualquer total de pedido exige carregar todos os OrderItem do pedido e somar. Aqui o total fica gravado e é mantido
+*       pelo OrderSummaryService na MESMA transação que grava o pedido e os itens, entao nunca fica para trás de um commit.
+*   O OrderSummaryService.reconcile() confere periodicamente estes valores com a tb_order_item.
+*
+*   A PK é o proprio id do pedido (uma linha por pedido). Os ids de client e o moment sao copiados do pedido
+*       para que as listagens de resumos nao precisem de JOIN com tb_order.
+* */
+
+@Entity
+@Table(name = "tb_order_summary", indexes = {
+        @Index(name = "idx_order_summary_client", columnList = "client_id")
+})
+public class OrderSummary implements Serializable {
+
+    @Id
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "client_id")
+    private Long clientId;
+
+    @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
+    private Instant moment;
+
+    private OrderStatus status;
+    private Double total;
+    private Integer itemCount;  //  soma das quantidades dos itens (unidades), nao a quantidade de linhas
+
+    public OrderSummary() {
+    }
+
+    public OrderSummary(Long orderId, Long clientId, Instant moment, OrderStatus status, Double total, Integer itemCount) {
+        this.orderId = orderId;
+        this.clientId = clientId;
+        this.moment = moment;
+        this.status = status;
+        this.total = total;
+        this.itemCount = itemCount;
+    }
+
+    public Long getOrderId() {
+        return orderId;
+    }
+
+    public Long getClientId() {
+        return clientId;
+    }
+
+    public Instant getMoment() {
+        return moment;
+    }
+
+    public OrderStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(OrderStatus status) {
+        this.status = status;
+    }
+
+    public Double getTotal() {
+        return total;
+    }
+
+    public void setTotal(Double total) {
+        this.total = total;
+    }
+
+    public Integer getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(Integer itemCount) {
+        this.itemCount = itemCount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+
+        OrderSummary that = (OrderSummary) o;
+        return Objects.equals(getOrderId(), that.getOrderId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getOrderId());
+    }
+}
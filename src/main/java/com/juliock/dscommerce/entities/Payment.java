@@ -17,7 +17,7 @@ public class Payment implements Serializable {
     @Column(columnDefinition = "TIMESTAMP WITHOUT TIME ZONE")
     private Instant moment;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @MapsId //nesse caso o JPA entende que a chave primária da entidade payment será a chave estrangeira (o id de Order, order_id), isso cria uma ligação forte: sem order nao existe payment.
     @JoinColumn(name = "order_id")
     private Order order;
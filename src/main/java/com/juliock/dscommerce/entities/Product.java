@@ -1,6 +1,9 @@
 package com.juliock.dscommerce.entities;
 
+import com.juliock.dscommerce.config.SecondLevelCacheConfig;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.io.Serializable;
 import java.util.HashSet;
@@ -8,12 +11,24 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 
+/*  Entidade no cache de segundo nivel (ver config/SecondLevelCacheConfig). Os inserts, updates e deletes do ProductService passam
+*       pelo JPA, entao a entrada é atualizada/removida no commit (READ_WRITE). */
 @Entity
-@Table(name = "tb_product")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PRODUCT_REGION)
+@Table(name = "tb_product", indexes = {
+        @Index(name = "idx_product_name_id", columnList = "name, id"),     //  indices usados pela paginação por cursor (ProductRepository.searchByNameAfter...)
+        @Index(name = "idx_product_price_id", columnList = "price, id")
+})
 public class Product implements Serializable {
 
+    /*  Com IDENTITY o id só é conhecido depois que o INSERT é executado, entao o Hibernate precisa executar cada INSERT na hora
+    *       e NÃO consegue agrupar os INSERTs em lotes (JDBC batch).
+    *   Com uma SEQUENCE "pooled", o Hibernate reserva 50 ids de uma vez (allocationSize) e pode mandar os INSERTs em lote no flush.
+    *       O import.sql insere os produtos com id explicito e depois reinicia a sequence no proximo id livre. */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "tb_product_seq", allocationSize = 50)
     private Long id;
     private String name;
 
@@ -22,6 +37,13 @@ public class Product implements Serializable {
     private Double price;
     private String imgUrl;
 
+    /*  Estoque gravado. O valor "vivo" fica em memória (StockService/StockLedger) e é gravado aqui em lote, com UPDATE direto:
+    *       updatable = false impede que um update do JPA (ex: PUT /products/{id}) sobrescreva o estoque com um valor antigo.
+    *   Como o UPDATE direto nao passa pelo Hibernate, o valor desse campo numa entidade vinda do cache de segundo nivel pode estar
+    *       atrasado: o estoque deve ser lido sempre pelo StockService, nunca por getStock(). */
+    @Column(columnDefinition = "INTEGER DEFAULT 0 NOT NULL", updatable = false)
+    private Integer stock = 0;
+
     /*  @ManyToMany sinaliza que *varias* instancias dessa entidade estão relacionadas a varias instancias de outra entidade.
             Esse tipo de relacionamento gera uma tabela separada de referencia contendo a chave primaria de cada uma das duas entidades */
 
@@ -31,7 +53,10 @@ public class Product implements Serializable {
 
     /*  Não pode haver um produto em duas categorias iguais (repetidas), portanto a interface Set é a ideal para agrupar categorias pois nao admite repetições. */
 
+    /*  A coleção também fica no cache de segundo nivel (só os ids das categorias; cada Category vem da região dela).
+    *       addCategory dentro de uma transação do JPA invalida a entrada da coleção no commit. */
     @ManyToMany
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.PRODUCT_CATEGORIES_REGION)
     @JoinTable(name = "tb_product_category",
             joinColumns = @JoinColumn(name = "product_id"),
             inverseJoinColumns = @JoinColumn(name = "category_id"))
@@ -100,10 +125,18 @@ public class Product implements Serializable {
         this.imgUrl = imgUrl;
     }
 
+    public Integer getStock() {
+        return stock;
+    }
+
     public Set<Category> getCategories() {
         return new HashSet<>(this.categories);
     }
 
+    public void addCategory(Category category) {
+        this.categories.add(category);
+    }
+
     public Set<OrderItem> getItems() {
         return new HashSet<>(this.items);
     }
@@ -0,0 +1,69 @@
+package com.juliock.dscommerce.entities;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/*
+*   Agregados MATERIALIZADOS por cliente: quantidade de pedidos e total gasto desde sempre.
+*       Pedidos CANCELED nao entram em nenhum dos dois (ao cancelar, o pedido é descontado).
+*
+*   Mantido pelo OrderSummaryService junto com o OrderSummary, na mesma transação das escritas de pedidos.
+*       As atualizações sao feitas com UPDATE ... SET x = x + :delta, entao dois pedidos do mesmo cliente gravados ao mesmo tempo
+*       nao perdem nenhum incremento (o banco serializa os dois UPDATEs na mesma linha).
+* */
+
+@Entity
+@Table(name = "tb_user_order_stats")
+public class UserOrderStats implements Serializable {
+
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    private Long orderCount;
+    private Double lifetimeSpend;
+
+    public UserOrderStats() {
+    }
+
+    public UserOrderStats(Long userId, Long orderCount, Double lifetimeSpend) {
+        this.userId = userId;
+        this.orderCount = orderCount;
+        this.lifetimeSpend = lifetimeSpend;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public Long getOrderCount() {
+        return orderCount;
+    }
+
+    public void setOrderCount(Long orderCount) {
+        this.orderCount = orderCount;
+    }
+
+    public Double getLifetimeSpend() {
+        return lifetimeSpend;
+    }
+
+    public void setLifetimeSpend(Double lifetimeSpend) {
+        this.lifetimeSpend = lifetimeSpend;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+
+        UserOrderStats that = (UserOrderStats) o;
+        return Objects.equals(getUserId(), that.getUserId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(getUserId());
+    }
+}
@@ -0,0 +1,37 @@
+package com.juliock.dscommerce.repositories;
+
+import com.juliock.dscommerce.entities.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderRepository extends JpaRepository<Order, Long> {
+
+    /*
+    *   O pedido completo (client, payment, items e o product de cada item) numa UNICA consulta, com JOIN FETCH,
+    *       qualquer que seja a quantidade de itens. Sem isso cada item e cada produto seriam buscados numa consulta separada.
+    * */
+    @Query("SELECT obj FROM Order obj JOIN FETCH obj.client LEFT JOIN FETCH obj.payment " +
+            "LEFT JOIN FETCH obj.items i LEFT JOIN FETCH i.product WHERE obj.id = :id")
+    Optional<Order> searchByIdWithItems(Long id);
+
+    /*
+    *   Listagem paginada em dois passos:
+    *       1) searchIds: só os ids da pagina pedida (+ o COUNT do Page). A paginação é feita pelo banco, sobre as linhas de tb_order;
+    *       2) searchByIdsWithItems: os pedidos completos desses ids, com JOIN FETCH.
+    *   Paginar direto uma consulta com JOIN FETCH de coleção nao funciona: o LIMIT cortaria linhas de itens, entao o Hibernate
+    *       buscaria TODOS os pedidos e paginaria na memória. Assim, sao sempre 3 consultas por pagina.
+    * */
+    @Query(value = "SELECT obj.id FROM Order obj", countQuery = "SELECT COUNT(obj) FROM Order obj")
+    Page<Long> searchIds(Pageable pageable);
+
+    @Query("SELECT obj FROM Order obj JOIN FETCH obj.client LEFT JOIN FETCH obj.payment " +
+            "LEFT JOIN FETCH obj.items i LEFT JOIN FETCH i.product WHERE obj.id IN :ids")
+    List<Order> searchByIdsWithItems(List<Long> ids);
+}
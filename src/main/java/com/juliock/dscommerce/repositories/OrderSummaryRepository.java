@@ -0,0 +1,54 @@
+package com.juliock.dscommerce.repositories;
+
+import com.juliock.dscommerce.entities.OrderStatus;
+import com.juliock.dscommerce.entities.OrderSummary;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    Page<OrderSummary> findByClientId(Long clientId, Pageable pageable);
+
+    //  SELECT ... FOR UPDATE: duas escritas no mesmo pedido ao mesmo tempo ficam em fila, e nenhuma perde a alteração da outra
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OrderSummary s WHERE s.orderId = :orderId")
+    Optional<OrderSummary> findForUpdate(Long orderId);
+
+    /*
+    *   Consultas da reconciliação (OrderSummaryService.reconcile): os mesmos valores do resumo, mas calculados direto da tb_order_item.
+    *       Cada elemento é um Object[] {orderId, clientId, moment, status, total, itemCount}. total e itemCount sao null se o pedido nao tem itens.
+    *       A tabela é percorrida em blocos por id (keyset), sem OFFSET, para que a reconciliação de milhões de pedidos nao degrade no fim.
+    * */
+    @Query("SELECT o.id, o.client.id, o.moment, o.status, SUM(i.price * i.quantity), SUM(i.quantity) FROM Order o LEFT JOIN o.items i " +
+            "WHERE o.id > :afterId GROUP BY o.id, o.client.id, o.moment, o.status ORDER BY o.id")
+    List<Object[]> aggregateItemsAfter(Long afterId, Pageable limit);
+
+    @Query("SELECT o.id, o.client.id, o.moment, o.status, SUM(i.price * i.quantity), SUM(i.quantity) FROM Order o LEFT JOIN o.items i " +
+            "WHERE o.id = :orderId GROUP BY o.id, o.client.id, o.moment, o.status")
+    List<Object[]> aggregateItems(Long orderId);
+
+    //  Resumos cujo pedido nao existe mais
+    @Query("SELECT s.orderId FROM OrderSummary s WHERE NOT EXISTS (SELECT 1 FROM Order o WHERE o.id = s.orderId)")
+    List<Long> findOrphanIds();
+
+    /*
+    *   Agregados por cliente calculados direto da tb_order_item (pedidos CANCELED de fora).
+    *       Cada elemento é um Object[] {userId, orderCount, lifetimeSpend}; lifetimeSpend é null se os pedidos nao tem itens.
+    * */
+    @Query("SELECT o.client.id, COUNT(DISTINCT o.id), SUM(i.price * i.quantity) FROM Order o LEFT JOIN o.items i " +
+            "WHERE o.status <> :canceled AND o.client.id > :afterId GROUP BY o.client.id ORDER BY o.client.id")
+    List<Object[]> aggregateUsersAfter(Long afterId, OrderStatus canceled, Pageable limit);
+
+    @Query("SELECT o.client.id, COUNT(DISTINCT o.id), SUM(i.price * i.quantity) FROM Order o LEFT JOIN o.items i " +
+            "WHERE o.status <> :canceled AND o.client.id = :userId GROUP BY o.client.id")
+    List<Object[]> aggregateUser(Long userId, OrderStatus canceled);
+}
@@ -1,17 +1,148 @@
 package com.juliock.dscommerce.repositories;
 
+import com.juliock.dscommerce.config.SecondLevelCacheConfig;
+import com.juliock.dscommerce.dto.ProductMinDTO;
 import com.juliock.dscommerce.entities.Product;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    /*
+    *   Resultado no query cache do Hibernate (região "product-search", ver config/SecondLevelCacheConfig): para o mesmo nome e a mesma
+    *       pagina, só os ids do resultado sao guardados, e as entidades vêm da região "product". Qualquer escrita do JPA na tb_product
+    *       ou na tb_product_category invalida os resultados guardados. O COUNT da pagina também é uma consulta e recebe a mesma hint.
+    * */
+    @QueryHints(value = {@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.PRODUCT_SEARCH_REGION)})
     @Query("SELECT obj from Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%'))")
     Page<Product> searchByName (String name, Pageable pageable);
+
+    /*
+    *   Filtros da listagem (GET /products?categoryId=...&minPrice=...&maxPrice=...), usados só quando os indices em memória
+    *       (ProductCategoryIndex / ProductPriceIndex) nao podem responder.
+    *       O produto entra se estiver em pelo menos :minMatches das categorias pedidas: 1 = em qualquer uma (OR), a quantidade
+    *       de categorias pedidas = em todas (AND). Sem filtro de categoria, basta passar minMatches = 0.
+    *       minPrice/maxPrice null = sem limite daquele lado (a faixa usa o idx_product_price_id).
+    * */
+    @Query(value = "SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND (:minPrice IS NULL OR obj.price >= :minPrice) AND (:maxPrice IS NULL OR obj.price <= :maxPrice) " +
+            "AND (SELECT COUNT(c) FROM Product p JOIN p.categories c WHERE p = obj AND c.id IN :categoryIds) >= :minMatches",
+            countQuery = "SELECT COUNT(obj) FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND (:minPrice IS NULL OR obj.price >= :minPrice) AND (:maxPrice IS NULL OR obj.price <= :maxPrice) " +
+            "AND (SELECT COUNT(c) FROM Product p JOIN p.categories c WHERE p = obj AND c.id IN :categoryIds) >= :minMatches")
+    Page<Product> searchByFilters(String name, Collection<Long> categoryIds, long minMatches, Double minPrice, Double maxPrice,
+                                  Pageable pageable);
+
+    //  Contagem por categoria (facets) do mesmo resultado da consulta acima. Cada elemento é um Object[] {categoryId, categoryName, count}.
+    @Query("SELECT c.id, c.name, COUNT(obj) FROM Product obj JOIN obj.categories c WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND (:minPrice IS NULL OR obj.price >= :minPrice) AND (:maxPrice IS NULL OR obj.price <= :maxPrice) " +
+            "AND (SELECT COUNT(pc) FROM Product p JOIN p.categories pc WHERE p = obj AND pc.id IN :categoryIds) >= :minMatches " +
+            "GROUP BY c.id, c.name ORDER BY c.id")
+    List<Object[]> countByCategory(String name, Collection<Long> categoryIds, long minMatches, Double minPrice, Double maxPrice);
+
+    /*
+    *   Consultas da listagem resumida (GET /products?view=summary): projeção por construtor direto no ProductMinDTO,
+    *       só com id, name, price e imgUrl. A description (TEXT) nem sai do banco e nenhuma entidade é criada.
+    *   O countQuery é explicito porque o Spring Data nao consegue derivar o COUNT de um SELECT new.
+    * */
+    @Query(value = "SELECT new com.juliock.dscommerce.dto.ProductMinDTO(obj.id, obj.name, obj.price, obj.imgUrl) FROM Product obj " +
+            "WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%'))",
+            countQuery = "SELECT COUNT(obj) FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%'))")
+    Page<ProductMinDTO> searchSummaryByName(String name, Pageable pageable);
+
+    @Query("SELECT new com.juliock.dscommerce.dto.ProductMinDTO(obj.id, obj.name, obj.price, obj.imgUrl) FROM Product obj " +
+            "WHERE obj.id IN :ids")
+    List<ProductMinDTO> searchSummaryByIds(Collection<Long> ids);
+
+    /*
+    *   Consultas da paginação por CURSOR (keyset / seek pagination).
+    *
+    *   Em vez de OFFSET (que obriga o banco a ler e descartar todas as linhas das paginas anteriores), a proxima pagina é buscada
+    *       a partir da chave de ordenação + id do ultimo elemento da pagina anterior: "WHERE (price, id) > (:price, :id)".
+    *       Com um indice em (coluna, id), o banco posiciona direto no ponto certo, entao o custo é o mesmo para qualquer profundidade.
+    *
+    *   O retorno é Slice (e nao Page): o Slice busca size + 1 elementos para saber se há proxima pagina e NÃO executa o COUNT.
+    *       O Pageable passado aqui deve ser sempre PageRequest.of(0, size) e SEM Sort, pois a ordenação ja está fixa em cada consulta.
+    *
+    *   A primeira pagina (ainda sem cursor) usa searchSliceByName, com a ordenação passada no Sort do Pageable.
+    *
+    *   Produtos com price null ficam de fora da listagem ordenada por preço (nao há como comparar null no cursor),
+    *       por isso a primeira pagina por preço tem sua propria consulta.
+    * */
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%'))")
+    Slice<Product> searchSliceByName(String name, Pageable pageable);
+
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) AND obj.price IS NOT NULL")
+    Slice<Product> searchSliceByNameWithPrice(String name, Pageable pageable);
+
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) AND obj.id > :id " +
+            "ORDER BY obj.id ASC")
+    Slice<Product> searchByNameAfterIdAsc(String name, Long id, Pageable pageable);
+
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) AND obj.id < :id " +
+            "ORDER BY obj.id DESC")
+    Slice<Product> searchByNameAfterIdDesc(String name, Long id, Pageable pageable);
+
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND (obj.name > :key OR (obj.name = :key AND obj.id > :id)) ORDER BY obj.name ASC, obj.id ASC")
+    Slice<Product> searchByNameAfterNameAsc(String name, String key, Long id, Pageable pageable);
+
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND (obj.name < :key OR (obj.name = :key AND obj.id < :id)) ORDER BY obj.name DESC, obj.id DESC")
+    Slice<Product> searchByNameAfterNameDesc(String name, String key, Long id, Pageable pageable);
+
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND (obj.price > :key OR (obj.price = :key AND obj.id > :id)) ORDER BY obj.price ASC, obj.id ASC")
+    Slice<Product> searchByNameAfterPriceAsc(String name, Double key, Long id, Pageable pageable);
+
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND (obj.price < :key OR (obj.price = :key AND obj.id < :id)) ORDER BY obj.price DESC, obj.id DESC")
+    Slice<Product> searchByNameAfterPriceDesc(String name, Double key, Long id, Pageable pageable);
+
+    /*
+    *   Consultas da exportação completa do catalogo (GET /products/export).
+    *       O Stream percorre o resultado com um cursor do JDBC (só para frente), buscando FETCH_SIZE linhas por vez,
+    *       em vez de carregar a lista inteira na memória. As entidades sao marcadas como somente leitura (sem snapshot para dirty checking).
+    *   CacheMode IGNORE: a exportação nao lê nem grava o cache de segundo nivel. Passar o catalogo inteiro pela região "product"
+    *       descartaria as entradas mais usadas (a região é limitada) a cada exportação.
+    * */
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) ORDER BY obj.id")
+    Stream<Product> streamByName(String name);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_MODE, value = "IGNORE")})
+    @Query("SELECT obj FROM Product obj WHERE UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')) " +
+            "AND EXISTS (SELECT 1 FROM Category c JOIN c.products p WHERE p = obj AND c.id = :categoryId) ORDER BY obj.id")
+    Stream<Product> streamByNameAndCategory(String name, Long categoryId);
+
+    /*  Usado para carregar os indices em memória (ProductNameIndex e ProductPriceIndex). Cada elemento é um Object[] {id, name, price}.
+    *       Como retorna um Stream, deve ser consumido dentro de uma transação e fechado ao final (try-with-resources). */
+    @Query("SELECT obj.id, obj.name, obj.price FROM Product obj ORDER BY obj.id")
+    Stream<Object[]> streamIdNameAndPrice();
+
+    //  Usado para carregar o ProductCategoryIndex: cada elemento é um Object[] {productId, categoryId} da tb_product_category
+    @Query("SELECT obj.id, c.id FROM Product obj JOIN obj.categories c")
+    Stream<Object[]> streamProductCategoryIds();
+
+    //  Usado na reconstrução periódica do ProductIdFilter (mesmas regras do Stream acima)
+    @Query("SELECT obj.id FROM Product obj")
+    Stream<Long> streamIds();
 }
@@ -0,0 +1,41 @@
+package com.juliock.dscommerce.repositories;
+
+import com.juliock.dscommerce.entities.OrderStatus;
+import com.juliock.dscommerce.entities.UserOrderStats;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UserOrderStatsRepository extends JpaRepository<UserOrderStats, Long> {
+
+    /*
+    *   Incremento atomico: o banco soma os deltas na propria linha, sem ler o valor antes (nao há lost update entre duas transações).
+    *       Retorna 0 se o cliente ainda nao tem linha na tabela (primeiro pedido).
+    *   flushAutomatically: uma linha criada com persist() na mesma transação precisa estar no banco antes do UPDATE.
+    * */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE UserOrderStats s SET s.orderCount = s.orderCount + :countDelta, s.lifetimeSpend = s.lifetimeSpend + :spendDelta " +
+            "WHERE s.userId = :userId")
+    int addToTotals(Long userId, long countDelta, double spendDelta);
+
+    //  Linha zerada do primeiro pedido de um cliente. Se outra transação criou a mesma linha antes, falha com chave duplicada.
+    @Modifying
+    @Query(value = "INSERT INTO tb_user_order_stats (user_id, order_count, lifetime_spend) VALUES (:userId, 0, 0.0)", nativeQuery = true)
+    int insertEmpty(Long userId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM UserOrderStats s WHERE s.userId = :userId")
+    Optional<UserOrderStats> findForUpdate(Long userId);
+
+    //  Clientes com agregados diferentes de zero, mas sem nenhum pedido que conte (ex: todos os pedidos foram cancelados)
+    @Query("SELECT s.userId FROM UserOrderStats s WHERE (s.orderCount <> 0 OR s.lifetimeSpend <> 0) " +
+            "AND NOT EXISTS (SELECT 1 FROM Order o WHERE o.client.id = s.userId AND o.status <> :canceled)")
+    List<Long> findOrphanIds(OrderStatus canceled);
+}
@@ -0,0 +1,9 @@
+package com.juliock.dscommerce.repositories;
+
+import com.juliock.dscommerce.entities.User;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserRepository extends JpaRepository<User, Long> {
+}
@@ -0,0 +1,197 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.OrderCheckoutDTO;
+import com.juliock.dscommerce.dto.OrderCheckoutItemDTO;
+import com.juliock.dscommerce.dto.OrderDTO;
+import com.juliock.dscommerce.entities.Order;
+import com.juliock.dscommerce.entities.OrderItem;
+import com.juliock.dscommerce.entities.OrderStatus;
+import com.juliock.dscommerce.entities.Payment;
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.entities.User;
+import com.juliock.dscommerce.repositories.OrderRepository;
+import com.juliock.dscommerce.repositories.ProductRepository;
+import com.juliock.dscommerce.repositories.UserRepository;
+import com.juliock.dscommerce.services.caches.IdempotencyStore;
+import com.juliock.dscommerce.services.exceptions.InvalidOrderException;
+import com.juliock.dscommerce.services.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/*
+*   Leitura de pedidos. O numero de consultas é fixo, qualquer que seja a quantidade de itens (ver OrderRepository):
+*       - findOrderById: 1 consulta;
+*       - findAllOrders: 3 consultas por pagina (ids, COUNT e os pedidos completos).
+*
+*   Checkout (criação de pedido), também com numero fixo de consultas: o cliente e TODOS os produtos (findAllById, uma consulta só),
+*       o INSERT do pedido e os INSERTs dos itens em lotes JDBC (ver checkout).
+* */
+
+@Service
+public class OrderService {
+
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+
+    private final OrderRepository orderRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+    private final StockService stockService;
+    private final OrderSummaryService orderSummaryService;
+    private final IdempotencyStore idempotencyStore;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public OrderService(OrderRepository orderRepository, ProductRepository productRepository, UserRepository userRepository,
+                        StockService stockService, OrderSummaryService orderSummaryService, IdempotencyStore idempotencyStore,
+                        TransactionTemplate transactionTemplate) {
+        this.orderRepository = orderRepository;
+        this.productRepository = productRepository;
+        this.userRepository = userRepository;
+        this.stockService = stockService;
+        this.orderSummaryService = orderSummaryService;
+        this.idempotencyStore = idempotencyStore;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderDTO findOrderById(Long id) {
+        Order order = orderRepository.searchByIdWithItems(id).orElseThrow(() -> new ResourceNotFoundException("Resource Not Found"));
+        return new OrderDTO(order);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<OrderDTO> findAllOrders(Pageable pageable) {
+        Page<Long> ids = orderRepository.searchIds(pageable);
+        if (ids.isEmpty())
+            return new PageImpl<>(List.of(), pageable, ids.getTotalElements());
+
+        //  A consulta com JOIN FETCH nao mantém a ordem da pagina, entao o resultado é reordenado pela lista de ids
+        Map<Long, Order> orders = orderRepository.searchByIdsWithItems(ids.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.map(id -> new OrderDTO(orders.get(id)));
+    }
+
+    /*
+    *   Checkout com Idempotency-Key opcional (ver IdempotencyStore): a primeira request com a chave cria o pedido e guarda o id;
+    *       uma repetição com a mesma chave recebe o pedido ja criado (lido de novo do banco), sem gravar nada.
+    *   A transação é aberta aqui dentro (TransactionTemplate) para que o id só seja guardado na chave DEPOIS do commit:
+    *       se o commit falhar, a chave é liberada e a repetição cria o pedido normalmente.
+    *   A chave é guardada com o id do cliente na frente: clientes diferentes que escolham a mesma chave nunca se encontram.
+    *   A releitura do pedido repetido roda numa transação somente leitura propria (chamar findOrderById daqui nao passaria pelo proxy).
+    * */
+    public IdempotencyStore.Result<OrderDTO> checkout(OrderCheckoutDTO dto, String idempotencyKey) {
+        Map<Long, Integer> quantities = mergeItems(dto);
+
+        if (idempotencyKey == null || idempotencyKey.isBlank())
+            return new IdempotencyStore.Result<>(transactionTemplate.execute(status -> createOrder(dto, quantities)), false);
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH)
+            throw new InvalidOrderException("Idempotency-Key must have at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+
+        OrderDTO[] created = new OrderDTO[1];
+        IdempotencyStore.Result<Long> result = idempotencyStore.execute(dto.getClientId() + ":" + idempotencyKey, fingerprint(dto, quantities), () -> {
+            created[0] = transactionTemplate.execute(status -> createOrder(dto, quantities));
+            return created[0].getId();
+        });
+
+        if (!result.isReplayed())
+            return new IdempotencyStore.Result<>(created[0], false);
+        return new IdempotencyStore.Result<>(readOnlyTransaction.execute(status -> findOrderById(result.getValue())), true);
+    }
+
+    /*
+    *   Roda dentro da transação do checkout:
+    *       1) o cliente e todos os produtos do pedido em duas consultas (findAllById usa um IN com todos os ids);
+    *       2) a reserva de estoque de todos os itens, tudo ou nada (StockService; desfeita sozinha se a transação sofrer rollback);
+    *       3) o INSERT do pedido (id IDENTITY, executado na hora) e os itens com o preço ATUAL de cada produto copiado para
+    *           OrderItem.price. A PK dos itens (OrderItemPK) ja é conhecida, entao os INSERTs sao agrupados em lotes no flush
+    *           (hibernate.jdbc.batch_size). Os itens sao gravados com persist(), e nao com save(): com a PK preenchida, o save()
+    *           faria um merge, com um SELECT por item para descobrir se ele ja existe;
+    *       4) o Payment (se paid = true) e o resumo materializado do pedido (OrderSummaryService), na mesma transação.
+    * */
+    private OrderDTO createOrder(OrderCheckoutDTO dto, Map<Long, Integer> quantities) {
+        User client = userRepository.findById(dto.getClientId())
+                .orElseThrow(() -> new ResourceNotFoundException("Resource Not Found"));
+
+        List<Product> products = productRepository.findAllById(quantities.keySet());
+        if (products.size() != quantities.size())
+            throw new ResourceNotFoundException("Resource Not Found");
+        for (Product product : products)
+            if (product.getPrice() == null)
+                throw new InvalidOrderException("Product " + product.getId() + " has no price");
+
+        stockService.reserve(quantities);
+
+        OrderStatus status = dto.isPaid() ? OrderStatus.PAID : OrderStatus.WAITING_PAYMENT;
+        Order order = new Order(null, Instant.now(), status, client, null, new HashSet<>());
+        entityManager.persist(order);
+
+        List<OrderItem> items = new ArrayList<>(products.size());
+        for (Product product : products) {
+            OrderItem item = new OrderItem(order, product, quantities.get(product.getId()), product.getPrice());
+            entityManager.persist(item);
+            order.addItem(item);
+            items.add(item);
+        }
+
+        if (dto.isPaid()) {
+            Payment payment = new Payment(null, order.getMoment(), order);
+            entityManager.persist(payment);
+            order.setPayment(payment);
+        }
+
+        orderSummaryService.orderCreated(order, items);
+        return new OrderDTO(order);
+    }
+
+    //  Produto repetido na lista vira um item só, com as quantidades somadas (a PK do item é pedido + produto)
+    private static Map<Long, Integer> mergeItems(OrderCheckoutDTO dto) {
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (OrderCheckoutItemDTO item : dto.getItems()) {
+            try {
+                //  addExact: a soma de quantidades grandes nao pode dar a volta e virar uma quantidade negativa
+                quantities.merge(item.getProductId(), item.getQuantity(), Math::addExact);
+            } catch (ArithmeticException e) {
+                throw new InvalidOrderException("Quantity too large for product " + item.getProductId());
+            }
+        }
+        return quantities;
+    }
+
+    //  Identifica o conteudo do pedido (cliente, pagamento e itens ja somados e ordenados), para detectar a chave reaproveitada
+    private static String fingerprint(OrderCheckoutDTO dto, Map<Long, Integer> quantities) {
+        StringBuilder sb = new StringBuilder().append(dto.getClientId()).append('|').append(dto.isPaid());
+        quantities.forEach((productId, quantity) -> sb.append('|').append(productId).append(':').append(quantity));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.OrderSummaryDTO;
+import com.juliock.dscommerce.dto.OrderSummaryReconciliationDTO;
+import com.juliock.dscommerce.dto.UserOrderStatsDTO;
+import com.juliock.dscommerce.entities.Order;
+import com.juliock.dscommerce.entities.OrderItem;
+import com.juliock.dscommerce.entities.OrderStatus;
+import com.juliock.dscommerce.entities.OrderSummary;
+import com.juliock.dscommerce.entities.UserOrderStats;
+import com.juliock.dscommerce.repositories.OrderSummaryRepository;
+import com.juliock.dscommerce.repositories.UserOrderStatsRepository;
+import com.juliock.dscommerce.services.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/*
+*   Resumos materializados de pedidos (OrderSummary) e agregados por cliente (UserOrderStats).
+*
+*   ESCRITAS: orderCreated deve ser chamado por quem grava pedidos e itens, dentro da
+*       MESMA transação (Propagation.MANDATORY: sem transação aberta, a chamada falha em vez de gravar um resumo solto).
+*       Se a transação sofrer rollback, o resumo volta junto com o pedido.
+*
+*   LEITURAS: total, quantidade de unidades e status de um pedido, e os agregados de um cliente, sao lidos das tabelas materializadas,
+*       numa consulta por id, sem carregar nenhum OrderItem.
+*
+*   RECONCILIAÇÃO: de tempos em tempos (dscommerce.order-summary.reconcile-interval-ms) os valores sao recalculados a partir da
+*       tb_order_item e comparados. Divergências sao registradas no log e, com dscommerce.order-summary.repair=true, corrigidas.
+* */
+
+@Service
+public class OrderSummaryService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(OrderSummaryService.class);
+
+    private static final double TOLERANCE = 0.005;  //  somas de Double em ordens diferentes podem divergir nas ultimas casas
+
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final UserOrderStatsRepository userOrderStatsRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate newTransaction;
+    private final int reconcileChunkSize;
+    private final boolean repair;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    public OrderSummaryService(OrderSummaryRepository orderSummaryRepository, UserOrderStatsRepository userOrderStatsRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${dscommerce.order-summary.reconcile-chunk-size:1000}") int reconcileChunkSize,
+                               @Value("${dscommerce.order-summary.repair:true}") boolean repair) {
+        this.orderSummaryRepository = orderSummaryRepository;
+        this.userOrderStatsRepository = userOrderStatsRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.newTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.reconcileChunkSize = reconcileChunkSize;
+        this.repair = repair;
+    }
+
+    //  Pedido novo, ja persistido (com id), e os itens gravados junto com ele
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderCreated(Order order, Collection<OrderItem> items) {
+        double total = 0.0;
+        int quantity = 0;
+        for (OrderItem item : items) {
+            total += item.getPrice() * item.getQuantity();
+            quantity += item.getQuantity();
+        }
+
+        Long clientId = order.getClient().getId();
+        entityManager.persist(new OrderSummary(order.getId(), clientId, order.getMoment(), order.getStatus(), total, quantity));
+        if (order.getStatus() != OrderStatus.CANCELED)
+            addToClient(clientId, 1, total);
+    }
+
+    /*
+    *   O primeiro pedido de um cliente nao encontra linha para o UPDATE. A linha zerada é criada numa transação propria (REQUIRES_NEW),
+    *       que faz commit na hora: dois primeiros pedidos simultaneos tentam o mesmo INSERT, um deles recebe chave duplicada e
+    *       simplesmente segue, e os dois somam com o UPDATE atomico na transação do pedido.
+    *   Se o pedido sofrer rollback, sobra a linha zerada, que é o agregado correto de um cliente sem pedidos.
+    * */
+    private void addToClient(Long clientId, long countDelta, double spendDelta) {
+        if (userOrderStatsRepository.addToTotals(clientId, countDelta, spendDelta) > 0)
+            return;
+        try {
+            newTransaction.executeWithoutResult(status -> userOrderStatsRepository.insertEmpty(clientId));
+        } catch (DataIntegrityViolationException e) {
+            //  outra transação criou a linha primeiro
+        }
+        userOrderStatsRepository.addToTotals(clientId, countDelta, spendDelta);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderSummaryDTO findSummaryById(Long orderId) {
+        OrderSummary summary = orderSummaryRepository.findById(orderId)
+                .orElseThrow(() -> new ResourceNotFoundException("Resource Not Found"));
+        return new OrderSummaryDTO(summary);
+    }
+
+    //  Listagem de resumos (de todos os pedidos, ou só dos pedidos de um cliente): uma consulta na tb_order_summary, mais o COUNT
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryDTO> findSummaries(Long clientId, Pageable pageable) {
+        Page<OrderSummary> page = (clientId == null)
+                ? orderSummaryRepository.findAll(pageable)
+                : orderSummaryRepository.findByClientId(clientId, pageable);
+        return page.map(OrderSummaryDTO::new);
+    }
+
+    //  Cliente sem nenhum pedido (sem linha na tabela) recebe zeros
+    @Transactional(readOnly = true)
+    public UserOrderStatsDTO findClientStats(Long clientId) {
+        return userOrderStatsRepository.findById(clientId)
+                .map(s -> new UserOrderStatsDTO(clientId, s.getOrderCount(), s.getLifetimeSpend()))
+                .orElse(new UserOrderStatsDTO(clientId, 0L, 0.0));
+    }
+
+    /*
+    *   Confere os resumos e os agregados com os valores recalculados da tb_order_item.
+    *       As duas tabelas sao percorridas em blocos de reconcileChunkSize (cada bloco numa transação curta, somente leitura),
+    *       e cada correção roda na sua propria transação, com o resumo travado (SELECT ... FOR UPDATE) e os valores recalculados
+    *       ali dentro: uma escrita concorrente nunca é sobrescrita por um valor lido antes dela.
+    *   synchronized: a execução agendada e a chamada manual (POST /orders/summaries/reconcile) nao rodam ao mesmo tempo.
+    * */
+    @Scheduled(fixedDelayString = "${dscommerce.order-summary.reconcile-interval-ms:3600000}",
+            initialDelayString = "${dscommerce.order-summary.reconcile-interval-ms:3600000}")
+    public synchronized OrderSummaryReconciliationDTO reconcile() {
+        OrderSummaryReconciliationDTO report = new OrderSummaryReconciliationDTO(repair);
+        TransactionTemplate readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+
+        long afterId = 0;
+        while (true) {
+            long after = afterId;
+            Chunk chunk = readOnlyTransaction.execute(status -> {
+                List<Object[]> rows = orderSummaryRepository.aggregateItemsAfter(after, PageRequest.of(0, reconcileChunkSize));
+                Map<Long, OrderSummary> summaries = orderSummaryRepository.findAllById(rows.stream().map(row -> (Long) row[0]).toList())
+                        .stream().collect(Collectors.toMap(OrderSummary::getOrderId, Function.identity()));
+                return new Chunk(rows, row -> matches(summaries.get((Long) row[0]), row));
+            });
+            if (chunk.rows == 0)
+                break;
+
+            report.addCheckedOrders(chunk.rows);
+            for (Long orderId : chunk.mismatched)
+                mismatchedOrder(report, orderId);
+            afterId = chunk.lastId;
+        }
+        for (Long orderId : readOnlyTransaction.execute(status -> orderSummaryRepository.findOrphanIds()))
+            mismatchedOrder(report, orderId);
+
+        afterId = 0;
+        while (true) {
+            long after = afterId;
+            Chunk chunk = readOnlyTransaction.execute(status -> {
+                List<Object[]> rows = orderSummaryRepository.aggregateUsersAfter(after, OrderStatus.CANCELED, PageRequest.of(0, reconcileChunkSize));
+                Map<Long, UserOrderStats> stats = userOrderStatsRepository.findAllById(rows.stream().map(row -> (Long) row[0]).toList())
+                        .stream().collect(Collectors.toMap(UserOrderStats::getUserId, Function.identity()));
+                return new Chunk(rows, row -> matches(stats.get((Long) row[0]), row));
+            });
+            if (chunk.rows == 0)
+                break;
+
+            report.addCheckedClients(chunk.rows);
+            for (Long clientId : chunk.mismatched)
+                mismatchedClient(report, clientId);
+            afterId = chunk.lastId;
+        }
+        for (Long clientId : readOnlyTransaction.execute(status -> userOrderStatsRepository.findOrphanIds(OrderStatus.CANCELED)))
+            mismatchedClient(report, clientId);
+
+        if (report.getMismatchedOrders() > 0 || report.getMismatchedClients() > 0)
+            LOG.warn("Order summary reconciliation: {} of {} orders and {} of {} clients diverged from tb_order_item{} (orders {}, clients {})",
+                    report.getMismatchedOrders(), report.getCheckedOrders(), report.getMismatchedClients(), report.getCheckedClients(),
+                    repair ? ", repaired" : "", report.getMismatchedOrderIds(), report.getMismatchedClientIds());
+        else
+            LOG.debug("Order summary reconciliation: {} orders and {} clients checked, no divergence",
+                    report.getCheckedOrders(), report.getCheckedClients());
+        return report;
+    }
+
+    private void mismatchedOrder(OrderSummaryReconciliationDTO report, Long orderId) {
+        report.addMismatchedOrder(orderId);
+        if (repair)
+            transactionTemplate.executeWithoutResult(status -> repairOrder(orderId));
+    }
+
+    private void mismatchedClient(OrderSummaryReconciliationDTO report, Long clientId) {
+        report.addMismatchedClient(clientId);
+        if (repair)
+            transactionTemplate.executeWithoutResult(status -> repairClient(clientId));
+    }
+
+    //  Executado dentro de uma transação: o resumo é travado e só depois os valores sao recalculados
+    private void repairOrder(Long orderId) {
+        OrderSummary summary = orderSummaryRepository.findForUpdate(orderId).orElse(null);
+        List<Object[]> rows = orderSummaryRepository.aggregateItems(orderId);
+
+        if (rows.isEmpty()) {
+            if (summary != null)
+                orderSummaryRepository.delete(summary);
+            return;
+        }
+
+        Object[] row = rows.get(0);
+        double total = (row[4] == null) ? 0.0 : ((Number) row[4]).doubleValue();
+        int quantity = (row[5] == null) ? 0 : ((Number) row[5]).intValue();
+        if (summary == null) {
+            entityManager.persist(new OrderSummary(orderId, (Long) row[1], (Instant) row[2], (OrderStatus) row[3], total, quantity));
+        } else {
+            summary.setStatus((OrderStatus) row[3]);
+            summary.setTotal(total);
+            summary.setItemCount(quantity);
+        }
+    }
+
+    private void repairClient(Long clientId) {
+        UserOrderStats stats = userOrderStatsRepository.findForUpdate(clientId).orElse(null);
+        List<Object[]> rows = orderSummaryRepository.aggregateUser(clientId, OrderStatus.CANCELED);
+
+        long count = rows.isEmpty() ? 0 : ((Number) rows.get(0)[1]).longValue();
+        double spend = (rows.isEmpty() || rows.get(0)[2] == null) ? 0.0 : ((Number) rows.get(0)[2]).doubleValue();
+        if (stats == null) {
+            entityManager.persist(new UserOrderStats(clientId, count, spend));
+        } else {
+            stats.setOrderCount(count);
+            stats.setLifetimeSpend(spend);
+        }
+    }
+
+    private static boolean matches(OrderSummary summary, Object[] row) {
+        if (summary == null)
+            return false;
+        double total = (row[4] == null) ? 0.0 : ((Number) row[4]).doubleValue();
+        int quantity = (row[5] == null) ? 0 : ((Number) row[5]).intValue();
+        return summary.getStatus() == row[3]
+                && Objects.equals(summary.getClientId(), row[1])
+                && Math.abs(summary.getTotal() - total) <= TOLERANCE
+                && summary.getItemCount() == quantity;
+    }
+
+    private static boolean matches(UserOrderStats stats, Object[] row) {
+        if (stats == null)
+            return false;
+        double spend = (row[2] == null) ? 0.0 : ((Number) row[2]).doubleValue();
+        return stats.getOrderCount() == ((Number) row[1]).longValue()
+                && Math.abs(stats.getLifetimeSpend() - spend) <= TOLERANCE;
+    }
+
+    //  Um bloco da reconciliação: quantas linhas foram conferidas, o maior id do bloco (inicio do proximo) e os ids divergentes
+    private static final class Chunk {
+        private final int rows;
+        private final long lastId;
+        private final List<Long> mismatched;
+
+        private Chunk(List<Object[]> rows, Predicate<Object[]> matches) {
+            this.rows = rows.size();
+            this.lastId = rows.isEmpty() ? 0 : (Long) rows.get(rows.size() - 1)[0];
+            this.mismatched = rows.stream().filter(matches.negate()).map(row -> (Long) row[0]).toList();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.services.exceptions.InvalidCursorException;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/*
+*   Posição de uma paginação por cursor (keyset): campo de ordenação, direção, valor da chave e id do ultimo produto entregue.
+*
+*   Para o cliente o cursor é OPACO: uma String Base64 (URL-safe) que ele só precisa devolver no parametro "cursor" da proxima request.
+*       Como a ordenação vai dentro do cursor, as paginas seguintes sempre respeitam a ordenação da primeira.
+*
+*   Formato antes do Base64: "campo:direção:id:chave" (a chave fica por ultimo pois pode conter ':').
+* */
+
+public class ProductCursor {
+
+    private final String property;
+    private final Sort.Direction direction;
+    private final Long id;      //  null = primeira pagina
+    private final String key;
+
+    private ProductCursor(String property, Sort.Direction direction, Long id, String key) {
+        this.property = property;
+        this.direction = direction;
+        this.id = id;
+        this.key = key;
+    }
+
+    //  Posição inicial a partir do parametro sort da request (ex: "price,desc"). Apenas id, name e price são suportados.
+    public static ProductCursor initial(String sort) {
+        String[] parts = (sort == null || sort.isBlank()) ? new String[] {"id"} : sort.split(",");
+        String property = parts[0].trim();
+        if (!property.equals("id") && !property.equals("name") && !property.equals("price"))
+            throw new InvalidCursorException("Sort property not supported: " + property);
+
+        Sort.Direction direction = Sort.Direction.ASC;
+        if (parts.length > 1)
+            direction = Sort.Direction.fromOptionalString(parts[1].trim())
+                    .orElseThrow(() -> new InvalidCursorException("Invalid sort direction: " + parts[1]));
+
+        return new ProductCursor(property, direction, null, null);
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":", 4);
+
+            ProductCursor cursor = new ProductCursor(parts[0], Sort.Direction.fromString(parts[1]), Long.valueOf(parts[2]), parts[3]);
+            if (cursor.property.equals("price"))
+                Double.valueOf(cursor.key);    //  valida a chave numérica ja aqui
+            initial(cursor.property);          //  valida o campo de ordenação
+
+            return cursor;
+        } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidCursorException("Invalid cursor");
+        }
+    }
+
+    //  Cursor que aponta para logo depois do produto informado (o ultimo da pagina atual)
+    public ProductCursor after(Product last) {
+        String newKey = switch (property) {
+            case "name" -> last.getName();
+            case "price" -> String.valueOf(last.getPrice());
+            default -> "";
+        };
+        return new ProductCursor(property, direction, last.getId(), newKey);
+    }
+
+    public String encode() {
+        String raw = property + ":" + direction.name() + ":" + id + ":" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isInitial() {
+        return id == null;
+    }
+
+    public Sort toSort() {
+        Sort sort = Sort.by(direction, property);
+        return property.equals("id") ? sort : sort.and(Sort.by(direction, "id"));
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public Double getPriceKey() {
+        return Double.valueOf(key);
+    }
+}
@@ -0,0 +1,458 @@
+package com.juliock.dscommerce.services;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juliock.dscommerce.dto.ProductBatchErrorDTO;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.dto.ProductImportReportDTO;
+import com.juliock.dscommerce.entities.Category;
+import com.juliock.dscommerce.repositories.CategoryRepository;
+import com.juliock.dscommerce.services.exceptions.ServiceOverloadedException;
+import com.juliock.dscommerce.services.imports.CsvRecordReader;
+import com.juliock.dscommerce.services.imports.ImportProgress;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+*   Importação em massa de produtos (e suas categorias) a partir de NDJSON ou CSV, lidos INCREMENTALMENTE do corpo da request.
+*
+*   A importação é um pipeline de 3 estágios ligados por filas LIMITADAS (ArrayBlockingQueue):
+*
+*       [parse]  --fila-->  [validação + categorias]  --fila-->  [gravação em lote] x parallelism
+*
+*       1) parse: lê uma linha/registro por vez do corpo da request e agrupa em blocos de batchSize;
+*       2) validação: aplica as constraints do ProductDTO e resolve as categorias (por id ou nome) contra a tb_category;
+*       3) gravação: "parallelism" threads gravam os blocos, cada bloco numa transação com INSERTs em lote (ProductService.insertProductsWithCategories).
+*
+*   Se a gravação for mais lenta que a leitura, as filas enchem e o put() bloqueia o estágio anterior (BACKPRESSURE):
+*       a leitura da request para até haver espaço, entao a memória usada depende do tamanho das filas e nao do tamanho do arquivo.
+*
+*   Linhas ruins (JSON ou CSV mal formado, campos invalidos, categoria inexistente, erro no banco) sao registradas no relatorio
+*       e a importação continua.
+*   O progresso de cada importação pode ser acompanhado em GET /products/import enquanto ela roda.
+*
+*   Todas as importações dividem UM pool de threads limitado (dscommerce.import.max-threads), e a request fica assincrona
+*       enquanto o pipeline roda (a thread do Tomcat é liberada). Cada importação reserva antes as threads de que precisa
+*       (parallelism + 2: parse, validação e gravação); sem threads livres ela é recusada com 503 em vez de esperar, porque
+*       um estagio na fila do pool, atras de outra importação, travaria os estagios que dependem dele.
+* */
+
+@Service
+public class ProductImportService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ProductImportService.class);
+
+    private static final List<ImportRow> END = List.of();   //  "pilula de veneno": avisa o estagio seguinte que os dados acabaram
+    private static final int MAX_TRACKED_IMPORTS = 20;
+    private static final long LOG_EVERY_ROWS = 100_000;
+
+    private final ProductService productService;
+    private final CategoryRepository categoryRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    private final int defaultBatchSize;
+    private final int defaultParallelism;
+    private final int queueCapacity;
+    private final int maxThreads;
+
+    private final ExecutorService executor;
+    private final Semaphore threads;
+
+    private final Map<String, ImportProgress> imports = Collections.synchronizedMap(new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ImportProgress> eldest) {
+            return size() > MAX_TRACKED_IMPORTS;
+        }
+    });
+
+    @Autowired
+    public ProductImportService(ProductService productService, CategoryRepository categoryRepository, Validator validator,
+                                ObjectMapper objectMapper,
+                                @Value("${dscommerce.import.batch-size:500}") int defaultBatchSize,
+                                @Value("${dscommerce.import.parallelism:4}") int defaultParallelism,
+                                @Value("${dscommerce.import.queue-capacity:8}") int queueCapacity,
+                                @Value("${dscommerce.import.max-threads:16}") int maxThreads) {
+        this.productService = productService;
+        this.categoryRepository = categoryRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.defaultBatchSize = defaultBatchSize;
+        this.defaultParallelism = defaultParallelism;
+        this.queueCapacity = queueCapacity;
+        this.maxThreads = Math.max(3, maxThreads);
+
+        //  A fila nunca passa de maxThreads tarefas: só entra no pool quem reservou as threads no semaforo
+        this.executor = new ThreadPoolExecutor(this.maxThreads, this.maxThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.maxThreads), Thread.ofPlatform().name("product-import-", 0).factory());
+        this.threads = new Semaphore(this.maxThreads);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<ProductImportReportDTO> findRecentImports() {
+        synchronized (imports) {
+            return imports.values().stream().map(ProductImportReportDTO::new).toList();
+        }
+    }
+
+    /*
+    *   format: "ndjson" ou "csv". batchSize e parallelism podem ser null (usa os valores configurados).
+    *
+    *   Retorna assim que o pipeline é agendado no pool; o future completa com o relatorio final quando a importação termina.
+    *       Lança ServiceOverloadedException (503) se o pool nao tiver threads livres para mais uma importação.
+    * */
+    public CompletableFuture<ProductImportReportDTO> importProducts(InputStream in, String format, Integer batchSize, Integer parallelism) {
+        int batch = Math.max(1, Math.min(batchSize == null ? defaultBatchSize : batchSize, 10_000));
+        int writers = Math.max(1, Math.min(parallelism == null ? defaultParallelism : parallelism, maxThreads - 2));
+        int needed = writers + 2;
+
+        if (!threads.tryAcquire(needed))
+            throw new ServiceOverloadedException("imports", 5);
+
+        ImportProgress report = new ImportProgress(UUID.randomUUID().toString(), format, batch, writers);
+        CompletableFuture<ProductImportReportDTO> result = new CompletableFuture<>();
+        imports.put(report.getId(), report);
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(new ProductImportReportDTO(run(in, format, batch, writers, report)));
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                } finally {
+                    threads.release(needed);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            threads.release(needed);
+            imports.remove(report.getId());
+            throw new ServiceOverloadedException("imports", 5);
+        }
+        return result;
+    }
+
+    //  Coordenador: roda numa thread do pool, faz o parse e espera os outros estagios
+    private ImportProgress run(InputStream in, String format, int batch, int writers, ImportProgress report) {
+        Map<String, Long> categoriesByName = new HashMap<>();
+        Set<Long> categoryIds = new HashSet<>();
+        for (Category c : categoryRepository.findAll()) {
+            categoriesByName.put(c.getName().toUpperCase(Locale.ROOT), c.getId());
+            categoryIds.add(c.getId());
+        }
+
+        BlockingQueue<List<ImportRow>> parsed = new ArrayBlockingQueue<>(queueCapacity);
+        BlockingQueue<List<ImportRow>> validated = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicBoolean aborted = new AtomicBoolean(false);
+
+        List<Future<?>> stages = new ArrayList<>();
+        try {
+            stages.add(executor.submit(abortOnFailure(aborted,
+                    () -> validateStage(parsed, validated, categoriesByName, categoryIds, writers, report, aborted))));
+            for (int i = 0; i < writers; i++)
+                stages.add(executor.submit(abortOnFailure(aborted, () -> writeStage(validated, report, aborted))));
+
+            parseStage(in, format, batch, parsed, report, aborted);
+
+            awaitStages(stages, aborted);
+            report.finish(aborted.get() ? "FAILED" : "DONE");
+        } catch (IOException | ExecutionException | RuntimeException e) {
+            LOG.error("Import {} failed", report.getId(), e);
+            aborted.set(true);
+            report.finish("FAILED");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            aborted.set(true);
+            report.finish("FAILED");
+        } finally {
+            if (aborted.get())
+                for (Future<?> stage : stages)
+                    stage.cancel(true);
+        }
+
+        LOG.info("Import {} {}: {} rows read, {} imported, {} failed", report.getId(), report.getStatus(),
+                report.getRowsRead(), report.getRowsImported(), report.getRowsFailed());
+        return report;
+    }
+
+    //  Espera os estagios terminarem, mas desiste assim que a importação for abortada (um estagio pode estar esperando um END que nao vem)
+    private static void awaitStages(List<Future<?>> stages, AtomicBoolean aborted) throws ExecutionException, InterruptedException {
+        for (Future<?> stage : stages) {
+            while (true) {
+                try {
+                    stage.get(100, TimeUnit.MILLISECONDS);
+                    break;
+                } catch (TimeoutException e) {
+                    if (aborted.get())
+                        return;
+                }
+            }
+        }
+    }
+
+    /*
+    *   Um estagio que morre (qualquer Throwable) aborta a importação: sem isso o estagio anterior ficaria para sempre esperando
+    *       espaço numa fila que ninguém mais consome, e as threads reservadas nunca seriam devolvidas.
+    * */
+    private static Callable<Void> abortOnFailure(AtomicBoolean aborted, Callable<Void> stage) {
+        return () -> {
+            try {
+                return stage.call();
+            } catch (Throwable e) {
+                if (!aborted.getAndSet(true))   //  só a primeira falha: as seguintes costumam ser o cancelamento dos outros estagios
+                    LOG.error("Import stage failed", e);
+                throw e;
+            }
+        };
+    }
+
+    //  Estagio 1: leitura incremental do corpo da request
+    private void parseStage(InputStream in, String format, int batchSize, BlockingQueue<List<ImportRow>> out,
+                            ImportProgress report, AtomicBoolean aborted) throws IOException, InterruptedException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+
+        try {
+            if ("csv".equals(format)) {
+                CsvRecordReader csv = new CsvRecordReader(reader);
+                List<String> header = csv.next();
+                if (header == null)
+                    return;
+
+                List<String> record;
+                while ((record = csv.next()) != null && !aborted.get()) {
+                    if (csv.getError() != null) {
+                        report.rowRead();
+                        batch.add(ImportRow.failed(csv.getRecordLine(), csv.getError()));
+                    } else
+                        batch.add(parseCsv(csv.getRecordLine(), header, record, report));
+                    batch = flushIfFull(batch, batchSize, out, aborted);
+                }
+            } else {
+                String line;
+                long lineNumber = 0;
+                while ((line = reader.readLine()) != null && !aborted.get()) {
+                    lineNumber++;
+                    if (line.isBlank())
+                        continue;
+                    batch.add(parseJson(lineNumber, line, report));
+                    batch = flushIfFull(batch, batchSize, out, aborted);
+                }
+            }
+
+            if (!batch.isEmpty())
+                put(out, batch, aborted);
+        } finally {
+            put(out, END, aborted);
+        }
+    }
+
+    private List<ImportRow> flushIfFull(List<ImportRow> batch, int batchSize, BlockingQueue<List<ImportRow>> out,
+                                        AtomicBoolean aborted) throws InterruptedException {
+        if (batch.size() < batchSize)
+            return batch;
+        put(out, batch, aborted);
+        return new ArrayList<>(batchSize);
+    }
+
+    //  Estagio 2: validação das constraints do ProductDTO e resolução das categorias
+    private Void validateStage(BlockingQueue<List<ImportRow>> in, BlockingQueue<List<ImportRow>> out, Map<String, Long> categoriesByName,
+                               Set<Long> categoryIds, int writers, ImportProgress report, AtomicBoolean aborted) throws InterruptedException {
+        try {
+            List<ImportRow> batch;
+            while ((batch = in.take()) != END) {
+                List<ImportRow> valid = new ArrayList<>(batch.size());
+                for (ImportRow row : batch) {
+                    if (row.error == null)
+                        validate(row, categoriesByName, categoryIds);
+
+                    if (row.error == null)
+                        valid.add(row);
+                    else
+                        report.rowFailed(row.error);
+                }
+                if (!valid.isEmpty())
+                    put(out, valid, aborted);
+            }
+        } finally {
+            for (int i = 0; i < writers; i++)
+                put(out, END, aborted);
+        }
+        return null;
+    }
+
+    //  Estagio 3: gravação em lote. Se o bloco inteiro falhar no banco, ele é refeito linha a linha para isolar as linhas com problema.
+    private Void writeStage(BlockingQueue<List<ImportRow>> in, ImportProgress report, AtomicBoolean aborted) throws InterruptedException {
+        List<ImportRow> batch;
+        while ((batch = in.take()) != END) {
+            if (aborted.get())
+                continue;   //  continua drenando a fila até o END para nao travar o estagio anterior
+            try {
+                write(batch);
+                report.rowsImported(batch.size());
+            } catch (RuntimeException e) {
+                //  RuntimeException (e nao só DataAccessException): uma thread de gravação nunca pode morrer, senão as filas enchem e o pipeline trava
+                for (ImportRow row : batch) {
+                    try {
+                        write(List.of(row));
+                        report.rowsImported(1);
+                    } catch (RuntimeException ex) {
+                        report.rowFailed(new ProductBatchErrorDTO((int) row.line, null, "Database Integrity Constraint Violation"));
+                    }
+                }
+            }
+
+            long done = report.getRowsImported() + report.getRowsFailed();
+            if (done / LOG_EVERY_ROWS != (done - batch.size()) / LOG_EVERY_ROWS)
+                LOG.info("Import {}: {} rows processed ({} rows/s)", report.getId(), done, (long) report.getRowsPerSecond());
+        }
+        return null;
+    }
+
+    private void write(List<ImportRow> rows) {
+        List<ProductDTO> dtos = new ArrayList<>(rows.size());
+        List<Set<Long>> categories = new ArrayList<>(rows.size());
+        for (ImportRow row : rows) {
+            dtos.add(row.dto);
+            categories.add(row.categoryIds);
+        }
+        productService.insertProductsWithCategories(dtos, categories);
+    }
+
+    private ImportRow parseJson(long line, String json, ImportProgress report) {
+        report.rowRead();
+        try {
+            JsonNode node = objectMapper.readTree(json);
+            if (!node.isObject())
+                return ImportRow.failed(line, "Line is not a JSON object");
+
+            List<String> categories = new ArrayList<>();
+            JsonNode cats = node.path("categories");
+            if (cats.isArray()) {
+                for (JsonNode c : cats) {
+                    if (!c.isValueNode())
+                        return ImportRow.failed(line, "Malformed row");     //  ex: "categories": [{}]
+                    categories.add(c.asText().trim());
+                }
+            } else if (!cats.isMissingNode() && !cats.isNull())
+                categories.addAll(splitCategories(cats.asText()));
+
+            JsonNode price = node.path("price");
+            return new ImportRow(line, new ProductDTO(null, text(node, "name"), text(node, "description"),
+                    (price.isMissingNode() || price.isNull()) ? null : Double.valueOf(price.asText()), text(node, "imgUrl")), categories);
+        } catch (IOException | NumberFormatException e) {
+            return ImportRow.failed(line, "Malformed row");
+        }
+    }
+
+    //  CSV: as colunas sao identificadas pelo cabeçalho (name, description, price, imgUrl, categories). Categorias separadas por '|'.
+    private ImportRow parseCsv(long line, List<String> header, List<String> record, ImportProgress report) {
+        report.rowRead();
+        try {
+            Map<String, String> values = new HashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++)
+                values.put(header.get(i).trim(), record.get(i));
+
+            String price = values.get("price");
+            return new ImportRow(line, new ProductDTO(null, values.get("name"), values.get("description"),
+                    (price == null || price.isBlank()) ? null : Double.valueOf(price.trim()), values.get("imgUrl")),
+                    splitCategories(values.get("categories")));
+        } catch (NumberFormatException e) {
+            return ImportRow.failed(line, "Malformed row");
+        }
+    }
+
+    private void validate(ImportRow row, Map<String, Long> categoriesByName, Set<Long> categoryIds) {
+        Set<ConstraintViolation<ProductDTO>> violations = validator.validate(row.dto);
+        if (!violations.isEmpty()) {
+            row.error = new ProductBatchErrorDTO((int) row.line, null, "Invalid Field Data");
+            for (ConstraintViolation<ProductDTO> v : violations)
+                row.error.addError(v.getPropertyPath().toString(), v.getMessage());
+            return;
+        }
+
+        //  Cada categoria pode vir pelo id ("3") ou pelo nome ("Computadores")
+        for (String token : row.categories) {
+            if (token.isBlank())
+                continue;
+            Long id = null;
+            if (token.chars().allMatch(Character::isDigit)) {
+                try {
+                    Long candidate = Long.valueOf(token);
+                    if (categoryIds.contains(candidate))
+                        id = candidate;
+                } catch (NumberFormatException e) {
+                    //  mais digitos do que cabem num Long: nao é o id de nenhuma categoria
+                }
+            } else
+                id = categoriesByName.get(token.toUpperCase(Locale.ROOT));
+
+            if (id == null) {
+                row.error = new ProductBatchErrorDTO((int) row.line, null, "Unknown category: " + token);
+                return;
+            }
+            row.categoryIds.add(id);
+        }
+    }
+
+    /*
+    *   put() bloqueante que desiste se a importação for abortada (para uma thread nunca ficar presa numa fila cheia).
+    *       Vale também para o END: numa importação abortada o coordenador cancela (interrompe) os estagios que ainda esperam na fila.
+    * */
+    private static void put(BlockingQueue<List<ImportRow>> queue, List<ImportRow> batch, AtomicBoolean aborted) throws InterruptedException {
+        while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS))
+            if (aborted.get())
+                return;
+    }
+
+    private static List<String> splitCategories(String value) {
+        List<String> result = new ArrayList<>();
+        if (value != null)
+            for (String token : value.split("\\|"))
+                if (!token.isBlank())
+                    result.add(token.trim());
+        return result;
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return (value == null || value.isNull()) ? null : value.asText();
+    }
+
+    private static final class ImportRow {
+        private final long line;
+        private final ProductDTO dto;
+        private final List<String> categories;
+        private final Set<Long> categoryIds = new HashSet<>();
+        private ProductBatchErrorDTO error;
+
+        ImportRow(long line, ProductDTO dto, List<String> categories) {
+            this.line = line;
+            this.dto = dto;
+            this.categories = categories;
+        }
+
+        static ImportRow failed(long line, String message) {
+            ImportRow row = new ImportRow(line, null, List.of());
+            row.error = new ProductBatchErrorDTO((int) line, null, message);
+            return row;
+        }
+    }
+}
@@ -1,47 +1,200 @@
 package com.juliock.dscommerce.services;
 
+import com.juliock.dscommerce.config.ReadReplicaRouting;
+import com.juliock.dscommerce.dto.CacheStatsDTO;
+import com.juliock.dscommerce.dto.CategoryFacetDTO;
+import com.juliock.dscommerce.dto.ProductBatchErrorDTO;
+import com.juliock.dscommerce.dto.ProductBatchResultDTO;
+import com.juliock.dscommerce.dto.ProductCursorPageDTO;
 import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.dto.ProductFacetedPageDTO;
+import com.juliock.dscommerce.dto.ProductIdFilterStatsDTO;
+import com.juliock.dscommerce.dto.ProductMinDTO;
+import com.juliock.dscommerce.entities.Category;
 import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.repositories.CategoryRepository;
 import com.juliock.dscommerce.repositories.ProductRepository;
+import com.juliock.dscommerce.services.caches.ProductCache;
+import com.juliock.dscommerce.services.caches.ProductPageCache;
+import com.juliock.dscommerce.services.indexes.CompressedBitmap;
+import com.juliock.dscommerce.services.indexes.ProductCategoryIndex;
+import com.juliock.dscommerce.services.indexes.ProductIdFilter;
+import com.juliock.dscommerce.services.indexes.ProductNameIndex;
+import com.juliock.dscommerce.services.indexes.ProductPriceIndex;
+import com.juliock.dscommerce.services.exceptions.BatchTooLargeException;
 import com.juliock.dscommerce.services.exceptions.DbIntegrityException;
 import com.juliock.dscommerce.services.exceptions.ResourceNotFoundException;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityNotFoundException;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.TransactionException;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProductService {
 
+    private static final int BATCH_CHUNK_SIZE = 500;    //  itens gravados por transação nas escritas em lote
+
     private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductNameIndex productNameIndex;
+    private final ProductCategoryIndex productCategoryIndex;
+    private final ProductPriceIndex productPriceIndex;
+    private final ProductCache productCache;
+    private final ProductPageCache productPageCache;
+    private final ProductIdFilter productIdFilter;
+    private final StockService stockService;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final Validator validator;
+    private final int maxBatchItems;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     @Autowired
-    public ProductService(ProductRepository productRepository) {
+    public ProductService(ProductRepository productRepository, CategoryRepository categoryRepository, ProductNameIndex productNameIndex,
+                          ProductCategoryIndex productCategoryIndex, ProductPriceIndex productPriceIndex, ProductCache productCache,
+                          ProductPageCache productPageCache, ProductIdFilter productIdFilter, StockService stockService,
+                          TransactionTemplate transactionTemplate, Validator validator,
+                          @Value("${dscommerce.products.batch.max-items:5000}") int maxBatchItems) {
         this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productNameIndex = productNameIndex;
+        this.productCategoryIndex = productCategoryIndex;
+        this.productPriceIndex = productPriceIndex;
+        this.productCache = productCache;
+        this.productPageCache = productPageCache;
+        this.productIdFilter = productIdFilter;
+        this.stockService = stockService;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransaction.setReadOnly(true);
+        this.validator = validator;
+        this.maxBatchItems = maxBatchItems;
     }
 
+    /*
+    *   Quando a aplicação termina de subir (import.sql ja executado), os indices em memória são carregados a partir do banco.
+    *       Até o fim da carga, as buscas continuam indo direto para o banco.
+    * */
+    @EventListener(ApplicationReadyEvent.class)
     @Transactional(readOnly = true)
-    public ProductDTO findProductById(Long id) {
-        Optional<Product> productOptional = productRepository.findById(id);
+    public void loadIndexes() {
+        try (ReadReplicaRouting.Scope primary = ReadReplicaRouting.primary()) {  //  os indices precisam do ultimo commit, nao de uma réplica
+            productNameIndex.clear();
+            productPriceIndex.clear();
+            Map<Long, Double> prices = new HashMap<>();
+            productIdFilter.rebuild(productRepository.count(), idSink -> {
+                try (Stream<Object[]> rows = productRepository.streamIdNameAndPrice()) {
+                    rows.forEach(row -> {
+                        productNameIndex.put((Long) row[0], (String) row[1]);
+                        prices.put((Long) row[0], (Double) row[2]);
+                        idSink.accept((Long) row[0]);
+                    });
+                }
+            });
+            productNameIndex.markReady();
+            productPriceIndex.putAll(prices);   //  de uma vez só: cada putAll remonta os arrays do indice
+            productPriceIndex.markReady();
 
-        /*  se o findById() nao encontrar nenhum objeto para atribuir ao Optional, o metodo orElseThrow() vai verificar que o Optional está vazio e lançar a exception
-                fornecida através da interface funcional Supplier<T>
-            Supplier<T> é uma interface funcional, isso significa que ela possui um unico metodo abstrato
+            productCategoryIndex.clear();
+            for (Category category : categoryRepository.findAll())
+                productCategoryIndex.putCategory(category.getId(), category.getName());
+            try (Stream<Object[]> rows = productRepository.streamProductCategoryIds()) {
+                rows.forEach(row -> productCategoryIndex.add((Long) row[0], (Long) row[1]));
+            }
+            productCategoryIndex.markReady();
+        }
+    }
 
-                public interface Supplier<T> {
-                    T get();
+    /*
+    *   O filtro de Bloom nao remove ids deletados (ver ProductIdFilter), entao de tempos em tempos ele é reconstruído do zero
+    *       a partir da tb_product. O intervalo é configurável em dscommerce.product-id-filter.rebuild-interval-ms (padrão: 10 minutos).
+    * */
+    @Scheduled(fixedDelayString = "${dscommerce.product-id-filter.rebuild-interval-ms:600000}",
+            initialDelayString = "${dscommerce.product-id-filter.rebuild-interval-ms:600000}")
+    @Transactional(readOnly = true)
+    public void rebuildProductIdFilter() {
+        try (ReadReplicaRouting.Scope primary = ReadReplicaRouting.primary()) {  //  numa réplica atrasada faltariam os ultimos ids
+            productIdFilter.rebuild(productRepository.count(), idSink -> {
+                try (Stream<Long> ids = productRepository.streamIds()) {
+                    ids.forEach(idSink);
                 }
-            Quando uma interface é funcional, é possível usar uma expressão lambida que chama seu unico metodo usando () -> argumento para o metodo abstrato
-         */
+            });
+        }
+    }
 
-        Product product = productOptional.orElseThrow(() -> new ResourceNotFoundException("Resource Not Found"));
-        return new ProductDTO(product);
+    public ProductIdFilterStatsDTO getProductIdFilterStats() {
+        return productIdFilter.stats();
+    }
+
+    /*
+    *   A busca por id passa primeiro pelo ProductCache. Só em caso de falha (id fora do cache) o loader abaixo vai ao banco,
+    *       e se varias requests falharem no mesmo id ao mesmo tempo, apenas uma consulta é feita (as outras aguardam o resultado).
+    *   Antes disso, ids que com certeza nao existem (segundo o ProductIdFilter) ja recebem 404 sem passar pelo cache nem pelo banco.
+    *   Sem @Transactional: só o loader abre uma transação (e pega uma conexão do pool); um acerto no cache nao toca no banco.
+    * */
+    public ProductDTO findProductById(Long id) {
+        if (!productIdFilter.mightContain(id))
+            throw new ResourceNotFoundException("Resource Not Found");
+
+        ProductDTO dto = productCache.get(id, this::loadProductById);
+
+        if (dto == null) {
+            productIdFilter.recordFalsePositive();
+            throw new ResourceNotFoundException("Resource Not Found");
+        }
+        return dto;
+    }
+
+    public CacheStatsDTO getProductCacheStats() {
+        return productCache.stats();
+    }
+
+    private ProductDTO loadProductById(Long id) {
+        return readOnlyTransaction.execute(status -> {
+            Optional<Product> productOptional = productRepository.findById(id);
+
+            /*  se o findById() nao encontrar nenhum objeto para atribuir ao Optional, o metodo orElse() retorna null
+                    e o cache nao guarda nada para esse id.
+                O metodo map() só é executado se o Optional tiver um valor, convertendo o Product em ProductDTO.
+             */
+
+            return productOptional.map(ProductDTO::new).orElse(null);
+        });
     }
 
 
@@ -68,10 +221,210 @@ public class ProductService {
         return productDTOPageList;
     }
 
+    /*
+    *   A busca por nome primeiro tenta o ProductNameIndex (indice de trigramas em memória), que devolve os ids que casam com o termo
+    *       ja ordenados. Só os produtos da pagina pedida são buscados no banco (findAllById).
+    *   Se o indice nao puder responder exatamente como o LIKE (ver ProductNameIndex.search), cai na consulta searchByName de sempre.
+    * */
     @Transactional(readOnly = true)
     public Page<ProductDTO> searchProductByName(String name, Pageable pageable) {
-        Page<ProductDTO> productDTOPageList = productRepository.searchByName(name, pageable).map(ProductDTO::new);
-        return productDTOPageList;
+        List<Long> ids = productNameIndex.search(name, pageable.getSort());
+        if (ids == null) {
+            Page<ProductDTO> productDTOPageList = productRepository.searchByName(name, pageable).map(ProductDTO::new);
+            return productDTOPageList;
+        }
+        return pageOfIds(ids, pageable);
+    }
+
+    /*
+    *   Listagem com filtros (GET /products?categoryId=...&minPrice=...&maxPrice=...), além do filtro por nome:
+    *       - categorias: produtos em qualquer uma (matchAll = false) ou em todas (matchAll = true) as categorias pedidas;
+    *       - preço: minPrice/maxPrice inclusive, null = sem limite daquele lado.
+    *   Com withFacets, vem junto a contagem por categoria do resultado inteiro.
+    *
+    *   Com os indices carregados, nada disso vai ao banco: o ProductCategoryIndex e o ProductPriceIndex montam bitmaps dos produtos
+    *       das categorias e da faixa de preço, o ProductNameIndex aplica o termo só sobre esses produtos, e as contagens saem de
+    *       interseções de bitmap. Na ordenação por preço, a ordem vem direto dos arrays do ProductPriceIndex.
+    *       Do banco vem só a pagina pedida (findAllById).
+    *   Se algum indice nao puder responder, o mesmo resultado é obtido por consulta (searchByFilters / countByCategory).
+    * */
+    @Transactional(readOnly = true)
+    public ProductFacetedPageDTO searchProducts(String name, Collection<Long> categoryIds, boolean matchAll, Double minPrice, Double maxPrice,
+                                                boolean withFacets, Pageable pageable) {
+        List<Long> categories = categoryIds.stream().distinct().toList();
+
+        List<Long> ids = null;
+        ProductPriceIndex.PriceRange byPrice = null;
+        if (productCategoryIndex.isReady() && productPriceIndex.isReady()) {
+            Sort.Order priceOrder = pageable.getSort().getOrderFor("price");
+            if (priceOrder == null)
+                ids = searchIndexes(name, categories, matchAll, minPrice, maxPrice, pageable.getSort());
+            else if (pageable.getSort().stream().count() == 1)     //  preço combinado com outros campos: só o banco
+                byPrice = searchPriceIndex(name, categories, matchAll, minPrice, maxPrice, priceOrder.isAscending());
+        }
+
+        //  Ordenação por preço: o total e a pagina saem direto dos arrays do ProductPriceIndex, sem montar a lista de ids inteira
+        if (byPrice != null) {
+            List<CategoryFacetDTO> facets = withFacets ? productCategoryIndex.facets(byPrice.toBitmap()) : null;
+            List<Long> pageIds = pageable.isPaged()
+                    ? byPrice.page(pageable.getOffset(), pageable.getPageSize()) : byPrice.page(0, (int) byPrice.count());
+            return new ProductFacetedPageDTO(loadPage(pageIds, pageable, byPrice.count()), facets);
+        }
+
+        if (ids == null) {
+            //  Sem categorias pedidas, a subconsulta nao filtra nada (minMatches = 0); o -1 só evita um IN () vazio
+            Collection<Long> filter = categories.isEmpty() ? List.of(-1L) : categories;
+            long minMatches = categories.isEmpty() ? 0 : (matchAll ? categories.size() : 1);
+
+            Page<ProductDTO> page = productRepository.searchByFilters(name, filter, minMatches, minPrice, maxPrice, pageable)
+                    .map(ProductDTO::new);
+            List<CategoryFacetDTO> facets = !withFacets ? null
+                    : productRepository.countByCategory(name, filter, minMatches, minPrice, maxPrice).stream()
+                    .map(row -> new CategoryFacetDTO((Long) row[0], (String) row[1], (Long) row[2])).toList();
+            return new ProductFacetedPageDTO(page, facets);
+        }
+
+        List<CategoryFacetDTO> facets = null;
+        if (withFacets)
+            facets = productCategoryIndex.facets(bitmapOf(ids));
+        return new ProductFacetedPageDTO(pageOfIds(ids, pageable), facets);
+    }
+
+    //  Ids do resultado inteiro, ja ordenados, a partir dos indices em memória (sem ordenação por preço). Retorna null se algum deles nao puder responder.
+    private List<Long> searchIndexes(String name, List<Long> categories, boolean matchAll, Double minPrice, Double maxPrice, Sort sort) {
+        CompressedBitmap within = null;
+        if (!categories.isEmpty())
+            within = productCategoryIndex.filter(categories, matchAll);
+
+        if (minPrice != null || maxPrice != null) {
+            CompressedBitmap inRange = productPriceIndex.range(minPrice, maxPrice);
+            within = (within == null) ? inRange : within.and(inRange);
+        }
+        return productNameIndex.searchWithin(name, sort, within);
+    }
+
+    //  Ordenação por preço: nome e categorias viram um bitmap, e o ProductPriceIndex percorre a faixa de preço na ordem pedida
+    private ProductPriceIndex.PriceRange searchPriceIndex(String name, List<Long> categories, boolean matchAll, Double minPrice, Double maxPrice,
+                                                          boolean ascending) {
+        CompressedBitmap within = null;
+        if (!categories.isEmpty())
+            within = productCategoryIndex.filter(categories, matchAll);
+
+        if (!name.isEmpty()) {
+            List<Long> byName = productNameIndex.searchWithin(name, Sort.unsorted(), within);
+            if (byName == null)
+                return null;
+            within = bitmapOf(byName);
+        }
+        return productPriceIndex.sorted(minPrice, maxPrice, ascending, within);
+    }
+
+    //  Os ids podem vir em qualquer ordem; ordenados por id, cada container do bitmap só recebe inserções no final
+    private static CompressedBitmap bitmapOf(List<Long> ids) {
+        return CompressedBitmap.of(ids.stream().sorted().toList());
+    }
+
+    //  Busca no banco só os produtos da pagina pedida, a partir da lista completa (e ja ordenada) de ids que um indice devolveu
+    private Page<ProductDTO> pageOfIds(List<Long> ids, Pageable pageable) {
+        List<Long> pageIds = ids;
+        if (pageable.isPaged()) {
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + pageable.getPageSize(), ids.size());
+            pageIds = ids.subList(from, to);
+        }
+        return loadPage(pageIds, pageable, ids.size());
+    }
+
+    //  findAllById nao garante a ordem dos ids, entao o resultado é reordenado de acordo com a lista do indice
+    private Page<ProductDTO> loadPage(List<Long> pageIds, Pageable pageable, long total) {
+        Map<Long, Product> products = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+        List<ProductDTO> content = pageIds.stream().map(products::get).filter(p -> p != null).map(ProductDTO::new).toList();
+
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    //  Mesma busca do searchProductByName, mas com a projeção resumida (ProductMinDTO): sem description e sem entidades no contexto
+    @Transactional(readOnly = true)
+    public Page<ProductMinDTO> searchProductSummariesByName(String name, Pageable pageable) {
+        List<Long> ids = productNameIndex.search(name, pageable.getSort());
+        if (ids == null)
+            return productRepository.searchSummaryByName(name, pageable);
+
+        List<Long> pageIds = ids;
+        if (pageable.isPaged()) {
+            int from = (int) Math.min(pageable.getOffset(), ids.size());
+            int to = Math.min(from + pageable.getPageSize(), ids.size());
+            pageIds = ids.subList(from, to);
+        }
+        if (pageIds.isEmpty())
+            return new PageImpl<>(List.of(), pageable, ids.size());
+
+        Map<Long, ProductMinDTO> products = productRepository.searchSummaryByIds(pageIds).stream()
+                .collect(Collectors.toMap(ProductMinDTO::getId, Function.identity()));
+        List<ProductMinDTO> content = pageIds.stream().map(products::get).filter(p -> p != null).toList();
+
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+
+    /*
+    *   Paginação por cursor (keyset): em vez de numero de pagina, o cliente envia o cursor "next" recebido na resposta anterior.
+    *       A consulta continua exatamente depois do ultimo produto entregue (ver ProductRepository.searchByNameAfter...),
+    *       sem OFFSET e sem COUNT, entao a latencia nao cresce conforme o cliente avança nas paginas.
+    * */
+    @Transactional(readOnly = true)
+    public ProductCursorPageDTO searchProductByNameWithCursor(String name, String sort, String cursor, int size) {
+        ProductCursor position = (cursor == null || cursor.isBlank()) ? ProductCursor.initial(sort) : ProductCursor.decode(cursor);
+        boolean asc = position.getDirection().isAscending();
+
+        Slice<Product> slice;
+        if (position.isInitial()) {
+            Pageable pageable = PageRequest.of(0, size, position.toSort());
+            slice = position.getProperty().equals("price")
+                    ? productRepository.searchSliceByNameWithPrice(name, pageable)
+                    : productRepository.searchSliceByName(name, pageable);
+        } else {
+            Pageable limit = PageRequest.of(0, size);
+            Long id = position.getId();
+            slice = switch (position.getProperty()) {
+                case "name" -> asc
+                        ? productRepository.searchByNameAfterNameAsc(name, position.getKey(), id, limit)
+                        : productRepository.searchByNameAfterNameDesc(name, position.getKey(), id, limit);
+                case "price" -> asc
+                        ? productRepository.searchByNameAfterPriceAsc(name, position.getPriceKey(), id, limit)
+                        : productRepository.searchByNameAfterPriceDesc(name, position.getPriceKey(), id, limit);
+                default -> asc
+                        ? productRepository.searchByNameAfterIdAsc(name, id, limit)
+                        : productRepository.searchByNameAfterIdDesc(name, id, limit);
+            };
+        }
+
+        List<Product> products = slice.getContent();
+        String next = null;
+        if (slice.hasNext() && !products.isEmpty())
+            next = position.after(products.get(products.size() - 1)).encode();
+
+        return new ProductCursorPageDTO(products.stream().map(ProductDTO::new).toList(), size, slice.hasNext(), next);
+    }
+
+    /*
+    *   Exportação do catalogo inteiro (GET /products/export): cada produto é entregue ao sink (que escreve direto na resposta)
+    *       assim que é lido do cursor, e em seguida é desanexado (detach) do EntityManager.
+    *       Sem o detach, o contexto de persistência guardaria todos os produtos lidos e o consumo de memória cresceria com o catalogo.
+    *
+    *   A transação (e a conexão do pool) é aberta aqui e liberada assim que o Stream termina.
+    * */
+    public void exportProducts(String name, Long categoryId, Consumer<ProductDTO> sink) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            try (Stream<Product> products = (categoryId == null)
+                    ? productRepository.streamByName(name)
+                    : productRepository.streamByNameAndCategory(name, categoryId)) {
+                products.forEach(p -> {
+                    sink.accept(new ProductDTO(p));
+                    entityManager.detach(p);
+                });
+            }
+        });
     }
 
     @Transactional
@@ -82,6 +435,20 @@ public class ProductService {
         Product product = new Product();
         setDTOtoProduct(pDTO, product);
         product = productRepository.save(product); // O metodo save() do JpaRepository retorna a entidade salva no DB. Se o valor do campo iD ja existir no banco, o registro será atualizado, se o iD for null, será criado um novo registro.
+
+        Long id = product.getId();
+        String name = product.getName();
+        Double price = product.getPrice();
+        /*  ja antes do commit: um "talvez" a mais nunca gera resposta errada, um "nao existe" indevido geraria.
+        *   E de novo depois do commit: um rebuild que comece antes do commit lê o banco sem esse produto e descartaria o id. */
+        productIdFilter.add(id);
+        afterCommit(() -> {
+            productIdFilter.add(id);
+            productNameIndex.put(id, name);
+            productPriceIndex.put(id, price);
+            productPageCache.invalidate(List.of(name));
+        });
+
         return new ProductDTO(product);
     }
 
@@ -89,29 +456,215 @@ public class ProductService {
     public ProductDTO updateProduct(Long id, ProductDTO dto) {
         try {
             Product product = productRepository.getReferenceById(id);
+            String oldName = product.getName();
             setDTOtoProduct(dto, product);
             product = productRepository.save(product);
+
+            String name = product.getName();
+            Double price = product.getPrice();
+            afterCommit(() -> {
+                productNameIndex.put(id, name);
+                productPriceIndex.put(id, price);
+                productCache.evict(id);
+                productPageCache.invalidate(Arrays.asList(oldName, name));
+            });
+
             return new ProductDTO(product);
         } catch(EntityNotFoundException e) {
             throw new ResourceNotFoundException("Resource Not Found");
         }
     }
 
-    @Transactional(propagation = Propagation.SUPPORTS) //   revise.
+    /*
+    *   Escritas em LOTE (POST/PUT /products/batch).
+    *
+    *   1) Cada item é validado com as mesmas constraints do ProductDTO (o @Valid do Controller só funciona para um objeto, nao para cada item da lista);
+    *   2) Os itens validos sao gravados em blocos de BATCH_CHUNK_SIZE, cada bloco na sua propria transação (TransactionTemplate).
+    *       Dentro do bloco, os INSERTs/UPDATEs vao em lotes JDBC (hibernate.jdbc.batch_size) no flush;
+    *   3) Se um bloco falhar no banco, ele é refeito item a item para descobrir exatamente quais itens falharam.
+    *
+    *   Esses metodos NÃO sao @Transactional: cada bloco confirmado fica gravado mesmo que um bloco seguinte falhe.
+    *   Uma lista com mais de dscommerce.products.batch.max-items itens é recusada inteira (422) antes de qualquer gravação.
+    * */
+    public ProductBatchResultDTO insertProducts(List<ProductDTO> dtos) {
+        return writeInChunks(dtos, false);
+    }
+
+    public ProductBatchResultDTO updateProducts(List<ProductDTO> dtos) {
+        return writeInChunks(dtos, true);
+    }
+
+    private ProductBatchResultDTO writeInChunks(List<ProductDTO> dtos, boolean update) {
+        if (dtos.size() > maxBatchItems)
+            throw new BatchTooLargeException(dtos.size(), maxBatchItems);
+
+        ProductBatchResultDTO result = new ProductBatchResultDTO(dtos.size());
+
+        List<Integer> valid = new ArrayList<>();
+        for (int i = 0; i < dtos.size(); i++) {
+            ProductBatchErrorDTO error = validateBatchItem(i, dtos.get(i), update);
+            if (error == null)
+                valid.add(i);
+            else
+                result.addError(error);
+        }
+
+        for (int from = 0; from < valid.size(); from += BATCH_CHUNK_SIZE) {
+            List<Integer> chunk = valid.subList(from, Math.min(from + BATCH_CHUNK_SIZE, valid.size()));
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeChunk(dtos, chunk, update, result));
+            } catch (DataAccessException | TransactionException e) {
+                for (Integer i : chunk) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> writeChunk(dtos, List.of(i), update, result));
+                    } catch (DataAccessException | TransactionException ex) {
+                        result.addError(new ProductBatchErrorDTO(i, dtos.get(i).getId(), "Database Integrity Constraint Violation"));
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private ProductBatchErrorDTO validateBatchItem(int index, ProductDTO dto, boolean update) {
+        if (dto == null)
+            return new ProductBatchErrorDTO(index, null, "Item must not be null");
+
+        Set<ConstraintViolation<ProductDTO>> violations = validator.validate(dto);
+        if (!violations.isEmpty()) {
+            ProductBatchErrorDTO error = new ProductBatchErrorDTO(index, dto.getId(), "Invalid Field Data");
+            for (ConstraintViolation<ProductDTO> v : violations)
+                error.addError(v.getPropertyPath().toString(), v.getMessage());
+            return error;
+        }
+
+        if (update && dto.getId() == null)
+            return new ProductBatchErrorDTO(index, null, "Id must not be null");
+
+        return null;
+    }
+
+    //  Executado dentro de uma transação. O resultado só é preenchido depois do commit do bloco.
+    private void writeChunk(List<ProductDTO> dtos, List<Integer> indexes, boolean update, ProductBatchResultDTO result) {
+        List<Product> products = new ArrayList<>(indexes.size());
+        List<String> oldNames = new ArrayList<>();
+
+        if (update) {
+            //  Uma unica consulta para carregar todos os produtos do bloco, em vez de um getReferenceById por item
+            List<Long> ids = indexes.stream().map(i -> dtos.get(i).getId()).toList();
+            Map<Long, Product> existing = productRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+            for (Integer i : indexes) {
+                Product product = existing.get(dtos.get(i).getId());
+                if (product == null) {
+                    afterCommit(() -> result.addError(new ProductBatchErrorDTO(i, dtos.get(i).getId(), "Resource Not Found")));
+                    continue;
+                }
+                oldNames.add(product.getName());
+                setDTOtoProduct(dtos.get(i), product);
+                products.add(product);
+            }
+        } else {
+            for (Integer i : indexes) {
+                Product product = new Product();
+                setDTOtoProduct(dtos.get(i), product);
+                products.add(product);
+            }
+            products = productRepository.saveAll(products);
+        }
+
+        productRepository.flush();  //  envia os INSERTs/UPDATEs em lote ainda dentro do try do writeInChunks
+
+        List<ProductDTO> saved = products.stream().map(ProductDTO::new).toList();
+        for (ProductDTO dto : saved)
+            productIdFilter.add(dto.getId());
+
+        afterCommit(() -> {
+            Map<Long, Double> prices = new HashMap<>();
+            for (ProductDTO dto : saved) {
+                productIdFilter.add(dto.getId());   //  de novo depois do commit (ver insertProduct)
+                productNameIndex.put(dto.getId(), dto.getName());
+                prices.put(dto.getId(), dto.getPrice());
+                productCache.evict(dto.getId());
+                result.addItem(dto);
+                oldNames.add(dto.getName());
+            }
+            productPriceIndex.putAll(prices);
+            productPageCache.invalidate(oldNames);
+        });
+    }
+
+    /*
+    *   Usado pela importação em massa (ProductImportService): grava um bloco de produtos ja validados, com suas categorias, numa unica transação.
+    *       categoryIds.get(i) sao os ids das categorias do produto dtos.get(i).
+    *       getReference() nao consulta a tb_category: as categorias ja foram conferidas pelo importador, só a FK é necessária.
+    *   Se o bloco falhar, a exception sobe (DataAccessException) e o importador decide o que fazer.
+    * */
+    @Transactional
+    public List<ProductDTO> insertProductsWithCategories(List<ProductDTO> dtos, List<Set<Long>> categoryIds) {
+        List<Product> products = new ArrayList<>(dtos.size());
+        for (int i = 0; i < dtos.size(); i++) {
+            Product product = new Product();
+            setDTOtoProduct(dtos.get(i), product);
+            for (Long categoryId : categoryIds.get(i))
+                product.addCategory(entityManager.getReference(Category.class, categoryId));
+            products.add(product);
+        }
+        products = productRepository.saveAll(products);
+        productRepository.flush();
+
+        List<ProductDTO> saved = products.stream().map(ProductDTO::new).toList();
+        for (ProductDTO dto : saved)
+            productIdFilter.add(dto.getId());
+
+        afterCommit(() -> {
+            Map<Long, Double> prices = new HashMap<>();
+            for (int i = 0; i < saved.size(); i++) {
+                productIdFilter.add(saved.get(i).getId());   //  de novo depois do commit (ver insertProduct)
+                productNameIndex.put(saved.get(i).getId(), saved.get(i).getName());
+                productCategoryIndex.putProduct(saved.get(i).getId(), categoryIds.get(i));
+                prices.put(saved.get(i).getId(), saved.get(i).getPrice());
+            }
+            productPriceIndex.putAll(prices);
+            productPageCache.invalidate(saved.stream().map(ProductDTO::getName).toList());
+        });
+        return saved;
+    }
+
+    @Transactional
     public void deleteProductById(Long id) {
 
-        /*  Mesmo que o id fornecido nao exista, aparentemente o metodo deleteByID da interface do JpaRepository nao lança nenhuma exception,
-                portanto temos que testar se o id existe antes de executar o metodo.    */
+        /*  Se o ProductIdFilter garante que o id nao existe, nem é preciso ir ao banco.
+        *       Caso contrario, o produto é buscado com findById: se nao existir, lança a exception.
+        *       (Antes eram feitas duas idas ao banco só para descobrir se o registro existia: existsById() e depois o findById() interno do deleteById().) */
+
+        if(!productIdFilter.mightContain(id))
+            throw new ResourceNotFoundException("Resource Not Found");
 
-        if(!productRepository.existsById(id))
-            throw new ResourceNotFoundException("Resource Not Found");  //  Se o ID nao existir lança a exception
+        Product product = productRepository.findById(id).orElseThrow(() -> {
+            productIdFilter.recordFalsePositive();
+            return new ResourceNotFoundException("Resource Not Found");   //  Se o ID nao existir lança a exception
+        });
 
         /*  Agora, mesmo que exista o registro com o ID fornecido, se esse registro fizer referencia a outro registro, haverá uma
         *       FALHA DE INTEGRIDADE REFERENCIAL ao tentar deletá-lo.
-        *       O metodo vai lançar uma DataIntegrityViolationException */
+        *       O metodo vai lançar uma DataIntegrityViolationException.
+        *   Como agora o metodo roda dentro de uma transação, o DELETE só iria para o banco no commit (fora do try/catch).
+        *       Por isso o flush() é chamado aqui dentro: ele força a execução do DELETE e a violação estoura dentro do try. */
 
         try {
-            productRepository.deleteById(id);
+            productRepository.delete(product);
+            productRepository.flush();
+            String name = product.getName();
+            afterCommit(() -> {
+                productNameIndex.remove(id);
+                productCategoryIndex.removeProduct(id);
+                productPriceIndex.remove(id);
+                stockService.productDeleted(id);
+                productCache.evict(id);
+                productPageCache.invalidate(List.of(name));
+            });
         }
         catch (DataIntegrityViolationException e) {
             throw new DbIntegrityException("Database Integrity Constraint Violation");
@@ -124,4 +677,19 @@ public class ProductService {
         product.setPrice(dto.getPrice());
         product.setImgUrl(dto.getImgUrl());
     } //cria objetos Product a partir de objetos ProductDTO.
+
+    /*  Os indices em memória só devem refletir o que de fato foi gravado no banco.
+    *       Por isso a atualização deles é registrada para rodar depois do COMMIT (se a transação sofrer rollback, o indice nao muda).  */
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
 }
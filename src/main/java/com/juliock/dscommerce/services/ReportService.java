@@ -0,0 +1,191 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.CategoryRevenueDTO;
+import com.juliock.dscommerce.dto.ProductMinDTO;
+import com.juliock.dscommerce.dto.TopProductDTO;
+import com.juliock.dscommerce.entities.Category;
+import com.juliock.dscommerce.entities.OrderStatus;
+import com.juliock.dscommerce.repositories.CategoryRepository;
+import com.juliock.dscommerce.repositories.ProductRepository;
+import com.juliock.dscommerce.services.analytics.OrderItemScanner;
+import com.juliock.dscommerce.services.analytics.ProductCategories;
+import com.juliock.dscommerce.services.analytics.ReportWindow;
+import com.juliock.dscommerce.services.analytics.SalesAggregationTask;
+import com.juliock.dscommerce.services.analytics.SalesMap;
+import com.juliock.dscommerce.services.exceptions.InvalidReportRangeException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/*
+*   Relatorios de vendas: produtos mais vendidos e receita por categoria em janelas de tempo.
+*
+*   Os itens dos pedidos do periodo sao varridos em PARALELO (SalesAggregationTask num ForkJoinPool proprio): o intervalo de ids
+*       de pedido do periodo é dividido em blocos de dscommerce.reports.chunk-orders pedidos, e cada bloco é lido por uma consulta JDBC
+*       pela PK de tb_order (sem OFFSET, sem entidades, com fetch size para nao trazer o bloco inteiro de uma vez).
+*   Cada tarefa soma num mapa primitivo proprio (SalesMap) e os parciais sao juntados no fim: sem lock durante a varredura,
+*       e a memória usada depende da quantidade de produtos/categorias, nao da quantidade de itens.
+*
+*   Pedidos CANCELED nao entram nos relatorios. As datas sao em UTC, e "to" é inclusive (o dia inteiro).
+*
+*   O pool é separado do ForkJoinPool.commonPool() para que um relatorio pesado nao ocupe as threads usadas por parallel streams
+*       do resto da aplicação. Cada folha segura uma conexão enquanto lê o bloco, entao o paralelismo é limitado ao tamanho
+*       do pool de conexões (spring.datasource.hikari.maximum-pool-size), mesmo com "uma thread por core" numa maquina com muitos cores.
+* */
+
+@Service
+public class ReportService {
+
+    private static final int MAX_WINDOWS = 1000;
+
+    private static final String ORDER_ID_RANGE_SQL = "SELECT MIN(id), MAX(id) FROM tb_order WHERE moment >= ? AND moment < ?";
+
+    private static final String SCAN_SQL = "SELECT o.moment, i.product_id, i.price, i.quantity FROM tb_order o " +
+            "INNER JOIN tb_order_item i ON i.order_id = o.id " +
+            "WHERE o.id >= ? AND o.id < ? AND o.moment >= ? AND o.moment < ? AND o.status <> ?";
+
+    private static final String PRODUCT_CATEGORIES_SQL = "SELECT product_id, category_id FROM tb_product_category ORDER BY product_id";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ForkJoinPool pool;
+    private final long chunkOrders;
+    private final int fetchSize;
+
+    @Autowired
+    public ReportService(JdbcTemplate jdbcTemplate, ProductRepository productRepository, CategoryRepository categoryRepository,
+                         @Value("${dscommerce.reports.parallelism:0}") int parallelism,
+                         @Value("${dscommerce.reports.chunk-orders:20000}") long chunkOrders,
+                         @Value("${dscommerce.reports.fetch-size:1000}") int fetchSize,
+                         @Value("${spring.datasource.hikari.maximum-pool-size:10}") int maxPoolSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        //  0 = uma thread por core
+        int threads = (parallelism > 0) ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.pool = new ForkJoinPool(Math.max(1, Math.min(threads, maxPoolSize)));
+        this.chunkOrders = chunkOrders;
+        this.fetchSize = fetchSize;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    public List<TopProductDTO> findTopProducts(LocalDate from, LocalDate to, int limit) {
+        checkRange(from, to);
+        Instant start = startOf(from);
+        Instant end = startOf(to.plusDays(1));
+
+        SalesMap sales = aggregate(start, end, (moment, productId, sink) -> sink.accept(productId), 1024);
+
+        long[] top = sales.topByRevenue(limit);
+        Map<Long, String> names = productRepository.searchSummaryByIds(Arrays.stream(top).boxed().toList()).stream()
+                .collect(Collectors.toMap(ProductMinDTO::getId, ProductMinDTO::getName));
+
+        List<TopProductDTO> result = new ArrayList<>(top.length);
+        for (long productId : top)
+            result.add(new TopProductDTO(productId, names.get(productId), sales.quantity(productId), sales.revenue(productId)));
+        return result;
+    }
+
+    /*
+    *   Cada item conta para a janela do seu moment e para cada categoria do produto.
+    *       A chave do SalesMap junta os dois: (indice da janela << 32) | id da categoria.
+    * */
+    public List<CategoryRevenueDTO> findCategoryRevenue(LocalDate from, LocalDate to, ReportWindow window) {
+        checkRange(from, to);
+        if (window.count(from, to) > MAX_WINDOWS)
+            throw new InvalidReportRangeException("Too many " + window + " windows in range (max " + MAX_WINDOWS + ")");
+        long[] windowStarts = window.starts(from, to);
+
+        Instant start = startOf(from);
+        Instant end = startOf(to.plusDays(1));
+        ProductCategories productCategories = loadProductCategories();
+
+        SalesMap sales = aggregate(start, end, (moment, productId, sink) -> {
+            long windowKey = (long) ReportWindow.windowIndex(windowStarts, moment) << 32;
+            productCategories.forEachCategory(productId, categoryId -> sink.accept(windowKey | categoryId));
+        }, 256);
+
+        Map<Long, String> names = categoryRepository.findAll().stream()
+                .collect(Collectors.toMap(Category::getId, Category::getName));
+
+        List<CategoryRevenueDTO> result = new ArrayList<>(sales.size());
+        long[] keys = new long[sales.size()];
+        int[] n = {0};
+        sales.forEach((key, revenue, quantity) -> keys[n[0]++] = key);
+        Arrays.sort(keys);  //  janela e depois categoria, pela forma como a chave foi montada
+        for (long key : keys) {
+            long categoryId = key & 0xFFFFFFFFL;
+            LocalDate windowStart = LocalDate.ofInstant(Instant.ofEpochMilli(windowStarts[(int) (key >>> 32)]), ZoneOffset.UTC);
+            result.add(new CategoryRevenueDTO(windowStart, categoryId, names.get(categoryId), sales.quantity(key), sales.revenue(key)));
+        }
+        return result;
+    }
+
+    private SalesMap aggregate(Instant start, Instant end, SalesAggregationTask.KeyMapper keyMapper, int expectedKeys) {
+        long[] idRange = orderIdRange(start, end);
+        if (idRange == null)
+            return new SalesMap();
+
+        OrderItemScanner scanner = (fromOrderId, toOrderId, visitor) -> jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SCAN_SQL);
+            ps.setFetchSize(fetchSize);
+            ps.setLong(1, fromOrderId);
+            ps.setLong(2, toOrderId);
+            ps.setTimestamp(3, Timestamp.from(start));
+            ps.setTimestamp(4, Timestamp.from(end));
+            ps.setInt(5, OrderStatus.CANCELED.ordinal());
+            return ps;
+        }, (RowCallbackHandler) rs -> visitor.visit(rs.getTimestamp(1).getTime(), rs.getLong(2), rs.getDouble(3), rs.getInt(4)));
+
+        return pool.invoke(new SalesAggregationTask(scanner, keyMapper, idRange[0], idRange[1] + 1, chunkOrders, expectedKeys));
+    }
+
+    //  [menor id, maior id] dos pedidos do periodo, ou null se nao houver nenhum
+    private long[] orderIdRange(Instant start, Instant end) {
+        return jdbcTemplate.query(ORDER_ID_RANGE_SQL, rs -> {
+            rs.next();
+            long min = rs.getLong(1);
+            return rs.wasNull() ? null : new long[] {min, rs.getLong(2)};
+        }, Timestamp.from(start), Timestamp.from(end));
+    }
+
+    private ProductCategories loadProductCategories() {
+        List<long[]> pairs = jdbcTemplate.query(PRODUCT_CATEGORIES_SQL, (rs, rowNum) -> new long[] {rs.getLong(1), rs.getLong(2)});
+        long[] productIds = new long[pairs.size()];
+        long[] categoryIds = new long[pairs.size()];
+        for (int i = 0; i < pairs.size(); i++) {
+            productIds[i] = pairs.get(i)[0];
+            categoryIds[i] = pairs.get(i)[1];
+        }
+        return new ProductCategories(productIds, categoryIds);
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to))
+            throw new InvalidReportRangeException("'from' must not be after 'to'");
+    }
+
+    private static Instant startOf(LocalDate date) {
+        return date.atStartOfDay(ZoneOffset.UTC).toInstant();
+    }
+}
@@ -0,0 +1,169 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.StockDTO;
+import com.juliock.dscommerce.services.exceptions.InsufficientStockException;
+import com.juliock.dscommerce.services.exceptions.ResourceNotFoundException;
+import com.juliock.dscommerce.services.inventory.StockLedger;
+import com.juliock.dscommerce.services.inventory.StockReservation;
+import com.juliock.dscommerce.services.inventory.StripedStockCounter;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+*   Estoque dos produtos (tb_product.stock) com reservas em memória.
+*
+*   Reservar estoque com UPDATE ... WHERE stock >= :qty (ou SELECT ... FOR UPDATE) em cada checkout faria todos os checkouts do mesmo
+*       produto esperarem, um por um, pelo lock da linha até o commit. Aqui o estoque "vivo" fica no StockLedger (contadores em faixas,
+*       sem lock) e o banco é atualizado em LOTE: a cada dscommerce.stock.flush-interval-ms, as unidades reservadas desde a ultima
+*       gravação sao descontadas com um UPDATE stock = stock - :delta por produto, todos numa transação só.
+*
+*   O contador de um produto é criado na primeira reserva/consulta, com o valor da tb_product (que nesse momento nao tem nada pendente).
+*       A partir dai, a memória é a fonte da verdade e o banco fica atrás no maximo um intervalo de gravação.
+*   Se a aplicação cair entre duas gravações, as reservas desse intervalo nao chegam na tb_product (o @PreDestroy grava o que estiver
+*       pendente num desligamento normal). Com varias instancias da aplicação, cada uma teria o seu contador: o estoque em memória
+*       pressupõe uma instancia só.
+*
+*   O Product.stock é updatable = false: os updates do JPA (PUT /products/{id}) nunca sobrescrevem o estoque gravado por aqui.
+* */
+
+@Service
+public class StockService {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StockService.class);
+
+    private static final String LOAD_SQL = "SELECT stock FROM tb_product WHERE id = ?";
+    private static final String FLUSH_SQL = "UPDATE tb_product SET stock = stock - ? WHERE id = ?";
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final StockLedger stockLedger;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public StockService(StockLedger stockLedger, JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this.stockLedger = stockLedger;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /*
+    *   Reserva, tudo ou nada, a quantidade de cada produto (id -> quantidade). Sem estoque suficiente em algum deles,
+    *       lança InsufficientStockException e nada fica reservado.
+    *   Chamado dentro de uma transação (ex: o checkout), a reserva é devolvida automaticamente se a transação nao fizer commit.
+    * */
+    public StockReservation reserve(Map<Long, Integer> quantitiesByProduct) {
+        Map<Long, Integer> sorted = new TreeMap<>(quantitiesByProduct);
+        long[] productIds = new long[sorted.size()];
+        long[] quantities = new long[sorted.size()];
+        int i = 0;
+        for (Map.Entry<Long, Integer> e : sorted.entrySet()) {
+            if (e.getValue() == null || e.getValue() <= 0)
+                throw new IllegalArgumentException("Quantity must be positive for product " + e.getKey());
+            counterFor(e.getKey());
+            productIds[i] = e.getKey();
+            quantities[i++] = e.getValue();
+        }
+
+        StockReservation reservation = stockLedger.reserve(productIds, quantities);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED)
+                        reservation.release();
+                }
+            });
+        }
+        return reservation;
+    }
+
+    public StockDTO findStock(Long productId) {
+        StripedStockCounter counter = counterFor(productId);
+        return new StockDTO(productId, counter.available(), counter.pending());
+    }
+
+    //  delta positivo = reposição; negativo = baixa, que falha (409) se o estoque disponivel nao bastar
+    public StockDTO adjustStock(Long productId, long delta) {
+        StripedStockCounter counter = counterFor(productId);
+        if (delta > 0)
+            counter.put(delta);
+        else if (delta < 0 && !counter.tryTake(-delta))
+            throw new InsufficientStockException(productId);
+        return new StockDTO(productId, counter.available(), counter.pending());
+    }
+
+    /*
+    *   Produto deletado (chamado pelo ProductService depois do commit): o contador sai da memória junto com os indices.
+    *       O que estiver pendente nele nao tem mais linha onde ser gravado.
+    * */
+    public void productDeleted(Long productId) {
+        stockLedger.remove(productId);
+    }
+
+    /*
+    *   Grava na tb_product as reservas (e devoluções/reposições) acumuladas desde a ultima gravação, numa transação só.
+    *       Se o UPDATE falhar, os valores voltam para os contadores e entram na proxima gravação.
+    *       Um UPDATE que nao encontra a linha significa que o produto foi deletado (e o contador ainda nao tinha saido): ele é descartado.
+    * */
+    @Scheduled(fixedDelayString = "${dscommerce.stock.flush-interval-ms:200}")
+    @PreDestroy
+    public synchronized int flush() {
+        List<long[]> drained = new ArrayList<>();
+        stockLedger.forEachCounter((productId, counter) -> {
+            long pending = counter.drainPending();
+            if (pending != 0)
+                drained.add(new long[] {productId, pending});
+        });
+        if (drained.isEmpty())
+            return 0;
+
+        try {
+            int[][] counts = transactionTemplate.execute(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, drained, FLUSH_BATCH_SIZE,
+                    (ps, row) -> {
+                        ps.setLong(1, row[1]);
+                        ps.setLong(2, row[0]);
+                    }));
+            int k = 0;
+            for (int[] batch : counts)
+                for (int count : batch)
+                    if (count == 0)
+                        stockLedger.remove(drained.get(k++)[0]);
+                    else
+                        k++;
+        } catch (DataAccessException e) {
+            LOG.warn("Stock flush failed for {} products, will retry: {}", drained.size(), e.getMessage());
+            for (long[] row : drained) {
+                StripedStockCounter counter = stockLedger.counter(row[0]);
+                if (counter != null)
+                    counter.restorePending(row[1]);
+            }
+        }
+        return drained.size();
+    }
+
+    private StripedStockCounter counterFor(long productId) {
+        StripedStockCounter counter = stockLedger.counter(productId);
+        if (counter != null)
+            return counter;
+
+        List<Long> stock = jdbcTemplate.queryForList(LOAD_SQL, Long.class, productId);
+        if (stock.isEmpty())
+            throw new ResourceNotFoundException("Resource Not Found");
+        return stockLedger.register(productId, (stock.get(0) == null) ? 0 : stock.get(0));
+    }
+}
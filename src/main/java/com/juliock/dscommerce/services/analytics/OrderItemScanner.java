@@ -0,0 +1,21 @@
+package com.juliock.dscommerce.services.analytics;
+
+/*
+*   Fonte dos itens de pedido para a agregação paralela: entrega, um a um e sem criar objetos, os itens dos pedidos com id
+*       no intervalo [fromOrderId, toOrderId). Cada tarefa da SalesAggregationTask chama scan() para o seu proprio intervalo,
+*       entao as implementações precisam aceitar chamadas simultaneas.
+*
+*   Na aplicação, a fonte é a tb_order_item lida via JDBC (ReportService); nos benchmarks, um gerador sintetico em memória.
+* */
+
+@FunctionalInterface
+public interface OrderItemScanner {
+
+    void scan(long fromOrderId, long toOrderId, Visitor visitor);
+
+    @FunctionalInterface
+    interface Visitor {
+        //  moment em epoch millis; price é o preço unitario gravado no item
+        void visit(long moment, long productId, double price, int quantity);
+    }
+}
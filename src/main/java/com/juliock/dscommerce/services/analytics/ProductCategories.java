@@ -0,0 +1,45 @@
+package com.juliock.dscommerce.services.analytics;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/*
+*   Categorias de cada produto (tb_product_category) em arrays primitivos, para a agregação de receita por categoria:
+*       productIds[] ordenado e, para o produto da posição i, as categorias categoryIds[offsets[i]] até categoryIds[offsets[i + 1] - 1].
+*   Só leitura depois de montado, entao pode ser usado por todas as tarefas da agregação ao mesmo tempo.
+* */
+
+public class ProductCategories {
+
+    private final long[] productIds;
+    private final int[] offsets;
+    private final long[] categoryIds;
+
+    //  pairs: {productId, categoryId} ja ordenados por productId (ex: a consulta com ORDER BY product_id)
+    public ProductCategories(long[] pairProductIds, long[] pairCategoryIds) {
+        int products = 0;
+        for (int i = 0; i < pairProductIds.length; i++)
+            if (i == 0 || pairProductIds[i] != pairProductIds[i - 1])
+                products++;
+
+        productIds = new long[products];
+        offsets = new int[products + 1];
+        categoryIds = Arrays.copyOf(pairCategoryIds, pairCategoryIds.length);
+        int p = -1;
+        for (int i = 0; i < pairProductIds.length; i++) {
+            if (i == 0 || pairProductIds[i] != pairProductIds[i - 1]) {
+                productIds[++p] = pairProductIds[i];
+                offsets[p] = i;
+            }
+        }
+        offsets[products] = pairProductIds.length;
+    }
+
+    public void forEachCategory(long productId, LongConsumer consumer) {
+        int i = Arrays.binarySearch(productIds, productId);
+        if (i < 0)
+            return;
+        for (int k = offsets[i]; k < offsets[i + 1]; k++)
+            consumer.accept(categoryIds[k]);
+    }
+}
@@ -0,0 +1,64 @@
+package com.juliock.dscommerce.services.analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+//  Janelas de tempo dos relatorios (em UTC). A semana começa na segunda-feira.
+public enum ReportWindow {
+
+    DAY, WEEK, MONTH;
+
+    public LocalDate startOf(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    public LocalDate next(LocalDate start) {
+        return switch (this) {
+            case DAY -> start.plusDays(1);
+            case WEEK -> start.plusWeeks(1);
+            case MONTH -> start.plusMonths(1);
+        };
+    }
+
+    //  Quantidade de janelas que cobrem o intervalo [from, to] (datas inclusive), calculada sem percorrer as janelas
+    public long count(LocalDate from, LocalDate to) {
+        LocalDate first = startOf(from);
+        return switch (this) {
+            case DAY -> ChronoUnit.DAYS.between(first, to) + 1;
+            case WEEK -> ChronoUnit.WEEKS.between(first, to) + 1;
+            case MONTH -> ChronoUnit.MONTHS.between(first, to) + 1;
+        };
+    }
+
+    /*
+    *   Inicio (epoch millis) de cada janela que cobre o intervalo [from, to] (datas inclusive), em ordem crescente.
+    *       O indice da janela de um instante é encontrado com busca binaria nesse array (ver windowIndex).
+    *       Quem chama deve limitar count(from, to) antes: o array tem uma posição por janela.
+    * */
+    public long[] starts(LocalDate from, LocalDate to) {
+        long[] starts = new long[Math.toIntExact(count(from, to))];
+        LocalDate d = startOf(from);
+        for (int i = 0; i < starts.length; i++, d = next(d))
+            starts[i] = d.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        return starts;
+    }
+
+    public static int windowIndex(long[] starts, long moment) {
+        int lo = 0, hi = starts.length - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (starts[mid] <= moment)
+                lo = mid;
+            else
+                hi = mid - 1;
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,79 @@
+package com.juliock.dscommerce.services.analytics;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.LongConsumer;
+
+/*
+*   Agregação de vendas em paralelo com fork-join.
+*
+*   O intervalo de ids de pedido [fromOrderId, toOrderId) é dividido ao meio recursivamente até ficar com no maximo chunkSize pedidos.
+*       Cada folha varre o seu pedaço (OrderItemScanner) e soma receita (price * quantity) e quantidade num SalesMap só dela.
+*       Na volta, cada tarefa junta o mapa das duas metades (o maior recebe o menor): nenhum mapa é compartilhado entre threads,
+*       entao nao há lock nem contenção durante a varredura.
+*
+*   O uso de memória nao depende da quantidade de itens: cada mapa parcial tem no maximo uma entrada por chave (ex: por produto),
+*       e os itens sao entregues um a um pelo scanner, sem lista intermediaria.
+*
+*   As chaves sao definidas pelo KeyMapper: um item pode contar para nenhuma, uma ou varias chaves
+*       (ex: top produtos = a propria chave do produto; receita por categoria = uma chave por categoria do produto).
+* */
+
+public class SalesAggregationTask extends RecursiveTask<SalesMap> {
+
+    private final OrderItemScanner scanner;
+    private final KeyMapper keyMapper;
+    private final long fromOrderId;
+    private final long toOrderId;
+    private final long chunkSize;
+    private final int expectedKeys;
+
+    public SalesAggregationTask(OrderItemScanner scanner, KeyMapper keyMapper, long fromOrderId, long toOrderId, long chunkSize,
+                                int expectedKeys) {
+        this.scanner = scanner;
+        this.keyMapper = keyMapper;
+        this.fromOrderId = fromOrderId;
+        this.toOrderId = toOrderId;
+        this.chunkSize = chunkSize;
+        this.expectedKeys = expectedKeys;
+    }
+
+    @Override
+    protected SalesMap compute() {
+        if (toOrderId - fromOrderId <= chunkSize)
+            return scanChunk();
+
+        long middle = fromOrderId + (toOrderId - fromOrderId) / 2;
+        SalesAggregationTask left = new SalesAggregationTask(scanner, keyMapper, fromOrderId, middle, chunkSize, expectedKeys);
+        SalesAggregationTask right = new SalesAggregationTask(scanner, keyMapper, middle, toOrderId, chunkSize, expectedKeys);
+        left.fork();
+        SalesMap rightResult = right.compute();
+        SalesMap leftResult = left.join();
+
+        if (leftResult.size() >= rightResult.size()) {
+            leftResult.mergeFrom(rightResult);
+            return leftResult;
+        }
+        rightResult.mergeFrom(leftResult);
+        return rightResult;
+    }
+
+    private SalesMap scanChunk() {
+        SalesMap partial = new SalesMap(expectedKeys);
+        //  Reaproveitados a cada item: o KeyMapper entrega as chaves num LongConsumer, sem criar objetos por item
+        double[] revenue = new double[1];
+        long[] quantity = new long[1];
+        LongConsumer sink = key -> partial.add(key, revenue[0], quantity[0]);
+
+        scanner.scan(fromOrderId, toOrderId, (moment, productId, price, qty) -> {
+            revenue[0] = price * qty;
+            quantity[0] = qty;
+            keyMapper.keys(moment, productId, sink);
+        });
+        return partial;
+    }
+
+    @FunctionalInterface
+    public interface KeyMapper {
+        void keys(long moment, long productId, LongConsumer sink);
+    }
+}
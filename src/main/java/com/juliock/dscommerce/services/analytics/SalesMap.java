@@ -0,0 +1,192 @@
+package com.juliock.dscommerce.services.analytics;
+
+import java.util.Arrays;
+
+/*
+*   Mapa long -> (receita, quantidade) em arrays primitivos, com endereçamento aberto (sondagem linear).
+*
+*   Um HashMap<Long, ...> criaria um Long e um objeto de valor por chave, e mais um Long a cada get/put com chave primitiva (boxing).
+*       Numa varredura de milhões de itens isso vira milhões de objetos temporarios. Aqui as chaves, receitas e quantidades ficam em
+*       long[] / double[] / long[] paralelos, e somar um item é só calcular a posição e incrementar dois valores.
+*
+*   A chave pode ser um id de produto ou qualquer long montado pelo chamador (ex: janela de tempo + id de categoria).
+*       O valor EMPTY (Long.MIN_VALUE) marca posições livres e nao pode ser usado como chave.
+*
+*   NÃO é thread-safe: cada tarefa da agregação paralela (SalesAggregationTask) tem o seu proprio mapa, e os mapas parciais
+*       sao combinados com mergeFrom() depois que as tarefas terminam, sem nenhuma disputa entre threads.
+* */
+
+public class SalesMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private double[] revenues;
+    private long[] quantities;
+    private int size;
+
+    public SalesMap() {
+        this(64);
+    }
+
+    public SalesMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2 - 1)) << 1;
+        allocate(capacity);
+    }
+
+    public void add(long key, double revenue, long quantity) {
+        int i = slot(key);
+        if (keys[i] == EMPTY) {
+            keys[i] = key;
+            if (++size * 2 > keys.length) {
+                revenues[i] += revenue;
+                quantities[i] += quantity;
+                grow();
+                return;
+            }
+        }
+        revenues[i] += revenue;
+        quantities[i] += quantity;
+    }
+
+    //  Soma todas as entradas de "other" neste mapa
+    public void mergeFrom(SalesMap other) {
+        for (int i = 0; i < other.keys.length; i++)
+            if (other.keys[i] != EMPTY)
+                add(other.keys[i], other.revenues[i], other.quantities[i]);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double revenue(long key) {
+        int i = slot(key);
+        return (keys[i] == EMPTY) ? 0.0 : revenues[i];
+    }
+
+    public long quantity(long key) {
+        int i = slot(key);
+        return (keys[i] == EMPTY) ? 0 : quantities[i];
+    }
+
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++)
+            if (keys[i] != EMPTY)
+                visitor.visit(keys[i], revenues[i], quantities[i]);
+    }
+
+    /*
+    *   As "limit" chaves de maior receita (empates pela menor chave), em ordem decrescente de receita.
+    *       Usa um heap de tamanho limit em arrays primitivos: O(n log limit), sem ordenar nem copiar o mapa inteiro.
+    * */
+    public long[] topByRevenue(int limit) {
+        int n = Math.min(limit, size);
+        long[] heapKeys = new long[n];
+        double[] heapRevenues = new double[n];
+        int count = 0;
+
+        for (int i = 0; i < keys.length && n > 0; i++) {
+            if (keys[i] == EMPTY)
+                continue;
+            if (count < n) {
+                heapKeys[count] = keys[i];
+                heapRevenues[count] = revenues[i];
+                siftUp(heapKeys, heapRevenues, count++);
+            } else if (better(revenues[i], keys[i], heapRevenues[0], heapKeys[0])) {
+                heapKeys[0] = keys[i];
+                heapRevenues[0] = revenues[i];
+                siftDown(heapKeys, heapRevenues, count);
+            }
+        }
+
+        //  O heap tem a PIOR chave na raiz: retirando a raiz repetidamente, o resultado sai do fim para o inicio
+        long[] result = new long[count];
+        for (int k = count - 1; k >= 0; k--) {
+            result[k] = heapKeys[0];
+            heapKeys[0] = heapKeys[k];
+            heapRevenues[0] = heapRevenues[k];
+            siftDown(heapKeys, heapRevenues, k);
+        }
+        return result;
+    }
+
+    private static boolean better(double revenueA, long keyA, double revenueB, long keyB) {
+        return revenueA > revenueB || (revenueA == revenueB && keyA < keyB);
+    }
+
+    private static void siftUp(long[] heapKeys, double[] heapRevenues, int i) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (!better(heapRevenues[parent], heapKeys[parent], heapRevenues[i], heapKeys[i]))
+                return;
+            swap(heapKeys, heapRevenues, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] heapKeys, double[] heapRevenues, int size) {
+        int i = 0;
+        while (true) {
+            int worst = i;
+            for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++)
+                if (better(heapRevenues[worst], heapKeys[worst], heapRevenues[child], heapKeys[child]))
+                    worst = child;
+            if (worst == i)
+                return;
+            swap(heapKeys, heapRevenues, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(long[] heapKeys, double[] heapRevenues, int a, int b) {
+        long key = heapKeys[a];
+        heapKeys[a] = heapKeys[b];
+        heapKeys[b] = key;
+        double revenue = heapRevenues[a];
+        heapRevenues[a] = heapRevenues[b];
+        heapRevenues[b] = revenue;
+    }
+
+    @FunctionalInterface
+    public interface Visitor {
+        void visit(long key, double revenue, long quantity);
+    }
+
+    //  Posição da chave, ou da primeira posição livre onde ela entraria
+    private int slot(long key) {
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key)
+            i = (i + 1) & mask;
+        return i;
+    }
+
+    //  Espalha os bits da chave (ids sequenciais cairiam em posições vizinhas e formariam longas sequencias de sondagem)
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        double[] oldRevenues = revenues;
+        long[] oldQuantities = quantities;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                revenues[j] = oldRevenues[i];
+                quantities[j] = oldQuantities[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        revenues = new double[capacity];
+        quantities = new long[capacity];
+    }
+}
@@ -0,0 +1,126 @@
+package com.juliock.dscommerce.services.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.juliock.dscommerce.services.exceptions.IdempotencyKeyInProgressException;
+import com.juliock.dscommerce.services.exceptions.InvalidOrderException;
+import com.juliock.dscommerce.services.exceptions.ServiceOverloadedException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/*
+*   Chaves de idempotencia (header Idempotency-Key) das escritas que nao podem ser repetidas, como o checkout (POST /orders).
+*
+*   A primeira request com uma chave executa a escrita e guarda o resultado (ex: o id do pedido criado). Uma nova tentativa com a
+*       mesma chave (ex: o cliente nao recebeu a resposta e reenviou) recebe esse resultado sem gravar de novo.
+*   Se a segunda tentativa chegar enquanto a primeira ainda está executando, ela ESPERA a primeira terminar (o CompletableFuture
+*       é registrado antes da escrita começar), entao duas requests simultaneas com a mesma chave nunca gravam duas vezes.
+*   A espera é limitada (dscommerce.idempotency.wait-timeout-ms): passando disso a repetição recebe 409 e pode tentar de novo depois,
+*       em vez de prender uma thread atras de uma escrita travada.
+*   Se a escrita falhar (qualquer Throwable, inclusive Error), a chave é liberada e quem esperava é acordado com a mesma falha:
+*       como nada foi gravado, uma nova tentativa pode executar de novo.
+*
+*   Cada chave guarda também uma "impressão digital" da request: a mesma chave com um pedido diferente é rejeitada (422).
+*
+*   O armazenamento é LIMITADO: no maximo dscommerce.idempotency.max-keys chaves (Caffeine descarta as menos usadas), e cada chave
+*       expira dscommerce.idempotency.ttl-seconds depois de gravada. Só o resultado pequeno fica guardado, nao a resposta inteira.
+* */
+
+@Component
+public class IdempotencyStore {
+
+    private final Cache<String, Entry> cache;
+    private final long waitTimeoutMillis;
+
+    public IdempotencyStore(@Value("${dscommerce.idempotency.max-keys:100000}") long maxKeys,
+                            @Value("${dscommerce.idempotency.ttl-seconds:86400}") long ttlSeconds,
+                            @Value("${dscommerce.idempotency.wait-timeout-ms:10000}") long waitTimeoutMillis) {
+        this.waitTimeoutMillis = waitTimeoutMillis;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Result<T> execute(String key, String fingerprint, Supplier<T> action) {
+        Entry entry = new Entry(fingerprint);
+        Entry existing = cache.asMap().putIfAbsent(key, entry);
+
+        if (existing != null) {
+            if (!existing.fingerprint.equals(fingerprint))
+                throw new InvalidOrderException("Idempotency-Key already used with a different request");
+            return new Result<>((T) await(existing.result, waitTimeoutMillis), true);
+        }
+
+        try {
+            T value = action.get();
+            entry.result.complete(value);
+            return new Result<>(value, false);
+        } catch (Throwable e) {
+            //  Throwable, e nao só RuntimeException: um Error deixaria o future aberto e as repetições esperando para sempre
+            cache.asMap().remove(key, entry);
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    //  Quem esperava pela primeira tentativa recebe a mesma exception dela
+    private static Object await(CompletableFuture<Object> result, long timeoutMillis) {
+        try {
+            return result.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IdempotencyKeyInProgressException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceOverloadedException("idempotency", 1);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause)
+                throw cause;
+            if (e.getCause() instanceof Error cause)
+                throw cause;
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static class Entry {
+
+        private final String fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    //  O valor e se ele veio de uma execução anterior com a mesma chave (replayed)
+    public static class Result<T> {
+
+        private final T value;
+        private final boolean replayed;
+
+        public Result(T value, boolean replayed) {
+            this.value = value;
+            this.replayed = replayed;
+        }
+
+        public T getValue() {
+            return value;
+        }
+
+        public boolean isReplayed() {
+            return replayed;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.juliock.dscommerce.services.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.juliock.dscommerce.dto.CacheStatsDTO;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.entities.Product;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/*
+*   Cache de leitura (read-through) de ProductDTO por id, usado pelo ProductService.findProductById.
+*
+*   A implementação é o Caffeine, que usa a politica de descarte W-TinyLFU (mantém os ids mais populares mesmo com rajadas de ids "frios").
+*       - O limite é por TAMANHO APROXIMADO EM BYTES (weigher), e nao por quantidade, pois a description pode ser bem grande;
+*       - get(id, loader) garante SINGLE-FLIGHT: se varias requests pedirem o mesmo id ausente ao mesmo tempo, só uma executa o loader
+*           (a consulta ao banco) e as outras esperam o resultado dela;
+*       - Se o loader retornar null (produto nao existe), nada é guardado no cache.
+*
+*   As estatisticas (acertos, falhas, tempo de carga e descartes) sao expostas por stats().
+*
+*   Com réplicas de leitura (ver config/ReadReplicaConfig), uma carga logo depois do evict() pode ler a versão antiga numa réplica
+*       atrasada e guardá-la de novo. Por isso o evict() é repetido depois de dscommerce.datasource.replicas.max-lag-ms (0 = sem réplicas).
+*       O mesmo vale para o cache de segundo nivel do Hibernate (ver config/SecondLevelCacheConfig): a carga na réplica atrasada
+*       pode guardar a entidade antiga na região "product" e as categorias antigas em "product-categories", entao a repetição
+*       também remove o produto dessas duas regiões.
+* */
+
+@Component
+public class ProductCache {
+
+    private final Cache<Long, ProductDTO> cache;
+    private final Executor afterReplicaLag;     //  null = sem réplicas
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ProductCache(EntityManagerFactory entityManagerFactory,
+                        @Value("${dscommerce.cache.product.max-bytes:67108864}") long maxBytes,
+                        @Value("${dscommerce.datasource.replicas.max-lag-ms:0}") long replicaLagMillis) {
+        this.entityManagerFactory = entityManagerFactory;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Long id, ProductDTO dto) -> weigh(dto))
+                .recordStats()
+                .build();
+        this.afterReplicaLag = (replicaLagMillis > 0)
+                ? CompletableFuture.delayedExecutor(replicaLagMillis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    public ProductDTO get(Long id, Function<Long, ProductDTO> loader) {
+        return cache.get(id, loader);
+    }
+
+    public void evict(Long id) {
+        cache.invalidate(id);
+        if (afterReplicaLag != null)
+            afterReplicaLag.execute(() -> {
+                cache.invalidate(id);
+                evictSecondLevel(id);
+            });
+    }
+
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private void evictSecondLevel(Long id) {
+        entityManagerFactory.getCache().evict(Product.class, id);
+        entityManagerFactory.getCache().unwrap(org.hibernate.Cache.class).evictCollectionData(Product.class.getName() + ".categories", id);
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats s = cache.stats();
+        return new CacheStatsDTO("product", cache.estimatedSize(), s.hitCount(), s.missCount(), s.hitRate(), s.missRate(),
+                s.loadSuccessCount() + s.loadFailureCount(), s.averageLoadPenalty(), s.evictionCount());
+    }
+
+    //  Estimativa do espaço ocupado: cabeçalhos dos objetos + 2 bytes por caractere das Strings
+    private static int weigh(ProductDTO dto) {
+        return 96 + 2 * (length(dto.getName()) + length(dto.getDescription()) + length(dto.getImgUrl()));
+    }
+
+    private static int length(String s) {
+        return (s == null) ? 0 : s.length();
+    }
+}
@@ -0,0 +1,167 @@
+package com.juliock.dscommerce.services.caches;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.juliock.dscommerce.dto.CacheStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/*
+*   Cache das RESPOSTAS JA SERIALIZADAS das listagens de produtos (GET /products e GET /products?view=summary).
+*
+*   A chave é a visão (full/summary) + o filtro de nome normalizado (maiúsculas, como o LIKE com UPPER) + page, size e sort.
+*       O valor sao os bytes do JSON (e opcionalmente a versão gzip), escritos direto na resposta: num acerto nao há consulta,
+*       COUNT, conversão para DTO nem serialização.
+*
+*   Limite por tamanho em bytes (weigher), descarte W-TinyLFU do Caffeine, e get() com single-flight como no ProductCache.
+*
+*   Invalidação: toda escrita de produtos no ProductService chama invalidate() com os nomes afetados (antigo e novo) depois do commit.
+*       Uma pagina é afetada se o produto casa com o filtro dela (o filtro está contido no nome), pois a posição dos produtos e o total
+*       da pagina podem mudar. A listagem sem filtro casa com qualquer produto.
+*       O filtro vai para o LIKE sem escape, entao '%' e '_' digitados pelo cliente funcionam como curingas: as paginas com esses
+*       caracteres no filtro sao removidas em TODA invalidação, pois o contains() nao diz se o produto casa com elas.
+*   Para que uma pagina montada com dados de ANTES de um commit nao fique no cache depois da invalidação,
+*       cada invalidação incrementa "generation": se ela mudou enquanto a pagina era montada, a pagina é entregue mas removida do cache.
+*   Com réplicas de leitura (ver config/ReadReplicaConfig), a pagina pode ser montada DEPOIS da invalidação, mas a partir de uma réplica
+*       que ainda nao recebeu o commit: a invalidação é repetida depois de dscommerce.datasource.replicas.max-lag-ms (0 = sem réplicas).
+* */
+
+@Component
+public class ProductPageCache {
+
+    private static final int GZIP_MIN_BYTES = 1024;     //  abaixo disso o gzip nao compensa
+
+    private final Cache<Key, CachedPage> cache;
+    private final boolean gzipEnabled;
+    private final AtomicLong generation = new AtomicLong();
+    private final Executor afterReplicaLag;     //  null = sem réplicas
+
+    public ProductPageCache(@Value("${dscommerce.cache.product-pages.max-bytes:16777216}") long maxBytes,
+                            @Value("${dscommerce.cache.product-pages.gzip:true}") boolean gzipEnabled,
+                            @Value("${dscommerce.datasource.replicas.max-lag-ms:0}") long replicaLagMillis) {
+        this.gzipEnabled = gzipEnabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, CachedPage page) -> page.weight())
+                .recordStats()
+                .build();
+        this.afterReplicaLag = (replicaLagMillis > 0)
+                ? CompletableFuture.delayedExecutor(replicaLagMillis, TimeUnit.MILLISECONDS) : null;
+    }
+
+    public CachedPage get(String view, String name, Pageable pageable, Supplier<byte[]> serializer) {
+        Key key = new Key(view, normalize(name), pageable);
+        long start = generation.get();
+        CachedPage page = cache.get(key, k -> new CachedPage(serializer.get(), gzipEnabled));
+
+        if (generation.get() != start)
+            cache.asMap().remove(key, page);
+        return page;
+    }
+
+    //  Remove as paginas cujo filtro casa com algum dos nomes (antigos ou novos) dos produtos gravados
+    public void invalidate(Collection<String> names) {
+        List<String> upperNames = names.stream().filter(Objects::nonNull).map(ProductPageCache::normalize).toList();
+        invalidateNormalized(upperNames);
+        if (afterReplicaLag != null)
+            afterReplicaLag.execute(() -> invalidateNormalized(upperNames));
+    }
+
+    public void clear() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    public CacheStatsDTO stats() {
+        CacheStats s = cache.stats();
+        return new CacheStatsDTO("productPages", cache.estimatedSize(), s.hitCount(), s.missCount(), s.hitRate(), s.missRate(),
+                s.loadSuccessCount() + s.loadFailureCount(), s.averageLoadPenalty(), s.evictionCount());
+    }
+
+    private void invalidateNormalized(List<String> upperNames) {
+        generation.incrementAndGet();
+        cache.asMap().keySet().removeIf(key -> key.wildcard || upperNames.stream().anyMatch(n -> n.contains(key.filter)));
+    }
+
+    private static String normalize(String name) {
+        return (name == null) ? "" : name.toUpperCase(Locale.ROOT);
+    }
+
+    public static final class CachedPage {
+        private final byte[] json;
+        private final byte[] gzip;  //  null se o gzip estiver desligado ou o JSON for pequeno
+
+        private CachedPage(byte[] json, boolean gzipEnabled) {
+            this.json = json;
+            this.gzip = (gzipEnabled && json.length >= GZIP_MIN_BYTES) ? gzip(json) : null;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public byte[] getGzip() {
+            return gzip;
+        }
+
+        private int weight() {
+            return 64 + json.length + ((gzip == null) ? 0 : gzip.length);
+        }
+
+        private static byte[] gzip(byte[] data) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+            try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+                gz.write(data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static final class Key {
+        private final String view;
+        private final String filter;
+        private final int page;
+        private final int size;
+        private final String sort;
+        private final boolean wildcard;     //  filtro com curinga do LIKE: invalidado por qualquer escrita
+
+        private Key(String view, String filter, Pageable pageable) {
+            this.view = view;
+            this.filter = filter;
+            this.wildcard = filter.indexOf('%') >= 0 || filter.indexOf('_') >= 0;
+            this.page = pageable.isPaged() ? pageable.getPageNumber() : -1;
+            this.size = pageable.isPaged() ? pageable.getPageSize() : -1;
+            this.sort = pageable.getSort().toString();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key k))
+                return false;
+            return page == k.page && size == k.size && view.equals(k.view) && filter.equals(k.filter) && sort.equals(k.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(view, filter, page, size, sort);
+        }
+    }
+}
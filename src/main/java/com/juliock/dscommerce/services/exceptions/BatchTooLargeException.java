@@ -0,0 +1,16 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Escrita em lote com mais itens do que o permitido (dscommerce.products.batch.max-items): Status Code 422
+* */
+
+public class BatchTooLargeException extends RuntimeException {
+    public BatchTooLargeException(int size, int maxItems) {
+        super("Batch has " + size + " items, the maximum is " + maxItems);
+    }
+
+    //  Recusado durante a leitura do corpo: o total de itens nao chega a ser conhecido
+    public BatchTooLargeException(int maxItems) {
+        super("Batch has more than " + maxItems + " items, the maximum is " + maxItems);
+    }
+}
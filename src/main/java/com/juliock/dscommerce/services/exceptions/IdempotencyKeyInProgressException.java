@@ -0,0 +1,11 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Outra request com a mesma Idempotency-Key ainda está executando (ver services/caches/IdempotencyStore): Status Code 409
+* */
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String message) {
+        super(message);
+    }
+}
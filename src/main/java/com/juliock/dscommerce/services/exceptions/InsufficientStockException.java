@@ -0,0 +1,19 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Estoque insuficiente para reservar a quantidade pedida de um produto: Status Code 409
+* */
+
+public class InsufficientStockException extends RuntimeException {
+
+    private final long productId;
+
+    public InsufficientStockException(long productId) {
+        super("Insufficient stock for product " + productId);
+        this.productId = productId;
+    }
+
+    public long getProductId() {
+        return productId;
+    }
+}
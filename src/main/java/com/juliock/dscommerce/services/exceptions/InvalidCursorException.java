@@ -0,0 +1,11 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Cursor de paginação mal formado ou com ordenação nao suportada: Status Code 400
+* */
+
+public class InvalidCursorException extends RuntimeException {
+    public InvalidCursorException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Pedido que nao pode ser processado (ex: produto sem preço, Idempotency-Key reutilizada com outro pedido): Status Code 422
+* */
+
+public class InvalidOrderException extends RuntimeException {
+    public InvalidOrderException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,11 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Intervalo de datas de relatorio invalido (ex: from depois de to, ou janelas demais): Status Code 400
+* */
+
+public class InvalidReportRangeException extends RuntimeException {
+    public InvalidReportRangeException(String message) {
+        super(message);
+    }
+}
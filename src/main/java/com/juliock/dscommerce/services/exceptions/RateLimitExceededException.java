@@ -0,0 +1,19 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Cliente passou do limite de requests da rota (ver services/limits/RateLimits): Status Code 429
+* */
+
+public class RateLimitExceededException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public RateLimitExceededException(String route, long retryAfterSeconds) {
+        super("Too Many Requests (" + route + ")");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
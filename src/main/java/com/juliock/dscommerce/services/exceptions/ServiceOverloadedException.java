@@ -0,0 +1,19 @@
+package com.juliock.dscommerce.services.exceptions;
+
+/*
+* Limite de requests simultâneas atingido e sem vaga na fila (ver services/limits/AdaptiveConcurrencyLimiter): Status Code 503
+* */
+
+public class ServiceOverloadedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String group, long retryAfterSeconds) {
+        super("Service Overloaded (" + group + ")");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
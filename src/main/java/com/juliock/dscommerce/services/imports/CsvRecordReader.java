@@ -0,0 +1,115 @@
+package com.juliock.dscommerce.services.imports;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+*   Leitor de CSV (RFC 4180) que devolve UM registro por vez, sem carregar o arquivo inteiro na memória.
+*
+*   Suporta campos entre aspas com virgulas, quebras de linha e aspas escapadas ("") dentro deles,
+*       o que é comum na description dos produtos.
+*
+*   Um registro mal formado nao interrompe a leitura: next() devolve o que conseguiu ler e getError() diz o problema,
+*       para quem chama rejeitar só esse registro (ex: aspas sem fechamento, que consomem o resto do arquivo).
+* */
+
+public class CsvRecordReader {
+
+    private final Reader reader;
+    private int pushedBack = -2;    //  -2 = nenhum caractere devolvido
+    private long line = 1;
+    private long recordLine = 1;    //  linha do arquivo onde o ultimo registro lido começou (para as mensagens de erro)
+    private String error;           //  problema do ultimo registro lido, ou null se ele estiver bem formado
+
+    public CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    public long getRecordLine() {
+        return recordLine;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    //  Retorna os campos do proximo registro, ou null no fim do arquivo. Linhas em branco sao ignoradas.
+    public List<String> next() throws IOException {
+        int c;
+        do {
+            c = read();
+            if (c == '\r') {
+                int n = read();
+                if (n != '\n')
+                    unread(n);
+                c = '\n';
+            }
+        } while (c == '\n');
+
+        if (c == -1)
+            return null;
+        unread(c);
+        recordLine = line;
+        error = null;
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            c = read();
+            if (quoted) {
+                if (c == -1) {
+                    error = "Unterminated quoted field";
+                    fields.add(field.toString());
+                    return fields;
+                }
+                if (c == '"') {
+                    int n = read();
+                    if (n == '"')
+                        field.append('"');
+                    else {
+                        quoted = false;
+                        unread(n);
+                    }
+                } else
+                    field.append((char) c);
+            } else if (c == '"' && field.isEmpty())
+                quoted = true;
+            else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\r' || c == '\n' || c == -1) {
+                if (c == '\r') {
+                    int n = read();
+                    if (n != '\n')
+                        unread(n);
+                }
+                fields.add(field.toString());
+                return fields;
+            } else
+                field.append((char) c);
+        }
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pushedBack != -2) {
+            c = pushedBack;
+            pushedBack = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n')
+            line++;
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c == '\n')
+            line--;
+        pushedBack = c;
+    }
+}
@@ -0,0 +1,113 @@
+package com.juliock.dscommerce.services.imports;
+
+import com.juliock.dscommerce.dto.ProductBatchErrorDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+*   Progresso de uma importação em massa (POST /products/import), atualizado pelas threads do pipeline enquanto ela roda.
+*
+*   Os contadores usam AtomicLong e a lista de erros é protegida pelo lock do objeto. Para manter a memória limitada mesmo com
+*       milhões de linhas ruins, só os primeiros MAX_ERRORS erros sao guardados (o total de falhas continua sendo contado em rowsFailed).
+*   Para fora do service sai sempre uma copia imutavel (ProductImportReportDTO), nunca este objeto.
+* */
+
+public class ImportProgress {
+
+    private static final int MAX_ERRORS = 1000;
+
+    private final String id;
+    private final String format;
+    private final int batchSize;
+    private final int parallelism;
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    private volatile String status = "RUNNING";
+
+    private final AtomicLong rowsRead = new AtomicLong();
+    private final AtomicLong rowsImported = new AtomicLong();
+    private final AtomicLong rowsFailed = new AtomicLong();
+    private final List<ProductBatchErrorDTO> errors = new ArrayList<>();
+
+    public ImportProgress(String id, String format, int batchSize, int parallelism) {
+        this.id = id;
+        this.format = format;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFormat() {
+        return format;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getRowsRead() {
+        return rowsRead.get();
+    }
+
+    public long getRowsImported() {
+        return rowsImported.get();
+    }
+
+    public long getRowsFailed() {
+        return rowsFailed.get();
+    }
+
+    public double getRowsPerSecond() {
+        Instant end = (finishedAt == null) ? Instant.now() : finishedAt;
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return (rowsImported.get() + rowsFailed.get()) * 1000.0 / millis;
+    }
+
+    public synchronized List<ProductBatchErrorDTO> getErrors() {
+        return List.copyOf(errors);
+    }
+
+    public void rowRead() {
+        rowsRead.incrementAndGet();
+    }
+
+    public void rowsImported(int count) {
+        rowsImported.addAndGet(count);
+    }
+
+    public void rowFailed(ProductBatchErrorDTO error) {
+        rowsFailed.incrementAndGet();
+        synchronized (this) {
+            if (errors.size() < MAX_ERRORS)
+                errors.add(error);
+        }
+    }
+
+    public void finish(String status) {
+        this.finishedAt = Instant.now();
+        this.status = status;
+    }
+}
@@ -0,0 +1,425 @@
+package com.juliock.dscommerce.services.indexes;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/*
+*   Conjunto de ids (long >= 0) em forma de bitmap COMPRIMIDO, no estilo do Roaring Bitmap.
+*
+*   Os ids sao agrupados pelos 16 bits mais altos (chave). Cada grupo de até 65.536 ids consecutivos fica num "container":
+*       - ArrayContainer: até 4.096 ids, guardados como um char[] ordenado (2 bytes por id). Bom para grupos esparsos;
+*       - BitmapContainer: mais de 4.096 ids, guardados num long[1024] (8 KB fixos, 1 bit por id possivel). Bom para grupos densos.
+*   O tipo do container muda sozinho conforme a quantidade de ids do grupo cresce ou diminui.
+*
+*   Assim uma categoria com poucos produtos ocupa poucos bytes, e uma categoria com quase todos os produtos ocupa ~1 bit por produto.
+*       AND, OR e a contagem da intersecao (andCardinality) sao feitos container a container, sem olhar id por id nos bitmaps densos.
+*
+*   NÃO é thread-safe: quem usa (ProductCategoryIndex) protege o acesso com um lock.
+* */
+
+public class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final long MAX_VALUE = (1L << 47) - 1;   //  a chave (value >>> 16) precisa caber num int positivo
+
+    private int[] keys = new int[4];
+    private Container[] containers = new Container[4];
+    private int size;   //  quantidade de containers em uso
+
+    public static CompressedBitmap of(Iterable<Long> values) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (Long v : values)
+            bitmap.add(v);
+        return bitmap;
+    }
+
+    public void add(long value) {
+        checkRange(value);
+        int key = (int) (value >>> 16);
+        int i = indexOfKey(key);
+        if (i < 0) {
+            i = -i - 1;
+            insertContainer(i, key, new ArrayContainer());
+        }
+        containers[i] = containers[i].add((char) value);
+    }
+
+    public void remove(long value) {
+        if (value < 0 || value > MAX_VALUE)
+            return;
+        int i = indexOfKey((int) (value >>> 16));
+        if (i < 0)
+            return;
+        containers[i] = containers[i].remove((char) value);
+        if (containers[i].cardinality() == 0)
+            removeContainer(i);
+    }
+
+    public boolean contains(long value) {
+        if (value < 0 || value > MAX_VALUE)
+            return false;
+        int i = indexOfKey((int) (value >>> 16));
+        return i >= 0 && containers[i].contains((char) value);
+    }
+
+    public long cardinality() {
+        long total = 0;
+        for (int i = 0; i < size; i++)
+            total += containers[i].cardinality();
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public CompressedBitmap and(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j])
+                i++;
+            else if (keys[i] > other.keys[j])
+                j++;
+            else {
+                Container c = containers[i].and(other.containers[j]);
+                if (c.cardinality() > 0)
+                    result.appendContainer(keys[i], c);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    public CompressedBitmap or(CompressedBitmap other) {
+        CompressedBitmap result = new CompressedBitmap();
+        int i = 0, j = 0;
+        while (i < size || j < other.size) {
+            if (j >= other.size || (i < size && keys[i] < other.keys[j]))
+                result.appendContainer(keys[i], containers[i++].copy());
+            else if (i >= size || keys[i] > other.keys[j])
+                result.appendContainer(other.keys[j], other.containers[j++].copy());
+            else
+                result.appendContainer(keys[i], containers[i++].or(other.containers[j++]));
+        }
+        return result;
+    }
+
+    //  Tamanho da intersecao sem montar o bitmap resultante (usado nas contagens por categoria)
+    public long andCardinality(CompressedBitmap other) {
+        long total = 0;
+        int i = 0, j = 0;
+        while (i < size && j < other.size) {
+            if (keys[i] < other.keys[j])
+                i++;
+            else if (keys[i] > other.keys[j])
+                j++;
+            else
+                total += containers[i++].andCardinality(other.containers[j++]);
+        }
+        return total;
+    }
+
+    //  Percorre os ids em ordem crescente
+    public void forEach(LongConsumer consumer) {
+        for (int i = 0; i < size; i++)
+            containers[i].forEach((long) keys[i] << 16, consumer);
+    }
+
+    public CompressedBitmap copy() {
+        CompressedBitmap result = new CompressedBitmap();
+        for (int i = 0; i < size; i++)
+            result.appendContainer(keys[i], containers[i].copy());
+        return result;
+    }
+
+    private static void checkRange(long value) {
+        if (value < 0 || value > MAX_VALUE)
+            throw new IllegalArgumentException("Value out of range: " + value);
+    }
+
+    private int indexOfKey(int key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertContainer(int index, int key, Container container) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            containers = Arrays.copyOf(containers, size * 2);
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(containers, index, containers, index + 1, size - index);
+        keys[index] = key;
+        containers[index] = container;
+        size++;
+    }
+
+    private void appendContainer(int key, Container container) {
+        insertContainer(size, key, container);
+    }
+
+    private void removeContainer(int index) {
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(containers, index + 1, containers, index, size - index - 1);
+        containers[--size] = null;
+    }
+
+    private abstract static class Container {
+        abstract Container add(char value);
+        abstract Container remove(char value);
+        abstract boolean contains(char value);
+        abstract int cardinality();
+        abstract Container and(Container other);
+        abstract Container or(Container other);
+        abstract int andCardinality(Container other);
+        abstract void forEach(long high, LongConsumer consumer);
+        abstract Container copy();
+    }
+
+    private static final class ArrayContainer extends Container {
+        private char[] values;
+        private int cardinality;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int cardinality) {
+            this.values = values;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0)
+                return this;
+            if (cardinality == ARRAY_MAX)
+                return toBitmap().add(value);
+
+            i = -i - 1;
+            if (cardinality == values.length)
+                values = Arrays.copyOf(values, Math.min(ARRAY_MAX, Math.max(4, cardinality * 2)));
+            System.arraycopy(values, i, values, i + 1, cardinality - i);
+            values[i] = value;
+            cardinality++;
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            int i = Arrays.binarySearch(values, 0, cardinality, value);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, cardinality - i - 1);
+                cardinality--;
+            }
+            return this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            char[] result = new char[cardinality];
+            int n = 0;
+            if (other instanceof ArrayContainer a) {
+                int i = 0, j = 0;
+                while (i < cardinality && j < a.cardinality) {
+                    if (values[i] < a.values[j])
+                        i++;
+                    else if (values[i] > a.values[j])
+                        j++;
+                    else {
+                        result[n++] = values[i++];
+                        j++;
+                    }
+                }
+            } else {
+                for (int i = 0; i < cardinality; i++)
+                    if (other.contains(values[i]))
+                        result[n++] = values[i];
+            }
+            return new ArrayContainer(result, n);
+        }
+
+        @Override
+        Container or(Container other) {
+            if (other instanceof BitmapContainer b)
+                return b.or(this);
+
+            ArrayContainer a = (ArrayContainer) other;
+            char[] merged = new char[cardinality + a.cardinality];
+            int i = 0, j = 0, n = 0;
+            while (i < cardinality || j < a.cardinality) {
+                if (j >= a.cardinality || (i < cardinality && values[i] < a.values[j]))
+                    merged[n++] = values[i++];
+                else if (i >= cardinality || values[i] > a.values[j])
+                    merged[n++] = a.values[j++];
+                else {
+                    merged[n++] = values[i++];
+                    j++;
+                }
+            }
+            ArrayContainer result = new ArrayContainer(merged, n);
+            return (n > ARRAY_MAX) ? result.toBitmap() : result;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            int n = 0;
+            for (int i = 0; i < cardinality; i++)
+                if (other.contains(values[i]))
+                    n++;
+            return n;
+        }
+
+        @Override
+        void forEach(long high, LongConsumer consumer) {
+            for (int i = 0; i < cardinality; i++)
+                consumer.accept(high | values[i]);
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(cardinality, 1)), cardinality);
+        }
+
+        private BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < cardinality; i++)
+                bitmap.add(values[i]);
+            return bitmap;
+        }
+    }
+
+    private static final class BitmapContainer extends Container {
+        private final long[] words;
+        private int cardinality;
+
+        BitmapContainer() {
+            this(new long[1024], 0);
+        }
+
+        BitmapContainer(long[] words, int cardinality) {
+            this.words = words;
+            this.cardinality = cardinality;
+        }
+
+        @Override
+        Container add(char value) {
+            long before = words[value >>> 6];
+            long after = before | (1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char value) {
+            long before = words[value >>> 6];
+            long after = before & ~(1L << value);
+            if (before != after) {
+                words[value >>> 6] = after;
+                cardinality--;
+            }
+            return (cardinality <= ARRAY_MAX) ? toArray() : this;
+        }
+
+        @Override
+        boolean contains(char value) {
+            return (words[value >>> 6] & (1L << value)) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        Container and(Container other) {
+            if (other instanceof ArrayContainer a)
+                return a.and(this);
+
+            BitmapContainer b = (BitmapContainer) other;
+            long[] result = new long[1024];
+            int n = 0;
+            for (int i = 0; i < 1024; i++) {
+                result[i] = words[i] & b.words[i];
+                n += Long.bitCount(result[i]);
+            }
+            BitmapContainer c = new BitmapContainer(result, n);
+            return (n <= ARRAY_MAX) ? c.toArray() : c;
+        }
+
+        @Override
+        Container or(Container other) {
+            BitmapContainer result = (BitmapContainer) copy();
+            if (other instanceof ArrayContainer a) {
+                for (int i = 0; i < a.cardinality; i++)
+                    result.add(a.values[i]);
+                return result;
+            }
+
+            BitmapContainer b = (BitmapContainer) other;
+            int n = 0;
+            for (int i = 0; i < 1024; i++) {
+                result.words[i] |= b.words[i];
+                n += Long.bitCount(result.words[i]);
+            }
+            result.cardinality = n;
+            return result;
+        }
+
+        @Override
+        int andCardinality(Container other) {
+            if (other instanceof ArrayContainer a)
+                return a.andCardinality(this);
+
+            BitmapContainer b = (BitmapContainer) other;
+            int n = 0;
+            for (int i = 0; i < 1024; i++)
+                n += Long.bitCount(words[i] & b.words[i]);
+            return n;
+        }
+
+        @Override
+        void forEach(long high, LongConsumer consumer) {
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    consumer.accept(high | ((long) i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        @Override
+        Container copy() {
+            return new BitmapContainer(words.clone(), cardinality);
+        }
+
+        private ArrayContainer toArray() {
+            char[] values = new char[Math.max(cardinality, 1)];
+            int n = 0;
+            for (int i = 0; i < 1024; i++) {
+                long word = words[i];
+                while (word != 0) {
+                    values[n++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            return new ArrayContainer(values, n);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.juliock.dscommerce.services.indexes;
+
+import com.juliock.dscommerce.dto.CategoryFacetDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+*   Indice em memória categoria -> produtos, com um CompressedBitmap de ids de produto por categoria.
+*
+*   Serve para duas coisas na listagem de produtos (GET /products?categoryId=...):
+*       - filtrar por uma ou mais categorias: OR (produto em qualquer uma) ou AND (produto em todas), feito com operações de bitmap;
+*       - contar quantos produtos do resultado atual existem em cada categoria (facets), com andCardinality, sem JOIN + GROUP BY
+*           na tb_product_category a cada request.
+*
+*   Carregado a partir da tb_product_category quando a aplicação sobe (ProductService.loadIndexes) e mantido incrementalmente
+*       depois do commit de cada escrita de produtos. Como há poucas categorias, remover um produto é só tirar o id de cada bitmap.
+* */
+
+@Component
+public class ProductCategoryIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, CompressedBitmap> productsByCategory = new TreeMap<>();
+    private final Map<Long, String> categoryNames = new TreeMap<>();
+
+    private volatile boolean ready = false;
+
+    public void putCategory(Long categoryId, String name) {
+        lock.writeLock().lock();
+        try {
+            categoryNames.put(categoryId, name);
+            productsByCategory.computeIfAbsent(categoryId, k -> new CompressedBitmap());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //  Usado na carga inicial, linha a linha da tb_product_category
+    public void add(Long productId, Long categoryId) {
+        lock.writeLock().lock();
+        try {
+            productsByCategory.computeIfAbsent(categoryId, k -> new CompressedBitmap()).add(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //  Define as categorias do produto (substitui as anteriores)
+    public void putProduct(Long productId, Collection<Long> categoryIds) {
+        lock.writeLock().lock();
+        try {
+            for (CompressedBitmap products : productsByCategory.values())
+                products.remove(productId);
+            for (Long categoryId : categoryIds)
+                productsByCategory.computeIfAbsent(categoryId, k -> new CompressedBitmap()).add(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeProduct(Long productId) {
+        lock.writeLock().lock();
+        try {
+            for (CompressedBitmap products : productsByCategory.values())
+                products.remove(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /*
+    *   Produtos que estao em QUALQUER uma das categorias (matchAll = false) ou em TODAS elas (matchAll = true).
+    *       Retorna um bitmap novo (o chamador pode usar sem lock). Retorna null se o indice ainda nao foi carregado.
+    * */
+    public CompressedBitmap filter(Collection<Long> categoryIds, boolean matchAll) {
+        if (!ready)
+            return null;
+
+        lock.readLock().lock();
+        try {
+            CompressedBitmap result = null;
+            for (Long categoryId : categoryIds) {
+                CompressedBitmap products = productsByCategory.getOrDefault(categoryId, new CompressedBitmap());
+                if (result == null)
+                    result = products.copy();
+                else
+                    result = matchAll ? result.and(products) : result.or(products);
+            }
+            return (result == null) ? new CompressedBitmap() : result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /*
+    *   Quantos produtos de "products" (o resultado completo da busca, nao só a pagina) estao em cada categoria.
+    *       Categorias sem nenhum produto no resultado ficam de fora. Ordenado pelo id da categoria.
+    * */
+    public List<CategoryFacetDTO> facets(CompressedBitmap products) {
+        lock.readLock().lock();
+        try {
+            List<CategoryFacetDTO> facets = new ArrayList<>();
+            for (Map.Entry<Long, CompressedBitmap> e : productsByCategory.entrySet()) {
+                long count = e.getValue().andCardinality(products);
+                if (count > 0)
+                    facets.add(new CategoryFacetDTO(e.getKey(), categoryNames.get(e.getKey()), count));
+            }
+            return facets;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            productsByCategory.clear();
+            categoryNames.clear();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+}
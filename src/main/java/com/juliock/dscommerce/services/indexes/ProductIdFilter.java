@@ -0,0 +1,167 @@
+package com.juliock.dscommerce.services.indexes;
+
+import com.juliock.dscommerce.dto.ProductIdFilterStatsDTO;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/*
+*   Filtro de Bloom com os ids dos produtos existentes.
+*
+*   Um filtro de Bloom responde "com certeza NÃO existe" ou "TALVEZ exista":
+*       - Se mightContain(id) retorna false, o produto com certeza nao existe e o ProductService lança ResourceNotFoundException
+*           sem ir ao banco (crawlers e links antigos geram muitos 404);
+*       - Se retorna true, o banco é consultado normalmente. Quando o banco também nao encontra, temos um FALSO POSITIVO.
+*
+*   O filtro nao suporta remoção: ids deletados continuam "talvez existindo" até a proxima reconstrução (rebuild),
+*       feita periodicamente pelo ProductService a partir da tb_product.
+*
+*   Os bits ficam num AtomicLongArray, entao add() e mightContain() podem ser chamados por varias threads sem lock.
+* */
+
+@Component
+public class ProductIdFilter {
+
+    private static final double TARGET_FPP = 0.01;             //  taxa de falsos positivos desejada (1%)
+    private static final long MIN_EXPECTED_INSERTIONS = 1 << 16;
+
+    private volatile Bits current;      //  null = ainda nao carregado (responde "talvez" para tudo)
+    private volatile Bits building;     //  filtro em reconstrução, recebe os inserts que acontecerem durante o rebuild
+
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private volatile long lastRebuildMillis;
+
+    public boolean mightContain(long id) {
+        Bits bits = current;
+        if (bits == null)
+            return true;
+
+        lookups.increment();
+        boolean result = bits.mightContain(id);
+        if (!result)
+            rejected.increment();
+        return result;
+    }
+
+    /*
+    *   O building é lido ANTES do current: se o rebuild terminar entre as duas leituras, o current lido depois ja é o filtro novo.
+    *       (Na ordem inversa, o id podia ir só para o filtro antigo, que o rebuild acabou de descartar.)
+    * */
+    public void add(long id) {
+        Bits next = building;
+        if (next != null)
+            next.add(id);
+
+        Bits bits = current;
+        if (bits != null)
+            bits.add(id);
+    }
+
+    //  Chamado quando o filtro disse "talvez" mas o banco nao encontrou o id
+    public void recordFalsePositive() {
+        falsePositives.increment();
+    }
+
+    /*
+    *   Reconstrói o filtro. O loader recebe um Consumer que deve ser chamado com cada id existente.
+    *       O filtro atual continua respondendo durante a reconstrução, e é trocado pelo novo no final.
+    *   O loader lê só o que ja foi confirmado no banco: um id adicionado por uma transação ainda aberta pode ficar fora do filtro novo.
+    *       Por isso quem insere chama add() de novo depois do commit (ver ProductService).
+    * */
+    public synchronized void rebuild(long expectedInsertions, Consumer<Consumer<Long>> loader) {
+        long start = System.currentTimeMillis();
+        Bits next = new Bits(Math.max(2 * expectedInsertions, MIN_EXPECTED_INSERTIONS), TARGET_FPP);
+        building = next;
+        try {
+            loader.accept(next::add);
+            current = next;
+        } finally {
+            building = null;
+        }
+
+        lookups.reset();
+        rejected.reset();
+        falsePositives.reset();
+        lastRebuildMillis = System.currentTimeMillis() - start;
+    }
+
+    public boolean isReady() {
+        return current != null;
+    }
+
+    public ProductIdFilterStatsDTO stats() {
+        Bits bits = current;
+        long maybe = lookups.sum() - rejected.sum();
+        double observedFpp = (maybe == 0) ? 0.0 : (double) falsePositives.sum() / maybe;
+
+        return new ProductIdFilterStatsDTO(bits != null, (bits == null) ? 0 : bits.bitSize, (bits == null) ? 0 : bits.hashes,
+                lookups.sum(), rejected.sum(), falsePositives.sum(), observedFpp,
+                (bits == null) ? 0.0 : bits.expectedFpp(), lastRebuildMillis);
+    }
+
+    private static final class Bits {
+        private final AtomicLongArray words;
+        private final long bitSize;
+        private final int hashes;
+
+        Bits(long expectedInsertions, double fpp) {
+            //  m = -n * ln(p) / (ln 2)^2   e   k = m / n * ln 2
+            long m = (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray((int) ((m + 63) / 64));
+            this.bitSize = (long) words.length() * 64;
+            this.hashes = Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+        }
+
+        void add(long id) {
+            long h = mix(id);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(h1 + i * h2);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = words.get(word);
+                    if ((old & mask) != 0)
+                        break;
+                } while (!words.compareAndSet(word, old, old | mask));
+            }
+        }
+
+        boolean mightContain(long id) {
+            long h = mix(id);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 1; i <= hashes; i++) {
+                long bit = index(h1 + i * h2);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        //  Estimativa da taxa de falsos positivos a partir da fração de bits ligados: (bits ligados / total) ^ k
+        double expectedFpp() {
+            long set = 0;
+            for (int i = 0; i < words.length(); i++)
+                set += Long.bitCount(words.get(i));
+            return Math.pow((double) set / bitSize, hashes);
+        }
+
+        private long index(int combined) {
+            return (combined & Integer.MAX_VALUE) % bitSize;
+        }
+
+        //  Finalizador do SplitMix64: espalha bem os bits de ids sequenciais
+        private static long mix(long z) {
+            z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+            z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+            return z ^ (z >>> 31);
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package com.juliock.dscommerce.services.indexes;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+*   Indice invertido de TRIGRAMAS sobre o nome dos produtos.
+*
+*   A consulta ProductRepository.searchByName usa UPPER(obj.name) LIKE UPPER(CONCAT('%', :name, '%')). Um LIKE com '%' no inicio
+*       nao pode ser atendido por nenhum indice do banco, entao cada busca varre a tabela tb_product inteira.
+*
+*   A ideia aqui é quebrar cada nome (em maiusculas) em todas as suas sequencias de 3 caracteres (trigramas):
+*       "SMART TV" -> "SMA", "MAR", "ART", "RT ", "T T", " TV"
+*   e guardar, para cada trigrama, a lista ORDENADA de ids dos produtos que o contem (posting list).
+*
+*   Para buscar um termo com 3 ou mais caracteres, basta intersectar as posting lists dos trigramas do termo e depois confirmar
+*       com um contains() no nome (a intersecao garante que todos os trigramas existem, mas nao que estejam na sequencia certa).
+*   Termos com 1 ou 2 caracteres nao formam trigramas, entao são resolvidos varrendo os nomes em memória (ainda bem mais barato que o banco).
+*
+*   O indice é mantido incrementalmente pelo ProductService a cada insert/update/delete.
+* */
+
+@Component
+public class ProductNameIndex {
+
+    private static final int GRAM = 3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Postings> postings = new HashMap<>();   //  trigrama (3 chars empacotados num long) -> ids ordenados
+    private final TreeMap<Long, String> names = new TreeMap<>();    //  id -> nome original (ordenado por id, que é a ordem natural da varredura da tabela)
+
+    private volatile boolean ready = false;
+
+    /*
+    *   Retorna os ids dos produtos cujo nome contem o termo (mesma semantica do LIKE da searchByName), ja ordenados de acordo com o Sort.
+    *       Retorna null quando o indice nao consegue responder exatamente como o banco:
+    *           - indice ainda nao carregado;
+    *           - termo vazio (nao há o que filtrar, a consulta normal é mais eficiente);
+    *           - termo contendo '%', '_' ou '\', que no LIKE sao curingas/escape;
+    *           - termo com caracteres fora do ASCII: a conversão para maiusculas desses caracteres (acentos, 'ß' -> "SS")
+    *               depende das regras de cada lado, e o UPPER do banco nao tem garantia de ser igual ao toUpperCase do Java;
+    *           - ordenação por algum campo que o indice nao conhece (apenas id e name são suportados).
+    * */
+    public List<Long> search(String term, Sort sort) {
+        if (term == null || term.isEmpty())
+            return null;
+        return searchWithin(term, sort, null);
+    }
+
+    /*
+    *   Como o search(), mas só entre os produtos de "within" (ex: o filtro de categorias do ProductCategoryIndex; null = todos),
+    *       e aceitando termo vazio (todos os produtos de "within"). Retorna null nos mesmos casos do search(), exceto o termo vazio.
+    * */
+    public List<Long> searchWithin(String term, Sort sort, CompressedBitmap within) {
+        if (!ready || term == null || hasLikeWildcards(term) || !isAscii(term))
+            return null;
+
+        Comparator<Map.Entry<Long, String>> comparator = comparatorFor(sort);
+        if (comparator == null)
+            return null;
+
+        String upperTerm = normalize(term);
+
+        lock.readLock().lock();
+        try {
+            List<Map.Entry<Long, String>> matches;
+            if (within != null && upperTerm.length() < GRAM) {
+                //  Sem trigramas para consultar: varrer só os produtos de "within" é mais barato que varrer todos os nomes
+                List<Map.Entry<Long, String>> found = new ArrayList<>();
+                within.forEach(id -> {
+                    String name = names.get(id);
+                    if (name != null && normalize(name).contains(upperTerm))
+                        found.add(Map.entry(id, name));
+                });
+                matches = found;
+            } else {
+                matches = (upperTerm.length() < GRAM) ? scan(upperTerm) : lookup(upperTerm);
+                if (within != null)
+                    matches.removeIf(e -> !within.contains(e.getKey()));
+            }
+
+            if (!sort.isUnsorted())
+                matches.sort(comparator);
+
+            List<Long> ids = new ArrayList<>(matches.size());
+            for (Map.Entry<Long, String> e : matches)
+                ids.add(e.getKey());
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    //  Insere ou atualiza (se o id ja existir, os trigramas do nome antigo sao removidos antes)
+    public void put(Long id, String name) {
+        lock.writeLock().lock();
+        try {
+            String old = names.put(id, name);
+            if (old != null)
+                for (long gram : grams(normalize(old)))
+                    removePosting(gram, id);
+
+            for (long gram : grams(normalize(name)))
+                postings.computeIfAbsent(gram, k -> new Postings()).add(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            String old = names.remove(id);
+            if (old != null)
+                for (long gram : grams(normalize(old)))
+                    removePosting(gram, id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            names.clear();
+            ready = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    //  Chamado depois da carga inicial: a partir daqui o indice passa a responder as buscas
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return names.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Map.Entry<Long, String>> scan(String upperTerm) {
+        List<Map.Entry<Long, String>> result = new ArrayList<>();
+        for (Map.Entry<Long, String> e : names.entrySet())
+            if (normalize(e.getValue()).contains(upperTerm))
+                result.add(e);
+        return result;
+    }
+
+    private List<Map.Entry<Long, String>> lookup(String upperTerm) {
+        long[] termGrams = grams(upperTerm);
+        Postings[] lists = new Postings[termGrams.length];
+
+        for (int i = 0; i < termGrams.length; i++) {
+            lists[i] = postings.get(termGrams[i]);
+            if (lists[i] == null)
+                return new ArrayList<>();   //  algum trigrama do termo nao existe em nenhum nome
+        }
+
+        //  A intersecao começa pela menor posting list, e cada candidato é testado nas demais por busca binária
+        Arrays.sort(lists, Comparator.comparingInt(p -> p.size));
+        Postings smallest = lists[0];
+
+        List<Map.Entry<Long, String>> result = new ArrayList<>();
+        candidates:
+        for (int i = 0; i < smallest.size; i++) {
+            long id = smallest.ids[i];
+            for (int j = 1; j < lists.length; j++)
+                if (!lists[j].contains(id))
+                    continue candidates;
+
+            String name = names.get(id);
+            if (name != null && normalize(name).contains(upperTerm))
+                result.add(Map.entry(id, name));
+        }
+        return result;
+    }
+
+    private void removePosting(long gram, long id) {
+        Postings p = postings.get(gram);
+        if (p != null) {
+            p.remove(id);
+            if (p.size == 0)
+                postings.remove(gram);
+        }
+    }
+
+    /*
+    *   Sem ordenação, o resultado sai em ordem de id (mesma ordem da varredura da tabela pelo banco).
+    *       Ordenação por "name" compara as Strings originais, como o ORDER BY do banco.
+    * */
+    private static Comparator<Map.Entry<Long, String>> comparatorFor(Sort sort) {
+        Comparator<Map.Entry<Long, String>> comparator = null;
+
+        for (Sort.Order order : sort) {
+            Comparator<Map.Entry<Long, String>> c;
+            switch (order.getProperty()) {
+                case "id" -> c = Map.Entry.comparingByKey();
+                case "name" -> c = Map.Entry.comparingByValue(Comparator.nullsFirst(Comparator.naturalOrder()));
+                default -> {
+                    return null;
+                }
+            }
+            if (order.isDescending())
+                c = c.reversed();
+            comparator = (comparator == null) ? c : comparator.thenComparing(c);
+        }
+
+        return (comparator == null) ? Map.Entry.comparingByKey() : comparator;
+    }
+
+    private static boolean hasLikeWildcards(String term) {
+        return term.indexOf('%') >= 0 || term.indexOf('_') >= 0 || term.indexOf('\\') >= 0;
+    }
+
+    private static boolean isAscii(String term) {
+        for (int i = 0; i < term.length(); i++)
+            if (term.charAt(i) > 0x7F)
+                return false;
+        return true;
+    }
+
+    private static String normalize(String s) {
+        return (s == null) ? "" : s.toUpperCase(Locale.ROOT);
+    }
+
+    //  Cada trigrama é empacotado num long (3 chars de 16 bits), evitando criar uma String por trigrama
+    private static long[] grams(String upper) {
+        if (upper.length() < GRAM)
+            return new long[0];
+
+        long[] result = new long[upper.length() - GRAM + 1];
+        for (int i = 0; i < result.length; i++)
+            result[i] = ((long) upper.charAt(i) << 32) | ((long) upper.charAt(i + 1) << 16) | upper.charAt(i + 2);
+
+        return Arrays.stream(result).distinct().toArray();
+    }
+
+    /*
+    *   Posting list: array primitivo de ids mantido em ordem crescente.
+    *       Como os ids novos sao sempre maiores que os existentes, a inserção normalmente é um simples append.
+    * */
+    private static final class Postings {
+        private long[] ids = new long[4];
+        private int size = 0;
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void add(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0)
+                return;
+            pos = -pos - 1;
+            if (size == ids.length)
+                ids = Arrays.copyOf(ids, size * 2);
+            System.arraycopy(ids, pos, ids, pos + 1, size - pos);
+            ids[pos] = id;
+            size++;
+        }
+
+        void remove(long id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0)
+                return;
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+        }
+    }
+}
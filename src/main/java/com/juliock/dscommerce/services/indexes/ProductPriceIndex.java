@@ -0,0 +1,325 @@
+package com.juliock.dscommerce.services.indexes;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/*
+*   Indice em memória de PREÇOS, em arrays primitivos ordenados, para o filtro minPrice/maxPrice e a ordenação por preço da listagem.
+*
+*   O Product.price é um Double (objeto), e uma lista de Double ocupa ~5x mais memória que um double[] e espalha os valores pelo heap.
+*       Aqui ficam:
+*           - prices[] / priceIds[]: preço e id lado a lado, ordenados por (preço, id). Uma faixa de preço vira duas buscas binárias
+*               (o primeiro índice >= minPrice e o primeiro > maxPrice), e a ordenação por preço é só percorrer o intervalo;
+*           - nullIds[]: produtos sem preço. Nunca entram numa faixa (no SQL, NULL >= x é falso) e, como no H2, vêm antes
+*               dos demais na ordenação crescente e depois na decrescente.
+*
+*   Os arrays nunca são alterados depois de montados: cada escrita monta um Snapshot novo e troca a referência (volatile).
+*       Assim as leituras nao precisam de lock, e uma escrita custa O(n) (um merge dos arrays), por isso as escritas em lote
+*       chegam aqui de uma vez só (putAll), e nao produto a produto.
+* */
+
+@Component
+public class ProductPriceIndex {
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private volatile boolean ready = false;
+
+    //  Insere ou atualiza o preço de um ou mais produtos (valor null = produto sem preço)
+    public synchronized void putAll(Map<Long, Double> pricesById) {
+        if (pricesById.isEmpty())
+            return;
+        long[] changed = new long[pricesById.size()];
+        double[] newPrices = new double[changed.length];
+        int n = 0;
+        for (Map.Entry<Long, Double> e : pricesById.entrySet()) {
+            changed[n] = e.getKey();
+            newPrices[n++] = (e.getValue() == null) ? Double.NaN : e.getValue();
+        }
+        snapshot = snapshot.with(changed, newPrices, false);
+    }
+
+    public void put(Long id, Double price) {
+        putAll(Collections.singletonMap(id, price));
+    }
+
+    public synchronized void remove(Long id) {
+        snapshot = snapshot.with(new long[] {id}, new double[] {Double.NaN}, true);
+    }
+
+    /*
+    *   Produtos com preço entre minPrice e maxPrice (inclusive; null = sem limite daquele lado), como bitmap para combinar
+    *       com os filtros de nome e categoria. Retorna null se o indice ainda nao foi carregado.
+    * */
+    public CompressedBitmap range(Double minPrice, Double maxPrice) {
+        if (!ready)
+            return null;
+
+        Snapshot s = snapshot;
+        int from = s.lowerBound(minPrice);
+        int to = s.upperBound(maxPrice);
+
+        //  O intervalo sai ordenado por preço; ordenado por id, cada container do bitmap só recebe inserções no final
+        long[] ids = Arrays.copyOfRange(s.priceIds, from, Math.max(from, to));
+        Arrays.sort(ids);
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (long id : ids)
+            bitmap.add(id);
+        return bitmap;
+    }
+
+    /*
+    *   Produtos da faixa [minPrice, maxPrice] em ordem de preço (empates pelo id), só os que estiverem em "within" (null = todos).
+    *       Sem faixa de preço, os produtos sem preço também entram (no inicio se ascending, no fim se nao).
+    *   Nada é copiado nem convertido em Long aqui: o PriceRange guarda só os limites da faixa nos arrays do Snapshot atual,
+    *       e a pagina pedida é lida direto deles. Retorna null se o indice ainda nao foi carregado.
+    * */
+    public PriceRange sorted(Double minPrice, Double maxPrice, boolean ascending, CompressedBitmap within) {
+        if (!ready)
+            return null;
+
+        Snapshot s = snapshot;
+        int from = s.lowerBound(minPrice);
+        int to = Math.max(from, s.upperBound(maxPrice));
+        boolean withNulls = (minPrice == null && maxPrice == null);
+        return new PriceRange(s.priceIds, from, to, withNulls ? s.nullIds : Snapshot.EMPTY.nullIds, ascending, within);
+    }
+
+    public int size() {
+        Snapshot s = snapshot;
+        return s.priceIds.length + s.nullIds.length;
+    }
+
+    public synchronized void clear() {
+        snapshot = Snapshot.EMPTY;
+        ready = false;
+    }
+
+    public void markReady() {
+        ready = true;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /*
+    *   Resultado de sorted(): a sequência [nullIds..., priceIds[from, to)] (invertida se descendente), filtrada por "within".
+    *       Sem "within", o total e a posição de cada pagina saem por aritmetica; com "within", por uma varredura dos arrays primitivos.
+    * */
+    public static final class PriceRange {
+
+        private final long[] priceIds;
+        private final int from;
+        private final int to;
+        private final long[] nullIds;
+        private final boolean ascending;
+        private final CompressedBitmap within;
+        private final int length;
+        private final long count;
+
+        private PriceRange(long[] priceIds, int from, int to, long[] nullIds, boolean ascending, CompressedBitmap within) {
+            this.priceIds = priceIds;
+            this.from = from;
+            this.to = to;
+            this.nullIds = nullIds;
+            this.ascending = ascending;
+            this.within = within;
+            this.length = nullIds.length + (to - from);
+
+            long matches = length;
+            if (within != null) {
+                matches = 0;
+                for (int k = 0; k < length; k++)
+                    if (within.contains(idAt(k)))
+                        matches++;
+            }
+            this.count = matches;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        //  Ids da pagina [offset, offset + size) do resultado, na ordem de preço
+        public List<Long> page(long offset, int size) {
+            int n = (int) Math.max(0, Math.min(size, count - offset));
+            List<Long> result = new ArrayList<>(n);
+            if (n == 0)
+                return result;
+
+            if (within == null) {
+                for (int k = (int) offset; k < offset + n; k++)
+                    result.add(idAt(k));
+                return result;
+            }
+            long skipped = 0;
+            for (int k = 0; k < length && result.size() < n; k++) {
+                long id = idAt(k);
+                if (!within.contains(id))
+                    continue;
+                if (skipped < offset)
+                    skipped++;
+                else
+                    result.add(id);
+            }
+            return result;
+        }
+
+        //  Todos os ids do resultado como bitmap (para os facets de categoria)
+        public CompressedBitmap toBitmap() {
+            long[] ids = new long[(int) count];
+            int n = 0;
+            for (int k = 0; k < length; k++) {
+                long id = idAt(k);
+                if (within == null || within.contains(id))
+                    ids[n++] = id;
+            }
+            Arrays.sort(ids);     //  ordenado por id, cada container do bitmap só recebe inserções no final
+            CompressedBitmap bitmap = new CompressedBitmap();
+            for (long id : ids)
+                bitmap.add(id);
+            return bitmap;
+        }
+
+        private long idAt(int k) {
+            int priced = to - from;
+            if (ascending)
+                return (k < nullIds.length) ? nullIds[k] : priceIds[from + k - nullIds.length];
+            return (k < priced) ? priceIds[to - 1 - k] : nullIds[nullIds.length - 1 - (k - priced)];
+        }
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(new long[0], new double[0], new long[0]);
+
+        private final long[] priceIds;      //  ordenado por (preço, id)
+        private final double[] prices;
+        private final long[] nullIds;       //  ordenado por id
+
+        private Snapshot(long[] priceIds, double[] prices, long[] nullIds) {
+            this.priceIds = priceIds;
+            this.prices = prices;
+            this.nullIds = nullIds;
+        }
+
+        //  Primeiro indice com preço >= minPrice
+        private int lowerBound(Double minPrice) {
+            if (minPrice == null)
+                return 0;
+            int lo = 0, hi = prices.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (prices[mid] < minPrice)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+
+        //  Primeiro indice com preço > maxPrice
+        private int upperBound(Double maxPrice) {
+            if (maxPrice == null)
+                return prices.length;
+            int lo = 0, hi = prices.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (prices[mid] <= maxPrice)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+
+        /*
+        *   Monta o Snapshot seguinte: os produtos de "changed" saem dos arrays atuais e, se nao for remoção, entram de novo com o preço novo.
+        *       Cada array é refeito com um merge entre o que ficou (ja ordenado) e as entradas novas (ordenadas aqui), sem reordenar o indice inteiro.
+        * */
+        private Snapshot with(long[] changed, double[] newPrices, boolean remove) {
+            Integer[] order = new Integer[changed.length];
+            for (int i = 0; i < order.length; i++)
+                order[i] = i;
+            Arrays.sort(order, (a, b) -> Long.compare(changed[a], changed[b]));
+            long[] changedIds = new long[changed.length];
+            double[] changedPrices = new double[changed.length];
+            for (int i = 0; i < order.length; i++) {
+                changedIds[i] = changed[order[i]];
+                changedPrices[i] = newPrices[order[i]];
+            }
+
+            int added = remove ? 0 : changedIds.length;
+
+            //  Entradas novas com preço, ordenadas por (preço, id), e as novas sem preço (ja ordenadas por id)
+            int withPrice = 0, withoutPrice = 0;
+            for (int k = 0; k < added; k++) {
+                if (Double.isNaN(changedPrices[k]))
+                    withoutPrice++;
+                else
+                    withPrice++;
+            }
+            long[] addedPriceIds = new long[withPrice];
+            double[] addedPrices = new double[withPrice];
+            long[] addedNullIds = new long[withoutPrice];
+            Integer[] byPrice = new Integer[withPrice];
+            int p = 0, q = 0;
+            for (int k = 0; k < added; k++) {
+                if (Double.isNaN(changedPrices[k]))
+                    addedNullIds[q++] = changedIds[k];
+                else
+                    byPrice[p++] = k;
+            }
+            Arrays.sort(byPrice, (a, b) -> compare(changedPrices[a], changedIds[a], changedPrices[b], changedIds[b]));
+            for (int k = 0; k < withPrice; k++) {
+                addedPriceIds[k] = changedIds[byPrice[k]];
+                addedPrices[k] = changedPrices[byPrice[k]];
+            }
+
+            //  Por preço: merge de (priceIds atuais fora de "changed") com as entradas novas com preço
+            long[] newPriceIds = new long[priceIds.length + withPrice];
+            double[] newPricesSorted = new double[newPriceIds.length];
+            int n = 0, i = 0, j = 0;
+            while (i < priceIds.length || j < withPrice) {
+                if (i < priceIds.length && Arrays.binarySearch(changedIds, priceIds[i]) >= 0) {
+                    i++;
+                } else if (j >= withPrice || (i < priceIds.length && compare(prices[i], priceIds[i], addedPrices[j], addedPriceIds[j]) < 0)) {
+                    newPriceIds[n] = priceIds[i];
+                    newPricesSorted[n++] = prices[i++];
+                } else {
+                    newPriceIds[n] = addedPriceIds[j];
+                    newPricesSorted[n++] = addedPrices[j++];
+                }
+            }
+            newPriceIds = Arrays.copyOf(newPriceIds, n);
+            newPricesSorted = Arrays.copyOf(newPricesSorted, n);
+
+            //  Sem preço: merge de (nullIds atuais fora de "changed") com as entradas novas sem preço
+            long[] newNullIds = new long[nullIds.length + withoutPrice];
+            n = 0;
+            i = 0;
+            j = 0;
+            while (i < nullIds.length || j < withoutPrice) {
+                if (i < nullIds.length && Arrays.binarySearch(changedIds, nullIds[i]) >= 0)
+                    i++;
+                else if (j >= withoutPrice || (i < nullIds.length && nullIds[i] < addedNullIds[j]))
+                    newNullIds[n++] = nullIds[i++];
+                else
+                    newNullIds[n++] = addedNullIds[j++];
+            }
+            newNullIds = Arrays.copyOf(newNullIds, n);
+
+            return new Snapshot(newPriceIds, newPricesSorted, newNullIds);
+        }
+
+        private static int compare(double priceA, long idA, double priceB, long idB) {
+            int c = Double.compare(priceA, priceB);
+            return (c != 0) ? c : Long.compare(idA, idB);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.juliock.dscommerce.services.inventory;
+
+import com.juliock.dscommerce.services.exceptions.InsufficientStockException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/*
+*   Estoque em memória dos produtos que ja foram vendidos/consultados: um StripedStockCounter por produto.
+*       Quem carrega o valor inicial (da tb_product) e grava as reservas de volta em lote é o StockService.
+*
+*   reserve() é TUDO OU NADA entre os itens: se algum produto nao tiver estoque suficiente, as unidades ja retiradas dos itens
+*       anteriores sao devolvidas antes de lançar a exception. Nenhuma reserva segura lock de banco nem de outro produto.
+* */
+
+@Component
+public class StockLedger {
+
+    private final ConcurrentHashMap<Long, StripedStockCounter> counters = new ConcurrentHashMap<>();
+    private final int stripes;
+
+    //  dscommerce.stock.stripes = 0: uma faixa por core (potencia de 2, no maximo 64)
+    @Autowired
+    public StockLedger(@Value("${dscommerce.stock.stripes:0}") int stripes) {
+        int wanted = (stripes > 0) ? stripes : Math.min(64, Runtime.getRuntime().availableProcessors());
+        this.stripes = (wanted <= 1) ? 1 : Integer.highestOneBit(wanted - 1) << 1;
+    }
+
+    public StripedStockCounter counter(long productId) {
+        return counters.get(productId);
+    }
+
+    //  Registra o estoque lido do banco. Se outra thread registrou antes, vale o contador dela (com as reservas que ja fez)
+    public StripedStockCounter register(long productId, long available) {
+        return counters.computeIfAbsent(productId, id -> new StripedStockCounter(available, stripes));
+    }
+
+    public void remove(long productId) {
+        counters.remove(productId);
+    }
+
+    public void forEachCounter(BiConsumer<Long, StripedStockCounter> action) {
+        for (Map.Entry<Long, StripedStockCounter> e : counters.entrySet())
+            action.accept(e.getKey(), e.getValue());
+    }
+
+    //  Os produtos precisam estar registrados (register) antes
+    public StockReservation reserve(long[] productIds, long[] quantities) {
+        StripedStockCounter[] taken = new StripedStockCounter[productIds.length];
+        for (int i = 0; i < productIds.length; i++) {
+            StripedStockCounter counter = counters.get(productIds[i]);
+            if (counter == null)
+                throw new IllegalStateException("Stock not loaded for product " + productIds[i]);
+            if (!counter.tryTake(quantities[i])) {
+                for (int k = 0; k < i; k++)
+                    taken[k].put(quantities[k]);
+                throw new InsufficientStockException(productIds[i]);
+            }
+            taken[i] = counter;
+        }
+        return new StockReservation(productIds, quantities, taken);
+    }
+}
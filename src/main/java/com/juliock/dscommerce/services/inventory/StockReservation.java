@@ -0,0 +1,42 @@
+package com.juliock.dscommerce.services.inventory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+*   Unidades reservadas por um checkout: um produto por posição, com a quantidade reservada de cada um.
+*       release() devolve tudo ao estoque (ex: a transação do pedido sofreu rollback). Chamar mais de uma vez nao devolve duas vezes.
+* */
+
+public class StockReservation {
+
+    private final long[] productIds;
+    private final long[] quantities;
+    private final StripedStockCounter[] counters;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    StockReservation(long[] productIds, long[] quantities, StripedStockCounter[] counters) {
+        this.productIds = productIds;
+        this.quantities = quantities;
+        this.counters = counters;
+    }
+
+    public int size() {
+        return productIds.length;
+    }
+
+    public long productId(int i) {
+        return productIds[i];
+    }
+
+    public long quantity(int i) {
+        return quantities[i];
+    }
+
+    public boolean release() {
+        if (!released.compareAndSet(false, true))
+            return false;
+        for (int i = 0; i < counters.length; i++)
+            counters[i].put(quantities[i]);
+        return true;
+    }
+}
@@ -0,0 +1,114 @@
+package com.juliock.dscommerce.services.inventory;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/*
+*   Estoque disponivel de UM produto, dividido em faixas (stripes) para que muitas threads reservando o mesmo produto
+*       nao disputem a mesma variavel.
+*
+*   Cada thread tem uma faixa "de casa" (pelo id da thread) e reserva com um compareAndSet nela, sem lock. O valor de uma faixa
+*       nunca fica negativo (o CAS só acontece se houver unidades suficientes), entao a soma das faixas nunca passa do estoque real:
+*       é impossivel vender mais do que existe.
+*   Quando a faixa de casa nao tem o suficiente (mesmo que outras tenham), a reserva vai para o caminho lento: com lock,
+*       junta todas as faixas, reserva do total e redistribui o resto. Assim uma reserva só falha se o estoque TOTAL nao bastar.
+*
+*   Cada faixa também acumula as unidades reservadas (menos as devolvidas) ainda nao gravadas na tb_product ("pending"),
+*       que o StockService grava em lote de tempos em tempos (drainPending).
+*
+*   As faixas ficam no mesmo AtomicLongArray, separadas por PAD posições (64 bytes): duas faixas nunca ficam na mesma linha de cache
+*       (sem false sharing entre os cores).
+* */
+
+public class StripedStockCounter {
+
+    private static final int PAD = 8;   //  [i * PAD] = disponivel na faixa i, [i * PAD + 1] = pending da faixa i
+
+    private final AtomicLongArray cells;
+    private final int stripes;
+
+    public StripedStockCounter(long available, int stripes) {
+        if (Integer.bitCount(stripes) != 1)
+            throw new IllegalArgumentException("stripes must be a power of two");
+        this.stripes = stripes;
+        this.cells = new AtomicLongArray(stripes * PAD);
+        spread(available);
+    }
+
+    public boolean tryTake(long quantity) {
+        int home = home();
+        int cell = home * PAD;
+        long current;
+        while ((current = cells.get(cell)) >= quantity) {
+            if (cells.compareAndSet(cell, current, current - quantity)) {
+                cells.addAndGet(cell + 1, quantity);
+                return true;
+            }
+        }
+        return takeFromAll(quantity, home);
+    }
+
+    //  Devolve unidades reservadas (reserva desfeita) ou adiciona estoque novo (reposição)
+    public void put(long quantity) {
+        int cell = home() * PAD;
+        cells.addAndGet(cell, quantity);
+        cells.addAndGet(cell + 1, -quantity);
+    }
+
+    //  Aproximado enquanto houver reservas em andamento (as faixas sao lidas uma de cada vez)
+    public long available() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++)
+            total += cells.get(i * PAD);
+        return total;
+    }
+
+    public long pending() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++)
+            total += cells.get(i * PAD + 1);
+        return total;
+    }
+
+    //  Retira (zera) o pending de todas as faixas: unidades a descontar da tb_product (negativo = a somar)
+    public long drainPending() {
+        long total = 0;
+        for (int i = 0; i < stripes; i++)
+            total += cells.getAndSet(i * PAD + 1, 0);
+        return total;
+    }
+
+    //  Devolve um pending retirado por drainPending() cuja gravação no banco falhou
+    public void restorePending(long pending) {
+        cells.addAndGet(1, pending);
+    }
+
+    /*
+    *   Caminho lento: retira TODAS as faixas para uma variavel local (getAndSet 0), reserva do total e devolve o resto espalhado.
+    *       Enquanto isso, as outras threads veem as faixas vazias e também caem aqui, esperando o lock: nenhuma unidade é contada duas vezes,
+    *       e nenhuma reserva falha por causa das unidades que estavam "em transito" nesta thread.
+    * */
+    private synchronized boolean takeFromAll(long quantity, int home) {
+        long total = 0;
+        for (int i = 0; i < stripes; i++)
+            total += cells.getAndSet(i * PAD, 0);
+
+        boolean taken = total >= quantity;
+        if (taken) {
+            total -= quantity;
+            cells.addAndGet(home * PAD + 1, quantity);
+        }
+        spread(total);
+        return taken;
+    }
+
+    private void spread(long total) {
+        long each = total / stripes;
+        for (int i = 0; i < stripes; i++)
+            cells.addAndGet(i * PAD, each + ((i == 0) ? total % stripes : 0));
+    }
+
+    private int home() {
+        long h = Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (stripes - 1);
+    }
+}
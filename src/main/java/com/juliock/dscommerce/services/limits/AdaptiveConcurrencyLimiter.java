@@ -0,0 +1,247 @@
+package com.juliock.dscommerce.services.limits;
+
+import com.juliock.dscommerce.services.metrics.LatencyHistogram;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+*   Limite ADAPTATIVO de requests simultâneas (algoritmo de gradiente, como o Gradient2 do concurrency-limits da Netflix).
+*
+*   Um limite fixo precisa ser adivinhado: baixo demais desperdiça capacidade, alto demais deixa as requests se acumularem na fila
+*       do pool de conexões, e a latência cresce sem limite. Aqui o limite acompanha a latência medida:
+*       - a cada janela (dscommerce.concurrency-limit.window-ms, com pelo menos MIN_WINDOW_SAMPLES requests) calcula-se a latência
+*           media da janela (shortRtt) e uma media longa (longRtt, que representa a latência "sem fila");
+*       - gradiente = TOLERANCE * longRtt / shortRtt, entre 0,5 e 1: se a latência atual passou de 1,5x a media longa, formou-se fila
+*           em algum lugar e o limite diminui na proporção; caso contrario fica em 1;
+*       - novo limite = limite * gradiente + raiz(limite). A raiz é a folga que deixa o limite crescer enquanto a latência está estável;
+*       - o novo valor é suavizado (SMOOTHING) e fica entre minLimit e maxLimit.
+*   Se a aplicação nem chegou a usar metade do limite na janela, o limite nao muda (a latência dessa janela nao diz nada sobre ele).
+*
+*   Acima do limite, a request espera numa fila CURTA (no maximo maxQueue requests, por no maximo maxQueueWait) e, se ainda nao houver vaga,
+*       é rejeitada na hora (acquire() retorna null): melhor um 503 rapido do que uma resposta lenta que o cliente ja desistiu de esperar.
+*   A latência medida é a do atendimento (depois da fila), para que a propria espera na fila nao derrube o limite.
+*
+*   acquire()/release() nao usam lock no caminho sem espera; o lock só é usado pela fila e na virada de janela (tryLock).
+* */
+
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOWS = 600;    //  janelas na media longa
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxQueueWaitNanos;
+    private final long windowNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private volatile int limit;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LatencyHistogram queueTime = new LatencyHistogram();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    //  Janela atual, somada sem lock
+    private final LongAdder windowSumNanos = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicInteger windowMaxInFlight = new AtomicInteger();
+    private volatile long windowStart = System.nanoTime();
+
+    //  Protegidos pelo lock (só mudam na virada de janela)
+    private double estimatedLimit;
+    private double longRttNanos;
+    private long longWindows;
+
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit, int maxQueue,
+                                      long maxQueueWaitMillis, long windowMillis) {
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = maxQueue;
+        this.maxQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxQueueWaitMillis);
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+    }
+
+    //  Vaga para uma request, ou null se ela deve ser rejeitada (limite atingido e a fila cheia ou o tempo de espera esgotado)
+    public Permit acquire() {
+        long start = System.nanoTime();
+        if (!tryTake() && !awaitTake(start)) {
+            rejected.increment();
+            return null;
+        }
+        long acquired = System.nanoTime();
+        queueTime.record(acquired - start);
+        accepted.increment();
+        return new Permit(acquired);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    public LatencyHistogram.Snapshot queueTime() {
+        return queueTime.snapshot();
+    }
+
+    public double getLongRttNanos() {
+        lock.lock();
+        try {
+            return longRttNanos;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean tryTake() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit)
+                return false;
+            if (inFlight.compareAndSet(current, current + 1)) {
+                windowMaxInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    private boolean awaitTake(long start) {
+        if (maxQueueWaitNanos <= 0)
+            return false;
+        if (queued.incrementAndGet() > maxQueue) {
+            queued.decrementAndGet();
+            return false;
+        }
+        lock.lock();
+        try {
+            long remaining = maxQueueWaitNanos - (System.nanoTime() - start);
+            while (!tryTake()) {
+                if (remaining <= 0)
+                    return false;
+                remaining = released.awaitNanos(remaining);
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    private void release(long rttNanos) {
+        inFlight.decrementAndGet();
+        onSample(rttNanos);
+        if (queued.get() > 0)
+            signalOne();
+    }
+
+    void onSample(long rttNanos) {
+        windowSumNanos.add(rttNanos);
+        windowSamples.increment();
+
+        long now = System.nanoTime();
+        if (now - windowStart >= windowNanos && windowSamples.sum() >= MIN_WINDOW_SAMPLES && lock.tryLock()) {
+            try {
+                if (now - windowStart >= windowNanos)
+                    closeWindow(now);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    //  Chamado com o lock
+    private void closeWindow(long now) {
+        long samples = windowSamples.sumThenReset();
+        long sum = windowSumNanos.sumThenReset();
+        int maxInFlight = windowMaxInFlight.getAndSet(inFlight.get());
+        windowStart = now;
+        if (samples == 0)
+            return;
+
+        double shortRtt = (double) sum / samples;
+        if (longWindows++ == 0)
+            longRttNanos = shortRtt;
+        else
+            longRttNanos += (shortRtt - longRttNanos) / Math.min(longWindows, LONG_WINDOWS);
+
+        //  Depois de um periodo longo de sobrecarga a media longa fica alta demais: ela volta aos poucos para perto da atual
+        if (longRttNanos / shortRtt > 2)
+            longRttNanos *= 0.95;
+
+        if (maxInFlight < estimatedLimit / 2)
+            return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRttNanos / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        newLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+
+        int previous = limit;
+        limit = (int) estimatedLimit;
+        if (limit > previous && queued.get() > 0)
+            released.signalAll();
+    }
+
+    private void signalOne() {
+        lock.lock();
+        try {
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    //  Vaga obtida: deve ser devolvida (release) exatamente uma vez, ao fim do atendimento
+    public final class Permit {
+
+        private final long startNanos;
+        private boolean released;
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void release() {
+            if (released)
+                return;
+            released = true;
+            AdaptiveConcurrencyLimiter.this.release(System.nanoTime() - startNanos);
+        }
+    }
+}
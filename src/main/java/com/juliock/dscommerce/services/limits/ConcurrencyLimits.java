@@ -0,0 +1,71 @@
+package com.juliock.dscommerce.services.limits;
+
+import com.juliock.dscommerce.dto.ConcurrencyLimitStatsDTO;
+import com.juliock.dscommerce.services.metrics.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/*
+*   Os limites adaptativos de requests simultâneas, um por grupo de endpoints (ver config/ConcurrencyLimitInterceptor):
+*       - "reads": GET e HEAD (consultas, relatorios);
+*       - "writes": os demais metodos (checkout, cadastro/alteração de produtos, estoque).
+*   Os grupos sao separados para que uma rajada de leituras nao ocupe as vagas das escritas, e vice-versa.
+*       As escritas seguram conexões e locks por mais tempo, entao o teto delas é menor.
+* */
+
+@Component
+public class ConcurrencyLimits {
+
+    public static final String READS = "reads";
+    public static final String WRITES = "writes";
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final AdaptiveConcurrencyLimiter reads;
+    private final AdaptiveConcurrencyLimiter writes;
+
+    public ConcurrencyLimits(@Value("${dscommerce.concurrency-limit.enabled:true}") boolean enabled,
+                             @Value("${dscommerce.concurrency-limit.initial-limit:20}") int initialLimit,
+                             @Value("${dscommerce.concurrency-limit.min-limit:2}") int minLimit,
+                             @Value("${dscommerce.concurrency-limit.reads.max-limit:200}") int readsMaxLimit,
+                             @Value("${dscommerce.concurrency-limit.writes.max-limit:50}") int writesMaxLimit,
+                             @Value("${dscommerce.concurrency-limit.max-queue:100}") int maxQueue,
+                             @Value("${dscommerce.concurrency-limit.max-queue-wait-ms:50}") long maxQueueWaitMillis,
+                             @Value("${dscommerce.concurrency-limit.window-ms:100}") long windowMillis,
+                             @Value("${dscommerce.concurrency-limit.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.reads = new AdaptiveConcurrencyLimiter(READS, initialLimit, minLimit, readsMaxLimit, maxQueue, maxQueueWaitMillis, windowMillis);
+        this.writes = new AdaptiveConcurrencyLimiter(WRITES, initialLimit, minLimit, writesMaxLimit, maxQueue, maxQueueWaitMillis, windowMillis);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public AdaptiveConcurrencyLimiter forMethod(String httpMethod) {
+        return ("GET".equals(httpMethod) || "HEAD".equals(httpMethod)) ? reads : writes;
+    }
+
+    public List<ConcurrencyLimitStatsDTO> stats() {
+        return List.of(stats(reads), stats(writes));
+    }
+
+    private static ConcurrencyLimitStatsDTO stats(AdaptiveConcurrencyLimiter limiter) {
+        LatencyHistogram.Snapshot queueTime = limiter.queueTime();
+        return new ConcurrencyLimitStatsDTO(limiter.getName(), limiter.getLimit(), limiter.getInFlight(), limiter.getQueued(),
+                limiter.getAccepted(), limiter.getRejected(),
+                millis(queueTime.valueAtQuantile(0.50)), millis(queueTime.valueAtQuantile(0.99)), millis(queueTime.getMaxNanos()),
+                limiter.getLongRttNanos() / 1_000_000.0);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
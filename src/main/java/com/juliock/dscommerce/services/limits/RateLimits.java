@@ -0,0 +1,132 @@
+package com.juliock.dscommerce.services.limits;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.juliock.dscommerce.dto.RateLimitStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/*
+*   Limite de requests por CLIENTE, com um balde por rota:
+*       - "searches": listagens e buscas (GET sem id no caminho, ex: GET /products?name=..., /orders, /reports/...);
+*       - "reads": leituras de um recurso (GET com id no caminho, ex: GET /products/{id});
+*       - "writes": os demais metodos (POST, PUT, DELETE).
+*   As buscas sao as mais caras (LIKE, COUNT, paginação), entao têm o limite mais baixo: um cliente agressivo nelas nao consome
+*       a capacidade que atende os outros.
+*
+*   O cliente é sempre o endereço de origem. A chave de API (header X-API-Key) só acrescenta um SEGUNDO balde, e só se ela estiver
+*       em dscommerce.rate-limit.api-keys: a chave nao é autenticada, entao uma chave qualquer nao pode nem escapar do limite
+*       do endereço, nem criar entradas no cache, nem gastar as fichas de outro cliente que use uma chave cadastrada.
+*
+*   Os baldes ficam num cache LIMITADO por rota: no maximo dscommerce.rate-limit.max-clients clientes, e um cliente parado
+*       pelo tempo de encher o balde de novo (burst / requests-per-second) é descartado. Descartar nesse momento nao muda nada
+*       para o cliente (um balde cheio é igual a um novo), e a memória fica limitada mesmo com milhões de clientes diferentes.
+* */
+
+@Component
+public class RateLimits {
+
+    public static final String SEARCHES = "searches";
+    public static final String READS = "reads";
+    public static final String WRITES = "writes";
+
+    private static final String API_KEY_PREFIX = "key:";     //  separa as chaves dos endereços no mesmo cache
+
+    private final boolean enabled;
+    private final Set<String> apiKeys;
+    private final RouteLimit searches;
+    private final RouteLimit reads;
+    private final RouteLimit writes;
+
+    public RateLimits(@Value("${dscommerce.rate-limit.enabled:true}") boolean enabled,
+                      @Value("${dscommerce.rate-limit.max-clients:1000000}") long maxClients,
+                      @Value("${dscommerce.rate-limit.api-keys:}") List<String> apiKeys,
+                      @Value("${dscommerce.rate-limit.searches.requests-per-second:10}") double searchesPerSecond,
+                      @Value("${dscommerce.rate-limit.searches.burst:20}") long searchesBurst,
+                      @Value("${dscommerce.rate-limit.reads.requests-per-second:50}") double readsPerSecond,
+                      @Value("${dscommerce.rate-limit.reads.burst:100}") long readsBurst,
+                      @Value("${dscommerce.rate-limit.writes.requests-per-second:5}") double writesPerSecond,
+                      @Value("${dscommerce.rate-limit.writes.burst:10}") long writesBurst) {
+        this.enabled = enabled;
+        this.apiKeys = Set.copyOf(apiKeys.stream().map(String::trim).filter(k -> !k.isEmpty()).toList());
+        this.searches = new RouteLimit(SEARCHES, searchesPerSecond, searchesBurst, maxClients);
+        this.reads = new RouteLimit(READS, readsPerSecond, readsBurst, maxClients);
+        this.writes = new RouteLimit(WRITES, writesPerSecond, writesBurst, maxClients);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public RouteLimit searches() {
+        return searches;
+    }
+
+    public RouteLimit reads() {
+        return reads;
+    }
+
+    public RouteLimit writes() {
+        return writes;
+    }
+
+    //  0 se a request pode passar; senão, quantos nanos o cliente precisa esperar. apiKey pode ser null
+    public long tryAcquire(RouteLimit route, String remoteAddr, String apiKey) {
+        long waitNanos = route.tryAcquire(remoteAddr);
+        if (waitNanos == 0 && apiKey != null && apiKeys.contains(apiKey))
+            waitNanos = route.tryAcquire(API_KEY_PREFIX + apiKey);
+        return waitNanos;
+    }
+
+    public List<RateLimitStatsDTO> stats() {
+        return List.of(searches.stats(), reads.stats(), writes.stats());
+    }
+
+    public static final class RouteLimit {
+
+        private final String name;
+        private final double requestsPerSecond;
+        private final long burst;
+        private final Cache<String, TokenBucket> buckets;
+        private final Function<String, TokenBucket> newBucket;      //  criado uma vez: nenhuma lambda nova por request
+        private final LongAdder throttled = new LongAdder();
+
+        RouteLimit(String name, double requestsPerSecond, long burst, long maxClients) {
+            if (requestsPerSecond <= 0 || burst < 1)
+                throw new IllegalArgumentException("Rate limit '" + name + "' needs requests-per-second > 0 and burst >= 1");
+            this.name = name;
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+
+            long intervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecond));
+            this.newBucket = client -> new TokenBucket(intervalNanos, burst, System.nanoTime());
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxClients)
+                    .expireAfterAccess(Duration.ofNanos(intervalNanos * burst))
+                    .build();
+        }
+
+        //  0 se a request do cliente pode passar; senão, quantos nanos ele precisa esperar
+        public long tryAcquire(String client) {
+            long waitNanos = buckets.get(client, newBucket).tryAcquire(System.nanoTime());
+            if (waitNanos > 0)
+                throttled.increment();
+            return waitNanos;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        RateLimitStatsDTO stats() {
+            return new RateLimitStatsDTO(name, requestsPerSecond, burst, buckets.estimatedSize(), throttled.sum());
+        }
+    }
+}
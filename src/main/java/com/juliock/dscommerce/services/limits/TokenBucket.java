@@ -0,0 +1,56 @@
+package com.juliock.dscommerce.services.limits;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/*
+*   Balde de fichas (token bucket) de UM cliente numa rota, guardado num unico long e atualizado sem lock (compare-and-set).
+*
+*   Em vez de guardar "fichas restantes" + "ultima recarga" (dois valores, que precisariam ser trocados juntos), o estado é
+*       o instante teorico da proxima chegada (GCRA, "generic cell rate algorithm"), equivalente ao balde:
+*       - cada request empurra esse instante em interval (1 / requests por segundo);
+*       - a request passa se o instante resultante nao ficar mais de burst * interval à frente de agora,
+*           ou seja, se ainda havia ao menos uma ficha no balde de capacidade burst.
+*   tryAcquire nao aloca nada: um campo long, um CAS, e a resposta é um long (0 = liberada, senão quantos nanos esperar).
+*
+*   Um balde parado por burst * interval esta cheio de novo e é igual a um balde novo (ver RateLimits: é o tempo de ociosidade
+*       depois do qual o cliente é descartado).
+* */
+
+public final class TokenBucket {
+
+    private static final VarHandle ARRIVAL;
+
+    static {
+        try {
+            ARRIVAL = MethodHandles.lookup().findVarHandle(TokenBucket.class, "nextArrival", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+
+    @SuppressWarnings("unused")     //  acessado pelo VarHandle
+    private volatile long nextArrival;
+
+    public TokenBucket(long intervalNanos, long burst, long nowNanos) {
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = intervalNanos * burst;
+        this.nextArrival = nowNanos;     //  balde cheio
+    }
+
+    //  0 se a request pode passar (uma ficha foi consumida); senão, quantos nanos faltam para a proxima ficha
+    public long tryAcquire(long nowNanos) {
+        while (true) {
+            long current = (long) ARRIVAL.getVolatile(this);
+            long next = ((current - nowNanos < 0) ? nowNanos : current) + intervalNanos;
+            long ahead = next - nowNanos;
+            if (ahead > toleranceNanos)
+                return ahead - toleranceNanos;
+            if (ARRIVAL.compareAndSet(this, current, next))
+                return 0;
+        }
+    }
+}
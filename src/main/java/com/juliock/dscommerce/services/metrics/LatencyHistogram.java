@@ -0,0 +1,122 @@
+package com.juliock.dscommerce.services.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+*   Histograma de latência no estilo do HdrHistogram (log-linear), em nanossegundos.
+*
+*   Cada potência de 2 é dividida em SUB_BUCKETS faixas iguais, entao o erro relativo de qualquer valor é de no máximo 1/32 (~3%),
+*       de 1 ns até MAX_TRACKABLE_NANOS (~137 s, valores maiores caem no ultimo bucket), com apenas 1056 contadores.
+*
+*   record() é o caminho quente (chamado em toda request): só faz operações atômicas sobre arrays ja alocados, sem lock e sem criar objetos.
+*       Os percentis sao calculados na leitura (snapshot()), que copia os contadores.
+* */
+
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 36;
+    public static final long MAX_TRACKABLE_NANOS = (1L << (MAX_EXPONENT + 1)) - 1;
+    static final int BUCKETS = SUB_BUCKETS + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0), MAX_TRACKABLE_NANOS);
+        counts.incrementAndGet(indexOf(value));
+        totalCount.increment();
+        totalNanos.add(value);
+
+        long max;
+        while (value > (max = maxNanos.get()) && !maxNanos.compareAndSet(max, value)) {
+            //  outra thread atualizou o maximo ao mesmo tempo: lê de novo e compara
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++)
+            copy[i] = counts.get(i);
+        return new Snapshot(copy, totalNanos.sum(), maxNanos.get());
+    }
+
+    //  Valores menores que 32 têm bucket proprio; acima disso, o bucket é (expoente, 5 bits seguintes ao bit mais alto)
+    static int indexOf(long value) {
+        if (value < SUB_BUCKETS)
+            return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return SUB_BUCKETS + (exponent - SUB_BUCKET_BITS) * SUB_BUCKETS + sub;
+    }
+
+    //  Maior valor (em ns) que cai no bucket index
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKETS)
+            return index;
+        int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+        int sub = (index - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /*
+    *   Copia dos contadores num instante. Como record() atualiza os contadores separadamente,
+    *       o snapshot pode ficar alguns registros "atrasado" em um deles; para métricas isso é irrelevante.
+    * */
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sumNanos;
+        private final long maxNanos;
+
+        private Snapshot(long[] counts, long sumNanos, long maxNanos) {
+            long total = 0;
+            for (long c : counts)
+                total += c;
+            this.counts = counts;
+            this.count = total;
+            this.sumNanos = sumNanos;
+            this.maxNanos = maxNanos;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getSumNanos() {
+            return sumNanos;
+        }
+
+        public long getMaxNanos() {
+            return maxNanos;
+        }
+
+        //  Valor (limite superior do bucket) abaixo do qual estao "quantile" dos registros. Ex: quantile = 0.99 -> p99
+        public long valueAtQuantile(double quantile) {
+            if (count == 0)
+                return 0;
+            long rank = Math.max(1, (long) Math.ceil(quantile * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Math.min(upperBoundOf(i), maxNanos);
+            }
+            return maxNanos;
+        }
+
+        //  Quantidade de registros menores ou iguais a nanos (usado nos buckets "le" do formato Prometheus)
+        public long countAtOrBelow(long nanos) {
+            long seen = 0;
+            for (int i = 0; i < counts.length && upperBoundOf(i) <= nanos; i++)
+                seen += counts[i];
+            return seen;
+        }
+    }
+}
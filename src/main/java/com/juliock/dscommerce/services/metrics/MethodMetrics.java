@@ -0,0 +1,61 @@
+package com.juliock.dscommerce.services.metrics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+*   Métricas de UM metodo instrumentado (ex: ProductController.findById): latência, chamadas em andamento e erros por tipo de exception.
+*
+*   enter() e exit() nao alocam. recordError() só cria o contador na primeira ocorrência de cada tipo de exception.
+* */
+
+public class MethodMetrics {
+
+    private final String layer;     //  "controller" ou "service"
+    private final String name;      //  Classe.metodo
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder inFlight = new LongAdder();
+    private final Map<Class<?>, LongAdder> errors = new ConcurrentHashMap<>();
+
+    public MethodMetrics(String layer, String name) {
+        this.layer = layer;
+        this.name = name;
+    }
+
+    public void enter() {
+        inFlight.increment();
+    }
+
+    public void exit(long elapsedNanos) {
+        inFlight.decrement();
+        latency.record(elapsedNanos);
+    }
+
+    public void recordError(Class<?> exceptionType) {
+        LongAdder counter = errors.get(exceptionType);
+        if (counter == null)
+            counter = errors.computeIfAbsent(exceptionType, k -> new LongAdder());
+        counter.increment();
+    }
+
+    public String getLayer() {
+        return layer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getInFlight() {
+        return inFlight.sum();
+    }
+
+    public Map<Class<?>, LongAdder> getErrors() {
+        return errors;
+    }
+}
@@ -0,0 +1,117 @@
+package com.juliock.dscommerce.services.metrics;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.reflect.Method;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+*   Registro das métricas de todos os metodos instrumentados (ver config/MethodMetricsInterceptor) e exportação no formato texto do Prometheus.
+*
+*   Cada metodo ganha seu MethodMetrics na primeira chamada; depois disso metricsFor() é só um get() no ConcurrentHashMap (sem lock).
+*   Metodos sobrecarregados (mesmo nome, parametros diferentes) compartilham as métricas, pois teriam o mesmo rotulo no Prometheus.
+*
+*   Os valores sao acumulados desde a subida da aplicação: o Prometheus calcula taxas e percentis por intervalo a partir dos buckets
+*       (histogram_quantile(0.99, rate(dscommerce_method_duration_seconds_bucket[5m]))).
+*       Os percentis do summary (dscommerce_method_latency_seconds) sao do periodo inteiro, úteis para uma leitura rápida.
+* */
+
+@Component
+public class MethodMetricsRegistry {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+    private static final double[] BUCKETS_SECONDS = {0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+
+    private final Map<Method, MethodMetrics> byMethod = new ConcurrentHashMap<>();
+    private final Map<String, MethodMetrics> byName = new ConcurrentHashMap<>();
+
+    public MethodMetrics metricsFor(Method method) {
+        MethodMetrics metrics = byMethod.get(method);
+        if (metrics == null)
+            metrics = byMethod.computeIfAbsent(method, this::create);
+        return metrics;
+    }
+
+    private MethodMetrics create(Method method) {
+        Class<?> type = ClassUtils.getUserClass(method.getDeclaringClass());
+        String layer = AnnotatedElementUtils.hasAnnotation(type, RestController.class) ? "controller" : "service";
+        String name = type.getSimpleName() + "." + method.getName();
+        return byName.computeIfAbsent(name, n -> new MethodMetrics(layer, n));
+    }
+
+    public String scrape() {
+        List<MethodMetrics> all = new ArrayList<>(byName.values());
+        all.sort(Comparator.comparing(MethodMetrics::getLayer).thenComparing(MethodMetrics::getName));
+
+        List<LatencyHistogram.Snapshot> snapshots = new ArrayList<>(all.size());
+        for (MethodMetrics m : all)
+            snapshots.add(m.getLatency().snapshot());
+
+        StringBuilder out = new StringBuilder(4096);
+
+        out.append("# HELP dscommerce_method_duration_seconds Latency of controller and service methods.\n");
+        out.append("# TYPE dscommerce_method_duration_seconds histogram\n");
+        for (int i = 0; i < all.size(); i++) {
+            String labels = labels(all.get(i));
+            LatencyHistogram.Snapshot s = snapshots.get(i);
+            for (double le : BUCKETS_SECONDS)
+                sample(out, "dscommerce_method_duration_seconds_bucket", labels + ",le=\"" + BigDecimal.valueOf(le).stripTrailingZeros().toPlainString() + "\"",
+                        s.countAtOrBelow((long) (le * 1e9)));
+            sample(out, "dscommerce_method_duration_seconds_bucket", labels + ",le=\"+Inf\"", s.getCount());
+            sample(out, "dscommerce_method_duration_seconds_sum", labels, s.getSumNanos() / 1e9);
+            sample(out, "dscommerce_method_duration_seconds_count", labels, s.getCount());
+        }
+
+        out.append("# HELP dscommerce_method_latency_seconds Latency percentiles since startup.\n");
+        out.append("# TYPE dscommerce_method_latency_seconds summary\n");
+        for (int i = 0; i < all.size(); i++) {
+            String labels = labels(all.get(i));
+            LatencyHistogram.Snapshot s = snapshots.get(i);
+            for (double q : QUANTILES)
+                sample(out, "dscommerce_method_latency_seconds", labels + ",quantile=\"" + BigDecimal.valueOf(q).stripTrailingZeros().toPlainString() + "\"", s.valueAtQuantile(q) / 1e9);
+            sample(out, "dscommerce_method_latency_seconds_sum", labels, s.getSumNanos() / 1e9);
+            sample(out, "dscommerce_method_latency_seconds_count", labels, s.getCount());
+        }
+
+        out.append("# HELP dscommerce_method_latency_max_seconds Slowest call since startup.\n");
+        out.append("# TYPE dscommerce_method_latency_max_seconds gauge\n");
+        for (int i = 0; i < all.size(); i++)
+            sample(out, "dscommerce_method_latency_max_seconds", labels(all.get(i)), snapshots.get(i).getMaxNanos() / 1e9);
+
+        out.append("# HELP dscommerce_method_in_flight Calls currently executing.\n");
+        out.append("# TYPE dscommerce_method_in_flight gauge\n");
+        for (MethodMetrics m : all)
+            sample(out, "dscommerce_method_in_flight", labels(m), m.getInFlight());
+
+        out.append("# HELP dscommerce_method_errors_total Calls that ended with an exception, by exception type.\n");
+        out.append("# TYPE dscommerce_method_errors_total counter\n");
+        for (MethodMetrics m : all)
+            for (Map.Entry<Class<?>, LongAdder> e : m.getErrors().entrySet())
+                sample(out, "dscommerce_method_errors_total", labels(m) + ",exception=\"" + e.getKey().getSimpleName() + "\"", e.getValue().sum());
+
+        return out.toString();
+    }
+
+    private static String labels(MethodMetrics m) {
+        return "layer=\"" + m.getLayer() + "\",method=\"" + m.getName() + "\"";
+    }
+
+    private static void sample(StringBuilder out, String name, String labels, double value) {
+        out.append(name).append('{').append(labels).append("} ").append(format(value)).append('\n');
+    }
+
+    private static String format(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15)
+            return Long.toString((long) value);
+        return Double.toString(value);
+    }
+}
@@ -0,0 +1,61 @@
+package com.juliock.dscommerce.services.metrics;
+
+import com.juliock.dscommerce.config.SecondLevelCacheConfig;
+import com.juliock.dscommerce.dto.CacheRegionStatsDTO;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+*   Acertos, falhas e gravações por região do cache de segundo nivel, lidos das estatisticas do Hibernate
+*       (hibernate.generate_statistics, ligado em config/SecondLevelCacheConfig). Os contadores sao acumulados desde a inicialização.
+*   O tamanho de cada região vem direto do Caffeine: o Hibernate nao sabe quantas entradas um cache JCache tem.
+*
+*   Com o cache desligado (dscommerce.l2-cache.enabled = false), as regiões nao existem para o Hibernate e a lista fica vazia.
+* */
+
+@Component
+public class SecondLevelCacheStatistics {
+
+    private static final List<String> REGIONS = List.of(
+            SecondLevelCacheConfig.CATEGORY_REGION,
+            SecondLevelCacheConfig.PRODUCT_REGION,
+            SecondLevelCacheConfig.PRODUCT_CATEGORIES_REGION,
+            SecondLevelCacheConfig.PRODUCT_SEARCH_REGION,
+            RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME);
+
+    private final Statistics statistics;
+    private final CacheManager cacheManager;
+
+    @Autowired
+    public SecondLevelCacheStatistics(EntityManagerFactory entityManagerFactory, CacheManager secondLevelCacheManager) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.cacheManager = secondLevelCacheManager;
+    }
+
+    public List<CacheRegionStatsDTO> regions() {
+        List<CacheRegionStatsDTO> result = new ArrayList<>(REGIONS.size());
+        for (String region : REGIONS) {
+            CacheRegionStatistics s = statistics.getCacheRegionStatistics(region);
+            if (s != null)
+                result.add(new CacheRegionStatsDTO(region, size(region), s.getHitCount(), s.getMissCount(), s.getPutCount()));
+        }
+        return result;
+    }
+
+    private long size(String region) {
+        Cache<Object, Object> cache = cacheManager.getCache(region);
+        if (cache == null)
+            return 0;
+        return cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class).estimatedSize();
+    }
+}
@@ -0,0 +1,130 @@
+package com.juliock.dscommerce.services.metrics;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+*   Contagem dos comandos SQL que o Hibernate executa numa thread, entre start() e close() do Scope.
+*
+*   Os ganchos do Hibernate (ver config/SqlStatementCountingConfig) chamam os metodos record...() estaticos,
+*       que somam no Scope aberto na thread atual (se nao houver nenhum, nao fazem nada).
+*   Scopes podem ser aninhados: o comando é contado em todos os Scopes abertos na thread.
+*
+*   Uso por request: o SqlStatementFilter abre um Scope para cada request e publica o resultado em headers e no log.
+*   Uso em testes, para que um N+1 quebre o build:
+*
+*       try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+*           orderService.findOrderById(1L);
+*           scope.assertStatementsAtMost(2);
+*       }
+*
+*       ou SqlStatementCounter.assertStatementsAtMost(2, () -> orderService.findOrderById(1L));
+* */
+
+public final class SqlStatementCounter {
+
+    private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+    private SqlStatementCounter() {
+    }
+
+    public static Scope start() {
+        Scope scope = new Scope(CURRENT.get());
+        CURRENT.set(scope);
+        return scope;
+    }
+
+    public static void assertStatementsAtMost(int max, Runnable action) {
+        try (Scope scope = start()) {
+            action.run();
+            scope.assertStatementsAtMost(max);
+        }
+    }
+
+    //  Chamado a cada execução de comando no JDBC (uma execução de lote conta como um comando: é uma ida ao banco)
+    public static void recordExecution(long nanos) {
+        for (Scope s = CURRENT.get(); s != null; s = s.parent) {
+            s.statements++;
+            s.jdbcNanos += nanos;
+        }
+    }
+
+    //  Chamado quando o Hibernate prepara um comando, com o SQL gerado
+    public static void recordSql(String sql) {
+        for (Scope s = CURRENT.get(); s != null; s = s.parent)
+            s.sqlCounts.merge(sql, 1, Integer::sum);
+    }
+
+    //  Chamado a cada entidade carregada do banco (hidratada a partir de um ResultSet)
+    public static void recordEntityLoaded() {
+        for (Scope s = CURRENT.get(); s != null; s = s.parent)
+            s.entitiesLoaded++;
+    }
+
+    public static final class Scope implements AutoCloseable {
+        private final Scope parent;
+        private final Map<String, Integer> sqlCounts = new HashMap<>();
+        private int statements;
+        private long jdbcNanos;
+        private int entitiesLoaded;
+        private boolean closed;
+
+        private Scope(Scope parent) {
+            this.parent = parent;
+        }
+
+        public int getStatements() {
+            return statements;
+        }
+
+        public long getJdbcNanos() {
+            return jdbcNanos;
+        }
+
+        public int getEntitiesLoaded() {
+            return entitiesLoaded;
+        }
+
+        //  Quantas vezes cada SQL distinto foi preparado
+        public Map<String, Integer> getSqlCounts() {
+            return sqlCounts;
+        }
+
+        //  SQLs preparados pelo menos "threshold" vezes: o sintoma tipico de N+1 (o mesmo SELECT repetido para cada item de uma lista)
+        public List<String> findRepeated(int threshold) {
+            List<String> repeated = new ArrayList<>();
+            for (Map.Entry<String, Integer> e : sqlCounts.entrySet())
+                if (e.getValue() >= threshold)
+                    repeated.add(e.getValue() + "x " + e.getKey());
+            return repeated;
+        }
+
+        public void assertStatementsAtMost(int max) {
+            if (statements > max)
+                throw new AssertionError("Expected at most " + max + " SQL statements but " + statements + " were executed:\n" + describe());
+        }
+
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            sqlCounts.entrySet().stream()
+                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+                    .forEach(e -> sb.append("  ").append(e.getValue()).append("x ").append(e.getKey()).append('\n'));
+            return sb.toString();
+        }
+
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            if (CURRENT.get() == this) {
+                if (parent == null)
+                    CURRENT.remove();
+                else
+                    CURRENT.set(parent);
+            }
+        }
+    }
+}
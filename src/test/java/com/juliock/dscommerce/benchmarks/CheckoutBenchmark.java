@@ -0,0 +1,93 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.DscommerceApplication;
+import com.juliock.dscommerce.dto.OrderCheckoutDTO;
+import com.juliock.dscommerce.dto.OrderCheckoutItemDTO;
+import com.juliock.dscommerce.dto.OrderDTO;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.services.OrderService;
+import com.juliock.dscommerce.services.ProductService;
+import com.juliock.dscommerce.services.StockService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Pedidos por segundo do checkout (OrderService.checkout) com 1, 10 e 100 itens por pedido, sobre o H2 embarcado:
+*       cliente + produtos em duas consultas, reserva de estoque em memória, INSERT do pedido, itens em lotes JDBC e o resumo materializado.
+*   O "withIdempotencyKey" mede o custo extra de registrar uma chave nova a cada pedido (IdempotencyStore).
+*
+*   Os produtos sao criados no setup com estoque de sobra, para que nenhuma reserva falhe durante a medição.
+*   Para executar: rodar o main() desta classe a partir da IDE (ou com o classpath de testes).
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CheckoutBenchmark {
+
+    private static final int PRODUCTS = 1_000;
+
+    @Param({"1", "10", "100"})
+    private int items;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private List<Long> productIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SpringApplication.run(DscommerceApplication.class,
+                "--spring.main.web-application-type=none", "--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        orderService = context.getBean(OrderService.class);
+        ProductService productService = context.getBean(ProductService.class);
+        StockService stockService = context.getBean(StockService.class);
+
+        List<ProductDTO> dtos = new ArrayList<>(PRODUCTS);
+        for (int i = 0; i < PRODUCTS; i++)
+            dtos.add(new ProductDTO(null, "Checkout Product " + i, "Lorem ipsum", 10.0 + i, "img.jpg"));
+        productIds = productService.insertProducts(dtos).getItems().stream().map(ProductDTO::getId).toList();
+        for (Long id : productIds)
+            stockService.adjustStock(id, 1_000_000_000L);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    //  "items" produtos distintos, a partir de uma posição aleatoria da lista
+    private OrderCheckoutDTO randomOrder() {
+        int start = ThreadLocalRandom.current().nextInt(PRODUCTS);
+        List<OrderCheckoutItemDTO> orderItems = new ArrayList<>(items);
+        for (int i = 0; i < items; i++)
+            orderItems.add(new OrderCheckoutItemDTO(productIds.get((start + i) % PRODUCTS), 1));
+        return new OrderCheckoutDTO(1L, orderItems, true);
+    }
+
+    @Benchmark
+    public OrderDTO checkout() {
+        return orderService.checkout(randomOrder(), null).getValue();
+    }
+
+    @Benchmark
+    public OrderDTO withIdempotencyKey() {
+        return orderService.checkout(randomOrder(), UUID.randomUUID().toString()).getValue();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(CheckoutBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,161 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.DscommerceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+*   Teste de SOBRECARGA com e sem o limite adaptativo de requests simultâneas (ConcurrencyLimits).
+*
+*   A aplicação sobe com virtual threads (nenhum limite de threads no Tomcat) e um pool de só POOL_SIZE conexões, e recebe
+*       bem mais clientes simultâneos do que consegue atender, todos fazendo GET /products?name=... e GET /reports/top-products
+*       em sequência, sem pausa. Para cada configuração sao impressos:
+*       - a vazão e a latência p50/p99 das requests ATENDIDAS (status 2xx);
+*       - quantas foram recusadas com 503 (e quanto tempo levou a recusa, p99) e quantas falharam de outro jeito.
+*   Sem o limite, todas as requests entram e esperam na fila do pool: a p99 cresce com o numero de clientes.
+*       Com o limite, o excesso recebe 503 em poucos milissegundos e a p99 das atendidas fica perto da latência sem carga.
+*
+*   Não é um benchmark JMH: o que se mede aqui é o servidor HTTP inteiro sob concorrência.
+*   Para executar: rodar o main() desta classe a partir da IDE (ou com o classpath de testes).
+* */
+
+public class ConcurrencyLimitLoadBenchmark {
+
+    private static final int POOL_SIZE = 4;
+    private static final int[] CLIENTS = {50, 500, 2_000};
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(20);
+    private static final String[] TERMS = {"gamer", "pc", "tv", "book", "macbook"};
+
+    public static void main(String[] args) throws Exception {
+        for (boolean limited : new boolean[] {false, true}) {
+            ConfigurableApplicationContext context = SpringApplication.run(DscommerceApplication.class,
+                    "--server.port=0", "--spring.profiles.active=test,virtual", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                    "--spring.datasource.hikari.maximum-pool-size=" + POOL_SIZE,
+                    "--spring.datasource.hikari.connection-timeout=30000",
+                    "--dscommerce.concurrency-limit.enabled=" + limited,
+                    "--dscommerce.rate-limit.enabled=false");    //  todos os clientes vêm do mesmo endereço: o limite por cliente é desligado
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+                for (int clients : CLIENTS) {
+                    run(client, port, clients, WARMUP);     //  aquecimento (JIT, pools, caches) e ajuste inicial do limite, resultado descartado
+                    Result result = run(client, port, clients, DURATION);
+                    System.out.printf("limit=%-5s clients=%-5d served=%9.1f req/s  p50=%8.2f ms  p99=%8.2f ms  rejected=%-8d reject-p99=%6.2f ms  errors=%d%n",
+                            limited, clients, result.throughput, result.p50Millis, result.p99Millis,
+                            result.rejected, result.rejectP99Millis, result.errors);
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static Result run(HttpClient client, int port, int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] served = new long[clients][];      //  cada cliente escreve só na sua posição
+        long[][] rejected = new long[clients][];
+        int[] servedCounts = new int[clients];
+        int[] rejectedCounts = new int[clients];
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int index = c;
+                executor.submit(() -> {
+                    long[] ok = new long[1024];
+                    long[] shed = new long[1024];
+                    int n = 0;
+                    int r = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(randomUri(port)).timeout(Duration.ofSeconds(60)).GET().build();
+                        long start = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+                        long elapsed = System.nanoTime() - start;
+                        if (status == 503) {
+                            if (r == shed.length)
+                                shed = Arrays.copyOf(shed, r * 2);
+                            shed[r++] = elapsed;
+                            Thread.sleep(1);    //  o cliente nao repete na mesma hora (um cliente real respeitaria o Retry-After)
+                        } else if (status >= 200 && status < 300) {
+                            if (n == ok.length)
+                                ok = Arrays.copyOf(ok, n * 2);
+                            ok[n++] = elapsed;
+                        } else {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    served[index] = ok;
+                    servedCounts[index] = n;
+                    rejected[index] = shed;
+                    rejectedCounts[index] = r;
+                    return null;
+                });
+            }
+        }   //  o close() do executor espera todos os clientes terminarem
+
+        long[] ok = merge(served, servedCounts);
+        long[] shed = merge(rejected, rejectedCounts);
+
+        Result result = new Result();
+        result.throughput = ok.length / (duration.toMillis() / 1000.0);
+        result.p50Millis = quantileMillis(ok, 0.50);
+        result.p99Millis = quantileMillis(ok, 0.99);
+        result.rejected = shed.length;
+        result.rejectP99Millis = quantileMillis(shed, 0.99);
+        result.errors = errors.get();
+        return result;
+    }
+
+    private static long[] merge(long[][] perClient, int[] counts) {
+        long[] all = new long[Arrays.stream(counts).sum()];
+        int pos = 0;
+        for (int c = 0; c < perClient.length; c++) {
+            System.arraycopy(perClient[c], 0, all, pos, counts[c]);
+            pos += counts[c];
+        }
+        Arrays.sort(all);
+        return all;
+    }
+
+    private static double quantileMillis(long[] sorted, double quantile) {
+        if (sorted.length == 0)
+            return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * quantile))] / 1_000_000.0;
+    }
+
+    private static URI randomUri(int port) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (random.nextInt(4) == 0)
+            return URI.create("http://localhost:" + port + "/reports/top-products?from=2020-01-01&to=2030-12-31");
+        return URI.create("http://localhost:" + port + "/products?name=" + TERMS[random.nextInt(TERMS.length)] + "&page=" + random.nextInt(3));
+    }
+
+    private static final class Result {
+        private double throughput;
+        private double p50Millis;
+        private double p99Millis;
+        private long rejected;
+        private double rejectP99Millis;
+        private long errors;
+    }
+}
@@ -0,0 +1,95 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.config.MethodMetricsInterceptor;
+import com.juliock.dscommerce.services.metrics.LatencyHistogram;
+import com.juliock.dscommerce.services.metrics.MethodMetricsRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.aop.framework.ProxyFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Custo da instrumentação de métricas (MethodMetricsInterceptor) por chamada:
+*       - direct:       chamada direta ao metodo, sem proxy (referência);
+*       - proxied:      chamada pelo proxy do Spring AOP SEM o interceptor de métricas (o custo que o @Transactional ja tem);
+*       - instrumented: chamada pelo proxy COM o interceptor de métricas;
+*       - record:       só o LatencyHistogram.record(), com 4 threads gravando no mesmo histograma (contenção).
+*
+*   A diferença instrumented - proxied é o overhead das métricas. Rodando pelo main() o GCProfiler é ligado:
+*       a coluna gc.alloc.rate.norm de "record" deve ser 0 B/op (o proxy em si aloca o MethodInvocation, com ou sem métricas).
+*   Resultado em nanossegundos por operação.
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MethodMetricsBenchmark {
+
+    public interface Work {
+        long compute(long value);
+    }
+
+    public static class SimpleWork implements Work {
+        @Override
+        public long compute(long value) {
+            return value * 31 + 7;
+        }
+    }
+
+    private Work direct;
+    private Work proxied;
+    private Work instrumented;
+    private LatencyHistogram histogram;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        direct = new SimpleWork();
+
+        ProxyFactory plain = new ProxyFactory(new SimpleWork());
+        plain.addInterface(Work.class);
+        plain.addAdvice((MethodInterceptor) MethodInvocation::proceed);
+        proxied = (Work) plain.getProxy();
+
+        ProxyFactory withMetrics = new ProxyFactory(new SimpleWork());
+        withMetrics.addInterface(Work.class);
+        withMetrics.addAdvice(new MethodMetricsInterceptor(new MethodMetricsRegistry()));
+        instrumented = (Work) withMetrics.getProxy();
+
+        histogram = new LatencyHistogram();
+    }
+
+    @Benchmark
+    public long direct() {
+        return direct.compute(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Benchmark
+    public long proxied() {
+        return proxied.compute(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Benchmark
+    public long instrumented() {
+        return instrumented.compute(ThreadLocalRandom.current().nextLong());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void record() {
+        histogram.record(ThreadLocalRandom.current().nextLong(1_000, 50_000_000));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MethodMetricsBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
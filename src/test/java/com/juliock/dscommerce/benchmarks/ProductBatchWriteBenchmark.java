@@ -0,0 +1,79 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juliock.dscommerce.DscommerceApplication;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.services.ProductService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Vazão de escrita: N produtos gravados um a um (o que o POST /products faz, uma transação e um INSERT por chamada)
+*       contra os mesmos N produtos gravados pelo caminho do POST /products/batch (blocos com INSERTs em lote JDBC).
+*
+*   O contexto do Spring sobe sem servidor web (o custo do HTTP é o mesmo nos dois casos) e com o show-sql desligado.
+*   Resultado em operações por segundo: cada operação grava "products" produtos.
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductBatchWriteBenchmark {
+
+    @Param({"100", "1000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private List<ProductDTO> dtos;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SpringApplication.run(DscommerceApplication.class,
+                "--spring.main.web-application-type=none", "--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        productService = context.getBean(ProductService.class);
+
+        //  O ProductDTO nao tem setters, entao os itens sao criados como o Controller os recebe: a partir de JSON
+        ObjectMapper mapper = context.getBean(ObjectMapper.class);
+        dtos = new ArrayList<>(products);
+        for (int i = 0; i < products; i++)
+            dtos.add(mapper.convertValue(Map.of("name", "Benchmark Product " + i, "description", "Lorem ipsum dolor sit amet",
+                    "price", 10.0 + i, "imgUrl", "img.jpg"), ProductDTO.class));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int singleItem() {
+        int saved = 0;
+        for (ProductDTO dto : dtos) {
+            productService.insertProduct(dto);
+            saved++;
+        }
+        return saved;
+    }
+
+    @Benchmark
+    public int batch() {
+        return productService.insertProducts(dtos).getSucceeded();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductBatchWriteBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.dto.ProductMinDTO;
+import com.juliock.dscommerce.entities.Product;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Custo de CPU do que toda resposta de listagem de produtos faz depois de sair do banco:
+*       - conversão Product -> ProductDTO (o map(ProductDTO::new) dos services);
+*       - serialização JSON da Page<ProductDTO> que o Controller devolve;
+*       - serialização da Page<ProductMinDTO> da listagem resumida (?view=summary), sem a description.
+*
+*   Nao sobe o contexto do Spring: o ObjectMapper é criado pelo mesmo builder que o Spring Boot usa, entao a configuração é equivalente.
+*   Resultado em microssegundos por operação (uma pagina inteira por operação).
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductMappingBenchmark {
+
+    @Param({"20", "200"})
+    private int pageSize;
+
+    private List<Product> products;
+    private Page<ProductDTO> page;
+    private Page<ProductMinDTO> summaryPage;
+    private ObjectMapper mapper;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        products = new ArrayList<>(pageSize);
+        for (long i = 1; i <= pageSize; i++)
+            products.add(new Product(i, "Benchmark Product " + i,
+                    "Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.",
+                    10.0 + i, "https://raw.githubusercontent.com/devsuperior/dscatalog-resources/master/backend/img/" + i + "-big.jpg"));
+
+        page = new PageImpl<>(products.stream().map(ProductDTO::new).toList(), PageRequest.of(0, pageSize), 100_000);
+        summaryPage = new PageImpl<>(products.stream().map(p -> new ProductMinDTO(p.getId(), p.getName(), p.getPrice(), p.getImgUrl())).toList(),
+                PageRequest.of(0, pageSize), 100_000);
+        mapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<ProductDTO> productToDto() {
+        return products.stream().map(ProductDTO::new).toList();
+    }
+
+    @Benchmark
+    public byte[] serializePage() throws Exception {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaryPage() throws Exception {
+        return mapper.writeValueAsBytes(summaryPage);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductMappingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,124 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.services.indexes.ProductNameIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Sort;
+
+import java.sql.*;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Compara a busca por nome feita pelo banco (LIKE '%termo%', que obriga a varredura completa da tb_product)
+*       com a busca pelo ProductNameIndex (trigramas em memória), para 10 mil, 100 mil e 1 milhão de produtos.
+*
+*   O banco é um H2 em memória acessado direto via JDBC, com a mesma consulta que o Hibernate gera para a searchByName
+*       (pagina de 20 elementos + a consulta de COUNT que o Page precisa).
+*
+*   Para executar: rodar o main() desta classe a partir da IDE (ou com o classpath de testes).
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductNameSearchBenchmark {
+
+    private static final String[] WORDS = {"PC", "Gamer", "Smart", "TV", "Macbook", "Pro", "Rails", "Lord", "Rings", "Monitor",
+            "Mouse", "Keyboard", "Ultra", "Max", "Nitro", "Alfa", "Tera", "Phone", "Tablet", "Book"};
+
+    @Param({"10000", "100000", "1000000"})
+    private int products;
+
+    @Param({"gamer nitro", "tv"})
+    private String term;
+
+    private Connection connection;
+    private PreparedStatement likePage;
+    private PreparedStatement likeCount;
+    private PreparedStatement byIds;
+    private ProductNameIndex index;
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:bench" + products + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS tb_product");
+            st.execute("CREATE TABLE tb_product (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name VARCHAR(255), " +
+                    "description TEXT, price DOUBLE, img_url VARCHAR(255))");
+        }
+
+        index = new ProductNameIndex();
+        Random random = new Random(42);
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO tb_product (id, name, description, price, img_url) VALUES (?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= products; id++) {
+                String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + id;
+                insert.setLong(1, id);
+                insert.setString(2, name);
+                insert.setString(3, "Lorem ipsum dolor sit amet");
+                insert.setDouble(4, 10 + random.nextInt(5000));
+                insert.setString(5, "img.jpg");
+                insert.addBatch();
+                if (id % 10_000 == 0)
+                    insert.executeBatch();
+
+                index.put(id, name);
+            }
+            insert.executeBatch();
+        }
+        index.markReady();
+
+        likePage = connection.prepareStatement("SELECT id, name, description, price, img_url FROM tb_product " +
+                "WHERE UPPER(name) LIKE UPPER(CONCAT('%', ?, '%')) OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY");
+        likeCount = connection.prepareStatement("SELECT COUNT(id) FROM tb_product WHERE UPPER(name) LIKE UPPER(CONCAT('%', ?, '%'))");
+        byIds = connection.prepareStatement("SELECT id, name, description, price, img_url FROM tb_product WHERE id = ANY(?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE tb_product");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public long likeScan() throws SQLException {
+        long checksum = 0;
+        likePage.setString(1, term);
+        try (ResultSet rs = likePage.executeQuery()) {
+            while (rs.next())
+                checksum += rs.getLong(1);
+        }
+        likeCount.setString(1, term);
+        try (ResultSet rs = likeCount.executeQuery()) {
+            rs.next();
+            checksum += rs.getLong(1);
+        }
+        return checksum;
+    }
+
+    //  Mesmo caminho do ProductService: ids pelo indice e depois só a pagina buscada no banco pela PK (findAllById)
+    @Benchmark
+    public long trigramIndex() throws SQLException {
+        List<Long> ids = index.search(term, Sort.unsorted());
+        long checksum = ids.size();
+        byIds.setObject(1, ids.subList(0, Math.min(20, ids.size())).toArray(new Long[0]));
+        try (ResultSet rs = byIds.executeQuery()) {
+            while (rs.next())
+                checksum += rs.getLong(1);
+        }
+        return checksum;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductNameSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,148 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.services.indexes.ProductPriceIndex;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.*;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Compara o filtro por faixa de preço + ordenação por preço feito pelo banco com o ProductPriceIndex (arrays primitivos ordenados),
+*       para 10 mil, 100 mil e 1 milhão de produtos.
+*
+*   O banco é um H2 em memória acessado direto via JDBC, com o mesmo indice (price, id) da entidade Product e as mesmas consultas
+*       que o Hibernate gera para a listagem (pagina de 20 elementos + a consulta de COUNT que o Page precisa).
+*   O "range" é uma faixa de ~10% dos preços, e o "all" é a ordenação por preço do catalogo inteiro (sem faixa).
+*
+*   O updatePrice mede o custo de uma escrita no indice (cada put remonta os arrays), que é o preço pago pelas leituras sem lock.
+*
+*   Para executar: rodar o main() desta classe a partir da IDE (ou com o classpath de testes).
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductPriceSearchBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int products;
+
+    @Param({"range", "all"})
+    private String filter;
+
+    private Connection connection;
+    private PreparedStatement pricePage;
+    private PreparedStatement priceCount;
+    private PreparedStatement byIds;
+    private ProductPriceIndex index;
+    private Double minPrice;
+    private Double maxPrice;
+    private final Random random = new Random(7);
+
+    @Setup(Level.Trial)
+    public void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:price" + products + ";DB_CLOSE_DELAY=-1", "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE IF EXISTS tb_product");
+            st.execute("CREATE TABLE tb_product (id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY, name VARCHAR(255), " +
+                    "description TEXT, price DOUBLE, img_url VARCHAR(255))");
+            st.execute("CREATE INDEX idx_product_price_id ON tb_product (price, id)");
+        }
+
+        index = new ProductPriceIndex();
+        Map<Long, Double> prices = new HashMap<>();
+        Random random = new Random(42);
+
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO tb_product (id, name, description, price, img_url) VALUES (?, ?, ?, ?, ?)")) {
+            for (long id = 1; id <= products; id++) {
+                double price = 10 + random.nextInt(500_000) / 100.0;
+                insert.setLong(1, id);
+                insert.setString(2, "Product " + id);
+                insert.setString(3, "Lorem ipsum dolor sit amet");
+                insert.setDouble(4, price);
+                insert.setString(5, "img.jpg");
+                insert.addBatch();
+                if (id % 10_000 == 0)
+                    insert.executeBatch();
+
+                prices.put(id, price);
+            }
+            insert.executeBatch();
+        }
+        index.putAll(prices);
+        index.markReady();
+
+        if (filter.equals("range")) {
+            minPrice = 1000.0;
+            maxPrice = 1500.0;
+        }
+
+        pricePage = connection.prepareStatement("SELECT id, name, description, price, img_url FROM tb_product " +
+                "WHERE (? IS NULL OR price >= ?) AND (? IS NULL OR price <= ?) ORDER BY price, id OFFSET 0 ROWS FETCH FIRST 20 ROWS ONLY");
+        priceCount = connection.prepareStatement("SELECT COUNT(id) FROM tb_product WHERE (? IS NULL OR price >= ?) AND (? IS NULL OR price <= ?)");
+        byIds = connection.prepareStatement("SELECT id, name, description, price, img_url FROM tb_product WHERE id = ANY(?)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP TABLE tb_product");
+        }
+        connection.close();
+    }
+
+    private void bindRange(PreparedStatement ps) throws SQLException {
+        ps.setObject(1, minPrice, Types.DOUBLE);
+        ps.setObject(2, minPrice, Types.DOUBLE);
+        ps.setObject(3, maxPrice, Types.DOUBLE);
+        ps.setObject(4, maxPrice, Types.DOUBLE);
+    }
+
+    @Benchmark
+    public long database() throws SQLException {
+        long checksum = 0;
+        bindRange(pricePage);
+        try (ResultSet rs = pricePage.executeQuery()) {
+            while (rs.next())
+                checksum += rs.getLong(1);
+        }
+        bindRange(priceCount);
+        try (ResultSet rs = priceCount.executeQuery()) {
+            rs.next();
+            checksum += rs.getLong(1);
+        }
+        return checksum;
+    }
+
+    //  Mesmo caminho do ProductService: total e pagina lidos dos arrays do indice, e depois só a pagina buscada no banco pela PK (findAllById)
+    @Benchmark
+    public long priceIndex() throws SQLException {
+        ProductPriceIndex.PriceRange range = index.sorted(minPrice, maxPrice, true, null);
+        long checksum = range.count();
+        byIds.setObject(1, range.page(0, 20).toArray(new Long[0]));
+        try (ResultSet rs = byIds.executeQuery()) {
+            while (rs.next())
+                checksum += rs.getLong(1);
+        }
+        return checksum;
+    }
+
+    @Benchmark
+    public int updatePrice() {
+        index.put(1L + random.nextInt(products), 10 + random.nextInt(500_000) / 100.0);
+        return index.size();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductPriceSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,123 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.juliock.dscommerce.DscommerceApplication;
+import com.juliock.dscommerce.controllers.handlers.ControllerExceptionHandler;
+import com.juliock.dscommerce.dto.CustomError;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.services.ProductService;
+import com.juliock.dscommerce.services.exceptions.ResourceNotFoundException;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Caminhos quentes do ProductService sobre o H2 embarcado, com um volume de dados realista (além dos 25 produtos do import.sql):
+*       - findProductById num conjunto pequeno de ids (sempre no ProductCache) e em ids aleatórios de toda a tabela;
+*       - searchProductByName com termos de seletividade diferente (primeira pagina, 20 itens);
+*       - o 404: findProductById com um id inexistente + ControllerExceptionHandler.resourceNotFound montando o CustomError.
+*
+*   O contexto do Spring sobe sem servidor web e com o show-sql desligado; os produtos sao gravados pelo insertProducts (em lote).
+*   Resultado em microssegundos por operação.
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductServiceBenchmark {
+
+    private static final int SEED_CHUNK = 5_000;
+    private static final long[] HOT_IDS = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+    private static final String[] WORDS = {"Gamer", "Notebook", "Smart", "Cadeira", "Livro", "Monitor", "Teclado", "Mouse"};
+
+    @Param({"100000"})
+    private int products;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ControllerExceptionHandler exceptionHandler;
+    private MockHttpServletRequest notFoundRequest;
+    private long maxId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SpringApplication.run(DscommerceApplication.class,
+                "--spring.main.web-application-type=none", "--spring.jpa.show-sql=false", "--logging.level.root=WARN");
+        productService = context.getBean(ProductService.class);
+        exceptionHandler = context.getBean(ControllerExceptionHandler.class);
+
+        //  O ProductDTO nao tem setters, entao os itens sao criados como o Controller os recebe: a partir de JSON
+        ObjectMapper mapper = context.getBean(ObjectMapper.class);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int done = 0; done < products; done += SEED_CHUNK) {
+            List<ProductDTO> chunk = new ArrayList<>(SEED_CHUNK);
+            for (int i = done; i < Math.min(products, done + SEED_CHUNK); i++) {
+                String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+                chunk.add(mapper.convertValue(Map.of("name", name, "description", "Lorem ipsum dolor sit amet",
+                        "price", 10.0 + random.nextInt(5_000), "imgUrl", "img.jpg"), ProductDTO.class));
+            }
+            productService.insertProducts(chunk);
+        }
+
+        maxId = 25 + products;
+        notFoundRequest = new MockHttpServletRequest("GET", "/products/" + (maxId * 10));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ProductDTO findByIdHot() {
+        return productService.findProductById(HOT_IDS[ThreadLocalRandom.current().nextInt(HOT_IDS.length)]);
+    }
+
+    @Benchmark
+    public ProductDTO findByIdRandom() {
+        return productService.findProductById(1 + ThreadLocalRandom.current().nextLong(maxId));
+    }
+
+    @Benchmark
+    public Page<ProductDTO> searchByName(SearchTerm search) {
+        return productService.searchProductByName(search.term, PageRequest.of(0, 20));
+    }
+
+    @Benchmark
+    public ResponseEntity<CustomError> notFound() {
+        try {
+            productService.findProductById(maxId * 10 + ThreadLocalRandom.current().nextLong(maxId));
+            throw new IllegalStateException("Product should not exist");
+        } catch (ResourceNotFoundException e) {
+            return exceptionHandler.resourceNotFound(e, notFoundRequest);
+        }
+    }
+
+    //  Em um @State separado para que só o searchByName seja repetido para cada termo.
+    //      "o" tem menos de 3 letras (sem trigramas): o ProductNameIndex varre todos os nomes e quase todos os produtos batem.
+    @State(Scope.Benchmark)
+    public static class SearchTerm {
+        @Param({"macbook", "gamer", "o"})
+        private String term;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ProductServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
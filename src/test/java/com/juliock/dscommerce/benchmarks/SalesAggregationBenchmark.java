@@ -0,0 +1,79 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.services.analytics.OrderItemScanner;
+import com.juliock.dscommerce.services.analytics.SalesAggregationTask;
+import com.juliock.dscommerce.services.analytics.SalesMap;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Escalabilidade da agregação de top produtos (SalesAggregationTask + SalesMap) com 1, 2, 4 e 8 threads,
+*       sobre 10 milhões de itens sinteticos (2,5 milhões de pedidos com 4 itens cada, 100 mil produtos).
+*
+*   Os itens sao GERADOS na hora a partir do id do pedido (sem tabela em memória): o heap usado pelo benchmark é só o dos SalesMap,
+*       o que deixa visivel no GCProfiler (gc.alloc.rate.norm) que a agregação nao aloca nada por item.
+*   O banco fica de fora de proposito: o que se mede aqui é a divisão do trabalho e a junção dos parciais, nao o JDBC.
+*
+*   Para executar: rodar o main() desta classe a partir da IDE (ou com o classpath de testes).
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx512m"})
+public class SalesAggregationBenchmark {
+
+    private static final long ORDERS = 2_500_000;
+    private static final int ITEMS_PER_ORDER = 4;
+    private static final int PRODUCTS = 100_000;
+    private static final long CHUNK_ORDERS = 20_000;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private ForkJoinPool pool;
+
+    //  Mesmo pedido -> mesmos itens, em qualquer thread e em qualquer execução
+    static final OrderItemScanner SYNTHETIC = (fromOrderId, toOrderId, visitor) -> {
+        for (long orderId = fromOrderId; orderId < toOrderId; orderId++) {
+            long moment = 1_700_000_000_000L + orderId * 1000;
+            for (int k = 0; k < ITEMS_PER_ORDER; k++) {
+                long h = (orderId * ITEMS_PER_ORDER + k) * 0x9E3779B97F4A7C15L;
+                long productId = 1 + Math.floorMod(h ^ (h >>> 29), PRODUCTS);
+                double price = 1 + (productId % 1000) / 10.0;
+                int quantity = 1 + (int) ((h >>> 60) & 3);
+                visitor.visit(moment, productId, price, quantity);
+            }
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public long topProducts() {
+        SalesMap sales = pool.invoke(new SalesAggregationTask(SYNTHETIC, (moment, productId, sink) -> sink.accept(productId),
+                1, ORDERS + 1, CHUNK_ORDERS, 1024));
+        return sales.topByRevenue(10)[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SalesAggregationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class).build()).run();
+    }
+}
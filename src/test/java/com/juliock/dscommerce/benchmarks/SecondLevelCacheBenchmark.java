@@ -0,0 +1,140 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.DscommerceApplication;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.entities.Category;
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.repositories.ProductRepository;
+import com.juliock.dscommerce.services.ProductService;
+import com.juliock.dscommerce.services.metrics.SqlStatementCounter;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+*   Idas ao banco de uma navegação realista pelo catalogo, com e sem o cache de segundo nivel (config/SecondLevelCacheConfig):
+*       - 70% das operações abrem um produto (findById + categorias), com 80% das visitas concentradas em 20% dos produtos;
+*       - 29% buscam por nome (searchByName, primeira ou segunda pagina de 20), com alguns termos populares;
+*       - 1% altera um produto pelo ProductService (as invalidações fazem parte da medição).
+*
+*   As leituras vao direto no ProductRepository, cada uma na sua transação (como requests diferentes): o ProductCache e o
+*       ProductPageCache do ProductService ficam de fora, para medir só o que o Hibernate manda para o banco.
+*   Além do tempo por operação, o TearDown imprime os comandos SQL por operação (SqlStatementCounter).
+* */
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SecondLevelCacheBenchmark {
+
+    private static final int PRODUCTS = 10_000;
+    private static final int SEED_CHUNK = 1_000;
+    private static final String[] WORDS = {"Gamer", "Notebook", "Smart", "Cadeira", "Livro", "Monitor", "Teclado", "Mouse"};
+
+    @Param({"true", "false"})
+    private boolean secondLevelCache;
+
+    private ConfigurableApplicationContext context;
+    private ProductService productService;
+    private ProductRepository productRepository;
+    private TransactionTemplate transactionTemplate;
+    private List<Long> ids;
+
+    private long operations;
+    private long statements;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = SpringApplication.run(DscommerceApplication.class,
+                "--spring.main.web-application-type=none", "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                "--dscommerce.l2-cache.enabled=" + secondLevelCache);
+        productService = context.getBean(ProductService.class);
+        productRepository = context.getBean(ProductRepository.class);
+        transactionTemplate = context.getBean(TransactionTemplate.class);
+
+        //  Cada produto em 1 ou 2 das 3 categorias do import.sql
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        ids = new ArrayList<>(PRODUCTS);
+        for (int done = 0; done < PRODUCTS; done += SEED_CHUNK) {
+            List<ProductDTO> dtos = new ArrayList<>(SEED_CHUNK);
+            List<Set<Long>> categories = new ArrayList<>(SEED_CHUNK);
+            for (int i = done; i < done + SEED_CHUNK; i++) {
+                String name = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + i;
+                dtos.add(new ProductDTO(null, name, "Lorem ipsum dolor sit amet", 10.0 + random.nextInt(5_000), "img.jpg"));
+                long first = 1 + random.nextInt(3);
+                categories.add(random.nextBoolean() ? Set.of(first) : Set.of(first, 1 + first % 3));
+            }
+            productService.insertProductsWithCategories(dtos, categories).forEach(dto -> ids.add(dto.getId()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.out.printf("%n[secondLevelCache=%s] %.2f SQL statements per operation (%d operations)%n",
+                secondLevelCache, (double) statements / operations, operations);
+        context.close();
+    }
+
+    @Benchmark
+    public Object browse() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int dice = random.nextInt(100);
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            Object result;
+            if (dice < 70)
+                result = viewProduct(randomId(random));
+            else if (dice < 99)
+                result = search(WORDS[random.nextInt(3)], random.nextInt(2));   //  os 3 primeiros termos sao os "populares"
+            else
+                result = rename(randomId(random));
+
+            operations++;
+            statements += scope.getStatements();
+            return result;
+        }
+    }
+
+    //  80% das visitas nos primeiros 20% dos produtos
+    private Long randomId(ThreadLocalRandom random) {
+        int hot = PRODUCTS / 5;
+        int index = (random.nextInt(100) < 80) ? random.nextInt(hot) : hot + random.nextInt(PRODUCTS - hot);
+        return ids.get(index);
+    }
+
+    private List<String> viewProduct(Long id) {
+        return transactionTemplate.execute(status -> {
+            Product product = productRepository.findById(id).orElseThrow();
+            return product.getCategories().stream().map(Category::getName).toList();
+        });
+    }
+
+    private List<Long> search(String term, int page) {
+        return transactionTemplate.execute(status ->
+                productRepository.searchByName(term, PageRequest.of(page, 20)).map(Product::getId).getContent());
+    }
+
+    private ProductDTO rename(Long id) {
+        ProductDTO current = transactionTemplate.execute(status -> new ProductDTO(productRepository.findById(id).orElseThrow()));
+        return productService.updateProduct(id, new ProductDTO(id, current.getName(), current.getDescription(),
+                current.getPrice() + 1, current.getImgUrl()));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(SecondLevelCacheBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,112 @@
+package com.juliock.dscommerce.benchmarks;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+*   Tempo de inicialização de cada modo, medido de fora: do início do processo java até a primeira resposta 200 de GET /products.
+*
+*   Modos (cada um acrescenta uma otimização ao anterior):
+*       - import-sql: o padrão, o Hibernate cria o schema e executa o import.sql;
+*       - snapshot: profile fast-start, copia o banco H2 ja pronto;
+*       - snapshot+aot: + o contexto processado pelo Spring AOT (-Dspring.aot.enabled=true);
+*       - snapshot+aot+cds: + o arquivo de class-data sharing gerado na execução de treino (-XX:SharedArchiveFile).
+*
+*   Cada modo roda ROUNDS vezes num processo novo (a primeira, descartada, aquece o cache de disco do sistema operacional),
+*       e sao impressos o menor tempo, a mediana e o maior.
+*
+*   Precisa dos artefatos do build: mvn -P fast-start package (jar extraido, snapshot e dscommerce.jsa em target/fast-start).
+*   Não é um benchmark JMH: para executar, rodar o main() desta classe a partir da IDE (ou com o classpath de testes), no diretorio do projeto.
+* */
+
+public class StartupBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final Duration TIMEOUT = Duration.ofMinutes(2);
+    private static final Path APP_DIR = Path.of("target/fast-start/app");
+    private static final Path CDS_ARCHIVE = APP_DIR.resolve("dscommerce.jsa");
+
+    public static void main(String[] args) throws Exception {
+        Path jar = findJar();
+        String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+
+        String[][] modes = {
+                {"import-sql", "test"},
+                {"snapshot", "test,fast-start"},
+                {"snapshot+aot", "test,fast-start", "-Dspring.aot.enabled=true"},
+                {"snapshot+aot+cds", "test,fast-start", "-Dspring.aot.enabled=true", "-XX:SharedArchiveFile=" + CDS_ARCHIVE}
+        };
+
+        try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(1)).build()) {
+            for (String[] mode : modes) {
+                List<String> jvmArgs = Arrays.asList(mode).subList(2, mode.length);
+                long[] millis = new long[ROUNDS];
+                timeToFirstResponse(client, java, jar, mode[1], jvmArgs);      //  descartada
+                for (int r = 0; r < ROUNDS; r++)
+                    millis[r] = timeToFirstResponse(client, java, jar, mode[1], jvmArgs);
+                Arrays.sort(millis);
+                System.out.printf("mode=%-17s min=%6d ms  median=%6d ms  max=%6d ms%n", mode[0], millis[0], millis[ROUNDS / 2], millis[ROUNDS - 1]);
+            }
+        }
+    }
+
+    private static long timeToFirstResponse(HttpClient client, String java, Path jar, String profiles, List<String> jvmArgs)
+            throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=" + port, "--spring.profiles.active=" + profiles,
+                "--spring.jpa.show-sql=false", "--logging.level.root=WARN"));
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/products"))
+                .timeout(Duration.ofSeconds(5)).GET().build();
+
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+        try {
+            while (System.nanoTime() - start < TIMEOUT.toNanos()) {
+                if (!process.isAlive())
+                    throw new IllegalStateException("Application exited with code " + process.exitValue() + ": " + command);
+                try {
+                    if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200)
+                        return (System.nanoTime() - start) / 1_000_000;
+                } catch (ConnectException e) {
+                    //  servidor ainda nao está aceitando conexões
+                }
+                Thread.sleep(5);
+            }
+            throw new IllegalStateException("No successful GET /products after " + TIMEOUT + ": " + command);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static Path findJar() throws IOException {
+        if (!Files.isDirectory(APP_DIR))
+            throw new IllegalStateException(APP_DIR.toAbsolutePath() + " not found: run mvn -P fast-start package first");
+        try (Stream<Path> files = Files.list(APP_DIR)) {
+            return files.filter(f -> f.toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + APP_DIR.toAbsolutePath()));
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
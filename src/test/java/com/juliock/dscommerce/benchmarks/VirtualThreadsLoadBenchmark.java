@@ -0,0 +1,137 @@
+package com.juliock.dscommerce.benchmarks;
+
+import com.juliock.dscommerce.DscommerceApplication;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+*   Teste de carga comparando os dois modos de execução: threads de plataforma (padrão do Tomcat) e virtual threads (profile "virtual").
+*
+*   Para cada modo a aplicação sobe numa porta aleatória e recebe 100, 1.000 e 10.000 clientes simultâneos,
+*       cada um fazendo requests em sequência (sem pausa) durante DURATION. As requests misturam leituras que costumam sair de cache
+*       (GET /products/{id}, GET /products?name=...) com outras que quase sempre vao ao banco: paginas e tamanhos aleatorios
+*       ordenados por preço, a listagem resumida (view=summary) e GET /orders/{id}.
+*   Ao final de cada rodada sao impressos a vazão (requests/s), a latência p50/p99 e a quantidade de erros (ex: 503).
+*
+*   Não é um benchmark JMH: o que se mede aqui é o servidor HTTP inteiro sob concorrência.
+*       Os clientes rodam em virtual threads, entao 10.000 clientes nao exigem 10.000 threads de plataforma no gerador de carga
+*       (mas exigem limite de arquivos abertos compativel: ulimit -n).
+*
+*   Para executar: rodar o main() desta classe a partir da IDE (ou com o classpath de testes).
+* */
+
+public class VirtualThreadsLoadBenchmark {
+
+    private static final int[] CLIENTS = {100, 1_000, 10_000};
+    private static final Duration WARMUP = Duration.ofSeconds(5);
+    private static final Duration DURATION = Duration.ofSeconds(20);
+    private static final String[] TERMS = {"gamer", "pc", "tv", "book", "macbook"};
+
+    public static void main(String[] args) throws Exception {
+        for (String mode : new String[] {"platform", "virtual"}) {
+            String profiles = mode.equals("virtual") ? "test,virtual" : "test";
+            ConfigurableApplicationContext context = SpringApplication.run(DscommerceApplication.class,
+                    "--server.port=0", "--spring.profiles.active=" + profiles, "--spring.jpa.show-sql=false", "--logging.level.root=WARN",
+                    //  todos os clientes vêm do mesmo endereço (limite por cliente desligado), e o que se compara é o servidor sem
+                    //  o limite adaptativo de concorrência, que recusaria com 503 parte da carga dos dois modos
+                    "--dscommerce.rate-limit.enabled=false", "--dscommerce.concurrency-limit.enabled=false");
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+
+            try (HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor()).build()) {
+                for (int clients : CLIENTS) {
+                    run(client, port, clients, WARMUP);     //  aquecimento (JIT, pools, caches), resultado descartado
+                    Result result = run(client, port, clients, DURATION);
+                    System.out.printf("mode=%-8s clients=%-6d throughput=%10.1f req/s  p50=%8.2f ms  p99=%8.2f ms  errors=%d%n",
+                            mode, clients, result.throughput, result.p50Millis, result.p99Millis, result.errors);
+                }
+            } finally {
+                context.close();
+            }
+        }
+    }
+
+    private static Result run(HttpClient client, int port, int clients, Duration duration) throws InterruptedException {
+        long deadline = System.nanoTime() + duration.toNanos();
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];     //  cada cliente escreve só na sua posição
+        int[] counts = new int[clients];
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int index = c;
+                executor.submit(() -> {
+                    long[] local = new long[1024];
+                    int n = 0;
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(randomUri(port)).timeout(Duration.ofSeconds(30)).GET().build();
+                        long start = System.nanoTime();
+                        try {
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            if (response.statusCode() >= 500)
+                                errors.incrementAndGet();
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if (n == local.length)
+                            local = Arrays.copyOf(local, n * 2);
+                        local[n++] = System.nanoTime() - start;
+                    }
+                    latencies[index] = local;
+                    counts[index] = n;
+                });
+            }
+        }   //  o close() do executor espera todos os clientes terminarem
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int pos = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, pos, counts[c]);
+            pos += counts[c];
+        }
+        Arrays.sort(all);
+
+        Result result = new Result();
+        result.throughput = total / (duration.toMillis() / 1000.0);
+        result.p50Millis = (total == 0) ? 0 : all[(int) (total * 0.50)] / 1_000_000.0;
+        result.p99Millis = (total == 0) ? 0 : all[Math.min(total - 1, (int) (total * 0.99))] / 1_000_000.0;
+        result.errors = errors.get();
+        return result;
+    }
+
+    private static URI randomUri(int port) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String base = "http://localhost:" + port;
+        int dice = random.nextInt(100);
+        if (dice < 30)
+            return URI.create(base + "/products/" + (1 + random.nextInt(25)));
+        if (dice < 50)
+            return URI.create(base + "/products?name=" + TERMS[random.nextInt(TERMS.length)] + "&page=" + random.nextInt(3));
+        if (dice < 70)  //  paginas e tamanhos aleatorios: muitas chaves diferentes, a maioria fora do cache de paginas
+            return URI.create(base + "/products?page=" + random.nextInt(50) + "&size=" + (1 + random.nextInt(20)) + "&sort=price");
+        if (dice < 85)
+            return URI.create(base + "/products?view=summary&name=" + TERMS[random.nextInt(TERMS.length)] + "&page=" + random.nextInt(50)
+                    + "&size=" + (1 + random.nextInt(20)));
+        return URI.create(base + "/orders/" + (1 + random.nextInt(3)));
+    }
+
+    private static final class Result {
+        private double throughput;
+        private double p50Millis;
+        private double p99Millis;
+        private long errors;
+    }
+}
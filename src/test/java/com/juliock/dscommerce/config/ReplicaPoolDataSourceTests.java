@@ -0,0 +1,146 @@
+package com.juliock.dscommerce.config;
+
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+*   Escolha da réplica no ReplicaPoolDataSource, com DataSources falsos (sem banco):
+*       round-robin, least-connections, réplicas fora de rotação (inclusive durante a copia) e a thread marcada para o principal.
+* */
+
+class ReplicaPoolDataSourceTests {
+
+    private final DataSource primary = fakeDataSource();
+    private final List<DataSource> replicas = List.of(fakeDataSource(), fakeDataSource(), fakeDataSource());
+
+    @Test
+    void roundRobinSpreadsConnectionsEvenly() throws SQLException {
+        ReplicaPoolDataSource pool = new ReplicaPoolDataSource(primary, replicas, ReplicaPoolDataSource.Balancing.ROUND_ROBIN, true);
+
+        for (int i = 0; i < 30; i++)
+            pool.getConnection().close();
+
+        for (int i = 0; i < replicas.size(); i++)
+            assertEquals(10, pool.getServed(i));
+        assertEquals(0, pool.getServedByPrimary());
+    }
+
+    @Test
+    void leastConnectionsAvoidsBusyReplicas() throws SQLException {
+        ReplicaPoolDataSource pool = new ReplicaPoolDataSource(primary, replicas, ReplicaPoolDataSource.Balancing.LEAST_CONNECTIONS, true);
+
+        //  Duas conexões presas (ex: leituras longas): cada uma numa réplica diferente, e a terceira réplica recebe todo o resto
+        List<Connection> held = new ArrayList<>(List.of(pool.getConnection(), pool.getConnection()));
+        int idle = -1;
+        for (int i = 0; i < replicas.size(); i++)
+            if (pool.getActive(i) == 0)
+                idle = i;
+
+        for (int i = 0; i < 10; i++)
+            pool.getConnection().close();
+
+        assertEquals(10, pool.getServed(idle));
+        for (Connection connection : held)
+            connection.close();
+        for (int i = 0; i < replicas.size(); i++)
+            assertEquals(0, pool.getActive(i));
+    }
+
+    @Test
+    void unavailableReplicasAndPinnedThreadsUsePrimary() throws SQLException {
+        ReplicaPoolDataSource pool = new ReplicaPoolDataSource(primary, replicas, ReplicaPoolDataSource.Balancing.ROUND_ROBIN, true);
+        pool.setAvailable(0, false);
+        pool.setAvailable(1, false);
+
+        for (int i = 0; i < 4; i++)
+            pool.getConnection().close();
+        assertEquals(4, pool.getServed(2));
+
+        pool.setAvailable(2, false);
+        pool.getConnection().close();
+        assertEquals(1, pool.getServedByPrimary());
+
+        pool.setAvailable(2, true);
+        try (ReadReplicaRouting.Scope scope = ReadReplicaRouting.primary()) {
+            pool.getConnection().close();
+        }
+        assertEquals(2, pool.getServedByPrimary());
+        assertEquals(4, pool.getServed(2));
+    }
+
+    /*
+    *   O mesmo protocolo do H2ReplicaSynchronizer (tira de rotação, espera active chegar a zero, "copia", devolve), repetido
+    *       enquanto outras threads pedem conexões sem parar: nenhuma conexão pode ser aberta na réplica durante a "copia".
+    * */
+    @Test
+    void drainedReplicaNeverOpensConnections() throws Exception {
+        AtomicBoolean copying = new AtomicBoolean(false);
+        AtomicInteger duringCopy = new AtomicInteger();
+        DataSource watched = fakeDataSource(() -> {
+            if (copying.get())
+                duringCopy.incrementAndGet();
+        });
+        ReplicaPoolDataSource pool = new ReplicaPoolDataSource(primary, List.of(watched, fakeDataSource()),
+                ReplicaPoolDataSource.Balancing.ROUND_ROBIN, true);
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread reader = new Thread(() -> {
+                try {
+                    while (running.get())
+                        pool.getConnection().close();
+                } catch (SQLException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            reader.start();
+            readers.add(reader);
+        }
+
+        for (int round = 0; round < 2000; round++) {
+            pool.setAvailable(0, false);
+            while (pool.getActive(0) > 0)
+                Thread.onSpinWait();
+            copying.set(true);
+            LockSupport.parkNanos(50_000);
+            copying.set(false);
+            pool.setAvailable(0, true);
+        }
+        running.set(false);
+        for (Thread reader : readers)
+            reader.join();
+
+        assertEquals(0, duringCopy.get());
+        assertEquals(0, pool.getActive(0));
+        assertEquals(0, pool.getActive(1));
+    }
+
+    private static DataSource fakeDataSource() {
+        return fakeDataSource(() -> {
+        });
+    }
+
+    private static DataSource fakeDataSource(Runnable onConnect) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[] {DataSource.class},
+                (proxy, method, args) -> {
+                    if (method.getName().equals("getConnection")) {
+                        onConnect.run();
+                        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {Connection.class},
+                                (c, m, a) -> null);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+    }
+}
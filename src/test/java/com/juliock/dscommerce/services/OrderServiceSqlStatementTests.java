@@ -0,0 +1,164 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.OrderCheckoutDTO;
+import com.juliock.dscommerce.dto.OrderCheckoutItemDTO;
+import com.juliock.dscommerce.dto.OrderDTO;
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.entities.Order;
+import com.juliock.dscommerce.entities.OrderItem;
+import com.juliock.dscommerce.entities.OrderStatus;
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.entities.User;
+import com.juliock.dscommerce.services.caches.IdempotencyStore;
+import com.juliock.dscommerce.services.metrics.SqlStatementCounter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   A quantidade de consultas da leitura de pedidos nao pode depender da quantidade de itens:
+*       GET /orders/{id} = 1 consulta e GET /orders = 3 consultas (ids, COUNT e pedidos), com 1, 10 ou 100 itens por pedido.
+*   No checkout (POST /orders), os produtos sao lidos numa consulta só e os itens vao em lotes, entao o total de comandos também
+*       nao cresce com os itens (cliente, produtos, pedido, lotes de itens, pagamento e resumo).
+* */
+
+@SpringBootTest
+class OrderServiceSqlStatementTests {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void findOrderByIdIssuesOneQueryWhateverTheNumberOfItems(int items) {
+        Long orderId = createOrder(items);
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            OrderDTO dto = orderService.findOrderById(orderId);
+
+            scope.assertStatementsAtMost(1);
+            assertEquals(items, dto.getItems().size());
+            assertEquals(items * 2 * 10.0, dto.getTotal(), 0.001);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void findAllOrdersIssuesThreeQueriesWhateverTheNumberOfItems(int items) {
+        for (int i = 0; i < 3; i++)
+            createOrder(items);
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            Page<OrderDTO> page = orderService.findAllOrders(PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "id")));
+
+            scope.assertStatementsAtMost(3);
+            assertEquals(3, page.getNumberOfElements());
+            page.forEach(order -> assertEquals(items, order.getItems().size()));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void checkoutIssuesBoundedStatementsWhateverTheNumberOfItems(int items) {
+        OrderCheckoutDTO checkout = checkoutOf(createProducts(items));
+
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            OrderDTO dto = orderService.checkout(checkout, null).getValue();
+
+            scope.assertStatementsAtMost(10);
+            assertEquals(items, dto.getItems().size());
+            assertEquals(items * 2 * 10.0, dto.getTotal(), 0.001);
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10})
+    void checkoutWithSameIdempotencyKeyCreatesOneOrder(int items) {
+        List<ProductDTO> products = createProducts(items);
+        OrderCheckoutDTO checkout = checkoutOf(products);
+        String key = "checkout-test-" + items + "-" + System.nanoTime();
+
+        IdempotencyStore.Result<OrderDTO> first = orderService.checkout(checkout, key);
+        IdempotencyStore.Result<OrderDTO> retry = orderService.checkout(checkout, key);
+
+        assertFalse(first.isReplayed());
+        assertTrue(retry.isReplayed());
+        assertEquals(first.getValue().getId(), retry.getValue().getId());
+        //  o estoque foi reservado uma vez só: 1000 - 2
+        assertEquals(998L, stockService.findStock(products.get(0).getId()).getAvailable());
+    }
+
+    //  Checkout do cliente 1, pago, com quantidade 2 de cada produto
+    private static OrderCheckoutDTO checkoutOf(List<ProductDTO> products) {
+        List<OrderCheckoutItemDTO> orderItems = new ArrayList<>();
+        for (ProductDTO p : products)
+            orderItems.add(new OrderCheckoutItemDTO(p.getId(), 2));
+        return new OrderCheckoutDTO(1L, orderItems, true);
+    }
+
+    //  "items" produtos novos com preço 10.0 e estoque 1000
+    private List<ProductDTO> createProducts(int items) {
+        List<ProductDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < items; i++)
+            dtos.add(new ProductDTO(null, "Checkout Product " + i, "Lorem ipsum", 10.0, "img.jpg"));
+        List<ProductDTO> products = productService.insertProducts(dtos).getItems();
+        for (ProductDTO p : products)
+            stockService.adjustStock(p.getId(), 1000);
+        return products;
+    }
+
+    //  Cria um pedido do cliente 1 com "items" produtos novos, cada um com quantidade 2 e preço 10.0
+    private Long createOrder(int items) {
+        List<ProductDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < items; i++)
+            dtos.add(new ProductDTO(null, "Order Item Product " + i, "Lorem ipsum", 10.0, "img.jpg"));
+        List<ProductDTO> products = productService.insertProducts(dtos).getItems();
+
+        return transactionTemplate.execute(status -> {
+            Order order = new Order();
+            order.setMoment(Instant.now());
+            order.setStatus(OrderStatus.WAITING_PAYMENT);
+            order.setClient(entityManager.getReference(User.class, 1L));
+            entityManager.persist(order);
+
+            List<OrderItem> orderItems = new ArrayList<>();
+            for (ProductDTO p : products) {
+                OrderItem item = new OrderItem(order, entityManager.getReference(Product.class, p.getId()), 2, 10.0);
+                entityManager.persist(item);
+                orderItems.add(item);
+            }
+            orderSummaryService.orderCreated(order, orderItems);
+            return order.getId();
+        });
+    }
+}
@@ -0,0 +1,71 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.OrderSummaryDTO;
+import com.juliock.dscommerce.dto.OrderSummaryReconciliationDTO;
+import com.juliock.dscommerce.dto.UserOrderStatsDTO;
+import com.juliock.dscommerce.entities.Order;
+import com.juliock.dscommerce.entities.OrderSummary;
+import com.juliock.dscommerce.repositories.OrderSummaryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   Os resumos carregados do import.sql batem com a tb_order_item, as escritas só acontecem dentro de uma transação,
+*       e a reconciliação encontra e corrige um resumo adulterado.
+* */
+
+@SpringBootTest
+class OrderSummaryServiceTests {
+
+    @Autowired
+    private OrderSummaryService orderSummaryService;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void seededSummariesMatchOrderItems() {
+        //  Pedido 1: 2 x 90.5 + 1 x 1250.0. Cliente 1: pedidos 1 e 3 (o 3 tem 1 x 90.5)
+        OrderSummaryDTO summary = orderSummaryService.findSummaryById(1L);
+        assertEquals(1431.0, summary.getTotal(), 0.001);
+        assertEquals(3, summary.getItemCount());
+
+        UserOrderStatsDTO stats = orderSummaryService.findClientStats(1L);
+        assertTrue(stats.getOrderCount() >= 2);
+        assertTrue(stats.getLifetimeSpend() >= 1521.5 - 0.001);
+    }
+
+    @Test
+    void writesRequireTheCallerTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> orderSummaryService.orderCreated(new Order(), List.of()));
+    }
+
+    @Test
+    void reconcileRepairsDivergentSummaries() {
+        orderSummaryService.reconcile();    //  parte de um estado consistente, qualquer que seja a ordem dos testes
+
+        transactionTemplate.executeWithoutResult(status -> {
+            OrderSummary summary = orderSummaryRepository.findById(2L).orElseThrow();
+            summary.setTotal(summary.getTotal() + 100.0);
+        });
+
+        OrderSummaryReconciliationDTO report = orderSummaryService.reconcile();
+        assertEquals(1, report.getMismatchedOrders());
+        assertEquals(2L, report.getMismatchedOrderIds().get(0));
+        assertEquals(1250.0, orderSummaryService.findSummaryById(2L).getTotal(), 0.001);
+
+        assertEquals(0, orderSummaryService.reconcile().getMismatchedOrders());
+    }
+}
@@ -0,0 +1,39 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+*   Rebuild do ProductIdFilter com um insert ainda sem commit: o rebuild (em outra thread, outra transação) lê o banco sem o
+*       produto novo. Depois do commit o produto precisa ser encontrado, e nao receber um 404 do filtro até o proximo rebuild.
+* */
+
+@SpringBootTest
+class ProductIdFilterRebuildTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void productInsertedDuringRebuildIsFoundAfterCommit() {
+        Long id = transactionTemplate.execute(status -> {
+            Long inserted = productService.insertProduct(new ProductDTO(null, "Id Filter Rebuild", "Lorem ipsum", 10.0, "img.jpg")).getId();
+            CompletableFuture.runAsync(productService::rebuildProductIdFilter).orTimeout(30, TimeUnit.SECONDS).join();
+            return inserted;
+        });
+
+        assertEquals("Id Filter Rebuild", productService.findProductById(id).getName());
+        productService.deleteProductById(id);
+    }
+}
@@ -0,0 +1,71 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.ProductImportReportDTO;
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Pageable;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+*   Linhas com categorias mal formadas (vazia, objeto, id maior que um Long) sao rejeitadas uma a uma, e a importação termina.
+*       Com batchSize = 1 as filas enchem logo: se a validação morresse numa dessas linhas, o parse ficaria preso na fila cheia
+*       e o future nunca completaria.
+* */
+
+@SpringBootTest
+class ProductImportServiceTests {
+
+    private static final String NAME = "Import Row";
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @AfterEach
+    void deleteImportedProducts() {
+        for (Product product : productRepository.searchByName(NAME, Pageable.unpaged()))
+            productService.deleteProductById(product.getId());
+    }
+
+    @Test
+    void malformedCategoriesAreRejectedWithoutStallingThePipeline() throws Exception {
+        StringBuilder ndjson = new StringBuilder()
+                .append(row("\"categories\": [\"\"]"))                     //  token vazio: ignorado, a linha entra sem categoria
+                .append(row("\"categories\": [{}]"))                       //  Malformed row
+                .append(row("\"categories\": [\"99999999999999999999\"]"))  //  Unknown category
+                .append(row("\"categories\": \"123456789012345678901234|Livros\""));
+        for (int i = 0; i < 30; i++)
+            ndjson.append(row("\"categories\": [\"Livros\"]"));
+
+        ProductImportReportDTO report = productImportService.importProducts(
+                new ByteArrayInputStream(ndjson.toString().getBytes(StandardCharsets.UTF_8)), "ndjson", 1, 1)
+                .get(30, TimeUnit.SECONDS);
+
+        assertEquals("DONE", report.getStatus());
+        assertEquals(34, report.getRowsRead());
+        assertEquals(31, report.getRowsImported());
+        assertEquals(3, report.getRowsFailed());
+        assertEquals(3, report.getErrors().size());
+        assertEquals("Malformed row", report.getErrors().get(0).getError());
+        assertEquals("Unknown category: 99999999999999999999", report.getErrors().get(1).getError());
+    }
+
+    private static String row(String categories) {
+        return "{\"name\": \"" + NAME + "\", \"description\": \"Lorem ipsum dolor sit amet\", \"price\": 10.0, \"imgUrl\": \"img.jpg\", "
+                + categories + "}\n";
+    }
+}
@@ -0,0 +1,95 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.repositories.ProductRepository;
+import com.juliock.dscommerce.services.indexes.ProductNameIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   O ProductNameIndex precisa responder EXATAMENTE como a consulta searchByName (UPPER ... LIKE): mesmos ids, mesma ordem e
+*       mesmos totais de pagina. Aqui as duas buscas rodam sobre o catalogo do import.sql, mais alguns nomes com acentos,
+*       'ß' e maiusculas/minusculas misturadas, e as paginas sao comparadas.
+* */
+
+@SpringBootTest
+class ProductNameIndexParityTests {
+
+    private static final String[] TERMS = {"a", "pc", "PC", "tv", "Gamer", "gAmEr", "mac", "book", "smart tv", "ss", "STRASSE",
+            "straße", "câmera", "CÂMERA", "ótica", "era", "zzz", " "};
+
+    private static final String[] EXTRA_NAMES = {"Straße Gamer Chair", "Câmera Ótica Pro", "SMART tv Ultra", "Mochila Ação"};
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductNameIndex productNameIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void insertExtraNames() {
+        for (String name : EXTRA_NAMES)
+            inserted.add(productService.insertProduct(new ProductDTO(null, name, "Lorem ipsum", 10.0, "img.jpg")).getId());
+    }
+
+    @AfterEach
+    void deleteExtraNames() {
+        inserted.forEach(productService::deleteProductById);
+    }
+
+    @Test
+    void indexPagesMatchDatabasePages() {
+        assertTrue(productNameIndex.isReady());
+
+        List<Sort> sorts = List.of(Sort.by("name", "id"), Sort.by(Sort.Direction.DESC, "name", "id"), Sort.by(Sort.Direction.DESC, "id"));
+        for (String term : TERMS)
+            for (Sort sort : sorts)
+                for (int page = 0; page < 3; page++) {
+                    PageRequest pageable = PageRequest.of(page, 3, sort);
+                    Page<ProductDTO> fromService = productService.searchProductByName(term, pageable);
+                    Page<Product> fromDatabase = transactionTemplate.execute(status -> productRepository.searchByName(term, pageable));
+
+                    String context = "term='" + term + "' sort=" + sort + " page=" + page;
+                    assertEquals(fromDatabase.getTotalElements(), fromService.getTotalElements(), context);
+                    assertEquals(fromDatabase.getTotalPages(), fromService.getTotalPages(), context);
+                    assertEquals(fromDatabase.map(Product::getId).getContent(), fromService.map(ProductDTO::getId).getContent(), context);
+                }
+    }
+
+    //  Sem ordenação a ordem do banco nao é garantida: só o conjunto de ids e o total sao comparados
+    @Test
+    void unsortedSearchMatchesDatabaseIds() {
+        for (String term : TERMS) {
+            PageRequest pageable = PageRequest.of(0, 1000);
+            Page<ProductDTO> fromService = productService.searchProductByName(term, pageable);
+            Page<Product> fromDatabase = transactionTemplate.execute(status -> productRepository.searchByName(term, pageable));
+
+            assertEquals(fromDatabase.getTotalElements(), fromService.getTotalElements(), "term='" + term + "'");
+            assertEquals(new HashSet<>(fromDatabase.map(Product::getId).getContent()),
+                    new HashSet<>(fromService.map(ProductDTO::getId).getContent()), "term='" + term + "'");
+        }
+    }
+}
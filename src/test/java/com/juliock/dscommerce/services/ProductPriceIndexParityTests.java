@@ -0,0 +1,81 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.repositories.ProductRepository;
+import com.juliock.dscommerce.services.indexes.ProductPriceIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   O ProductPriceIndex precisa responder EXATAMENTE como a consulta searchByFilters ordenada por (price, id): mesmos ids, mesma
+*       ordem (produtos sem preço antes na crescente e depois na decrescente) e mesmos totais, com limites inclusivos.
+*       Aqui as duas rodam sobre o catalogo do import.sql, mais alguns produtos com preços repetidos e sem preço.
+* */
+
+@SpringBootTest
+class ProductPriceIndexParityTests {
+
+    private static final Double[][] RANGES = {{null, null}, {90.5, null}, {null, 90.5}, {90.5, 1250.0}, {1250.0, 1250.0},
+            {0.01, 10_000.0}, {5000.0, 100.0}, {1_000_000.0, null}};
+
+    private static final Double[] EXTRA_PRICES = {90.5, 90.5, 1250.0, null, null};
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private ProductPriceIndex productPriceIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final List<Long> inserted = new ArrayList<>();
+
+    @BeforeEach
+    void insertExtraPrices() {
+        for (Double price : EXTRA_PRICES)
+            inserted.add(productService.insertProduct(new ProductDTO(null, "Price Parity", "Lorem ipsum", price, "img.jpg")).getId());
+    }
+
+    @AfterEach
+    void deleteExtraPrices() {
+        inserted.forEach(productService::deleteProductById);
+    }
+
+    @Test
+    void indexPagesMatchDatabasePages() {
+        assertTrue(productPriceIndex.isReady());
+
+        for (Double[] range : RANGES)
+            for (Sort.Direction direction : Sort.Direction.values())
+                for (int page = 0; page < 4; page++) {
+                    //  Sem categorias pedidas: minMatches = 0 e o -1 só evita um IN () vazio (como no ProductService)
+                    PageRequest pageable = PageRequest.of(page, 4, Sort.by(direction, "price", "id"));
+                    Page<Product> fromDatabase = transactionTemplate.execute(status ->
+                            productRepository.searchByFilters("", List.of(-1L), 0, range[0], range[1], pageable));
+                    ProductPriceIndex.PriceRange fromIndex = productPriceIndex.sorted(range[0], range[1], direction.isAscending(), null);
+
+                    String context = "range=[" + range[0] + ", " + range[1] + "] " + direction + " page=" + page;
+                    assertEquals(fromDatabase.getTotalElements(), fromIndex.count(), context);
+                    assertEquals(fromDatabase.map(Product::getId).getContent(),
+                            fromIndex.page(pageable.getOffset(), pageable.getPageSize()), context);
+                }
+    }
+}
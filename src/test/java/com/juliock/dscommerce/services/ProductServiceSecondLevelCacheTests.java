@@ -0,0 +1,68 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.entities.Product;
+import com.juliock.dscommerce.repositories.ProductRepository;
+import com.juliock.dscommerce.services.metrics.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+*   Cache de segundo nivel (ver config/SecondLevelCacheConfig): uma leitura repetida em outra transação nao vai ao banco,
+*       e as escritas do ProductService invalidam as entradas, entao a leitura seguinte ja vê o valor novo.
+* */
+
+@SpringBootTest
+class ProductServiceSecondLevelCacheTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void productReadIsServedFromCacheAndSeesUpdates() {
+        Long id = productService.insertProduct(new ProductDTO(null, "Second Level Cache", "Lorem ipsum", 10.0, "img.jpg")).getId();
+        readName(id);
+
+        SqlStatementCounter.assertStatementsAtMost(0, () -> readName(id));
+
+        productService.updateProduct(id, new ProductDTO(id, "Second Level Cache Updated", "Lorem ipsum", 20.0, "img.jpg"));
+        assertEquals("Second Level Cache Updated", readName(id));
+    }
+
+    @Test
+    void searchByNameIsServedFromQueryCacheAndSeesInserts() {
+        String name = "L2 Search " + UUID.randomUUID();
+        assertEquals(0, search(name));
+
+        SqlStatementCounter.assertStatementsAtMost(0, () -> search(name));
+
+        productService.insertProduct(new ProductDTO(null, name, "Lorem ipsum", 10.0, "img.jpg"));
+        assertEquals(1, search(name));
+    }
+
+    //  Cada leitura na sua propria transação (e Session): sem o cache de segundo nivel, sempre iria ao banco
+    private String readName(Long id) {
+        return transactionTemplate.execute(status -> {
+            Product product = productRepository.findById(id).orElseThrow();
+            product.getCategories();
+            return product.getName();
+        });
+    }
+
+    private long search(String name) {
+        return transactionTemplate.execute(status -> productRepository.searchByName(name, PageRequest.of(0, 10)).getTotalElements());
+    }
+}
@@ -0,0 +1,61 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.services.metrics.SqlStatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/*
+*   Limites de comandos SQL dos caminhos principais do ProductService (ver SqlStatementCounter).
+*       Se uma mudança introduzir um N+1 (ex: acessar uma associação LAZY para cada produto da pagina), o teste falha listando os SQLs.
+* */
+
+@SpringBootTest
+class ProductServiceSqlStatementTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Test
+    void findAllProductsIssuesOneSelectAndOneCount() {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            productService.findAllProducts(PageRequest.of(0, 5));
+
+            scope.assertStatementsAtMost(2);
+            assertEquals(5, scope.getEntitiesLoaded());
+        }
+    }
+
+    //  A listagem resumida usa projeção: nenhuma entidade Product deve ser carregada
+    @Test
+    void productSummariesLoadNoEntities() {
+        try (SqlStatementCounter.Scope scope = SqlStatementCounter.start()) {
+            productService.searchProductSummariesByName("", PageRequest.of(0, 10));
+
+            scope.assertStatementsAtMost(2);
+            assertEquals(0, scope.getEntitiesLoaded());
+        }
+    }
+
+    @Test
+    void findProductByIdIssuesAtMostOneSelect() {
+        SqlStatementCounter.assertStatementsAtMost(1, () -> productService.findProductById(1L));
+    }
+
+    //  Com hibernate.jdbc.batch_size=50 e a sequence alocando 50 ids por vez: 3 lotes de INSERT + 3 chamadas à sequence
+    @Test
+    void insertProductsUsesJdbcBatches() {
+        List<ProductDTO> dtos = new ArrayList<>();
+        for (int i = 0; i < 120; i++)
+            dtos.add(new ProductDTO(null, "Statement Count " + i, "Lorem ipsum", 10.0 + i, "img.jpg"));
+
+        SqlStatementCounter.assertStatementsAtMost(6, () -> productService.insertProducts(dtos));
+    }
+}
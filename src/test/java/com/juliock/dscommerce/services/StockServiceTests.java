@@ -0,0 +1,43 @@
+package com.juliock.dscommerce.services;
+
+import com.juliock.dscommerce.dto.ProductDTO;
+import com.juliock.dscommerce.services.exceptions.ResourceNotFoundException;
+import com.juliock.dscommerce.services.inventory.StockLedger;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/*
+*   Deletar um produto tira o contador de estoque dele da memória, como os indices: o id nao continua "vendável" pelo contador.
+* */
+
+@SpringBootTest
+class StockServiceTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private StockService stockService;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Test
+    void deletingAProductDropsItsStockCounter() {
+        Long id = productService.insertProduct(new ProductDTO(null, "Stock Counter", "Lorem ipsum", 10.0, "img.jpg")).getId();
+        stockService.adjustStock(id, 5);
+        assertNotNull(stockLedger.counter(id));
+        assertEquals(5L, stockService.findStock(id).getAvailable());
+
+        productService.deleteProductById(id);
+
+        assertNull(stockLedger.counter(id));
+        assertThrows(ResourceNotFoundException.class, () -> stockService.findStock(id));
+    }
+}
@@ -0,0 +1,85 @@
+package com.juliock.dscommerce.services.analytics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SalesAggregationTaskTests {
+
+    //  Itens deterministicos por pedido: 3 itens, 50 produtos, precos e quantidades variados
+    private static final OrderItemScanner SCANNER = (fromOrderId, toOrderId, visitor) -> {
+        for (long orderId = fromOrderId; orderId < toOrderId; orderId++)
+            for (int k = 0; k < 3; k++) {
+                long productId = 1 + (orderId * 7 + k * 13) % 50;
+                visitor.visit(orderId * 60_000, productId, productId * 1.5, 1 + (int) (orderId % 4));
+            }
+    };
+
+    @Test
+    void parallelAggregationMatchesSequentialSums() {
+        Map<Long, double[]> expected = new HashMap<>();
+        SCANNER.scan(1, 10_001, (moment, productId, price, quantity) -> {
+            double[] sums = expected.computeIfAbsent(productId, id -> new double[2]);
+            sums[0] += price * quantity;
+            sums[1] += quantity;
+        });
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SalesMap sales = pool.invoke(new SalesAggregationTask(SCANNER, (moment, productId, sink) -> sink.accept(productId),
+                    1, 10_001, 97, 4));
+
+            assertEquals(expected.size(), sales.size());
+            expected.forEach((productId, sums) -> {
+                assertEquals(sums[0], sales.revenue(productId), 1e-6);
+                assertEquals((long) sums[1], sales.quantity(productId));
+            });
+
+            List<Long> byRevenue = new ArrayList<>(expected.keySet());
+            byRevenue.sort(Comparator.comparingDouble((Long id) -> -sales.revenue(id)).thenComparing(id -> id));
+            assertArrayEquals(byRevenue.subList(0, 5).stream().mapToLong(Long::longValue).toArray(), sales.topByRevenue(5));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void windowIndexFindsWindowContainingMoment() {
+        //  2024-01-03 é uma quarta-feira: a primeira semana começa na segunda-feira 2024-01-01
+        long[] starts = ReportWindow.WEEK.starts(LocalDate.of(2024, 1, 3), LocalDate.of(2024, 1, 20));
+        assertEquals(3, starts.length);
+        assertEquals(LocalDate.of(2024, 1, 1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli(), starts[0]);
+
+        long jan15 = LocalDate.of(2024, 1, 15).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        assertEquals(2, ReportWindow.windowIndex(starts, jan15));
+        assertEquals(1, ReportWindow.windowIndex(starts, jan15 - 1));
+    }
+
+    @Test
+    void windowCountMatchesWindowsWalkedOneByOne() {
+        LocalDate from = LocalDate.of(2023, 12, 28);
+        for (ReportWindow window : ReportWindow.values()) {
+            for (int days = 0; days < 400; days += 13) {
+                LocalDate to = from.plusDays(days);
+                long walked = 0;
+                for (LocalDate d = window.startOf(from); !d.isAfter(to); d = window.next(d))
+                    walked++;
+                assertEquals(walked, window.count(from, to));
+                assertEquals(walked, window.starts(from, to).length);
+            }
+        }
+
+        //  Sem percorrer as janelas: um intervalo enorme é recusado pelo ReportService antes de qualquer alocação
+        assertEquals(3_652_059, ReportWindow.DAY.count(LocalDate.of(1, 1, 1), LocalDate.of(9999, 12, 31)));
+    }
+}
@@ -0,0 +1,49 @@
+package com.juliock.dscommerce.services.caches;
+
+import com.juliock.dscommerce.services.exceptions.IdempotencyKeyInProgressException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyStoreTests {
+
+    private final IdempotencyStore store = new IdempotencyStore(1000, 3600, 200);
+
+    @Test
+    void errorInFirstAttemptReleasesTheKey() {
+        assertThrows(StackOverflowError.class, () -> store.execute("k", "f", () -> {
+            throw new StackOverflowError();
+        }));
+
+        IdempotencyStore.Result<Long> retry = store.execute("k", "f", () -> 42L);
+        assertEquals(42L, (long) retry.getValue());
+        assertFalse(retry.isReplayed());
+    }
+
+    @Test
+    void retryWaitingTooLongForFirstAttemptGetsConflict() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<IdempotencyStore.Result<Long>> first = CompletableFuture.supplyAsync(() -> store.execute("k", "f", () -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return 7L;
+        }));
+        started.await();
+
+        assertThrows(IdempotencyKeyInProgressException.class, () -> store.execute("k", "f", () -> 8L));
+
+        release.countDown();
+        assertEquals(7L, (long) first.get().getValue());
+        assertEquals(7L, (long) store.execute("k", "f", () -> 8L).getValue());
+    }
+}
@@ -0,0 +1,68 @@
+package com.juliock.dscommerce.services.caches;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductPageCacheTests {
+
+    private final ProductPageCache cache = new ProductPageCache(1 << 20, true, 0);
+    private final AtomicInteger serializations = new AtomicInteger();
+
+    private ProductPageCache.CachedPage get(String name, int page) {
+        return cache.get("full", name, PageRequest.of(page, 10), () -> {
+            serializations.incrementAndGet();
+            return ("{\"name\":\"" + name + "\"}").getBytes(StandardCharsets.UTF_8);
+        });
+    }
+
+    @Test
+    void sameFilterAndPageableIsSerializedOnce() {
+        get("gamer", 0);
+        get("GAMER", 0);    //  o filtro é normalizado como no LIKE com UPPER
+        get("gamer", 1);
+
+        assertEquals(2, serializations.get());
+    }
+
+    @Test
+    void writesInvalidateOnlyPagesWhoseFilterMatchesTheProductName() {
+        get("", 0);
+        get("gamer", 0);
+        get("macbook", 0);
+
+        cache.invalidate(List.of("PC Gamer Max"));
+        get("", 0);         //  sem filtro: casa com qualquer produto
+        get("gamer", 0);
+        get("macbook", 0);  //  nao afetada, continua no cache
+
+        assertEquals(5, serializations.get());
+    }
+
+    @Test
+    void pagesWithLikeWildcardsAreInvalidatedByAnyWrite() {
+        get("gamer%max", 0);
+        get("pc_gamer", 0);
+
+        cache.invalidate(List.of("PC Gamer Max"));     //  casa com os dois filtros no LIKE, mas nao pelo contains()
+        get("gamer%max", 0);
+        get("pc_gamer", 0);
+
+        assertEquals(4, serializations.get());
+    }
+
+    @Test
+    void onlyLargePagesAreGzipped() {
+        assertNull(get("small", 0).getGzip());
+
+        ProductPageCache.CachedPage large = cache.get("full", "large", PageRequest.of(0, 10), () -> new byte[4096]);
+        assertNotNull(large.getGzip());
+    }
+}
@@ -0,0 +1,44 @@
+package com.juliock.dscommerce.services.imports;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/*
+*   CsvRecordReader: campos entre aspas com virgula/quebra de linha, e registro com aspas sem fechamento reportado em getError().
+* */
+
+class CsvRecordReaderTests {
+
+    @Test
+    void readsQuotedFieldsAcrossLines() throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(new StringReader("name,description\r\nTV,\"55\"\", 4K,\nHDR\"\n\nMouse,USB\n"));
+
+        assertEquals(List.of("name", "description"), csv.next());
+        assertEquals(List.of("TV", "55\", 4K,\nHDR"), csv.next());
+        assertNull(csv.getError());
+        assertEquals(2, csv.getRecordLine());
+        assertEquals(List.of("Mouse", "USB"), csv.next());
+        assertEquals(5, csv.getRecordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void reportsUnterminatedQuotedFieldInsteadOfThrowing() throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(new StringReader("name,price\nTV,90\n\"Mouse,10\nTeclado,20\n"));
+
+        csv.next();
+        assertEquals(List.of("TV", "90"), csv.next());
+        assertNull(csv.getError());
+
+        csv.next();
+        assertEquals("Unterminated quoted field", csv.getError());
+        assertEquals(3, csv.getRecordLine());
+        assertNull(csv.next());
+    }
+}
@@ -0,0 +1,65 @@
+package com.juliock.dscommerce.services.indexes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedBitmapTests {
+
+    //  Ids esparsos e densos no mesmo bitmap, para exercitar os dois tipos de container e a troca entre eles
+    private static TreeSet<Long> randomIds(Random random, int dense, int sparse) {
+        TreeSet<Long> ids = new TreeSet<>();
+        while (ids.size() < dense)
+            ids.add((long) random.nextInt(70_000));
+        while (ids.size() < dense + sparse)
+            ids.add(random.nextLong(1L << 40));
+        return ids;
+    }
+
+    private static List<Long> toList(CompressedBitmap bitmap) {
+        List<Long> values = new ArrayList<>();
+        bitmap.forEach(values::add);
+        return values;
+    }
+
+    @Test
+    void andOrAndCardinalityMatchSetOperations() {
+        Random random = new Random(42);
+        TreeSet<Long> a = randomIds(random, 20_000, 500);
+        TreeSet<Long> b = randomIds(random, 3_000, 500);
+        CompressedBitmap bitmapA = CompressedBitmap.of(a);
+        CompressedBitmap bitmapB = CompressedBitmap.of(b);
+
+        TreeSet<Long> and = new TreeSet<>(a);
+        and.retainAll(b);
+        TreeSet<Long> or = new TreeSet<>(a);
+        or.addAll(b);
+
+        assertEquals(new ArrayList<>(a), toList(bitmapA));
+        assertEquals(new ArrayList<>(and), toList(bitmapA.and(bitmapB)));
+        assertEquals(new ArrayList<>(or), toList(bitmapA.or(bitmapB)));
+        assertEquals(and.size(), bitmapA.andCardinality(bitmapB));
+        assertEquals(or.size(), bitmapA.or(bitmapB).cardinality());
+    }
+
+    @Test
+    void removeShrinksBackToEmpty() {
+        TreeSet<Long> ids = randomIds(new Random(7), 10_000, 100);
+        CompressedBitmap bitmap = CompressedBitmap.of(ids);
+
+        for (Long id : ids) {
+            assertTrue(bitmap.contains(id));
+            bitmap.remove(id);
+            assertFalse(bitmap.contains(id));
+        }
+        assertTrue(bitmap.isEmpty());
+        assertEquals(0, bitmap.cardinality());
+    }
+}
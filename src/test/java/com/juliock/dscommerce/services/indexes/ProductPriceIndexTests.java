@@ -0,0 +1,150 @@
+package com.juliock.dscommerce.services.indexes;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ProductPriceIndexTests {
+
+    private static ProductPriceIndex indexOf(Map<Long, Double> prices) {
+        ProductPriceIndex index = new ProductPriceIndex();
+        index.putAll(prices);
+        index.markReady();
+        return index;
+    }
+
+    //  Ordem esperada, calculada do jeito ingenuo: sem preço primeiro (por id), depois por (preço, id). A decrescente é a inversa.
+    private static List<Long> expectedOrder(Map<Long, Double> prices, boolean ascending) {
+        List<Long> ids = new ArrayList<>(prices.keySet());
+        ids.sort(Comparator.<Long, Boolean>comparing(id -> prices.get(id) != null)
+                .thenComparing(id -> prices.get(id), Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(Comparator.naturalOrder()));
+        if (!ascending)
+            Collections.reverse(ids);
+        return ids;
+    }
+
+    private static List<Long> all(ProductPriceIndex index, Double minPrice, Double maxPrice, boolean ascending) {
+        ProductPriceIndex.PriceRange range = index.sorted(minPrice, maxPrice, ascending, null);
+        return range.page(0, (int) range.count());
+    }
+
+    private static List<Long> toList(CompressedBitmap bitmap) {
+        List<Long> values = new ArrayList<>();
+        bitmap.forEach(values::add);
+        return values;
+    }
+
+    //  Inserções, mudanças de preço (inclusive para e de null) e remoções em lotes, conferidas contra um HashMap depois de cada lote
+    @Test
+    void incrementalWritesMatchAFullSort() {
+        Random random = new Random(42);
+        Map<Long, Double> model = new HashMap<>();
+        ProductPriceIndex index = indexOf(Map.of());
+
+        for (int round = 0; round < 200; round++) {
+            if (random.nextInt(4) == 0 && !model.isEmpty()) {
+                List<Long> existing = new ArrayList<>(model.keySet());
+                Long id = existing.get(random.nextInt(existing.size()));
+                model.remove(id);
+                index.remove(id);
+            } else {
+                Map<Long, Double> batch = new HashMap<>();
+                int size = 1 + random.nextInt(20);
+                for (int i = 0; i < size; i++) {
+                    //  poucos preços distintos, para haver muitos empates; ~10% sem preço
+                    Double price = (random.nextInt(10) == 0) ? null : (double) (1 + random.nextInt(15));
+                    batch.put((long) random.nextInt(300), price);
+                }
+                model.putAll(batch);
+                index.putAll(batch);
+            }
+
+            assertEquals(model.size(), index.size());
+            assertEquals(expectedOrder(model, true), all(index, null, null, true));
+            assertEquals(expectedOrder(model, false), all(index, null, null, false));
+        }
+    }
+
+    @Test
+    void removingAnUnknownIdChangesNothing() {
+        ProductPriceIndex index = indexOf(Map.of(1L, 10.0, 2L, 20.0));
+        index.remove(99L);
+        assertEquals(List.of(1L, 2L), all(index, null, null, true));
+    }
+
+    @Test
+    void boundsAreInclusive() {
+        ProductPriceIndex index = indexOf(Map.of(1L, 10.0, 2L, 20.0, 3L, 20.0, 4L, 30.0));
+
+        assertEquals(List.of(2L, 3L, 4L), all(index, 20.0, 30.0, true));
+        assertEquals(List.of(2L, 3L), all(index, 20.0, 20.0, true));
+        assertEquals(List.of(2L, 3L), all(index, 10.5, 29.5, true));
+        assertEquals(List.of(1L, 2L, 3L), all(index, null, 20.0, true));
+        assertEquals(List.of(2L, 3L, 4L), all(index, 20.0, null, true));
+        assertEquals(List.of(), all(index, 30.5, null, true));
+        assertEquals(List.of(), all(index, 25.0, 15.0, true));
+
+        assertEquals(List.of(2L, 3L, 4L), toList(index.range(20.0, 30.0)));
+        assertEquals(List.of(2L, 3L), toList(index.range(20.0, 20.0)));
+        assertEquals(List.of(), toList(index.range(25.0, 15.0)));
+    }
+
+    //  Como no H2: NULL antes dos demais na ordem crescente e depois na decrescente; com qualquer limite de preço, nunca entra
+    @Test
+    void productsWithoutPriceSortFirstAscendingAndAreNeverInARange() {
+        Map<Long, Double> prices = new HashMap<>(Map.of(1L, 10.0, 2L, 20.0, 5L, 20.0));
+        prices.put(3L, null);
+        prices.put(4L, null);
+        ProductPriceIndex index = indexOf(prices);
+
+        assertEquals(List.of(3L, 4L, 1L, 2L, 5L), all(index, null, null, true));
+        assertEquals(List.of(5L, 2L, 1L, 4L, 3L), all(index, null, null, false));
+        assertEquals(List.of(1L, 2L, 5L), all(index, 0.0, null, true));
+        assertEquals(List.of(1L), all(index, null, 10.0, true));
+        assertEquals(List.of(1L, 2L, 5L), toList(index.range(null, null)));
+    }
+
+    @Test
+    void pagesAndBitmapRespectTheWithinFilter() {
+        Map<Long, Double> prices = new HashMap<>();
+        for (long id = 1; id <= 10; id++)
+            prices.put(id, (double) (11 - id));     //  preço decrescente com o id: a ordem por preço inverte os ids
+        prices.put(11L, null);
+        ProductPriceIndex index = indexOf(prices);
+
+        CompressedBitmap within = CompressedBitmap.of(List.of(2L, 4L, 6L, 8L, 10L, 11L));
+        ProductPriceIndex.PriceRange range = index.sorted(null, null, true, within);
+        assertEquals(6, range.count());
+        assertEquals(List.of(11L, 10L), range.page(0, 2));
+        assertEquals(List.of(8L, 6L), range.page(2, 2));
+        assertEquals(List.of(2L), range.page(5, 2));
+        assertEquals(List.of(), range.page(6, 2));
+        assertEquals(List.of(2L, 4L, 6L, 8L, 10L, 11L), toList(range.toBitmap()));
+
+        ProductPriceIndex.PriceRange unfiltered = index.sorted(3.0, 5.0, false, null);
+        assertEquals(3, unfiltered.count());
+        assertEquals(List.of(7L, 8L), unfiltered.page(1, 5));
+    }
+
+    @Test
+    void notReadyIndexAnswersNull() {
+        ProductPriceIndex index = new ProductPriceIndex();
+        index.put(1L, 10.0);
+        assertNull(index.range(null, null));
+        assertNull(index.sorted(null, null, true, null));
+
+        index.markReady();
+        index.clear();
+        assertNull(index.range(null, null));
+    }
+}
@@ -0,0 +1,137 @@
+package com.juliock.dscommerce.services.inventory;
+
+import com.juliock.dscommerce.services.exceptions.InsufficientStockException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   Teste de estresse do estoque em memória: muitas threads reservando os MESMOS produtos ao mesmo tempo.
+*       O invariante verificado no fim é que nenhuma unidade foi vendida além do estoque e nenhuma sumiu:
+*       estoque inicial = disponivel + unidades reservadas (e nao devolvidas), para cada produto.
+*   A vazão (reservas por segundo) é impressa no console.
+* */
+
+class StockLedgerStressTests {
+
+    private static final int THREADS = 32;
+
+    @Test
+    void hotProductNeverOversells() throws InterruptedException {
+        StockLedger ledger = new StockLedger(8);
+        long initial = 20_000;
+        ledger.register(1L, initial);
+
+        LongAdder soldUnits = new LongAdder();
+        LongAdder attempts = new LongAdder();
+        long elapsed = runConcurrently(() -> {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 5_000; i++) {
+                long quantity = 1 + random.nextInt(3);
+                attempts.increment();
+                try {
+                    ledger.reserve(new long[] {1L}, new long[] {quantity});
+                    soldUnits.add(quantity);
+                } catch (InsufficientStockException e) {
+                    //  esgotado (ou sem unidades suficientes para essa quantidade)
+                }
+            }
+        });
+
+        StripedStockCounter counter = ledger.counter(1L);
+        assertTrue(soldUnits.sum() <= initial);
+        assertEquals(initial, counter.available() + soldUnits.sum());
+        assertEquals(soldUnits.sum(), counter.pending());
+        report("hot product", attempts.sum(), elapsed);
+    }
+
+    @Test
+    void multiItemReservationsAreAllOrNothing() throws InterruptedException {
+        StockLedger ledger = new StockLedger(8);
+        long[] products = {1L, 2L, 3L, 4L};
+        long initial = 5_000;
+        for (long productId : products)
+            ledger.register(productId, initial);
+
+        List<List<StockReservation>> keptByThread = new ArrayList<>();
+        LongAdder attempts = new LongAdder();
+        long elapsed = runConcurrently(() -> {
+            List<StockReservation> kept = new ArrayList<>();
+            synchronized (keptByThread) {
+                keptByThread.add(kept);
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            for (int i = 0; i < 5_000; i++) {
+                //  carrinho com 2 produtos distintos, em ordem crescente
+                int first = random.nextInt(products.length - 1);
+                int second = first + 1 + random.nextInt(products.length - 1 - first);
+                long[] ids = {products[first], products[second]};
+                long[] quantities = {1 + random.nextInt(3), 1 + random.nextInt(3)};
+                attempts.increment();
+                try {
+                    StockReservation reservation = ledger.reserve(ids, quantities);
+                    if (random.nextInt(10) < 3)
+                        reservation.release();      //  simula o rollback do checkout
+                    else
+                        kept.add(reservation);
+                } catch (InsufficientStockException e) {
+                    //  algum dos itens sem estoque: nada deve ter ficado reservado
+                }
+            }
+        });
+
+        long[] held = new long[products.length];
+        for (List<StockReservation> kept : keptByThread)
+            for (StockReservation reservation : kept)
+                for (int i = 0; i < reservation.size(); i++)
+                    held[(int) reservation.productId(i) - 1] += reservation.quantity(i);
+
+        for (int p = 0; p < products.length; p++) {
+            StripedStockCounter counter = ledger.counter(products[p]);
+            assertTrue(counter.available() >= 0);
+            assertEquals(initial, counter.available() + held[p]);
+            assertEquals(held[p], counter.pending());
+        }
+        report("multi-item", attempts.sum(), elapsed);
+    }
+
+    //  Executa a tarefa em THREADS threads, todas liberadas ao mesmo tempo; retorna o tempo total em nanos
+    private static long runConcurrently(Runnable task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            executor.execute(() -> {
+                try {
+                    start.await();
+                    task.run();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        long elapsed = System.nanoTime() - begin;
+        executor.shutdown();
+        return elapsed;
+    }
+
+    private static void report(String scenario, long attempts, long elapsedNanos) {
+        System.out.printf("StockLedger %s: %,d reservation attempts by %d threads in %d ms (%,.0f reservations/s)%n",
+                scenario, attempts, THREADS, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), attempts * 1e9 / elapsedNanos);
+    }
+}
@@ -0,0 +1,111 @@
+package com.juliock.dscommerce.services.limits;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   Ajuste do limite e rejeição no AdaptiveConcurrencyLimiter. As latências sao informadas direto (onSample) e a janela é de 0 ms,
+*       entao cada MIN_WINDOW_SAMPLES amostras fecham uma janela: o resultado nao depende do relogio.
+* */
+
+class AdaptiveConcurrencyLimiterTests {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    void limitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 40, 2, 200, 0, 0, 0);
+        List<AdaptiveConcurrencyLimiter.Permit> held = hold(limiter, 40);
+
+        windows(limiter, 5, 10 * MILLIS);
+        int before = limiter.getLimit();
+        windows(limiter, 5, 100 * MILLIS);     //  a fila cresceu em algum lugar: latência 10x maior
+
+        assertTrue(limiter.getLimit() < before, "limit " + limiter.getLimit() + " should be below " + before);
+        held.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+    }
+
+    @Test
+    void limitGrowsWhenSaturatedAndLatencyIsStable() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 20, 2, 200, 0, 0, 0);
+        List<AdaptiveConcurrencyLimiter.Permit> held = hold(limiter, 20);
+
+        assertNull(limiter.acquire());
+        windows(limiter, 10, 10 * MILLIS);
+
+        assertTrue(limiter.getLimit() > 20, "limit " + limiter.getLimit() + " should be above 20");
+        assertNotNull(limiter.acquire());
+        held.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+    }
+
+    @Test
+    void limitIgnoresLatencyWhileUnderused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 20, 2, 200, 0, 0, 0);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+
+        windows(limiter, 5, 10 * MILLIS);
+        windows(limiter, 5, 100 * MILLIS);
+
+        assertEquals(20, limiter.getLimit());
+        permit.release();
+    }
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 2, 2, 0, 1000, 0);
+        List<AdaptiveConcurrencyLimiter.Permit> held = hold(limiter, 2);
+
+        long start = System.nanoTime();
+        assertNull(limiter.acquire());
+        assertTrue(System.nanoTime() - start < 500 * MILLIS);
+        assertEquals(1, limiter.getRejected());
+        held.forEach(AdaptiveConcurrencyLimiter.Permit::release);
+    }
+
+    @Test
+    void queuedRequestGetsReleasedPermitOrTimesOut() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 1, 2000, 10_000);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> waiting = CompletableFuture.supplyAsync(limiter::acquire);
+        while (limiter.getQueued() == 0)
+            Thread.onSpinWait();
+        permit.release();
+
+        AdaptiveConcurrencyLimiter.Permit next = waiting.get(5, TimeUnit.SECONDS);
+        assertNotNull(next);
+        assertEquals(1, limiter.getInFlight());
+
+        AdaptiveConcurrencyLimiter timingOut = new AdaptiveConcurrencyLimiter("test", 1, 1, 1, 1, 20, 10_000);
+        AdaptiveConcurrencyLimiter.Permit busy = timingOut.acquire();
+        long start = System.nanoTime();
+        assertNull(timingOut.acquire());
+        assertTrue(System.nanoTime() - start >= 20 * MILLIS);
+        assertEquals(0, timingOut.getQueued());
+
+        next.release();
+        busy.release();
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Permit> hold(AdaptiveConcurrencyLimiter limiter, int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++)
+            permits.add(limiter.acquire());
+        return permits;
+    }
+
+    private static void windows(AdaptiveConcurrencyLimiter limiter, int windows, long rttNanos) {
+        for (int w = 0; w < windows; w++)
+            for (int i = 0; i < 10; i++)
+                limiter.onSample(rttNanos);
+    }
+}
@@ -0,0 +1,45 @@
+package com.juliock.dscommerce.services.limits;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   RateLimits: o balde do endereço vale sempre, e o da chave só para as chaves cadastradas em api-keys.
+* */
+
+class RateLimitsTests {
+
+    //  Buscas: 1 por segundo, rajada de 3 (recarga lenta o bastante para nao interferir no teste)
+    private final RateLimits limits = new RateLimits(true, 1000, List.of("partner-key", " "), 1, 3, 50, 100, 5, 10);
+
+    @Test
+    void unknownApiKeysDoNotEscapeTheAddressLimit() {
+        for (int i = 0; i < 3; i++)
+            assertEquals(0, limits.tryAcquire(limits.searches(), "10.0.0.1", "random-" + i));
+
+        assertTrue(limits.tryAcquire(limits.searches(), "10.0.0.1", "random-3") > 0);
+        assertTrue(limits.tryAcquire(limits.searches(), "10.0.0.1", null) > 0);
+    }
+
+    @Test
+    void knownApiKeyIsLimitedAcrossAddresses() {
+        for (int i = 0; i < 3; i++)
+            assertEquals(0, limits.tryAcquire(limits.searches(), "10.0.1." + i, "partner-key"));
+
+        //  Endereço novo (balde cheio), mas a chave ja gastou a rajada dela
+        assertTrue(limits.tryAcquire(limits.searches(), "10.0.1.9", "partner-key") > 0);
+        assertEquals(0, limits.tryAcquire(limits.searches(), "10.0.1.9", null));
+    }
+
+    @Test
+    void unknownApiKeysDoNotDrainAnotherClient() {
+        for (int i = 0; i < 10; i++)
+            limits.tryAcquire(limits.searches(), "10.0.2.1", "victim-key");
+
+        assertEquals(0, limits.tryAcquire(limits.searches(), "10.0.2.2", "victim-key"));
+    }
+}
@@ -0,0 +1,73 @@
+package com.juliock.dscommerce.services.limits;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+*   TokenBucket com o relogio informado pelo teste (nowNanos): rajada, recarga e CAS sob concorrência.
+* */
+
+class TokenBucketTests {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenAsksToWaitForNextToken() {
+        TokenBucket bucket = new TokenBucket(SECOND / 10, 5, 0);     //  10 por segundo, rajada de 5
+
+        for (int i = 0; i < 5; i++)
+            assertEquals(0, bucket.tryAcquire(0));
+
+        assertEquals(SECOND / 10, bucket.tryAcquire(0));
+        assertEquals(SECOND / 20, bucket.tryAcquire(SECOND / 20));
+    }
+
+    @Test
+    void refillsAtConfiguredRateUpToBurst() {
+        TokenBucket bucket = new TokenBucket(SECOND / 10, 5, 0);
+        for (int i = 0; i < 5; i++)
+            bucket.tryAcquire(0);
+
+        assertEquals(0, bucket.tryAcquire(SECOND / 10));        //  uma ficha nova a cada 100 ms
+        assertTrue(bucket.tryAcquire(SECOND / 10) > 0);
+
+        //  Parado por muito tempo, o balde volta a ter só burst fichas, nao mais
+        int allowed = 0;
+        while (bucket.tryAcquire(60 * SECOND) == 0)
+            allowed++;
+        assertEquals(5, allowed);
+    }
+
+    @Test
+    void concurrentAcquiresNeverExceedBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(SECOND, 1000, 0);
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 1000; i++)
+                    if (bucket.tryAcquire(0) == 0)
+                        allowed.incrementAndGet();
+            }));
+        }
+        start.countDown();
+        for (Thread thread : threads)
+            thread.join();
+
+        assertEquals(1000, allowed.get());
+    }
+}